@@ -0,0 +1,130 @@
+package com.example.dsl.benchmark;
+
+import com.example.Application;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量执行接口：同一脚本处理size个上下文，经过完整的HTTP和JSON处理
+ * single为逐个调用/execute，每个上下文一次请求；batch为一次/execute-batch请求
+ * 应用在随机端口上启动，客户端复用keep-alive连接，请求体预先序列化；
+ * 关闭应用日志，两种方式都不计每次请求的日志输出
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class BatchBenchmark {
+
+    @Param({"pricing.dsl", "discount.dsl"})
+    public String scriptName;
+
+    @Param({"300"})
+    public int size;
+
+    private ConfigurableApplicationContext application;
+
+    private String baseUrl;
+
+    private byte[] context;
+
+    private byte[] contexts;
+
+    @Setup
+    public void setup() throws Exception {
+        // 以命令行参数传入，优先于application.yml
+        application = new SpringApplicationBuilder(Application.class)
+                .run("--server.port=0",
+                        "--dsl.scripts-directory=" + BenchmarkScripts.SCRIPTS_PATH,
+                        "--dsl.program-cache-file=",
+                        "--logging.level.com.example=WARN",
+                        "--spring.main.banner-mode=off");
+        baseUrl = "http://localhost:" + application.getEnvironment().getProperty("local.server.port")
+                + "/api/dsl/scripts/" + scriptName;
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        Map<String, Object> variables = BenchmarkScripts.context(scriptName);
+        List<Map<String, Object>> batch = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            batch.add(variables);
+        }
+        context = objectMapper.writeValueAsBytes(variables);
+        contexts = objectMapper.writeValueAsBytes(batch);
+
+        // 预先编译，并确认两个接口都执行成功
+        for (byte[] response : new byte[][]{post("/execute", context), post("/execute-batch", contexts)}) {
+            Map<?, ?> body = objectMapper.readValue(response, Map.class);
+            if (!Boolean.TRUE.equals(body.get("success"))) {
+                throw new IllegalStateException("执行失败: " + body.get("error"));
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        application.close();
+    }
+
+    @Benchmark
+    public void single(Blackhole blackhole) throws IOException {
+        for (int i = 0; i < size; i++) {
+            blackhole.consume(post("/execute", context));
+        }
+    }
+
+    @Benchmark
+    public byte[] batch() throws IOException {
+        return post("/execute-batch", contexts);
+    }
+
+    private byte[] post(String path, byte[] body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "application/json");
+        connection.setFixedLengthStreamingMode(body.length);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body);
+        }
+        if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+            throw new IllegalStateException("请求失败: " + connection.getResponseCode() + " " + path);
+        }
+        // 读完响应体，连接才能复用
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        try (InputStream in = connection.getInputStream()) {
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                response.write(buffer, 0, n);
+            }
+        }
+        return response.toByteArray();
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.dsl.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 基准测试使用的脚本和执行上下文
+ * 脚本从dsl.scripts.path系统属性指定的目录读取，默认为工程根目录下的scripts
+ */
+final class BenchmarkScripts {
+
+    static final String SCRIPTS_PATH = System.getProperty("dsl.scripts.path", "scripts");
+
+    private BenchmarkScripts() {
+    }
+
+    static String read(String scriptName) throws IOException {
+        return new String(Files.readAllBytes(Paths.get(SCRIPTS_PATH, scriptName)), StandardCharsets.UTF_8);
+    }
+
+    // 脚本的入口函数，与DSLScriptService保持一致
+    static String entryFunction(String scriptName) {
+        switch (scriptName) {
+            case "pricing.dsl":
+                return "calculatePrice";
+            case "discount.dsl":
+                return "calculateDiscount";
+            case "logic.dsl":
+                return "logicTest";
+            default:
+                throw new IllegalArgumentException("未知的脚本: " + scriptName);
+        }
+    }
+
+    // 脚本的执行上下文，与DslController的默认测试参数一致
+    static Map<String, Object> context(String scriptName) {
+        Map<String, Object> context = new HashMap<>();
+        if (scriptName.equals("discount.dsl")) {
+            context.put("productId", "PROD001");
+            context.put("price", 100.0);
+            context.put("userId", "USER001");
+        } else if (scriptName.equals("pricing.dsl")) {
+            Map<String, Object> product = new HashMap<>();
+            product.put("id", "PROD001");
+            product.put("basePrice", 1500.0);
+            product.put("category", "electronics");
+            product.put("stock", 50);
+            product.put("season", "summer");
+            context.put("product", product);
+        }
+        return context;
+    }
+
+    /**
+     * 生成包含functions个函数的大脚本，覆盖声明、赋值、条件、循环和各类表达式
+     */
+    static String generate(int functions) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("var rate = 0.15;\n");
+        for (int i = 0; i < functions; i++) {
+            sb.append("function rule").append(i).append("(order, items) {\n")
+                    .append("    var total = 0;\n")
+                    .append("    for (item in items) {\n")
+                    .append("        total = total + ((current.price) * (current.quantity));\n")
+                    .append("    }\n")
+                    .append("    if ((order.level == \"VIP\") && (total > ").append(i * 10).append(")) {\n")
+                    .append("        total = total * (1 - rate);\n")
+                    .append("    } else if (order.region != \"region").append(i).append("\") {\n")
+                    .append("        total = total - ").append(i % 7).append(";\n")
+                    .append("    } else {\n")
+                    .append("        var fee = [1, 2, 3][").append(i % 3).append("];\n")
+                    .append("        total = total + fee;\n")
+                    .append("    }\n")
+                    .append("    return {id: \"rule").append(i).append("\", total: total, flag: !(total < 0)};\n")
+                    .append("}\n");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.dsl.benchmark;
+
+import com.example.config.DslProperties;
+import com.example.dsl.compiler.DslCompiler;
+import com.example.dsl.optimizer.AstOptimizer;
+import com.example.dsl.parser.DslParser;
+import com.example.dsl.runtime.CompiledScript;
+import com.example.dsl.runtime.DslEngine;
+import com.example.dsl.runtime.ExecutionBackend;
+import com.example.dsl.runtime.ScriptOptions;
+import com.example.dsl.runtime.columnar.ColumnBatch;
+import com.example.dsl.runtime.columnar.ColumnProgram;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按列批量执行：同一个只含算术和if/else的定价函数处理一批商品
+ * rows为逐行绑定上下文后执行，columnar为按列执行（与后端无关）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class ColumnarBenchmark {
+
+    private static final String SCRIPT = ""
+            + "function reprice(basePrice, stock, rate) {\n"
+            + "    var price = basePrice * rate;\n"
+            + "    if (stock < 10) {\n"
+            + "        price = price * 1.1;\n"
+            + "    } else if (stock > 100) {\n"
+            + "        price = price * 0.9;\n"
+            + "    }\n"
+            + "    if (price > 1000) {\n"
+            + "        price = price - 5;\n"
+            + "    }\n"
+            + "    return price;\n"
+            + "}\n";
+
+    @Param({"1000000"})
+    public int size;
+
+    @Param({"INTERPRETER", "BYTECODE"})
+    public ExecutionBackend backend;
+
+    private DslEngine engine;
+
+    private CompiledScript compiled;
+
+    private ColumnProgram program;
+
+    private ColumnBatch batch;
+
+    @Setup
+    public void setup() {
+        DslProperties properties = new DslProperties();
+        ScriptOptions options = new ScriptOptions();
+        options.setBackend(backend);
+        properties.setDefaults(options);
+        DslCompiler compiler = new DslCompiler(new DslParser(), properties, AstOptimizer.defaultOptimizer());
+        compiled = compiler.compile("reprice.dsl", SCRIPT, "reprice");
+        engine = new DslEngine();
+
+        Random random = new Random(42);
+        double[] basePrice = new double[size];
+        int[] stock = new int[size];
+        double[] rate = new double[size];
+        for (int i = 0; i < size; i++) {
+            basePrice[i] = random.nextDouble() * 2000;
+            stock[i] = random.nextInt(200);
+            rate[i] = 0.8 + random.nextDouble() * 0.4;
+        }
+        batch = new ColumnBatch(size).put("basePrice", basePrice).put("stock", stock).put("rate", rate);
+        program = compiler.compileColumnar(compiled, "reprice", batch.getIntColumns());
+    }
+
+    @Benchmark
+    public void rows(Blackhole blackhole) {
+        double[] basePrice = batch.getDoubles("basePrice");
+        int[] stock = batch.getInts("stock");
+        double[] rate = batch.getDoubles("rate");
+        Map<String, Object> context = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            context.put("basePrice", basePrice[i]);
+            context.put("stock", stock[i]);
+            context.put("rate", rate[i]);
+            blackhole.consume(engine.execute(compiled, "reprice", context));
+        }
+    }
+
+    @Benchmark
+    public ColumnBatch columnar() {
+        return engine.execute(compiled, program, batch);
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.dsl.benchmark;
+
+import com.example.config.DslProperties;
+import com.example.dsl.compiler.DslCompiler;
+import com.example.dsl.optimizer.AstOptimizer;
+import com.example.dsl.parser.BusinessDslVisitorImpl;
+import com.example.dsl.parser.DslParser;
+import com.example.dsl.runtime.CompiledScript;
+import com.example.dsl.runtime.DslEngine;
+import com.example.dsl.runtime.ExecutionBackend;
+import com.example.dsl.runtime.ScriptOptions;
+import com.example.model.DslScript;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 脚本执行
+ * treeWalking为BusinessDslVisitorImpl直接遍历解析树，作为基线；
+ * compiledNodes和compiledBytecode为DslEngine执行编译后的节点树和字节码
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ExecutionBenchmark {
+
+    @Param({"pricing.dsl", "discount.dsl", "logic.dsl"})
+    public String scriptName;
+
+    private String functionName;
+
+    private Map<String, Object> context;
+
+    private ParseTree functionBody;
+
+    private DslEngine engine;
+
+    private CompiledScript nodes;
+
+    private CompiledScript bytecode;
+
+    @Setup
+    public void setup() throws Exception {
+        String content = BenchmarkScripts.read(scriptName);
+        functionName = BenchmarkScripts.entryFunction(scriptName);
+        context = BenchmarkScripts.context(scriptName);
+
+        DslParser dslParser = new DslParser();
+        DslScript script = (DslScript) dslParser.parse(scriptName, content);
+        functionBody = (ParseTree) script.getFunction(functionName).getBody();
+
+        engine = new DslEngine();
+        nodes = compiler(dslParser, ExecutionBackend.INTERPRETER).compile(scriptName, content, "benchmark");
+        bytecode = compiler(dslParser, ExecutionBackend.BYTECODE).compile(scriptName, content, "benchmark");
+    }
+
+    private DslCompiler compiler(DslParser dslParser, ExecutionBackend backend) {
+        DslProperties properties = new DslProperties();
+        ScriptOptions options = new ScriptOptions();
+        options.setBackend(backend);
+        properties.setDefaults(options);
+        return new DslCompiler(dslParser, properties, AstOptimizer.defaultOptimizer());
+    }
+
+    @Benchmark
+    public Object treeWalking() {
+        // 访问者保存执行状态，每次执行创建新实例
+        BusinessDslVisitorImpl visitor = new BusinessDslVisitorImpl(scriptName);
+        for (Map.Entry<String, Object> entry : context.entrySet()) {
+            visitor.setVariable(entry.getKey(), entry.getValue());
+        }
+        return visitor.visit(functionBody);
+    }
+
+    @Benchmark
+    public Object compiledNodes() {
+        return engine.execute(nodes, functionName, context);
+    }
+
+    @Benchmark
+    public Object compiledBytecode() {
+        return engine.execute(bytecode, functionName, context);
+    }
+}
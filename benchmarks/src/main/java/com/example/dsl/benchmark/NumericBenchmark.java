@@ -0,0 +1,130 @@
+package com.example.dsl.benchmark;
+
+import com.example.config.DslProperties;
+import com.example.dsl.compiler.DslCompiler;
+import com.example.dsl.optimizer.AstOptimizer;
+import com.example.dsl.parser.DslParser;
+import com.example.dsl.runtime.CompiledScript;
+import com.example.dsl.runtime.DslEngine;
+import com.example.dsl.runtime.ExecutionBackend;
+import com.example.dsl.runtime.NumericMode;
+import com.example.dsl.runtime.ScriptOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 数值模式：同一段定价计算分别按double和定点数模式执行
+ * bigDecimal为相同计算用BigDecimal手写的Java实现（每步按4位小数四舍五入），作为精确计算的参照
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class NumericBenchmark {
+
+    private static final int ITEMS = 50;
+
+    private static final int SCALE = 4;
+
+    private static final String SCRIPT = ""
+            + "function total(items, rate, fee) {\n"
+            + "    var sum = 0;\n"
+            + "    for (item in items) {\n"
+            + "        var price = (current.price) * (current.quantity);\n"
+            + "        var discounted = price * rate;\n"
+            + "        sum = (sum + discounted) - (discounted / 100);\n"
+            + "    }\n"
+            + "    if (sum > 1000) {\n"
+            + "        sum = sum - fee;\n"
+            + "    }\n"
+            + "    return sum;\n"
+            + "}\n";
+
+    private Map<String, Object> context;
+
+    private List<BigDecimal[]> decimalItems;
+
+    private DslEngine engine;
+
+    private CompiledScript doubleScript;
+
+    private CompiledScript decimalScript;
+
+    @Setup
+    public void setup() {
+        List<Map<String, Object>> items = new ArrayList<>();
+        decimalItems = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            Map<String, Object> item = new HashMap<>();
+            double price = 19.99 + i * 0.37;
+            item.put("price", price);
+            item.put("quantity", 1 + i % 5);
+            items.add(item);
+            decimalItems.add(new BigDecimal[]{BigDecimal.valueOf(price), BigDecimal.valueOf(1 + i % 5)});
+        }
+        context = new HashMap<>();
+        context.put("items", items);
+        context.put("rate", 0.95);
+        context.put("fee", 12.5);
+
+        engine = new DslEngine();
+        doubleScript = compile(NumericMode.DOUBLE);
+        decimalScript = compile(NumericMode.DECIMAL);
+    }
+
+    private CompiledScript compile(NumericMode numeric) {
+        DslProperties properties = new DslProperties();
+        ScriptOptions options = new ScriptOptions();
+        options.setBackend(ExecutionBackend.INTERPRETER);
+        options.setNumeric(numeric);
+        options.setDecimalScale(SCALE);
+        options.setRoundingMode(RoundingMode.HALF_UP);
+        properties.setDefaults(options);
+        return new DslCompiler(new DslParser(), properties, AstOptimizer.defaultOptimizer())
+                .compile("numeric.dsl", SCRIPT, "numeric");
+    }
+
+    @Benchmark
+    public Object doubleMode() {
+        return engine.execute(doubleScript, "total", context);
+    }
+
+    @Benchmark
+    public Object decimalMode() {
+        return engine.execute(decimalScript, "total", context);
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimal() {
+        BigDecimal rate = BigDecimal.valueOf(0.95);
+        BigDecimal hundred = BigDecimal.valueOf(100);
+        BigDecimal sum = BigDecimal.ZERO.setScale(SCALE);
+        for (BigDecimal[] item : decimalItems) {
+            BigDecimal price = item[0].multiply(item[1]).setScale(SCALE, RoundingMode.HALF_UP);
+            BigDecimal discounted = price.multiply(rate).setScale(SCALE, RoundingMode.HALF_UP);
+            sum = sum.add(discounted).subtract(discounted.divide(hundred, SCALE, RoundingMode.HALF_UP));
+        }
+        if (sum.compareTo(BigDecimal.valueOf(1000)) > 0) {
+            sum = sum.subtract(BigDecimal.valueOf(12.5));
+        }
+        return sum;
+    }
+}
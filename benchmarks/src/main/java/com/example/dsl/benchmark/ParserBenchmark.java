@@ -0,0 +1,99 @@
+package com.example.dsl.benchmark;
+
+import com.example.config.DslProperties;
+import com.example.dsl.BusinessDslLexer;
+import com.example.dsl.BusinessDslParser;
+import com.example.dsl.parser.DslParser;
+import com.example.dsl.parser.IncrementalValidator;
+import com.example.dsl.parser.ValidationResult;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 词法分析和语法分析
+ * small为logic.dsl，large为生成的500个函数的脚本（约220KB）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ParserBenchmark {
+
+    private static final int LARGE_FUNCTIONS = 500;
+
+    @Param({"small", "large"})
+    public String size;
+
+    private String content;
+
+    // 在脚本中间插入一个字符，模拟编辑器中的一次键入
+    private String edited;
+
+    private boolean toggle;
+
+    private DslParser dslParser;
+
+    private IncrementalValidator incrementalValidator;
+
+    @Setup
+    public void setup() throws Exception {
+        content = size.equals("small") ? BenchmarkScripts.read("logic.dsl") : BenchmarkScripts.generate(LARGE_FUNCTIONS);
+        int middle = content.indexOf('\n', content.length() / 2);
+        edited = content.substring(0, middle) + " " + content.substring(middle);
+        dslParser = new DslParser();
+        incrementalValidator = new IncrementalValidator(new DslProperties());
+        incrementalValidator.validate("benchmark", content);
+    }
+
+    @Benchmark
+    public List<?> lex() {
+        return new BusinessDslLexer(CharStreams.fromString(content)).getAllTokens();
+    }
+
+    @Benchmark
+    public Object parse() {
+        return dslParser.parseProgram(content);
+    }
+
+    // 对照组：每次新建分析器，完整LL预测和默认错误策略
+    @Benchmark
+    public Object parseFullLL() {
+        BusinessDslParser parser = new BusinessDslParser(
+                new CommonTokenStream(new BusinessDslLexer(CharStreams.fromString(content))));
+        return parser.program();
+    }
+
+    @Benchmark
+    public boolean validate() {
+        return dslParser.validate(content);
+    }
+
+    // 在原脚本和修改后的脚本之间交替增量校验，每次只重新分析改动所在的语句
+    @Benchmark
+    public ValidationResult validateIncremental() {
+        toggle = !toggle;
+        return incrementalValidator.validate("benchmark", toggle ? edited : content);
+    }
+
+    // 解析并收集函数定义，即DslParser.parse的完整过程
+    @Benchmark
+    public Object parseScript() {
+        return dslParser.parse("benchmark.dsl", content);
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.dsl.benchmark;
+
+import com.example.config.DslProperties;
+import com.example.dsl.compiler.DslCompiler;
+import com.example.dsl.optimizer.AstOptimizer;
+import com.example.dsl.parser.DslParser;
+import com.example.dsl.runtime.DslEngine;
+import com.example.dsl.runtime.ExecutionBackend;
+import com.example.dsl.runtime.RuleSet;
+import com.example.dsl.runtime.ScriptOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 规则集：对同一个订单执行全部规则脚本，separate为逐个脚本执行，ruleSet为共享条件后执行
+ * 每个规则按类别、库存和用户判断折扣，规则之间的条件大量重复（不同条件不超过235个）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class RuleSetBenchmark {
+
+    @Param({"10", "100", "1000", "5000"})
+    public int rules;
+
+    @Param({"INTERPRETER", "BYTECODE"})
+    public ExecutionBackend backend;
+
+    private Map<String, Object> order;
+
+    private DslEngine engine;
+
+    private List<RuleSet.Rule> sources;
+
+    private RuleSet ruleSet;
+
+    @Setup
+    public void setup() {
+        DslProperties properties = new DslProperties();
+        properties.setMemoCacheSize(0);
+        ScriptOptions options = new ScriptOptions();
+        options.setBackend(backend);
+        properties.setDefaults(options);
+        DslCompiler compiler = new DslCompiler(new DslParser(), properties, AstOptimizer.defaultOptimizer());
+
+        sources = new ArrayList<>(rules);
+        for (int i = 0; i < rules; i++) {
+            String script = "function rule(product, userId) {\n"
+                    + "    var category = product[\"category\"];\n"
+                    + "    var stock = product[\"stock\"];\n"
+                    + "    var rate = 1;\n"
+                    + "    if ((category == \"c" + i % 20 + "\") && (stock < " + 10 * (i % 10) + ")) {\n"
+                    + "        rate = 0.9;\n"
+                    + "    }\n"
+                    + "    if (userId == \"VIP" + i % 5 + "\") {\n"
+                    + "        rate = rate * 0.95;\n"
+                    + "    }\n"
+                    + "    return rate;\n"
+                    + "}\n";
+            String name = "rule" + i + ".dsl";
+            sources.add(new RuleSet.Rule(compiler.compile(name, script, name), "rule"));
+        }
+        ruleSet = compiler.compileRuleSet(sources);
+        engine = new DslEngine();
+
+        Map<String, Object> product = new HashMap<>();
+        product.put("category", "c3");
+        product.put("stock", 25);
+        order = new HashMap<>();
+        order.put("product", product);
+        order.put("userId", "VIP1");
+    }
+
+    @Benchmark
+    public void separate(Blackhole blackhole) {
+        for (RuleSet.Rule rule : sources) {
+            blackhole.consume(engine.execute(rule.getScript(), rule.getFunctionName(), order));
+        }
+    }
+
+    @Benchmark
+    public Object ruleSet() {
+        return engine.execute(ruleSet, order);
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.dsl.benchmark;
+
+import com.example.config.DslProperties;
+import com.example.dsl.compiler.DslCompiler;
+import com.example.dsl.optimizer.AstOptimizer;
+import com.example.dsl.parser.DslParser;
+import com.example.dsl.runtime.DslBatchExecutor;
+import com.example.dsl.runtime.DslEngine;
+import com.example.dsl.runtime.DslScriptCache;
+import com.example.dsl.runtime.ExecutionBackend;
+import com.example.dsl.runtime.ScriptOptions;
+import com.example.dsl.runtime.profile.ScriptProfiler;
+import com.example.dsl.runtime.trace.TraceRecorder;
+import com.example.service.DSLScriptService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DSLScriptService.executeScript的完整路径：缓存查找、执行和结果包装
+ * 服务按Spring容器中的方式组装，不启动容器
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ScriptServiceBenchmark {
+
+    @Param({"pricing.dsl", "discount.dsl", "logic.dsl"})
+    public String scriptName;
+
+    private Map<String, Object> context;
+
+    private DslBatchExecutor batchExecutor;
+
+    private DSLScriptService scriptService;
+
+    @Setup
+    public void setup() throws Exception {
+        // 与application.yml一致，pricing.dsl和discount.dsl使用字节码后端
+        DslProperties properties = new DslProperties();
+        ScriptOptions bytecode = new ScriptOptions();
+        bytecode.setBackend(ExecutionBackend.BYTECODE);
+        properties.getScriptOptions().put("pricing.dsl", bytecode);
+        properties.getScriptOptions().put("discount.dsl", bytecode);
+        DslParser dslParser = new DslParser();
+        DslCompiler dslCompiler = new DslCompiler(dslParser, properties, AstOptimizer.defaultOptimizer());
+        DslEngine dslEngine = new DslEngine();
+        batchExecutor = new DslBatchExecutor(dslEngine, properties);
+        scriptService = new DSLScriptService(dslParser, dslCompiler, new DslScriptCache(dslCompiler),
+                dslEngine, batchExecutor, new TraceRecorder(properties), new ScriptProfiler(properties));
+        Field scriptsPath = ReflectionUtils.findField(DSLScriptService.class, "scriptsPath");
+        ReflectionUtils.makeAccessible(scriptsPath);
+        ReflectionUtils.setField(scriptsPath, scriptService, BenchmarkScripts.SCRIPTS_PATH);
+
+        context = BenchmarkScripts.context(scriptName);
+        // 预先编译，测量的是缓存命中后的执行路径
+        scriptService.executeScript(scriptName, context);
+    }
+
+    @TearDown
+    public void tearDown() {
+        batchExecutor.shutdown();
+    }
+
+    @Benchmark
+    public Object executeScript() throws Exception {
+        return scriptService.executeScript(scriptName, context);
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.dsl.benchmark;
+
+import com.example.config.DslProperties;
+import com.example.dsl.compiler.DslCompiler;
+import com.example.dsl.optimizer.AstOptimizer;
+import com.example.dsl.parser.DslParser;
+import com.example.dsl.runtime.CompiledScript;
+import com.example.dsl.runtime.DslEngine;
+import com.example.dsl.runtime.ExecutionBackend;
+import com.example.dsl.runtime.ScriptOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 比较链分派：按商品编号逐个比较的1000个分支的折扣规则
+ * optimize=false时逐个比较，作为对照；查找的编号依次轮换，包括链头、链尾和不存在的编号
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SwitchBenchmark {
+
+    private static final int BRANCHES = 1000;
+
+    @Param({"INTERPRETER", "BYTECODE"})
+    public ExecutionBackend backend;
+
+    @Param({"true", "false"})
+    public boolean optimize;
+
+    private DslEngine engine;
+
+    private CompiledScript script;
+
+    private Map<String, Object>[] contexts;
+
+    private int next;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        StringBuilder source = new StringBuilder("function discount(productId, price) {\n    var rate = 1;\n");
+        for (int i = 0; i < BRANCHES; i++) {
+            source.append(i == 0 ? "    if" : " else if").append(" (productId == \"").append(productId(i))
+                    .append("\") {\n        rate = ").append(1 - (i % 50) / 100.0).append(";\n    }");
+        }
+        source.append(" else {\n        rate = 1;\n    }\n    return price * rate;\n}\n");
+
+        DslProperties properties = new DslProperties();
+        // 纯函数的结果缓存会掩盖分派本身的开销
+        properties.setMemoCacheSize(0);
+        ScriptOptions options = new ScriptOptions();
+        options.setBackend(backend);
+        options.setOptimize(optimize);
+        properties.setDefaults(options);
+        script = new DslCompiler(new DslParser(), properties, AstOptimizer.defaultOptimizer())
+                .compile("switch.dsl", source.toString(), "switch");
+        engine = new DslEngine();
+
+        String[] keys = {productId(0), productId(BRANCHES / 2), productId(BRANCHES - 1), productId(BRANCHES + 1)};
+        contexts = new Map[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            Map<String, Object> context = new HashMap<>();
+            context.put("productId", keys[i]);
+            context.put("price", 99.9);
+            contexts[i] = context;
+        }
+    }
+
+    private static String productId(int i) {
+        return String.format("PROD%04d", i);
+    }
+
+    @Benchmark
+    public Object discount() {
+        Map<String, Object> context = contexts[next];
+        next = (next + 1) % contexts.length;
+        return engine.execute(script, "discount", context);
+    }
+}
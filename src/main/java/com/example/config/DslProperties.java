@@ -0,0 +1,64 @@
+package com.example.config;
+
+import com.example.dsl.runtime.ScriptOptions;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * DSL引擎配置
+ * dsl.defaults为所有脚本的默认选项，dsl.script-options按脚本名称覆盖
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "dsl")
+public class DslProperties {
+
+    private ScriptOptions defaults = new ScriptOptions();
+
+    private Map<String, ScriptOptions> scriptOptions = new HashMap<>();
+
+    // 批量执行线程池的并行度，不大于0时使用CPU核数
+    private int batchParallelism;
+
+    // 流式执行每批读取的记录数，决定了同时驻留内存的记录上限
+    private int streamChunkSize = 1000;
+
+    // 流式执行单行输入的字节数上限，超出的行不读入内存，按该行执行失败处理；一批记录最多占用约chunk-size倍的该值
+    private int streamMaxLineBytes = 1024 * 1024;
+
+    // 脚本目录，目录下的.dsl文件变化时自动重新加载
+    private String scriptsDirectory = "scripts";
+
+    // 文件流式任务的输入输出目录，任务只能读写该目录下的文件
+    private String jobsDirectory = "jobs";
+
+    // 执行跟踪的采样率，每N次执行跟踪一次，不大于0时只跟踪显式请求的执行
+    private int traceSampleRate;
+
+    // 脚本文件变化后等待的去抖时间，期间的后续变化合并为一次重新加载
+    private long reloadDebounceMillis = 50;
+
+    // 增量校验保留状态的编辑会话数上限
+    private int validationSessions = 64;
+
+    // 解析结果持久化缓存文件，为空时不启用
+    private String programCacheFile = "cache/programs.bin";
+
+    // 每个脚本的纯函数调用结果缓存条目数上限，不大于0时不缓存
+    private long memoCacheSize = 10000;
+
+    // 源码级剖析的采样间隔
+    private long profileSampleIntervalMicros = 1000;
+
+    // 单次剖析的最长时间，到期自动结束
+    private long profileMaxSeconds = 300;
+
+    // 获取脚本的最终选项
+    public ScriptOptions getOptions(String scriptName) {
+        return defaults.merge(scriptOptions.get(scriptName));
+    }
+}
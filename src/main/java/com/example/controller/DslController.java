@@ -1,11 +1,23 @@
 package com.example.controller;
 
+import com.example.dsl.parser.IncrementalValidator;
+import com.example.dsl.parser.ValidationResult;
+import com.example.dsl.runtime.BudgetExceededException;
+import com.example.dsl.runtime.columnar.ColumnBatch;
+import com.example.dsl.runtime.metrics.ExecutionMetrics;
+import com.example.dsl.runtime.trace.ExecutionTrace;
 import com.example.service.DSLScriptService;
+import com.example.service.StreamingJob;
+import com.example.service.StreamingJobService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.ArrayList;
@@ -20,8 +32,19 @@ import java.util.List;
 @RequestMapping("/api/dsl")
 public class DslController {
     
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     @Autowired
     private DSLScriptService scriptService;
+
+    @Autowired
+    private StreamingJobService streamingJobService;
+
+    @Autowired
+    private IncrementalValidator incrementalValidator;
+
+    @Autowired
+    private ExecutionMetrics executionMetrics;
     
     /**
      * 获取所有脚本列表
@@ -122,12 +145,14 @@ public class DslController {
     }
     
     /**
-     * 执行脚本
+     * 执行脚本，trace=true时返回执行跟踪
      */
     @PostMapping("/scripts/{scriptName}/execute")
     public ResponseEntity<Map<String, Object>> executeScript(
             @PathVariable String scriptName,
-            @RequestBody(required = false) Map<String, Object> context) {
+            @RequestBody(required = false) Map<String, Object> context,
+            @RequestParam(defaultValue = "false") boolean trace) {
+        ExecutionTrace executionTrace = trace ? new ExecutionTrace(scriptName, false) : null;
         try {
             if (context == null) {
                 context = new HashMap<>();
@@ -148,13 +173,28 @@ public class DslController {
             }
             
             log.info("执行脚本: {}, 上下文: {}", scriptName, context);
-            Object result = scriptService.executeScript(scriptName, context);
+            Object result = scriptService.executeScript(scriptName, context, executionTrace);
             log.info("执行结果: {}", result);
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("data", result);
+            if (executionTrace != null) {
+                response.put("trace", executionTrace);
+            }
             return ResponseEntity.ok(response);
+        } catch (BudgetExceededException e) {
+            // 超出执行预算是脚本本身的问题，不返回堆栈
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("code", e.getCode());
+            response.put("budget", e.getBudget());
+            response.put("limit", e.getLimit());
+            response.put("error", "执行失败: " + e.getMessage());
+            if (executionTrace != null) {
+                response.put("trace", executionTrace);
+            }
+            return ResponseEntity.ok().body(response);
         } catch (Exception e) {
             log.error("执行脚本失败: {}", scriptName, e);
             Map<String, Object> response = new HashMap<>();
@@ -172,11 +212,118 @@ public class DslController {
             if (e.getCause() != null) {
                 response.put("cause", e.getCause().getMessage());
             }
+
+            // 跟踪记录到出错为止的执行过程
+            if (executionTrace != null) {
+                response.put("trace", executionTrace);
+            }
             
             return ResponseEntity.ok().body(response); // 改用 ok() 而不是 internalServerError()
         }
     }
     
+    /**
+     * 批量执行脚本，请求体为上下文数组，结果按输入顺序返回
+     */
+    @PostMapping("/scripts/{scriptName}/execute-batch")
+    public ResponseEntity<Map<String, Object>> executeBatch(
+            @PathVariable String scriptName,
+            @RequestBody List<Map<String, Object>> contexts) {
+        try {
+            List<Map<String, Object>> results = scriptService.executeBatch(scriptName, contexts);
+            long failed = results.stream().filter(item -> !Boolean.TRUE.equals(item.get("success"))).count();
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", results);
+            response.put("total", results.size());
+            response.put("failed", failed);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("批量执行脚本失败: {}", scriptName, e);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("error", "执行失败: " + e.getMessage());
+            return ResponseEntity.ok().body(response);
+        }
+    }
+    
+    /**
+     * 按列批量执行脚本，请求体为列名到数值数组的映射，各数组长度相同
+     * 全部为整数的列按整数处理；data.result为按行顺序排列的结果数组
+     */
+    @PostMapping("/scripts/{scriptName}/execute-columnar")
+    public ResponseEntity<Map<String, Object>> executeColumnar(
+            @PathVariable String scriptName,
+            @RequestBody Map<String, List<Object>> columns) {
+        try {
+            ColumnBatch result = scriptService.executeColumnar(scriptName, ColumnBatch.fromLists(columns));
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", result.getColumns());
+            response.put("total", result.getRows());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("按列执行脚本失败: {}", scriptName, e);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("error", "执行失败: " + e.getMessage());
+            return ResponseEntity.ok().body(response);
+        }
+    }
+
+    /**
+     * 按规则集对同一个上下文（订单）执行所有已启用的脚本，各脚本中相同的条件只求值一次
+     * data为脚本名称到该脚本执行结果的映射
+     */
+    @PostMapping("/rules/execute")
+    public ResponseEntity<Map<String, Object>> executeRuleSet(@RequestBody Map<String, Object> context) {
+        try {
+            Map<String, Object> results = scriptService.executeRuleSet(context);
+            long failed = results.values().stream()
+                    .filter(item -> !Boolean.TRUE.equals(((Map<?, ?>) item).get("success"))).count();
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", results);
+            response.put("total", results.size());
+            response.put("failed", failed);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("按规则集执行失败", e);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("error", "执行失败: " + e.getMessage());
+            return ResponseEntity.ok().body(response);
+        }
+    }
+
+    /**
+     * 流式执行脚本，请求体为NDJSON，每行一个上下文，结果以NDJSON逐行返回
+     * 响应头X-Job-Id为任务ID，可通过/api/dsl/jobs/{jobId}查询进度或取消
+     */
+    @PostMapping("/scripts/{scriptName}/execute-stream")
+    public ResponseEntity<?> executeStream(@PathVariable String scriptName, HttpServletRequest request) {
+        StreamingJob job;
+        InputStream input;
+        try {
+            job = streamingJobService.createJob(scriptName, "request", null, request.getContentLengthLong());
+            input = request.getInputStream();
+        } catch (Exception e) {
+            log.error("流式执行脚本失败: {}", scriptName, e);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("error", "执行失败: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+        StreamingResponseBody body = output -> streamingJobService.run(job, input, output);
+        return ResponseEntity.ok()
+                .header("X-Job-Id", job.getId())
+                .contentType(NDJSON)
+                .body(body);
+    }
+    
     /**
      * 验证脚本语法
      */
@@ -206,6 +353,170 @@ public class DslController {
         }
     }
     
+    /**
+     * 增量验证脚本语法，返回带行列位置的诊断信息
+     * 同一编辑会话使用相同的documentId，只重新分析上次验证后改动的部分
+     */
+    @PostMapping("/scripts/validate/incremental")
+    public ResponseEntity<Map<String, Object>> validateIncremental(@RequestBody Map<String, String> request) {
+        String content = request.get("content");
+        if (content == null) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("error", "脚本内容不能为空");
+            return ResponseEntity.badRequest().body(response);
+        }
+        try {
+            ValidationResult result = incrementalValidator.validate(request.get("documentId"), content);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("valid", result.isValid());
+            response.put("diagnostics", result.getDiagnostics());
+            response.put("reparsed", result.getReparsed());
+            response.put("reused", result.getReused());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("增量验证脚本失败", e);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
+    /**
+     * 获取脚本缓存统计信息
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", scriptService.getCacheStats());
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * 开启脚本的源码级剖析，durationSeconds后自动结束（不超过dsl.profile-max-seconds）
+     */
+    @PostMapping("/scripts/{scriptName}/profile")
+    public ResponseEntity<Map<String, Object>> startProfiling(
+            @PathVariable String scriptName,
+            @RequestParam(defaultValue = "60") long durationSeconds) {
+        try {
+            scriptService.startProfiling(scriptName, durationSeconds);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "已开始剖析: " + scriptName);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("开启剖析失败: {}", scriptName, e);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    /**
+     * 获取脚本的剖析报告：按行和按函数的自身时间、总时间和内存分配，以及折叠栈
+     */
+    @GetMapping("/scripts/{scriptName}/profile")
+    public ResponseEntity<Map<String, Object>> getProfile(@PathVariable String scriptName) {
+        return profileResponse(scriptName, scriptService.getProfile(scriptName));
+    }
+
+    /**
+     * 结束脚本的剖析并返回报告
+     */
+    @DeleteMapping("/scripts/{scriptName}/profile")
+    public ResponseEntity<Map<String, Object>> stopProfiling(@PathVariable String scriptName) {
+        return profileResponse(scriptName, scriptService.stopProfiling(scriptName));
+    }
+
+    /**
+     * 获取剖析结果的折叠栈文本，weight为time（微秒）或alloc（字节），可直接生成火焰图
+     */
+    @GetMapping(value = "/scripts/{scriptName}/profile/collapsed", produces = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<String> getCollapsedProfile(@PathVariable String scriptName,
+                                                      @RequestParam(defaultValue = "time") String weight) {
+        String collapsed = scriptService.getCollapsedProfile(scriptName, weight);
+        if (collapsed == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(collapsed);
+    }
+
+    private ResponseEntity<Map<String, Object>> profileResponse(String scriptName, Map<String, Object> report) {
+        Map<String, Object> response = new HashMap<>();
+        if (report == null) {
+            response.put("success", false);
+            response.put("error", "脚本没有剖析记录: " + scriptName);
+            return ResponseEntity.status(404).body(response);
+        }
+        response.put("success", true);
+        response.put("data", report);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 获取脚本和函数的执行指标：调用次数、失败次数、延迟分位数以及编译、绑定、执行各阶段耗时
+     * 指定script时只返回该脚本
+     */
+    @GetMapping("/metrics")
+    public ResponseEntity<Map<String, Object>> getMetrics(@RequestParam(required = false) String script) {
+        Map<String, Object> response = new HashMap<>();
+        if (script == null) {
+            response.put("success", true);
+            response.put("data", executionMetrics.snapshot());
+            return ResponseEntity.ok(response);
+        }
+        Map<String, Object> metrics = executionMetrics.snapshot(script);
+        if (metrics == null) {
+            response.put("success", false);
+            response.put("error", "脚本没有执行记录: " + script);
+            return ResponseEntity.status(404).body(response);
+        }
+        response.put("success", true);
+        response.put("data", metrics);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 获取最近的执行跟踪，包括显式请求和按采样率抽取的跟踪
+     */
+    @GetMapping("/traces")
+    public ResponseEntity<Map<String, Object>> getRecentTraces() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", scriptService.getRecentTraces());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 查看脚本优化后的形式
+     */
+    @GetMapping("/scripts/{scriptName}/optimized")
+    public ResponseEntity<Map<String, Object>> getOptimizedForm(@PathVariable String scriptName) {
+        try {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", scriptService.getOptimizedForm(scriptName));
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            log.error("获取优化结果失败: {}", scriptName, e);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
     /**
      * 获取系统信息
      */
@@ -0,0 +1,105 @@
+package com.example.controller;
+
+import com.example.service.StreamingJob;
+import com.example.service.StreamingJobService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 流式执行任务API
+ * 启动文件任务，查询任务进度和取消任务
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/dsl/jobs")
+public class DslJobController {
+
+    @Autowired
+    private StreamingJobService streamingJobService;
+
+    /**
+     * 启动文件任务，请求体为{scriptName, inputPath, outputPath}，路径相对于任务目录
+     */
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> startJob(@RequestBody Map<String, String> request) {
+        try {
+            String scriptName = request.get("scriptName");
+            if (scriptName == null) {
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", false);
+                response.put("error", "脚本名称不能为空");
+                return ResponseEntity.badRequest().body(response);
+            }
+            StreamingJob job = streamingJobService.startFileJob(
+                    scriptName, request.get("inputPath"), request.get("outputPath"));
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", job.toStatus());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            log.error("启动流式任务失败: {}", request, e);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
+    /**
+     * 获取所有任务状态
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> listJobs() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", streamingJobService.listJobs());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 获取任务状态
+     */
+    @GetMapping("/{jobId}")
+    public ResponseEntity<Map<String, Object>> getJob(@PathVariable String jobId) {
+        StreamingJob job = streamingJobService.getJob(jobId);
+        Map<String, Object> response = new HashMap<>();
+        if (job == null) {
+            response.put("success", false);
+            response.put("error", "任务不存在");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+        response.put("success", true);
+        response.put("data", job.toStatus());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 取消任务，已处理的结果保留在输出中
+     */
+    @DeleteMapping("/{jobId}")
+    public ResponseEntity<Map<String, Object>> cancelJob(@PathVariable String jobId) {
+        StreamingJob job = streamingJobService.getJob(jobId);
+        Map<String, Object> response = new HashMap<>();
+        if (job == null) {
+            response.put("success", false);
+            response.put("error", "任务不存在");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+        job.cancel();
+        response.put("success", true);
+        response.put("data", job.toStatus());
+        return ResponseEntity.ok(response);
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.dsl.ast;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 数组字面量
+ */
+@Getter
+public class ArrayLiteral extends Expression {
+    private final List<Expression> elements;
+
+    public ArrayLiteral(int line, List<Expression> elements) {
+        super(line);
+        this.elements = elements;
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitArray(this);
+    }
+}
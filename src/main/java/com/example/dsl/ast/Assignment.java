@@ -0,0 +1,23 @@
+package com.example.dsl.ast;
+
+import lombok.Getter;
+
+/**
+ * 赋值：name = value;
+ */
+@Getter
+public class Assignment extends Statement {
+    private final String name;
+    private final Expression value;
+
+    public Assignment(int line, String name, Expression value) {
+        super(line);
+        this.name = name;
+        this.value = value;
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitAssignment(this);
+    }
+}
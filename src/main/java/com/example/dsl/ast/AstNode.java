@@ -0,0 +1,19 @@
+package com.example.dsl.ast;
+
+import lombok.Getter;
+
+/**
+ * AST节点基类
+ * 由解析树构建，不再持有词法符号流和解析器
+ */
+@Getter
+public abstract class AstNode {
+    // 源码行号
+    private final int line;
+
+    protected AstNode(int line) {
+        this.line = line;
+    }
+
+    public abstract <R> R accept(AstVisitor<R> visitor);
+}
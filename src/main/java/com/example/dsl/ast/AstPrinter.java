@@ -0,0 +1,224 @@
+package com.example.dsl.ast;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 把AST输出为DSL源码形式，用于查看优化结果
+ * 二元运算及其非原子操作数统一加括号，避免受语法优先级影响
+ */
+public class AstPrinter implements AstVisitor<String> {
+
+    private static final String INDENT = "    ";
+
+    private int depth;
+
+    public static String print(Program program) {
+        AstPrinter printer = new AstPrinter();
+        StringBuilder sb = new StringBuilder();
+        for (Statement statement : program.getStatements()) {
+            sb.append(statement.accept(printer));
+        }
+        for (FunctionDeclaration function : program.getFunctions()) {
+            if (sb.length() > 0) {
+                sb.append('\n');
+            }
+            sb.append(function.accept(printer));
+        }
+        return sb.toString();
+    }
+
+    public static String print(Expression expression) {
+        return expression.accept(new AstPrinter());
+    }
+
+    // ========== 表达式 ========== //
+    @Override
+    public String visitLiteral(Literal node) {
+        return literal(node.getValue());
+    }
+
+    private static String literal(Object value) {
+        if (value instanceof String) {
+            return "\"" + ((String) value).replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+        }
+        if (value instanceof List) {
+            StringBuilder sb = new StringBuilder("[");
+            for (Object element : (List<?>) value) {
+                if (sb.length() > 1) {
+                    sb.append(", ");
+                }
+                sb.append(literal(element));
+            }
+            return sb.append(']').toString();
+        }
+        if (value instanceof Map) {
+            StringBuilder sb = new StringBuilder("{");
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (sb.length() > 1) {
+                    sb.append(", ");
+                }
+                sb.append(literal(String.valueOf(entry.getKey()))).append(": ").append(literal(entry.getValue()));
+            }
+            return sb.append('}').toString();
+        }
+        return String.valueOf(value);
+    }
+
+    @Override
+    public String visitIdentifier(Identifier node) {
+        return node.getName();
+    }
+
+    @Override
+    public String visitBinary(BinaryExpression node) {
+        return "(" + operand(node.getLeft()) + " " + node.getOperator().getSymbol() + " "
+                + operand(node.getRight()) + ")";
+    }
+
+    private String operand(Expression node) {
+        String text = node.accept(this);
+        boolean atom = node instanceof Literal || node instanceof Identifier || node instanceof BinaryExpression
+                || node instanceof CallExpression || node instanceof CachedExpression;
+        return atom ? text : "(" + text + ")";
+    }
+
+    @Override
+    public String visitUnary(UnaryExpression node) {
+        return node.getOperator().getSymbol() + node.getOperand().accept(this);
+    }
+
+    @Override
+    public String visitIndex(IndexExpression node) {
+        return node.getTarget().accept(this) + "[" + node.getIndex().accept(this) + "]";
+    }
+
+    @Override
+    public String visitMember(MemberExpression node) {
+        return node.getTarget().accept(this) + "." + node.getName();
+    }
+
+    @Override
+    public String visitCall(CallExpression node) {
+        return node.getName() + "(" + join(node.getArguments()) + ")";
+    }
+
+    @Override
+    public String visitArray(ArrayLiteral node) {
+        return "[" + join(node.getElements()) + "]";
+    }
+
+    @Override
+    public String visitObject(ObjectLiteral node) {
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < node.getKeys().size(); i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(literal(node.getKeys().get(i))).append(": ").append(node.getValues().get(i).accept(this));
+        }
+        return sb.append('}').toString();
+    }
+
+    @Override
+    public String visitCached(CachedExpression node) {
+        return node.getTemp() + "{" + node.getExpression().accept(this) + "}";
+    }
+
+    private String join(List<Expression> expressions) {
+        StringBuilder sb = new StringBuilder();
+        for (Expression expression : expressions) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(expression.accept(this));
+        }
+        return sb.toString();
+    }
+
+    // ========== 语句 ========== //
+    @Override
+    public String visitBlock(Block node) {
+        return line("{\n" + blockBody(node) + indent() + "}");
+    }
+
+    private String blockBody(Block node) {
+        depth++;
+        try {
+            StringBuilder sb = new StringBuilder();
+            for (Statement statement : node.getStatements()) {
+                sb.append(statement.accept(this));
+            }
+            return sb.toString();
+        } finally {
+            depth--;
+        }
+    }
+
+    @Override
+    public String visitVariableDeclaration(VariableDeclaration node) {
+        String initializer = node.getInitializer() != null ? " = " + node.getInitializer().accept(this) : "";
+        return line("var " + node.getName() + initializer + ";");
+    }
+
+    @Override
+    public String visitAssignment(Assignment node) {
+        return line(node.getName() + " = " + node.getValue().accept(this) + ";");
+    }
+
+    @Override
+    public String visitIf(IfStatement node) {
+        StringBuilder sb = new StringBuilder(indent()).append("if (").append(node.getCondition().accept(this))
+                .append(") {\n").append(blockBody(node.getThenBranch())).append(indent()).append('}');
+        Statement elseBranch = node.getElseBranch();
+        while (elseBranch instanceof IfStatement) {
+            IfStatement elseIf = (IfStatement) elseBranch;
+            sb.append(" else if (").append(elseIf.getCondition().accept(this)).append(") {\n")
+                    .append(blockBody(elseIf.getThenBranch())).append(indent()).append('}');
+            elseBranch = elseIf.getElseBranch();
+        }
+        if (elseBranch != null) {
+            sb.append(" else {\n").append(blockBody((Block) elseBranch)).append(indent()).append('}');
+        }
+        return sb.append('\n').toString();
+    }
+
+    @Override
+    public String visitForIn(ForInStatement node) {
+        return indent() + "for (" + node.getVariable() + " in " + node.getIterable().accept(this) + ") {\n"
+                + blockBody(node.getBody()) + indent() + "}\n";
+    }
+
+    @Override
+    public String visitReturn(ReturnStatement node) {
+        return line(node.getValue() != null ? "return " + node.getValue().accept(this) + ";" : "return;");
+    }
+
+    @Override
+    public String visitExpressionStatement(ExpressionStatement node) {
+        return line(node.getExpression().accept(this) + ";");
+    }
+
+    @Override
+    public String visitCacheDeclaration(CacheDeclaration node) {
+        return line("cache " + node.getTemp() + ";");
+    }
+
+    @Override
+    public String visitFunction(FunctionDeclaration node) {
+        return indent() + "function " + node.getName() + "(" + String.join(", ", node.getParameters()) + ") {\n"
+                + blockBody(node.getBody()) + indent() + "}\n";
+    }
+
+    private String line(String text) {
+        return indent() + text + "\n";
+    }
+
+    private String indent() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            sb.append(INDENT);
+        }
+        return sb.toString();
+    }
+}
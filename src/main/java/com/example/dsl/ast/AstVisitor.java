@@ -0,0 +1,45 @@
+package com.example.dsl.ast;
+
+/**
+ * AST访问者
+ */
+public interface AstVisitor<R> {
+
+    R visitLiteral(Literal node);
+
+    R visitIdentifier(Identifier node);
+
+    R visitBinary(BinaryExpression node);
+
+    R visitUnary(UnaryExpression node);
+
+    R visitIndex(IndexExpression node);
+
+    R visitMember(MemberExpression node);
+
+    R visitCall(CallExpression node);
+
+    R visitArray(ArrayLiteral node);
+
+    R visitObject(ObjectLiteral node);
+
+    R visitCached(CachedExpression node);
+
+    R visitBlock(Block node);
+
+    R visitVariableDeclaration(VariableDeclaration node);
+
+    R visitAssignment(Assignment node);
+
+    R visitIf(IfStatement node);
+
+    R visitForIn(ForInStatement node);
+
+    R visitReturn(ReturnStatement node);
+
+    R visitExpressionStatement(ExpressionStatement node);
+
+    R visitCacheDeclaration(CacheDeclaration node);
+
+    R visitFunction(FunctionDeclaration node);
+}
@@ -0,0 +1,25 @@
+package com.example.dsl.ast;
+
+import lombok.Getter;
+
+/**
+ * 二元表达式，包括算术、比较和逻辑运算
+ */
+@Getter
+public class BinaryExpression extends Expression {
+    private final BinaryOperator operator;
+    private final Expression left;
+    private final Expression right;
+
+    public BinaryExpression(int line, BinaryOperator operator, Expression left, Expression right) {
+        super(line);
+        this.operator = operator;
+        this.left = left;
+        this.right = right;
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitBinary(this);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.dsl.ast;
+
+import lombok.Getter;
+
+/**
+ * 二元运算符
+ */
+@Getter
+public enum BinaryOperator {
+    OR("||"),
+    AND("&&"),
+    EQ("=="),
+    NE("!="),
+    LT("<"),
+    GT(">"),
+    LE("<="),
+    GE(">="),
+    ADD("+"),
+    SUB("-"),
+    MUL("*"),
+    DIV("/"),
+    MOD("%");
+
+    private final String symbol;
+
+    BinaryOperator(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public static BinaryOperator fromSymbol(String symbol) {
+        for (BinaryOperator op : values()) {
+            if (op.symbol.equals(symbol)) {
+                return op;
+            }
+        }
+        throw new IllegalArgumentException("未知运算符: " + symbol);
+    }
+}
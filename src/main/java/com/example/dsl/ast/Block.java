@@ -0,0 +1,23 @@
+package com.example.dsl.ast;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 代码块
+ */
+@Getter
+public class Block extends Statement {
+    private final List<Statement> statements;
+
+    public Block(int line, List<Statement> statements) {
+        super(line);
+        this.statements = statements;
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitBlock(this);
+    }
+}
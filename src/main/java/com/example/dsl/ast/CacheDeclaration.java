@@ -0,0 +1,24 @@
+package com.example.dsl.ast;
+
+import lombok.Getter;
+
+/**
+ * 优化器生成的缓存变量声明，执行时把缓存置为未求值状态
+ * 临时变量名以$开头，不会与脚本中的变量冲突
+ */
+@Getter
+public class CacheDeclaration extends Statement {
+    public static final String TEMP_PREFIX = "$";
+
+    private final String temp;
+
+    public CacheDeclaration(int line, String temp) {
+        super(line);
+        this.temp = temp;
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitCacheDeclaration(this);
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.dsl.ast;
+
+import lombok.Getter;
+
+/**
+ * 优化器生成的缓存表达式：首次求值后把结果存入临时变量，之后直接读取
+ * 临时变量由同一代码块中之前的CacheDeclaration声明
+ */
+@Getter
+public class CachedExpression extends Expression {
+    private final String temp;
+    private final Expression expression;
+
+    public CachedExpression(int line, String temp, Expression expression) {
+        super(line);
+        this.temp = temp;
+        this.expression = expression;
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitCached(this);
+    }
+}
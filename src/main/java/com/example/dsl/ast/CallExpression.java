@@ -0,0 +1,25 @@
+package com.example.dsl.ast;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 函数调用
+ */
+@Getter
+public class CallExpression extends Expression {
+    private final String name;
+    private final List<Expression> arguments;
+
+    public CallExpression(int line, String name, List<Expression> arguments) {
+        super(line);
+        this.name = name;
+        this.arguments = arguments;
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitCall(this);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.dsl.ast;
+
+/**
+ * 表达式节点
+ */
+public abstract class Expression extends AstNode {
+
+    protected Expression(int line) {
+        super(line);
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.dsl.ast;
+
+import lombok.Getter;
+
+/**
+ * 表达式语句（函数调用）
+ */
+@Getter
+public class ExpressionStatement extends Statement {
+    private final Expression expression;
+
+    public ExpressionStatement(int line, Expression expression) {
+        super(line);
+        this.expression = expression;
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitExpressionStatement(this);
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.dsl.ast;
+
+import lombok.Getter;
+
+/**
+ * 循环：for (variable in iterable) body
+ * 循环变量为下标（列表）或键（对象），当前元素通过current访问
+ */
+@Getter
+public class ForInStatement extends Statement {
+    // 当前元素的隐式变量名
+    public static final String CURRENT = "current";
+
+    private final String variable;
+    private final Expression iterable;
+    private final Block body;
+
+    public ForInStatement(int line, String variable, Expression iterable, Block body) {
+        super(line);
+        this.variable = variable;
+        this.iterable = iterable;
+        this.body = body;
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitForIn(this);
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.dsl.ast;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 函数声明
+ */
+@Getter
+public class FunctionDeclaration extends AstNode {
+    private final String name;
+    private final List<String> parameters;
+    private final Block body;
+
+    public FunctionDeclaration(int line, String name, List<String> parameters, Block body) {
+        super(line);
+        this.name = name;
+        this.parameters = parameters;
+        this.body = body;
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitFunction(this);
+    }
+}
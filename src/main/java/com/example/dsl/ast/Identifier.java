@@ -0,0 +1,21 @@
+package com.example.dsl.ast;
+
+import lombok.Getter;
+
+/**
+ * 变量引用
+ */
+@Getter
+public class Identifier extends Expression {
+    private final String name;
+
+    public Identifier(int line, String name) {
+        super(line);
+        this.name = name;
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitIdentifier(this);
+    }
+}
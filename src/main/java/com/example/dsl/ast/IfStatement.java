@@ -0,0 +1,25 @@
+package com.example.dsl.ast;
+
+import lombok.Getter;
+
+/**
+ * 条件语句，elseBranch为Block、IfStatement或null
+ */
+@Getter
+public class IfStatement extends Statement {
+    private final Expression condition;
+    private final Block thenBranch;
+    private final Statement elseBranch;
+
+    public IfStatement(int line, Expression condition, Block thenBranch, Statement elseBranch) {
+        super(line);
+        this.condition = condition;
+        this.thenBranch = thenBranch;
+        this.elseBranch = elseBranch;
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitIf(this);
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.dsl.ast;
+
+import lombok.Getter;
+
+/**
+ * 下标访问：target[index]
+ */
+@Getter
+public class IndexExpression extends Expression {
+    private final Expression target;
+    private final Expression index;
+
+    public IndexExpression(int line, Expression target, Expression index) {
+        super(line);
+        this.target = target;
+        this.index = index;
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitIndex(this);
+    }
+}
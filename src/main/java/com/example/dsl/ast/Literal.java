@@ -0,0 +1,21 @@
+package com.example.dsl.ast;
+
+import lombok.Getter;
+
+/**
+ * 字面量：数字、字符串、布尔值、null
+ */
+@Getter
+public class Literal extends Expression {
+    private final Object value;
+
+    public Literal(int line, Object value) {
+        super(line);
+        this.value = value;
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitLiteral(this);
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.dsl.ast;
+
+import lombok.Getter;
+
+/**
+ * 成员访问：target.name
+ */
+@Getter
+public class MemberExpression extends Expression {
+    private final Expression target;
+    private final String name;
+
+    public MemberExpression(int line, Expression target, String name) {
+        super(line);
+        this.target = target;
+        this.name = name;
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitMember(this);
+    }
+}
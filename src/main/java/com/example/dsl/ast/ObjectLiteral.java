@@ -0,0 +1,25 @@
+package com.example.dsl.ast;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 对象字面量，keys与values一一对应
+ */
+@Getter
+public class ObjectLiteral extends Expression {
+    private final List<String> keys;
+    private final List<Expression> values;
+
+    public ObjectLiteral(int line, List<String> keys, List<Expression> values) {
+        super(line);
+        this.keys = keys;
+        this.values = values;
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitObject(this);
+    }
+}
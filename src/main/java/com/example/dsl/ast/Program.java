@@ -0,0 +1,17 @@
+package com.example.dsl.ast;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 整个脚本：函数声明和顶层语句
+ */
+@Getter
+@RequiredArgsConstructor
+public class Program {
+    private final List<FunctionDeclaration> functions;
+    // 顶层语句，执行函数前在全局作用域中执行
+    private final List<Statement> statements;
+}
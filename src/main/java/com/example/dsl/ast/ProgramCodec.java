@@ -0,0 +1,489 @@
+package com.example.dsl.ast;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * AST的二进制编码，用于持久化解析结果
+ * 节点以一个字节的类型标记开头，依次写出行号和各字段；列表先写元素个数，可为空的字段用NULL标记
+ */
+public final class ProgramCodec {
+
+    // AST结构或编码方式变化时递增，旧版本的编码不再读取
+    public static final int VERSION = 1;
+
+    private static final byte NULL = 0;
+    private static final byte LITERAL = 1;
+    private static final byte IDENTIFIER = 2;
+    private static final byte BINARY = 3;
+    private static final byte UNARY = 4;
+    private static final byte INDEX = 5;
+    private static final byte MEMBER = 6;
+    private static final byte CALL = 7;
+    private static final byte ARRAY = 8;
+    private static final byte OBJECT = 9;
+    private static final byte CACHED = 10;
+    private static final byte BLOCK = 11;
+    private static final byte VARIABLE = 12;
+    private static final byte ASSIGNMENT = 13;
+    private static final byte IF = 14;
+    private static final byte FOR_IN = 15;
+    private static final byte RETURN = 16;
+    private static final byte EXPRESSION_STATEMENT = 17;
+    private static final byte CACHE_DECLARATION = 18;
+    private static final byte FUNCTION = 19;
+
+    // 字面量的值类型
+    private static final byte VALUE_NULL = 0;
+    private static final byte VALUE_STRING = 1;
+    private static final byte VALUE_DOUBLE = 2;
+    private static final byte VALUE_BOOLEAN = 3;
+
+    private ProgramCodec() {
+    }
+
+    public static byte[] encode(Program program) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+        Encoder encoder = new Encoder(new DataOutputStream(bytes));
+        try {
+            encoder.out.writeInt(program.getFunctions().size());
+            for (FunctionDeclaration function : program.getFunctions()) {
+                function.accept(encoder);
+            }
+            encoder.statements(program.getStatements());
+            encoder.out.flush();
+        } catch (IOException | UncheckedIOException e) {
+            throw new IllegalStateException("编码AST失败", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 从buffer的当前位置解码，数据不完整或格式错误时抛出IllegalArgumentException
+     */
+    public static Program decode(ByteBuffer buffer) {
+        Decoder decoder = new Decoder(buffer);
+        try {
+            int count = decoder.count();
+            List<FunctionDeclaration> functions = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                functions.add((FunctionDeclaration) decoder.node(FUNCTION));
+            }
+            List<Statement> statements = decoder.statements();
+            if (buffer.hasRemaining()) {
+                throw new IllegalArgumentException("AST编码末尾有多余数据");
+            }
+            return new Program(functions, statements);
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            // 数据截断或类型标记错位
+            throw new IllegalArgumentException("AST编码格式错误: " + e, e);
+        }
+    }
+
+    private static final class Encoder implements AstVisitor<Void> {
+        private final DataOutputStream out;
+
+        Encoder(DataOutputStream out) {
+            this.out = out;
+        }
+
+        private void header(byte tag, AstNode node) {
+            try {
+                out.writeByte(tag);
+                out.writeInt(node.getLine());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        // 语法错误恢复后名称可能缺失，以长度-1表示null
+        private void string(String value) {
+            try {
+                if (value == null) {
+                    out.writeInt(-1);
+                    return;
+                }
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void strings(List<String> values) {
+            writeInt(values.size());
+            values.forEach(this::string);
+        }
+
+        private void writeInt(int value) {
+            try {
+                out.writeInt(value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void optional(AstNode node) {
+            if (node == null) {
+                try {
+                    out.writeByte(NULL);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            } else {
+                node.accept(this);
+            }
+        }
+
+        private void expressions(List<Expression> expressions) {
+            writeInt(expressions.size());
+            expressions.forEach(expression -> expression.accept(this));
+        }
+
+        void statements(List<Statement> statements) {
+            writeInt(statements.size());
+            statements.forEach(statement -> statement.accept(this));
+        }
+
+        @Override
+        public Void visitLiteral(Literal node) {
+            header(LITERAL, node);
+            Object value = node.getValue();
+            try {
+                if (value == null) {
+                    out.writeByte(VALUE_NULL);
+                } else if (value instanceof String) {
+                    out.writeByte(VALUE_STRING);
+                    string((String) value);
+                } else if (value instanceof Double) {
+                    out.writeByte(VALUE_DOUBLE);
+                    out.writeDouble((Double) value);
+                } else if (value instanceof Boolean) {
+                    out.writeByte(VALUE_BOOLEAN);
+                    out.writeBoolean((Boolean) value);
+                } else {
+                    throw new IllegalArgumentException("不支持编码的字面量类型: " + value.getClass().getName());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visitIdentifier(Identifier node) {
+            header(IDENTIFIER, node);
+            string(node.getName());
+            return null;
+        }
+
+        @Override
+        public Void visitBinary(BinaryExpression node) {
+            header(BINARY, node);
+            writeInt(node.getOperator().ordinal());
+            node.getLeft().accept(this);
+            node.getRight().accept(this);
+            return null;
+        }
+
+        @Override
+        public Void visitUnary(UnaryExpression node) {
+            header(UNARY, node);
+            writeInt(node.getOperator().ordinal());
+            node.getOperand().accept(this);
+            return null;
+        }
+
+        @Override
+        public Void visitIndex(IndexExpression node) {
+            header(INDEX, node);
+            node.getTarget().accept(this);
+            node.getIndex().accept(this);
+            return null;
+        }
+
+        @Override
+        public Void visitMember(MemberExpression node) {
+            header(MEMBER, node);
+            node.getTarget().accept(this);
+            string(node.getName());
+            return null;
+        }
+
+        @Override
+        public Void visitCall(CallExpression node) {
+            header(CALL, node);
+            string(node.getName());
+            expressions(node.getArguments());
+            return null;
+        }
+
+        @Override
+        public Void visitArray(ArrayLiteral node) {
+            header(ARRAY, node);
+            expressions(node.getElements());
+            return null;
+        }
+
+        @Override
+        public Void visitObject(ObjectLiteral node) {
+            header(OBJECT, node);
+            strings(node.getKeys());
+            expressions(node.getValues());
+            return null;
+        }
+
+        @Override
+        public Void visitCached(CachedExpression node) {
+            header(CACHED, node);
+            string(node.getTemp());
+            node.getExpression().accept(this);
+            return null;
+        }
+
+        @Override
+        public Void visitBlock(Block node) {
+            header(BLOCK, node);
+            statements(node.getStatements());
+            return null;
+        }
+
+        @Override
+        public Void visitVariableDeclaration(VariableDeclaration node) {
+            header(VARIABLE, node);
+            string(node.getName());
+            optional(node.getInitializer());
+            return null;
+        }
+
+        @Override
+        public Void visitAssignment(Assignment node) {
+            header(ASSIGNMENT, node);
+            string(node.getName());
+            node.getValue().accept(this);
+            return null;
+        }
+
+        @Override
+        public Void visitIf(IfStatement node) {
+            header(IF, node);
+            node.getCondition().accept(this);
+            node.getThenBranch().accept(this);
+            optional(node.getElseBranch());
+            return null;
+        }
+
+        @Override
+        public Void visitForIn(ForInStatement node) {
+            header(FOR_IN, node);
+            string(node.getVariable());
+            node.getIterable().accept(this);
+            node.getBody().accept(this);
+            return null;
+        }
+
+        @Override
+        public Void visitReturn(ReturnStatement node) {
+            header(RETURN, node);
+            optional(node.getValue());
+            return null;
+        }
+
+        @Override
+        public Void visitExpressionStatement(ExpressionStatement node) {
+            header(EXPRESSION_STATEMENT, node);
+            node.getExpression().accept(this);
+            return null;
+        }
+
+        @Override
+        public Void visitCacheDeclaration(CacheDeclaration node) {
+            header(CACHE_DECLARATION, node);
+            string(node.getTemp());
+            return null;
+        }
+
+        @Override
+        public Void visitFunction(FunctionDeclaration node) {
+            header(FUNCTION, node);
+            string(node.getName());
+            strings(node.getParameters());
+            node.getBody().accept(this);
+            return null;
+        }
+    }
+
+    private static final class Decoder {
+        private final ByteBuffer in;
+
+        Decoder(ByteBuffer in) {
+            this.in = in;
+        }
+
+        int count() {
+            int count = in.getInt();
+            // 每个元素至少占一个字节，超过剩余长度说明数据已损坏
+            if (count < 0 || count > in.remaining()) {
+                throw new IllegalArgumentException("AST编码中的元素个数错误: " + count);
+            }
+            return count;
+        }
+
+        String string() {
+            if (in.getInt(in.position()) == -1) {
+                in.getInt();
+                return null;
+            }
+            byte[] bytes = new byte[count()];
+            in.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        List<String> strings() {
+            int count = count();
+            List<String> values = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                values.add(string());
+            }
+            return values;
+        }
+
+        List<Expression> expressions() {
+            int count = count();
+            List<Expression> expressions = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                expressions.add(expression());
+            }
+            return expressions;
+        }
+
+        List<Statement> statements() {
+            int count = count();
+            List<Statement> statements = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                statements.add(statement());
+            }
+            return statements;
+        }
+
+        Expression expression() {
+            AstNode node = node();
+            if (!(node instanceof Expression)) {
+                throw new IllegalArgumentException("AST编码中此处应为表达式");
+            }
+            return (Expression) node;
+        }
+
+        Statement statement() {
+            AstNode node = node();
+            if (!(node instanceof Statement)) {
+                throw new IllegalArgumentException("AST编码中此处应为语句");
+            }
+            return (Statement) node;
+        }
+
+        Block block() {
+            return (Block) node(BLOCK);
+        }
+
+        AstNode node(byte expected) {
+            int position = in.position();
+            if (in.get(position) != expected) {
+                throw new IllegalArgumentException("AST编码中的节点类型错误: " + in.get(position));
+            }
+            return node();
+        }
+
+        private <T extends Enum<T>> T operator(T[] values) {
+            int ordinal = in.getInt();
+            if (ordinal < 0 || ordinal >= values.length) {
+                throw new IllegalArgumentException("AST编码中的运算符错误: " + ordinal);
+            }
+            return values[ordinal];
+        }
+
+        private Object literalValue() {
+            byte type = in.get();
+            switch (type) {
+                case VALUE_NULL:
+                    return null;
+                case VALUE_STRING:
+                    return string();
+                case VALUE_DOUBLE:
+                    return in.getDouble();
+                case VALUE_BOOLEAN:
+                    return in.get() != 0;
+                default:
+                    throw new IllegalArgumentException("AST编码中的字面量类型错误: " + type);
+            }
+        }
+
+        // 可为空的节点
+        AstNode node() {
+            byte tag = in.get();
+            if (tag == NULL) {
+                return null;
+            }
+            int line = in.getInt();
+            switch (tag) {
+                case LITERAL:
+                    return new Literal(line, literalValue());
+                case IDENTIFIER:
+                    return new Identifier(line, string());
+                case BINARY:
+                    return new BinaryExpression(line, operator(BinaryOperator.values()), expression(), expression());
+                case UNARY:
+                    return new UnaryExpression(line, operator(UnaryOperator.values()), expression());
+                case INDEX:
+                    return new IndexExpression(line, expression(), expression());
+                case MEMBER:
+                    return new MemberExpression(line, expression(), string());
+                case CALL:
+                    return new CallExpression(line, string(), expressions());
+                case ARRAY:
+                    return new ArrayLiteral(line, expressions());
+                case OBJECT:
+                    return new ObjectLiteral(line, strings(), expressions());
+                case CACHED:
+                    return new CachedExpression(line, string(), expression());
+                case BLOCK:
+                    return new Block(line, statements());
+                case VARIABLE:
+                    return new VariableDeclaration(line, string(), optionalExpression());
+                case ASSIGNMENT:
+                    return new Assignment(line, string(), expression());
+                case IF:
+                    return new IfStatement(line, expression(), block(), optionalStatement());
+                case FOR_IN:
+                    return new ForInStatement(line, string(), expression(), block());
+                case RETURN:
+                    return new ReturnStatement(line, optionalExpression());
+                case EXPRESSION_STATEMENT:
+                    return new ExpressionStatement(line, expression());
+                case CACHE_DECLARATION:
+                    return new CacheDeclaration(line, string());
+                case FUNCTION:
+                    return new FunctionDeclaration(line, string(), strings(), block());
+                default:
+                    throw new IllegalArgumentException("AST编码中的节点类型错误: " + tag);
+            }
+        }
+
+        private Expression optionalExpression() {
+            return in.get(in.position()) == NULL ? (Expression) node() : expression();
+        }
+
+        private Statement optionalStatement() {
+            return in.get(in.position()) == NULL ? (Statement) node() : statement();
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.dsl.ast;
+
+import lombok.Getter;
+
+/**
+ * 返回语句，value可以为null
+ */
+@Getter
+public class ReturnStatement extends Statement {
+    private final Expression value;
+
+    public ReturnStatement(int line, Expression value) {
+        super(line);
+        this.value = value;
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitReturn(this);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.dsl.ast;
+
+/**
+ * 语句节点
+ */
+public abstract class Statement extends AstNode {
+
+    protected Statement(int line) {
+        super(line);
+    }
+}
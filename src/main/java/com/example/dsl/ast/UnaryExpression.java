@@ -0,0 +1,23 @@
+package com.example.dsl.ast;
+
+import lombok.Getter;
+
+/**
+ * 一元表达式
+ */
+@Getter
+public class UnaryExpression extends Expression {
+    private final UnaryOperator operator;
+    private final Expression operand;
+
+    public UnaryExpression(int line, UnaryOperator operator, Expression operand) {
+        super(line);
+        this.operator = operator;
+        this.operand = operand;
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitUnary(this);
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.dsl.ast;
+
+import lombok.Getter;
+
+/**
+ * 一元运算符
+ */
+@Getter
+public enum UnaryOperator {
+    NEG("-"),
+    NOT("!");
+
+    private final String symbol;
+
+    UnaryOperator(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public static UnaryOperator fromSymbol(String symbol) {
+        return "!".equals(symbol) ? NOT : NEG;
+    }
+}
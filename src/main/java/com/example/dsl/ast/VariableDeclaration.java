@@ -0,0 +1,24 @@
+package com.example.dsl.ast;
+
+import lombok.Getter;
+
+/**
+ * 变量声明：var name = initializer;
+ */
+@Getter
+public class VariableDeclaration extends Statement {
+    private final String name;
+    // 可以为null
+    private final Expression initializer;
+
+    public VariableDeclaration(int line, String name, Expression initializer) {
+        super(line);
+        this.name = name;
+        this.initializer = initializer;
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitVariableDeclaration(this);
+    }
+}
@@ -0,0 +1,655 @@
+package com.example.dsl.compiler;
+
+import com.example.dsl.ast.*;
+import com.example.dsl.runtime.CompiledDslFunction;
+import com.example.dsl.runtime.CompiledFunction;
+import com.example.dsl.runtime.SharedCondition;
+import com.example.dsl.runtime.SwitchTable;
+import com.example.dsl.runtime.builtin.Builtin;
+import com.example.dsl.runtime.builtin.BuiltinRegistry;
+import com.example.dsl.runtime.object.DslObject;
+import com.example.dsl.runtime.object.PropertyCache;
+import com.example.dsl.runtime.object.Shape;
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.Label;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 字节码后端：把函数的AST直接生成为实现CompiledDslFunction的JVM类
+ * 变量槽位映射为JVM局部变量，运算语义复用DslOperations，与解释器保持一致
+ * 内置函数调用直接调用按参数个数绑定的实现，脚本函数调用直接调用CompiledFunction
+ * 比较链与解释器一样查表分派，查到的下标经tableswitch跳转到分支；规则集中的共享条件调用SharedCondition
+ */
+class BytecodeGenerator implements AstVisitor<Void>, Opcodes {
+
+    private static final String PACKAGE = "com/example/dsl/generated/";
+    private static final String OBJECT = "java/lang/Object";
+    private static final String BOOLEAN = "java/lang/Boolean";
+    private static final String OPERATIONS = "com/example/dsl/runtime/DslOperations";
+    private static final String OPERATOR_DESC = "Lcom/example/dsl/ast/BinaryOperator;";
+    private static final String INVOKE_DESC = "(Lcom/example/dsl/runtime/DslContext;[Ljava/lang/Object;)Ljava/lang/Object;";
+
+    // JVM局部变量布局：0=this，1=globals，2=args，之后为函数槽位
+    private static final int GLOBALS = 1;
+    private static final int ARGS = 2;
+    private static final int FIRST_SLOT = 3;
+
+    private static final AtomicLong CLASS_COUNTER = new AtomicLong();
+
+    private final DslClassLoader classLoader;
+    private final Map<String, CompiledFunction> functions;
+    private final BuiltinRegistry builtins;
+    private final boolean switches;
+    // 规则集的共享条件网络，其他情况为null
+    private final ConditionNetwork network;
+
+    // 当前正在生成的方法状态
+    private String className;
+    private MethodVisitor mv;
+    private LexicalScope scope;
+    private List<Object> constants;
+    private int nextLocal;
+
+    BytecodeGenerator(DslClassLoader classLoader, Map<String, CompiledFunction> functions, BuiltinRegistry builtins,
+                      boolean switches, ConditionNetwork network) {
+        this.classLoader = classLoader;
+        this.functions = functions;
+        this.builtins = builtins;
+        this.switches = switches;
+        this.network = network;
+    }
+
+    // 为函数生成类并实例化，frameSize与解释器编译结果一致
+    CompiledDslFunction generate(FunctionDeclaration declaration, int frameSize) throws ReflectiveOperationException {
+        className = PACKAGE + sanitize(declaration.getName()) + "$" + CLASS_COUNTER.incrementAndGet();
+        constants = new ArrayList<>();
+        scope = LexicalScope.function();
+        declaration.getParameters().forEach(scope::declare);
+
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS) {
+            // 生成的代码只合并Object类型，避免加载类
+            @Override
+            protected String getCommonSuperClass(String type1, String type2) {
+                return OBJECT;
+            }
+        };
+        cw.visit(V1_8, ACC_PUBLIC | ACC_FINAL | ACC_SUPER, className, null, OBJECT,
+                new String[]{Type.getInternalName(CompiledDslFunction.class)});
+        cw.visitField(ACC_PRIVATE | ACC_FINAL, "constants", "[Ljava/lang/Object;", null, null).visitEnd();
+        generateConstructor(cw);
+        generateInvoke(cw, declaration, frameSize);
+        cw.visitEnd();
+
+        Class<?> generated = classLoader.define(className.replace('/', '.'), cw.toByteArray());
+        return (CompiledDslFunction) generated.getConstructor(Object[].class).newInstance((Object) constants.toArray());
+    }
+
+    private void generateConstructor(ClassWriter cw) {
+        MethodVisitor init = cw.visitMethod(ACC_PUBLIC, "<init>", "([Ljava/lang/Object;)V", null, null);
+        init.visitCode();
+        init.visitVarInsn(ALOAD, 0);
+        init.visitMethodInsn(INVOKESPECIAL, OBJECT, "<init>", "()V", false);
+        init.visitVarInsn(ALOAD, 0);
+        init.visitVarInsn(ALOAD, 1);
+        init.visitFieldInsn(PUTFIELD, className, "constants", "[Ljava/lang/Object;");
+        init.visitInsn(RETURN);
+        init.visitMaxs(0, 0);
+        init.visitEnd();
+    }
+
+    private void generateInvoke(ClassWriter cw, FunctionDeclaration declaration, int frameSize) {
+        mv = cw.visitMethod(ACC_PUBLIC, "invoke", INVOKE_DESC, null, null);
+        mv.visitCode();
+
+        // 参数从args中取，缺少的参数为null
+        List<String> parameters = declaration.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            Label missing = new Label();
+            Label done = new Label();
+            mv.visitVarInsn(ALOAD, ARGS);
+            mv.visitInsn(ARRAYLENGTH);
+            pushInt(i);
+            mv.visitJumpInsn(IF_ICMPLE, missing);
+            mv.visitVarInsn(ALOAD, ARGS);
+            pushInt(i);
+            mv.visitInsn(AALOAD);
+            mv.visitJumpInsn(GOTO, done);
+            mv.visitLabel(missing);
+            mv.visitInsn(ACONST_NULL);
+            mv.visitLabel(done);
+            mv.visitVarInsn(ASTORE, FIRST_SLOT + i);
+        }
+
+        // 其余局部变量初始化为null，保证任何路径上读取都有定义
+        for (int slot = parameters.size(); slot < frameSize; slot++) {
+            mv.visitInsn(ACONST_NULL);
+            mv.visitVarInsn(ASTORE, FIRST_SLOT + slot);
+        }
+        nextLocal = FIRST_SLOT + frameSize;
+
+        declaration.getBody().accept(this);
+        // 没有return时返回null
+        mv.visitInsn(ACONST_NULL);
+        mv.visitInsn(ARETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    // ========== 表达式 ========== //
+    @Override
+    public Void visitLiteral(Literal node) {
+        Object value = node.getValue();
+        if (value == null) {
+            mv.visitInsn(ACONST_NULL);
+        } else if (value instanceof String) {
+            mv.visitLdcInsn(value);
+        } else if (value instanceof Boolean) {
+            pushBoolean((Boolean) value);
+        } else {
+            pushConstant(value);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitIdentifier(Identifier node) {
+        int slot = scope.lookup(node.getName());
+        if (slot >= 0) {
+            mv.visitVarInsn(ALOAD, FIRST_SLOT + slot);
+        } else {
+            mv.visitVarInsn(ALOAD, GLOBALS);
+            mv.visitLdcInsn(node.getName());
+            mv.visitMethodInsn(INVOKEVIRTUAL, "com/example/dsl/runtime/DslContext", "getVariable",
+                    "(Ljava/lang/String;)Ljava/lang/Object;", false);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitBinary(BinaryExpression node) {
+        if (sharedCondition(node)) {
+            return null;
+        }
+        BinaryOperator operator = node.getOperator();
+        if (operator == BinaryOperator.AND || operator == BinaryOperator.OR) {
+            return logical(node);
+        }
+        switch (operator) {
+            case EQ:
+            case NE:
+                node.getLeft().accept(this);
+                node.getRight().accept(this);
+                invokeOperation("equal", "(Ljava/lang/Object;Ljava/lang/Object;)Z");
+                if (operator == BinaryOperator.NE) {
+                    mv.visitInsn(ICONST_1);
+                    mv.visitInsn(IXOR);
+                }
+                boxBoolean();
+                break;
+            case LT:
+            case GT:
+            case LE:
+            case GE:
+                pushOperator(operator);
+                node.getLeft().accept(this);
+                node.getRight().accept(this);
+                invokeOperation("compare", "(" + OPERATOR_DESC + "Ljava/lang/Object;Ljava/lang/Object;)Z");
+                boxBoolean();
+                break;
+            case ADD:
+                node.getLeft().accept(this);
+                node.getRight().accept(this);
+                invokeOperation("add", "(Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Object;");
+                break;
+            case SUB:
+                node.getLeft().accept(this);
+                node.getRight().accept(this);
+                invokeOperation("subtract", "(Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Object;");
+                break;
+            default:
+                pushOperator(operator);
+                node.getLeft().accept(this);
+                node.getRight().accept(this);
+                invokeOperation("arithmetic", "(" + OPERATOR_DESC + "Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Object;");
+                break;
+        }
+        return null;
+    }
+
+    // 短路求值的&&和||，结果为Boolean
+    private Void logical(BinaryExpression node) {
+        boolean and = node.getOperator() == BinaryOperator.AND;
+        Label shortCircuit = new Label();
+        Label end = new Label();
+        node.getLeft().accept(this);
+        toBoolean();
+        mv.visitJumpInsn(and ? IFEQ : IFNE, shortCircuit);
+        node.getRight().accept(this);
+        toBoolean();
+        mv.visitJumpInsn(and ? IFEQ : IFNE, shortCircuit);
+        pushBoolean(and);
+        mv.visitJumpInsn(GOTO, end);
+        mv.visitLabel(shortCircuit);
+        pushBoolean(!and);
+        mv.visitLabel(end);
+        return null;
+    }
+
+    @Override
+    public Void visitUnary(UnaryExpression node) {
+        if (sharedCondition(node)) {
+            return null;
+        }
+        node.getOperand().accept(this);
+        if (node.getOperator() == UnaryOperator.NOT) {
+            toBoolean();
+            mv.visitInsn(ICONST_1);
+            mv.visitInsn(IXOR);
+            boxBoolean();
+        } else {
+            invokeOperation("negate", "(Ljava/lang/Object;)Ljava/lang/Object;");
+        }
+        return null;
+    }
+
+    // 节点引用共享条件时生成condition.evaluate(globals)
+    private boolean sharedCondition(Expression node) {
+        SharedCondition condition = network != null ? network.site(node) : null;
+        if (condition == null) {
+            return false;
+        }
+        String owner = Type.getInternalName(SharedCondition.class);
+        pushConstant(condition);
+        mv.visitTypeInsn(CHECKCAST, owner);
+        mv.visitVarInsn(ALOAD, GLOBALS);
+        mv.visitMethodInsn(INVOKEVIRTUAL, owner, "evaluate", "(Lcom/example/dsl/runtime/DslContext;)Ljava/lang/Object;", false);
+        return true;
+    }
+
+    @Override
+    public Void visitIndex(IndexExpression node) {
+        if (node.getIndex() instanceof Literal && ((Literal) node.getIndex()).getValue() instanceof String) {
+            readProperty(node.getTarget(), (String) ((Literal) node.getIndex()).getValue(), "index");
+            return null;
+        }
+        node.getTarget().accept(this);
+        node.getIndex().accept(this);
+        invokeOperation("index", "(Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Object;");
+        return null;
+    }
+
+    @Override
+    public Void visitMember(MemberExpression node) {
+        readProperty(node.getTarget(), node.getName(), "member");
+        return null;
+    }
+
+    // 每个访问位置一个内联缓存，作为常量传入生成的类
+    private void readProperty(Expression target, String key, String method) {
+        pushConstant(new PropertyCache(key));
+        mv.visitTypeInsn(CHECKCAST, Type.getInternalName(PropertyCache.class));
+        target.accept(this);
+        mv.visitMethodInsn(INVOKEVIRTUAL, Type.getInternalName(PropertyCache.class), method,
+                "(Ljava/lang/Object;)Ljava/lang/Object;", false);
+    }
+
+    @Override
+    public Void visitCall(CallExpression node) {
+        List<Expression> arguments = node.getArguments();
+        Builtin builtin = builtins.get(node.getName());
+        if (builtin != null) {
+            visitBuiltinCall(builtin, arguments);
+            return null;
+        }
+        CompiledFunction function = functions.get(node.getName());
+        if (function == null) {
+            // 未定义的函数仍对参数求值，结果为null
+            for (Expression argument : arguments) {
+                argument.accept(this);
+                mv.visitInsn(POP);
+            }
+            mv.visitInsn(ACONST_NULL);
+            return null;
+        }
+        pushConstant(function);
+        mv.visitTypeInsn(CHECKCAST, Type.getInternalName(CompiledFunction.class));
+        mv.visitVarInsn(ALOAD, GLOBALS);
+        pushArray(arguments);
+        mv.visitMethodInsn(INVOKEVIRTUAL, Type.getInternalName(CompiledFunction.class), "invoke", INVOKE_DESC, false);
+        return null;
+    }
+
+    // 参数不超过三个时调用对应的CallN接口，不创建参数数组
+    private void visitBuiltinCall(Builtin builtin, List<Expression> arguments) {
+        Object target;
+        Class<?> type;
+        switch (arguments.size()) {
+            case 0:
+                target = builtin.getTarget0();
+                type = Builtin.Call0.class;
+                break;
+            case 1:
+                target = builtin.getTarget1();
+                type = Builtin.Call1.class;
+                break;
+            case 2:
+                target = builtin.getTarget2();
+                type = Builtin.Call2.class;
+                break;
+            case 3:
+                target = builtin.getTarget3();
+                type = Builtin.Call3.class;
+                break;
+            default:
+                pushConstant(builtin);
+                mv.visitTypeInsn(CHECKCAST, Type.getInternalName(Builtin.class));
+                pushArray(arguments);
+                mv.visitMethodInsn(INVOKEVIRTUAL, Type.getInternalName(Builtin.class), "invoke",
+                        "([Ljava/lang/Object;)Ljava/lang/Object;", false);
+                return;
+        }
+        pushConstant(target);
+        mv.visitTypeInsn(CHECKCAST, Type.getInternalName(type));
+        StringBuilder descriptor = new StringBuilder("(");
+        for (Expression argument : arguments) {
+            argument.accept(this);
+            descriptor.append("Ljava/lang/Object;");
+        }
+        descriptor.append(")Ljava/lang/Object;");
+        mv.visitMethodInsn(INVOKEINTERFACE, Type.getInternalName(type), "call", descriptor.toString(), true);
+    }
+
+    @Override
+    public Void visitArray(ArrayLiteral node) {
+        // 元素全为常量时直接使用常量数组，newList复制后返回新的列表
+        Object[] constants = constants(node.getElements());
+        if (constants != null) {
+            pushConstant(constants);
+            mv.visitTypeInsn(CHECKCAST, "[Ljava/lang/Object;");
+        } else {
+            pushArray(node.getElements());
+        }
+        invokeOperation("newList", "([Ljava/lang/Object;)Ljava/util/List;");
+        return null;
+    }
+
+    @Override
+    public Void visitObject(ObjectLiteral node) {
+        Shape shape = Shape.forLiteral(node.getKeys().toArray(new String[0]));
+        Object[] constants = constants(node.getValues());
+        if (constants != null) {
+            // 值全为常量时复制编译期创建的模板对象
+            pushConstant(shape.instantiate(constants));
+            mv.visitTypeInsn(CHECKCAST, Type.getInternalName(DslObject.class));
+            mv.visitMethodInsn(INVOKEVIRTUAL, Type.getInternalName(DslObject.class), "copy",
+                    "()Lcom/example/dsl/runtime/object/DslObject;", false);
+            return null;
+        }
+        pushConstant(shape);
+        mv.visitTypeInsn(CHECKCAST, Type.getInternalName(Shape.class));
+        pushArray(node.getValues());
+        mv.visitMethodInsn(INVOKEVIRTUAL, Type.getInternalName(Shape.class), "instantiate",
+                "([Ljava/lang/Object;)Lcom/example/dsl/runtime/object/DslObject;", false);
+        return null;
+    }
+
+    // 表达式全为常量时返回各自的值，否则返回null
+    private static Object[] constants(List<Expression> expressions) {
+        Object[] values = new Object[expressions.size()];
+        for (int i = 0; i < values.length; i++) {
+            if (!(expressions.get(i) instanceof Literal)) {
+                return null;
+            }
+            values[i] = ((Literal) expressions.get(i)).getValue();
+        }
+        return values;
+    }
+
+    @Override
+    public Void visitCached(CachedExpression node) {
+        int local = FIRST_SLOT + scope.lookup(node.getTemp());
+        Label end = new Label();
+        mv.visitVarInsn(ALOAD, local);
+        mv.visitInsn(DUP);
+        pushUnset();
+        mv.visitJumpInsn(IF_ACMPNE, end);
+        mv.visitInsn(POP);
+        node.getExpression().accept(this);
+        mv.visitInsn(DUP);
+        mv.visitVarInsn(ASTORE, local);
+        mv.visitLabel(end);
+        return null;
+    }
+
+    // ========== 语句 ========== //
+    @Override
+    public Void visitBlock(Block node) {
+        scope = scope.nested();
+        try {
+            for (Statement statement : node.getStatements()) {
+                statement.accept(this);
+            }
+        } finally {
+            scope = scope.getParent();
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitVariableDeclaration(VariableDeclaration node) {
+        // 先生成初始值，初始值中的同名变量指向外层
+        if (node.getInitializer() != null) {
+            node.getInitializer().accept(this);
+        } else {
+            mv.visitInsn(ACONST_NULL);
+        }
+        mv.visitVarInsn(ASTORE, FIRST_SLOT + scope.declare(node.getName()));
+        return null;
+    }
+
+    @Override
+    public Void visitAssignment(Assignment node) {
+        node.getValue().accept(this);
+        mv.visitVarInsn(ASTORE, FIRST_SLOT + scope.declare(node.getName()));
+        return null;
+    }
+
+    @Override
+    public Void visitIf(IfStatement node) {
+        EqualityChain chain = switches ? EqualityChain.match(node, true) : null;
+        if (chain != null) {
+            visitSwitch(chain);
+            return null;
+        }
+        Label elseLabel = new Label();
+        Label end = new Label();
+        node.getCondition().accept(this);
+        toBoolean();
+        mv.visitJumpInsn(IFEQ, elseLabel);
+        node.getThenBranch().accept(this);
+        mv.visitJumpInsn(GOTO, end);
+        mv.visitLabel(elseLabel);
+        if (node.getElseBranch() != null) {
+            node.getElseBranch().accept(this);
+        }
+        mv.visitLabel(end);
+        return null;
+    }
+
+    // table.lookup(subject)的结果为-1时跳到otherwise
+    private void visitSwitch(EqualityChain chain) {
+        Label otherwise = new Label();
+        Label end = new Label();
+        Label[] labels = new Label[chain.getBranches().size()];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = new Label();
+        }
+        String table = Type.getInternalName(SwitchTable.class);
+        pushConstant(new SwitchTable(chain.getKeys()));
+        mv.visitTypeInsn(CHECKCAST, table);
+        chain.getSubject().accept(this);
+        mv.visitMethodInsn(INVOKEVIRTUAL, table, "lookup", "(Ljava/lang/Object;)I", false);
+        mv.visitTableSwitchInsn(0, labels.length - 1, otherwise, labels);
+        for (int i = 0; i < labels.length; i++) {
+            mv.visitLabel(labels[i]);
+            chain.getBranches().get(i).accept(this);
+            mv.visitJumpInsn(GOTO, end);
+        }
+        mv.visitLabel(otherwise);
+        if (chain.getOtherwise() != null) {
+            chain.getOtherwise().accept(this);
+        }
+        mv.visitLabel(end);
+    }
+
+    @Override
+    public Void visitForIn(ForInStatement node) {
+        mv.visitVarInsn(ALOAD, GLOBALS);
+        node.getIterable().accept(this);
+        invokeOperation("forInEntries", "(Lcom/example/dsl/runtime/DslContext;Ljava/lang/Object;)[Ljava/lang/Object;");
+        int entries = nextLocal++;
+        int position = nextLocal++;
+        mv.visitVarInsn(ASTORE, entries);
+        mv.visitInsn(ICONST_0);
+        mv.visitVarInsn(ISTORE, position);
+
+        scope = scope.nested();
+        try {
+            int variableSlot = FIRST_SLOT + scope.declare(node.getVariable());
+            int currentSlot = FIRST_SLOT + scope.declare(ForInStatement.CURRENT);
+            Label condition = new Label();
+            Label end = new Label();
+            mv.visitLabel(condition);
+            mv.visitVarInsn(ILOAD, position);
+            mv.visitVarInsn(ALOAD, entries);
+            mv.visitInsn(ARRAYLENGTH);
+            mv.visitJumpInsn(IF_ICMPGE, end);
+            // 每次迭代计入执行预算
+            mv.visitVarInsn(ALOAD, GLOBALS);
+            invokeOperation("step", "(Lcom/example/dsl/runtime/DslContext;)V");
+            loadEntry(entries, position, 0);
+            mv.visitVarInsn(ASTORE, variableSlot);
+            loadEntry(entries, position, 1);
+            mv.visitVarInsn(ASTORE, currentSlot);
+            node.getBody().accept(this);
+            mv.visitIincInsn(position, 2);
+            mv.visitJumpInsn(GOTO, condition);
+            mv.visitLabel(end);
+        } finally {
+            scope = scope.getParent();
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitReturn(ReturnStatement node) {
+        if (node.getValue() != null) {
+            node.getValue().accept(this);
+        } else {
+            mv.visitInsn(ACONST_NULL);
+        }
+        mv.visitInsn(ARETURN);
+        return null;
+    }
+
+    @Override
+    public Void visitExpressionStatement(ExpressionStatement node) {
+        node.getExpression().accept(this);
+        mv.visitInsn(POP);
+        return null;
+    }
+
+    @Override
+    public Void visitCacheDeclaration(CacheDeclaration node) {
+        pushUnset();
+        mv.visitVarInsn(ASTORE, FIRST_SLOT + scope.declare(node.getTemp()));
+        return null;
+    }
+
+    @Override
+    public Void visitFunction(FunctionDeclaration node) {
+        throw new UnsupportedOperationException("不支持嵌套函数: " + node.getName());
+    }
+
+    // ========== 辅助方法 ========== //
+    private void loadEntry(int entries, int position, int offset) {
+        mv.visitVarInsn(ALOAD, entries);
+        mv.visitVarInsn(ILOAD, position);
+        if (offset != 0) {
+            pushInt(offset);
+            mv.visitInsn(IADD);
+        }
+        mv.visitInsn(AALOAD);
+    }
+
+    private void pushArray(List<Expression> elements) {
+        pushInt(elements.size());
+        mv.visitTypeInsn(ANEWARRAY, OBJECT);
+        for (int i = 0; i < elements.size(); i++) {
+            mv.visitInsn(DUP);
+            pushInt(i);
+            elements.get(i).accept(this);
+            mv.visitInsn(AASTORE);
+        }
+    }
+
+    // 无法直接用常量池表示的值放入constants字段
+    private void pushConstant(Object value) {
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitFieldInsn(GETFIELD, className, "constants", "[Ljava/lang/Object;");
+        pushInt(constants.size());
+        mv.visitInsn(AALOAD);
+        constants.add(value);
+    }
+
+    private void pushOperator(BinaryOperator operator) {
+        mv.visitFieldInsn(GETSTATIC, "com/example/dsl/ast/BinaryOperator", operator.name(), OPERATOR_DESC);
+    }
+
+    private void pushUnset() {
+        mv.visitFieldInsn(GETSTATIC, "com/example/dsl/runtime/node/CachedNode", "UNSET", "Ljava/lang/Object;");
+    }
+
+    private void pushBoolean(boolean value) {
+        mv.visitFieldInsn(GETSTATIC, BOOLEAN, value ? "TRUE" : "FALSE", "Ljava/lang/Boolean;");
+    }
+
+    private void pushInt(int value) {
+        if (value >= -1 && value <= 5) {
+            mv.visitInsn(ICONST_0 + value);
+        } else if (value <= Byte.MAX_VALUE) {
+            mv.visitIntInsn(BIPUSH, value);
+        } else if (value <= Short.MAX_VALUE) {
+            mv.visitIntInsn(SIPUSH, value);
+        } else {
+            mv.visitLdcInsn(value);
+        }
+    }
+
+    private void toBoolean() {
+        invokeOperation("toBoolean", "(Ljava/lang/Object;)Z");
+    }
+
+    private void boxBoolean() {
+        mv.visitMethodInsn(INVOKESTATIC, BOOLEAN, "valueOf", "(Z)Ljava/lang/Boolean;", false);
+    }
+
+    private void invokeOperation(String method, String descriptor) {
+        mv.visitMethodInsn(INVOKESTATIC, OPERATIONS, method, descriptor, false);
+    }
+
+    private static String sanitize(String name) {
+        StringBuilder sb = new StringBuilder();
+        for (char c : name.toCharArray()) {
+            sb.append(Character.isJavaIdentifierPart(c) ? c : '_');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,450 @@
+package com.example.dsl.compiler;
+
+import com.example.dsl.ast.ArrayLiteral;
+import com.example.dsl.ast.Assignment;
+import com.example.dsl.ast.AstNode;
+import com.example.dsl.ast.AstVisitor;
+import com.example.dsl.ast.BinaryExpression;
+import com.example.dsl.ast.BinaryOperator;
+import com.example.dsl.ast.Block;
+import com.example.dsl.ast.CacheDeclaration;
+import com.example.dsl.ast.CachedExpression;
+import com.example.dsl.ast.CallExpression;
+import com.example.dsl.ast.Expression;
+import com.example.dsl.ast.ExpressionStatement;
+import com.example.dsl.ast.ForInStatement;
+import com.example.dsl.ast.FunctionDeclaration;
+import com.example.dsl.ast.Identifier;
+import com.example.dsl.ast.IfStatement;
+import com.example.dsl.ast.IndexExpression;
+import com.example.dsl.ast.Literal;
+import com.example.dsl.ast.MemberExpression;
+import com.example.dsl.ast.ObjectLiteral;
+import com.example.dsl.ast.ReturnStatement;
+import com.example.dsl.ast.Statement;
+import com.example.dsl.ast.UnaryExpression;
+import com.example.dsl.ast.VariableDeclaration;
+import com.example.dsl.runtime.columnar.ArithmeticOp;
+import com.example.dsl.runtime.columnar.ColumnOp;
+import com.example.dsl.runtime.columnar.ColumnProgram;
+import com.example.dsl.runtime.columnar.CompareOp;
+import com.example.dsl.runtime.columnar.ConstantOp;
+import com.example.dsl.runtime.columnar.LoadColumnOp;
+import com.example.dsl.runtime.columnar.LogicOp;
+import com.example.dsl.runtime.columnar.NegateOp;
+import com.example.dsl.runtime.columnar.NotOp;
+import com.example.dsl.runtime.columnar.SelectOp;
+import com.example.dsl.runtime.columnar.TruthOp;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 把只含算术、比较、逻辑运算和if/else的函数编译为列式程序（ColumnProgram）
+ *
+ * 参数是输入列，函数体中只能有带初始值的变量声明、赋值、if/else和return，表达式只能是数值和布尔常量、
+ * 参数和局部变量及其运算；最后必须在所有分支上返回数值或布尔值。其他写法抛出IllegalArgumentException。
+ *
+ * 每个表达式写入新的寄存器，变量名在编译期绑定到寄存器，不生成复制指令。
+ * 分支编译为掩码：两侧都求值（运算没有副作用，也不会抛出异常），分支中的赋值和返回按掩码选择新旧值，
+ * 已返回的行从之后的掩码中去除。
+ *
+ * 值的类型与逐行执行一致：运算结果为Double，int[]列的参数为Integer。
+ * 类型在编译期确定，类型不同的 == 恒为false；布尔值参与大小比较恒为false，参与算术运算时拒绝编译；
+ * 同一变量在分支中被赋予不同类型的值时也拒绝编译
+ */
+final class ColumnarCompiler implements AstVisitor<ColumnarCompiler.Value> {
+
+    // 值在编译期的类型，DOUBLE和INT在数值寄存器中，BOOLEAN在掩码寄存器中
+    enum Type {
+        DOUBLE, INT, BOOLEAN
+    }
+
+    static final class Value {
+        final Type type;
+        final int register;
+
+        Value(Type type, int register) {
+            this.type = type;
+            this.register = register;
+        }
+
+        boolean isBoolean() {
+            return type == Type.BOOLEAN;
+        }
+    }
+
+    // 当前仍在执行的行：全部行、没有行，其余取值为掩码寄存器
+    private static final int ALL = -1;
+    private static final int NONE = -2;
+
+    private final List<ColumnOp> prologue = new ArrayList<>();
+    private final List<ColumnOp> body = new ArrayList<>();
+    private int doubleRegisters;
+    private int maskRegisters;
+
+    private final Map<Double, Integer> numberConstants = new HashMap<>();
+    private final Map<Boolean, Integer> maskConstants = new HashMap<>();
+
+    // 变量名到当前值的绑定，内层作用域在前
+    private final Deque<Map<String, Value>> scopes = new ArrayDeque<>();
+
+    private int active = ALL;
+
+    // 已返回的行的结果，尚无返回时为null
+    private Value result;
+
+    static ColumnProgram compile(FunctionDeclaration declaration, Set<String> intColumns, String contentHash) {
+        return new ColumnarCompiler().compileFunction(declaration, intColumns, contentHash);
+    }
+
+    private ColumnProgram compileFunction(FunctionDeclaration declaration, Set<String> intColumns,
+                                          String contentHash) {
+        Map<String, Value> parameters = new HashMap<>();
+        Set<String> intParameters = new LinkedHashSet<>();
+        for (String parameter : declaration.getParameters()) {
+            boolean ints = intColumns.contains(parameter);
+            int register = doubleRegisters++;
+            body.add(new LoadColumnOp(parameter, register));
+            parameters.put(parameter, new Value(ints ? Type.INT : Type.DOUBLE, register));
+            if (ints) {
+                intParameters.add(parameter);
+            }
+        }
+        scopes.push(parameters);
+        declaration.getBody().accept(this);
+        if (active != NONE) {
+            throw unsupported(declaration, "函数的每个分支都必须返回值");
+        }
+        return new ColumnProgram(declaration.getName(), declaration.getParameters(),
+                Collections.unmodifiableSet(intParameters), contentHash, prologue, body,
+                doubleRegisters, maskRegisters, result.register, result.isBoolean());
+    }
+
+    // ========== 表达式 ========== //
+    @Override
+    public Value visitLiteral(Literal node) {
+        Object value = node.getValue();
+        if (value instanceof Boolean) {
+            return new Value(Type.BOOLEAN, maskConstant((Boolean) value));
+        }
+        if (value instanceof Double) {
+            return new Value(Type.DOUBLE, numberConstant((Double) value));
+        }
+        if (value instanceof Integer) {
+            return new Value(Type.INT, numberConstant(((Integer) value).doubleValue()));
+        }
+        throw unsupported(node, "常量" + value);
+    }
+
+    @Override
+    public Value visitIdentifier(Identifier node) {
+        for (Map<String, Value> scope : scopes) {
+            Value value = scope.get(node.getName());
+            if (value != null) {
+                return value;
+            }
+        }
+        throw unsupported(node, "全局变量" + node.getName());
+    }
+
+    @Override
+    public Value visitBinary(BinaryExpression node) {
+        BinaryOperator operator = node.getOperator();
+        Value left = node.getLeft().accept(this);
+        Value right = node.getRight().accept(this);
+        switch (operator) {
+            case AND:
+            case OR:
+                return logic(operator, mask(left), mask(right));
+            case EQ:
+            case NE:
+                if (left.type != right.type) {
+                    // Double.equals(Integer)和数值与布尔值的比较恒为false
+                    return new Value(Type.BOOLEAN, maskConstant(operator == BinaryOperator.NE));
+                }
+                if (left.isBoolean()) {
+                    return logic(operator, left.register, right.register);
+                }
+                return compare(operator, left, right);
+            case LT:
+            case GT:
+            case LE:
+            case GE:
+                if (left.isBoolean() || right.isBoolean()) {
+                    return new Value(Type.BOOLEAN, maskConstant(false));
+                }
+                return compare(operator, left, right);
+            default:
+                if (left.isBoolean() || right.isBoolean()) {
+                    throw unsupported(node, "布尔值的" + operator.getSymbol() + "运算");
+                }
+                int target = doubleRegisters++;
+                body.add(new ArithmeticOp(operator, target, left.register, right.register));
+                return new Value(Type.DOUBLE, target);
+        }
+    }
+
+    @Override
+    public Value visitUnary(UnaryExpression node) {
+        Value operand = node.getOperand().accept(this);
+        switch (node.getOperator()) {
+            case NOT:
+                return new Value(Type.BOOLEAN, not(mask(operand)));
+            case NEG:
+                if (operand.isBoolean()) {
+                    throw unsupported(node, "布尔值取负");
+                }
+                int target = doubleRegisters++;
+                body.add(new NegateOp(target, operand.register));
+                return new Value(Type.DOUBLE, target);
+            default:
+                throw new IllegalStateException("未知运算符: " + node.getOperator());
+        }
+    }
+
+    @Override
+    public Value visitIndex(IndexExpression node) {
+        throw unsupported(node, "下标访问");
+    }
+
+    @Override
+    public Value visitMember(MemberExpression node) {
+        throw unsupported(node, "成员访问");
+    }
+
+    @Override
+    public Value visitCall(CallExpression node) {
+        throw unsupported(node, "函数调用");
+    }
+
+    @Override
+    public Value visitArray(ArrayLiteral node) {
+        throw unsupported(node, "数组");
+    }
+
+    @Override
+    public Value visitObject(ObjectLiteral node) {
+        throw unsupported(node, "对象");
+    }
+
+    // 公共子表达式没有副作用，按原表达式求值，结果相同
+    @Override
+    public Value visitCached(CachedExpression node) {
+        return node.getExpression().accept(this);
+    }
+
+    // ========== 语句 ========== //
+    @Override
+    public Value visitBlock(Block node) {
+        scopes.push(new HashMap<>());
+        try {
+            for (Statement statement : node.getStatements()) {
+                // 所有行都已返回，其余语句不会执行
+                if (active == NONE) {
+                    break;
+                }
+                statement.accept(this);
+            }
+        } finally {
+            scopes.pop();
+        }
+        return null;
+    }
+
+    @Override
+    public Value visitVariableDeclaration(VariableDeclaration node) {
+        if (node.getInitializer() == null) {
+            throw unsupported(node, "没有初始值的变量" + node.getName());
+        }
+        write(node, node.getName(), node.getInitializer().accept(this));
+        return null;
+    }
+
+    @Override
+    public Value visitAssignment(Assignment node) {
+        write(node, node.getName(), node.getValue().accept(this));
+        return null;
+    }
+
+    @Override
+    public Value visitIf(IfStatement node) {
+        int outer = active;
+        int condition = mask(node.getCondition().accept(this));
+        // 先编译then分支，else分支中的赋值以then分支之后的值为原值，两侧的行互不相交
+        int thenStart = and(outer, condition);
+        active = thenStart;
+        if (active != NONE) {
+            node.getThenBranch().accept(this);
+        }
+        int thenEnd = active;
+        if (node.getElseBranch() == null) {
+            // then分支中没有返回时仍在执行的行不变
+            active = thenEnd == thenStart ? outer : or(thenEnd, and(outer, not(condition)));
+            return null;
+        }
+        int elseStart = and(outer, not(condition));
+        active = elseStart;
+        if (active != NONE) {
+            node.getElseBranch().accept(this);
+        }
+        active = thenEnd == thenStart && active == elseStart ? outer : or(thenEnd, active);
+        return null;
+    }
+
+    @Override
+    public Value visitForIn(ForInStatement node) {
+        throw unsupported(node, "循环");
+    }
+
+    @Override
+    public Value visitReturn(ReturnStatement node) {
+        if (node.getValue() == null) {
+            throw unsupported(node, "没有返回值的return");
+        }
+        Value value = node.getValue().accept(this);
+        if (result != null && result.isBoolean() != value.isBoolean()) {
+            throw unsupported(node, "返回值的类型不一致");
+        }
+        if (active == ALL) {
+            result = value;
+        } else {
+            Value previous = result != null ? result
+                    : value.isBoolean() ? new Value(Type.BOOLEAN, maskConstant(false))
+                    : new Value(Type.DOUBLE, numberConstant(0.0));
+            result = select(active, value, previous);
+        }
+        active = NONE;
+        return null;
+    }
+
+    // 表达式没有副作用，只检查能否编译，不保留生成的指令
+    @Override
+    public Value visitExpressionStatement(ExpressionStatement node) {
+        int mark = body.size();
+        node.getExpression().accept(this);
+        body.subList(mark, body.size()).clear();
+        return null;
+    }
+
+    @Override
+    public Value visitCacheDeclaration(CacheDeclaration node) {
+        return null;
+    }
+
+    @Override
+    public Value visitFunction(FunctionDeclaration node) {
+        throw unsupported(node, "嵌套函数");
+    }
+
+    // ========== 辅助方法 ========== //
+
+    // 声明和赋值：已可见的变量在其所在作用域中更新，否则在当前作用域中创建，与LexicalScope.declare一致
+    private void write(AstNode node, String name, Value value) {
+        for (Map<String, Value> scope : scopes) {
+            Value old = scope.get(name);
+            if (old == null) {
+                continue;
+            }
+            if (active == ALL) {
+                scope.put(name, value);
+            } else if (old.type != value.type) {
+                throw unsupported(node, "变量" + name + "在分支中被赋予不同类型的值");
+            } else {
+                scope.put(name, select(active, value, old));
+            }
+            return;
+        }
+        // 新变量只会在当前掩码之内被读取
+        scopes.peek().put(name, value);
+    }
+
+    private Value select(int condition, Value whenTrue, Value whenFalse) {
+        boolean masks = whenTrue.isBoolean();
+        int target = masks ? maskRegisters++ : doubleRegisters++;
+        body.add(new SelectOp(masks, target, condition, whenTrue.register, whenFalse.register));
+        // INT与DOUBLE只会出现在返回值中，结果列统一为double
+        return new Value(whenTrue.type == whenFalse.type ? whenTrue.type : Type.DOUBLE, target);
+    }
+
+    private Value compare(BinaryOperator operator, Value left, Value right) {
+        int target = maskRegisters++;
+        body.add(new CompareOp(operator, target, left.register, right.register));
+        return new Value(Type.BOOLEAN, target);
+    }
+
+    private Value logic(BinaryOperator operator, int left, int right) {
+        int target = maskRegisters++;
+        body.add(new LogicOp(operator, target, left, right));
+        return new Value(Type.BOOLEAN, target);
+    }
+
+    // 按DslOperations.toBoolean转换为掩码
+    private int mask(Value value) {
+        if (value.isBoolean()) {
+            return value.register;
+        }
+        int target = maskRegisters++;
+        body.add(new TruthOp(target, value.register));
+        return target;
+    }
+
+    private int not(int mask) {
+        int target = maskRegisters++;
+        body.add(new NotOp(target, mask));
+        return target;
+    }
+
+    private int and(int left, int right) {
+        if (left == NONE || right == NONE) {
+            return NONE;
+        }
+        if (left == ALL) {
+            return right;
+        }
+        if (right == ALL) {
+            return left;
+        }
+        return logic(BinaryOperator.AND, left, right).register;
+    }
+
+    private int or(int left, int right) {
+        if (left == ALL || right == ALL) {
+            return ALL;
+        }
+        if (left == NONE) {
+            return right;
+        }
+        if (right == NONE) {
+            return left;
+        }
+        return logic(BinaryOperator.OR, left, right).register;
+    }
+
+    private int numberConstant(double value) {
+        return numberConstants.computeIfAbsent(value, key -> {
+            int target = doubleRegisters++;
+            prologue.add(ConstantOp.number(target, key));
+            return target;
+        });
+    }
+
+    private int maskConstant(boolean value) {
+        return maskConstants.computeIfAbsent(value, key -> {
+            int target = maskRegisters++;
+            prologue.add(ConstantOp.mask(target, key));
+            return target;
+        });
+    }
+
+    private static IllegalArgumentException unsupported(AstNode node, String what) {
+        return new IllegalArgumentException("不支持列式执行: " + what + "（第" + node.getLine() + "行）");
+    }
+}
@@ -0,0 +1,273 @@
+package com.example.dsl.compiler;
+
+import com.example.dsl.ast.*;
+import com.example.dsl.runtime.SharedCondition;
+import com.example.dsl.runtime.builtin.Builtin;
+import com.example.dsl.runtime.builtin.BuiltinRegistry;
+import com.example.dsl.runtime.node.ExpressionNode;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * 规则集的共享条件网络：编译规则集中各脚本的入口函数时，
+ * 把只读取上下文变量的条件（比较、逻辑运算和取反）按源码形式合并为共享条件，
+ * 相同的条件无论出现在哪个脚本都只求值一次，条件中的子条件同样共享。
+ *
+ * 上下文变量指入口函数中没有被重新赋值的参数和没有在函数内声明的全局变量（脚本顶层变量除外）；
+ * 函数体顶层只声明一次、之后不再赋值的局部变量，若初始值只读取上下文变量，
+ * 在声明之后按初始值展开，如 var stock = product["stock"]; 之后的 stock < 10 与 product["stock"] < 10 相同
+ */
+final class ConditionNetwork {
+
+    private final BuiltinRegistry builtins;
+
+    // 源码形式到共享条件
+    private final Map<String, SharedCondition> conditions = new LinkedHashMap<>();
+
+    // 引用共享条件的AST节点，字节码后端按此生成调用
+    private final Map<Expression, SharedCondition> sites = new IdentityHashMap<>();
+
+    ConditionNetwork(BuiltinRegistry builtins) {
+        this.builtins = builtins;
+    }
+
+    int getConditionCount() {
+        return conditions.size();
+    }
+
+    int getSiteCount() {
+        return sites.size();
+    }
+
+    // AST节点引用的共享条件，没有时返回null
+    SharedCondition site(Expression node) {
+        return sites.get(node);
+    }
+
+    // 开始编译脚本的入口函数，scriptGlobals为脚本顶层声明或赋值的变量
+    Entry entry(FunctionDeclaration function, Set<String> scriptGlobals) {
+        return new Entry(function, scriptGlobals);
+    }
+
+    // 语句（含嵌套语句）中各变量被声明或赋值的次数
+    static Map<String, Integer> writes(List<Statement> statements) {
+        Map<String, Integer> counts = new HashMap<>();
+        statements.forEach(statement -> countWrites(statement, counts));
+        return counts;
+    }
+
+    private static void countWrites(Statement node, Map<String, Integer> counts) {
+        if (node instanceof Block) {
+            ((Block) node).getStatements().forEach(statement -> countWrites(statement, counts));
+        } else if (node instanceof VariableDeclaration) {
+            counts.merge(((VariableDeclaration) node).getName(), 1, Integer::sum);
+        } else if (node instanceof Assignment) {
+            counts.merge(((Assignment) node).getName(), 1, Integer::sum);
+        } else if (node instanceof IfStatement) {
+            IfStatement branch = (IfStatement) node;
+            countWrites(branch.getThenBranch(), counts);
+            if (branch.getElseBranch() != null) {
+                countWrites(branch.getElseBranch(), counts);
+            }
+        } else if (node instanceof ForInStatement) {
+            ForInStatement forIn = (ForInStatement) node;
+            counts.merge(forIn.getVariable(), 1, Integer::sum);
+            counts.merge(ForInStatement.CURRENT, 1, Integer::sum);
+            countWrites(forIn.getBody(), counts);
+        } else if (node instanceof CacheDeclaration) {
+            counts.merge(((CacheDeclaration) node).getTemp(), 1, Integer::sum);
+        }
+    }
+
+    private static boolean isCondition(Expression node) {
+        if (node instanceof UnaryExpression) {
+            return ((UnaryExpression) node).getOperator() == UnaryOperator.NOT;
+        }
+        if (!(node instanceof BinaryExpression)) {
+            return false;
+        }
+        switch (((BinaryExpression) node).getOperator()) {
+            case OR:
+            case AND:
+            case EQ:
+            case NE:
+            case LT:
+            case GT:
+            case LE:
+            case GE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    // 相等和不等的两侧按源码排序，a == b与b == a为同一个条件，逻辑运算中的比较同样处理
+    private static String key(Expression node) {
+        if (!(node instanceof BinaryExpression)) {
+            return AstPrinter.print(node);
+        }
+        BinaryExpression binary = (BinaryExpression) node;
+        String left = key(binary.getLeft());
+        String right = key(binary.getRight());
+        BinaryOperator operator = binary.getOperator();
+        if ((operator == BinaryOperator.EQ || operator == BinaryOperator.NE) && left.compareTo(right) > 0) {
+            String swap = left;
+            left = right;
+            right = swap;
+        }
+        return "(" + left + " " + operator.getSymbol() + " " + right + ")";
+    }
+
+    /**
+     * 一个入口函数中的上下文变量和可展开的局部变量
+     */
+    final class Entry {
+
+        // 函数内声明或赋值过的变量，包括被重新赋值的参数
+        private final Set<String> written;
+
+        // 脚本顶层变量，同名的全局变量读取到的不是上下文变量
+        private final Set<String> scriptGlobals;
+
+        // 函数体顶层只声明一次且不再赋值的局部变量
+        private final Map<String, VariableDeclaration> candidates = new HashMap<>();
+
+        // 已经编译过声明的局部变量展开后的初始值
+        private final Map<String, Expression> aliases = new HashMap<>();
+
+        private Entry(FunctionDeclaration function, Set<String> scriptGlobals) {
+            List<Statement> body = function.getBody().getStatements();
+            Map<String, Integer> writes = writes(body);
+            this.written = writes.keySet();
+            this.scriptGlobals = scriptGlobals;
+            for (Statement statement : body) {
+                if (statement instanceof VariableDeclaration) {
+                    VariableDeclaration declaration = (VariableDeclaration) statement;
+                    if (declaration.getInitializer() != null && writes.get(declaration.getName()) == 1
+                            && !function.getParameters().contains(declaration.getName())) {
+                        candidates.put(declaration.getName(), declaration);
+                    }
+                }
+            }
+        }
+
+        // 编译完局部变量声明后调用，之后该变量按初始值展开
+        void declared(VariableDeclaration node) {
+            if (candidates.get(node.getName()) == node) {
+                Expression resolved = resolve(node.getInitializer());
+                if (resolved != null) {
+                    aliases.put(node.getName(), resolved);
+                }
+            }
+        }
+
+        /**
+         * node为只读取上下文变量的条件时返回对应的共享条件，否则返回null
+         * compiler把展开后的条件编译为节点，其中的变量都按全局变量读取
+         */
+        SharedCondition condition(Expression node, Function<Expression, ExpressionNode> compiler) {
+            if (!isCondition(node)) {
+                return null;
+            }
+            Expression resolved = resolve(node);
+            if (resolved == null) {
+                return null;
+            }
+            String key = key(resolved);
+            SharedCondition condition = conditions.get(key);
+            if (condition == null) {
+                // 先编译，子条件先加入网络
+                ExpressionNode compiled = compiler.apply(resolved);
+                condition = new SharedCondition(conditions.size(), key, compiled);
+                conditions.put(key, condition);
+            }
+            sites.put(node, condition);
+            return condition;
+        }
+
+        // 把表达式展开为只读取上下文变量的形式，读取了其他变量或调用了非纯函数时返回null
+        private Expression resolve(Expression node) {
+            if (node instanceof Literal) {
+                return node;
+            }
+            if (node instanceof Identifier) {
+                String name = ((Identifier) node).getName();
+                Expression alias = aliases.get(name);
+                if (alias != null) {
+                    return alias;
+                }
+                return isContext(name) ? node : null;
+            }
+            if (node instanceof BinaryExpression) {
+                BinaryExpression binary = (BinaryExpression) node;
+                Expression left = resolve(binary.getLeft());
+                Expression right = left != null ? resolve(binary.getRight()) : null;
+                if (right == null) {
+                    return null;
+                }
+                return left == binary.getLeft() && right == binary.getRight() ? node
+                        : new BinaryExpression(node.getLine(), binary.getOperator(), left, right);
+            }
+            if (node instanceof UnaryExpression) {
+                UnaryExpression unary = (UnaryExpression) node;
+                Expression operand = resolve(unary.getOperand());
+                if (operand == null) {
+                    return null;
+                }
+                return operand == unary.getOperand() ? node
+                        : new UnaryExpression(node.getLine(), unary.getOperator(), operand);
+            }
+            if (node instanceof IndexExpression) {
+                IndexExpression index = (IndexExpression) node;
+                Expression target = resolve(index.getTarget());
+                Expression key = target != null ? resolve(index.getIndex()) : null;
+                if (key == null) {
+                    return null;
+                }
+                return target == index.getTarget() && key == index.getIndex() ? node
+                        : new IndexExpression(node.getLine(), target, key);
+            }
+            if (node instanceof MemberExpression) {
+                MemberExpression member = (MemberExpression) node;
+                Expression target = resolve(member.getTarget());
+                if (target == null) {
+                    return null;
+                }
+                return target == member.getTarget() ? node
+                        : new MemberExpression(node.getLine(), target, member.getName());
+            }
+            if (node instanceof CallExpression) {
+                CallExpression call = (CallExpression) node;
+                Builtin builtin = builtins.get(call.getName());
+                if (builtin == null || !builtin.isPure()) {
+                    return null;
+                }
+                List<Expression> arguments = new ArrayList<>(call.getArguments().size());
+                boolean changed = false;
+                for (Expression argument : call.getArguments()) {
+                    Expression resolved = resolve(argument);
+                    if (resolved == null) {
+                        return null;
+                    }
+                    changed |= resolved != argument;
+                    arguments.add(resolved);
+                }
+                return changed ? new CallExpression(node.getLine(), call.getName(), arguments) : node;
+            }
+            // 数组和对象字面量每次创建新对象，优化器缓存的表达式读取局部变量
+            return null;
+        }
+
+        // 没有被重新赋值的参数和没有在函数内声明的全局变量
+        private boolean isContext(String name) {
+            return !written.contains(name) && !scriptGlobals.contains(name);
+        }
+    }
+}
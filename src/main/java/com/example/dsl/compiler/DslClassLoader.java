@@ -0,0 +1,16 @@
+package com.example.dsl.compiler;
+
+/**
+ * 加载字节码后端生成的类
+ * 每个编译脚本使用独立的类加载器，脚本被替换后生成的类随之卸载
+ */
+final class DslClassLoader extends ClassLoader {
+
+    DslClassLoader(ClassLoader parent) {
+        super(parent);
+    }
+
+    Class<?> define(String className, byte[] bytecode) {
+        return defineClass(className, bytecode, 0, bytecode.length);
+    }
+}
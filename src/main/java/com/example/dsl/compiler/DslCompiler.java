@@ -0,0 +1,315 @@
+package com.example.dsl.compiler;
+
+import com.example.config.DslProperties;
+import com.example.dsl.ast.CacheDeclaration;
+import com.example.dsl.ast.FunctionDeclaration;
+import com.example.dsl.ast.Program;
+import com.example.dsl.optimizer.AstOptimizer;
+import com.example.dsl.parser.AstBuilder;
+import com.example.dsl.parser.DslParser;
+import com.example.dsl.runtime.CompiledFunction;
+import com.example.dsl.runtime.CompiledScript;
+import com.example.dsl.runtime.ExecutionBackend;
+import com.example.dsl.runtime.MemoCache;
+import com.example.dsl.runtime.NumericMode;
+import com.example.dsl.runtime.RuleSet;
+import com.example.dsl.runtime.ScriptOptions;
+import com.example.dsl.runtime.builtin.BuiltinRegistry;
+import com.example.dsl.runtime.columnar.ColumnProgram;
+import com.example.dsl.runtime.numeric.FixedPoint;
+import com.example.dsl.runtime.node.ProfileFunctionNode;
+import com.example.dsl.runtime.node.StatementNode;
+import com.example.model.DslFunction;
+import com.example.model.DslScript;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * DSL编译器
+ * 解析脚本、优化AST，再将每个函数体编译为不可变的可执行节点树，编译完成后丢弃解析树
+ * 脚本选项指定字节码后端时，函数额外生成JVM类，生成失败的函数仍解释执行；
+ * 定点数模式（numeric: decimal）的脚本始终解释执行
+ * 解析结果按内容哈希存入持久化缓存，内容未变化的脚本重启后不再解析
+ * 不读取全局变量、只调用纯函数的脚本函数按参数缓存调用结果（见PurityAnalysis）
+ * 只含算术、比较和if/else的函数可以另外编译为列式版本，整批记录按列执行（见ColumnarCompiler）
+ */
+@Slf4j
+@Component
+public class DslCompiler {
+
+    // 顶层语句初始化函数的名称
+    private static final String INITIALIZER = "<init>";
+
+    private final DslParser dslParser;
+
+    private final DslProperties dslProperties;
+
+    private final AstOptimizer astOptimizer;
+
+    private final ProgramCache programCache;
+
+    private final BuiltinRegistry builtinRegistry;
+
+    @Autowired
+    public DslCompiler(DslParser dslParser, DslProperties dslProperties, AstOptimizer astOptimizer,
+                       ProgramCache programCache, BuiltinRegistry builtinRegistry) {
+        this.dslParser = dslParser;
+        this.dslProperties = dslProperties;
+        this.astOptimizer = astOptimizer;
+        this.programCache = programCache;
+        this.builtinRegistry = builtinRegistry;
+    }
+
+    // 只使用引擎自带的内置函数
+    public DslCompiler(DslParser dslParser, DslProperties dslProperties, AstOptimizer astOptimizer,
+                       ProgramCache programCache) {
+        this(dslParser, dslProperties, astOptimizer, programCache, BuiltinRegistry.standard());
+    }
+
+    // 不使用持久化缓存
+    public DslCompiler(DslParser dslParser, DslProperties dslProperties, AstOptimizer astOptimizer) {
+        this(dslParser, dslProperties, astOptimizer, ProgramCache.disabled());
+    }
+
+    public CompiledScript compile(String scriptName, String content, String contentHash) {
+        return compile(scriptName, content, contentHash, dslProperties.getOptions(scriptName), Instrumentation.NONE);
+    }
+
+    /**
+     * 编译脚本，有词法或语法错误时抛出IllegalArgumentException，不按错误恢复后的结果编译
+     * 持久化缓存中已有的程序直接使用，不再检查
+     */
+    public CompiledScript compileStrict(String scriptName, String content, String contentHash) {
+        return compile(scriptName, content, contentHash, dslProperties.getOptions(scriptName), Instrumentation.NONE,
+                null, null, true);
+    }
+
+    /**
+     * 编译跟踪版本，插入跟踪节点记录执行过程
+     * 不做优化以保持与源码一致，始终解释执行，执行预算与普通版本相同
+     */
+    public CompiledScript compileTraced(String scriptName, String content, String contentHash) {
+        ScriptOptions options = instrumentedOptions(scriptName);
+        return compile(scriptName, content, contentHash, options, Instrumentation.TRACE);
+    }
+
+    /**
+     * 编译剖析版本，插入剖析节点记录正在执行的函数和行
+     * 与跟踪版本一样不做优化、始终解释执行，行号与源码一致
+     */
+    public CompiledScript compileProfiled(String scriptName, String content, String contentHash) {
+        ScriptOptions options = instrumentedOptions(scriptName);
+        return compile(scriptName, content, contentHash, options, Instrumentation.PROFILE);
+    }
+
+    /**
+     * 编译规则集：按各脚本的选项重新编译，入口函数中只读取上下文变量的条件合并为共享条件，
+     * 相同的条件在所有脚本中只求值一次（见ConditionNetwork）
+     * 定点数模式的脚本不参与共享；共享条件读取上下文变量，规则集中的脚本不缓存纯函数结果
+     */
+    public RuleSet compileRuleSet(List<RuleSet.Rule> sources) {
+        long start = System.nanoTime();
+        ConditionNetwork network = new ConditionNetwork(builtinRegistry);
+        List<RuleSet.Rule> rules = new ArrayList<>(sources.size());
+        for (RuleSet.Rule source : sources) {
+            CompiledScript script = source.getScript();
+            CompiledScript compiled = compile(script.getName(), script.getScript().getContent(),
+                    script.getContentHash(), dslProperties.getOptions(script.getName()), Instrumentation.NONE,
+                    network, source.getFunctionName(), false);
+            rules.add(new RuleSet.Rule(compiled, source.getFunctionName()));
+        }
+        log.info("编译规则集: {}个脚本, {}个共享条件, {}处引用, 耗时: {}ms", rules.size(),
+                network.getConditionCount(), network.getSiteCount(), (System.nanoTime() - start) / 1_000_000);
+        return new RuleSet(rules, network.getConditionCount(), network.getSiteCount());
+    }
+
+    /**
+     * 编译函数的列式版本，整批记录按列执行（见ColumnarCompiler）
+     * 使用脚本优化后的AST，intColumns中的参数按int[]传入，其余按double[]传入；
+     * 函数不只含算术、比较和if/else，或脚本为定点数模式时抛出IllegalArgumentException
+     */
+    public ColumnProgram compileColumnar(CompiledScript script, String functionName, Set<String> intColumns) {
+        if (script.getOptions().getNumericOrDefault() == NumericMode.DECIMAL) {
+            throw new IllegalArgumentException("不支持列式执行: 定点数模式的脚本");
+        }
+        // 同名函数以最后一次声明为准
+        FunctionDeclaration declaration = null;
+        for (FunctionDeclaration candidate : script.getProgram().getFunctions()) {
+            if (candidate.getName().equals(functionName)) {
+                declaration = candidate;
+            }
+        }
+        if (declaration == null) {
+            throw new IllegalArgumentException("函数未找到: " + functionName);
+        }
+        long start = System.nanoTime();
+        ColumnProgram program = ColumnarCompiler.compile(declaration, intColumns, script.getContentHash());
+        log.info("编译列式版本: {}.{}, {}条指令, 耗时: {}ms", script.getName(), functionName,
+                program.getInstructionCount(), (System.nanoTime() - start) / 1_000_000);
+        return program;
+    }
+
+    private CompiledScript compile(String scriptName, String content, String contentHash,
+                                   ScriptOptions options, Instrumentation instrumentation) {
+        return compile(scriptName, content, contentHash, options, instrumentation, null, null, false);
+    }
+
+    // network不为null时，entryFunction中的条件按共享条件编译
+    private CompiledScript compile(String scriptName, String content, String contentHash,
+                                   ScriptOptions options, Instrumentation instrumentation,
+                                   ConditionNetwork network, String entryFunction, boolean strict) {
+        long start = System.nanoTime();
+        Program program = parse(content, contentHash, strict);
+        if (options.isOptimizeOrDefault()) {
+            program = astOptimizer.optimize(program, options);
+        }
+        FixedPoint fixed = options.getNumericOrDefault() == NumericMode.DECIMAL
+                ? new FixedPoint(options.getDecimalScaleOrDefault(), options.getRoundingModeOrDefault())
+                : null;
+
+        // 同名函数以最后一次声明为准
+        Map<String, FunctionDeclaration> declarations = new LinkedHashMap<>();
+        for (FunctionDeclaration declaration : program.getFunctions()) {
+            declarations.put(declaration.getName(), declaration);
+        }
+
+        // 先创建所有函数，再编译函数体，以便解析相互调用
+        Map<String, CompiledFunction> functions = new LinkedHashMap<>();
+        for (FunctionDeclaration declaration : declarations.values()) {
+            functions.put(declaration.getName(),
+                    new CompiledFunction(declaration.getName(), declaration.getParameters()));
+        }
+        // 检测版本逐个比较，保留每个条件的跟踪记录
+        boolean switches = options.isOptimizeOrDefault() && instrumentation == Instrumentation.NONE;
+        NodeCompiler nodeCompiler = new NodeCompiler(functions, builtinRegistry, fixed, switches, instrumentation);
+        if (network != null && fixed != null) {
+            log.info("定点数模式的脚本不参与条件共享: {}", scriptName);
+            network = null;
+        }
+        Set<String> scriptGlobals = network != null ? ConditionNetwork.writes(program.getStatements()).keySet() : null;
+        boolean profiled = instrumentation == Instrumentation.PROFILE;
+        PurityAnalysis purity = new PurityAnalysis(builtinRegistry);
+        for (FunctionDeclaration declaration : declarations.values()) {
+            // 参数占用前几个槽位
+            LexicalScope scope = LexicalScope.function();
+            declaration.getParameters().forEach(scope::declare);
+            ConditionNetwork.Entry sharing = network != null && declaration.getName().equals(entryFunction)
+                    ? network.entry(declaration, scriptGlobals) : null;
+            StatementNode body = nodeCompiler.compile(scope, declaration.getBody(),
+                    purity.record(declaration.getName()), sharing);
+            if (profiled) {
+                body = new ProfileFunctionNode(declaration.getName(), body);
+            }
+            functions.get(declaration.getName()).setBody(body, scope.getFrameSize());
+        }
+
+        if (options.getBackendOrDefault() == ExecutionBackend.BYTECODE) {
+            if (fixed == null) {
+                generateBytecode(scriptName, declarations, functions, switches, network);
+            } else {
+                log.info("定点数模式只支持解释执行，忽略字节码后端: {}", scriptName);
+            }
+        }
+
+        // 纯函数的调用结果按参数缓存，检测版本需要每次真正执行，不缓存
+        MemoCache memoCache = null;
+        if (instrumentation == Instrumentation.NONE && network == null && dslProperties.getMemoCacheSize() > 0) {
+            Set<String> pure = purity.pureFunctions();
+            if (!pure.isEmpty()) {
+                memoCache = new MemoCache(dslProperties.getMemoCacheSize(), pure);
+                for (String name : pure) {
+                    functions.get(name).setMemoCache(memoCache);
+                }
+                log.debug("纯函数: {}, {}", scriptName, pure);
+            }
+        }
+
+        // 顶层语句编译为初始化函数，其顶层作用域中的变量作为全局变量导出
+        CompiledFunction initializer = null;
+        Map<String, Integer> globalSlots = Collections.emptyMap();
+        if (!program.getStatements().isEmpty()) {
+            LexicalScope scope = LexicalScope.function();
+            StatementNode body = nodeCompiler.compile(scope, program.getStatements());
+            if (profiled) {
+                body = new ProfileFunctionNode(INITIALIZER, body);
+            }
+            initializer = new CompiledFunction(INITIALIZER, Collections.<String>emptyList());
+            initializer.setBody(body, scope.getFrameSize());
+            globalSlots = new HashMap<>(scope.getSlots());
+            // 优化器生成的临时变量不导出
+            globalSlots.keySet().removeIf(name -> name.startsWith(CacheDeclaration.TEMP_PREFIX));
+            globalSlots = Collections.unmodifiableMap(globalSlots);
+        }
+
+        DslScript script = new DslScript();
+        script.setId(scriptName);
+        script.setName(scriptName);
+        script.setContent(content);
+        script.setCreatedAt(LocalDateTime.now());
+        script.setUpdatedAt(LocalDateTime.now());
+        script.setEnabled(true);
+        for (CompiledFunction compiled : functions.values()) {
+            DslFunction function = new DslFunction(compiled.getName());
+            compiled.getParameters().forEach(function::addParameter);
+            function.setBody(compiled);
+            script.addFunction(function);
+        }
+
+        return new CompiledScript(scriptName, contentHash, script, options, program,
+                Collections.unmodifiableMap(functions), initializer, globalSlots, memoCache,
+                System.nanoTime() - start);
+    }
+
+    // 检测版本的选项：保留执行预算，关闭优化并解释执行
+    private ScriptOptions instrumentedOptions(String scriptName) {
+        ScriptOptions options = dslProperties.getOptions(scriptName);
+        options.setBackend(ExecutionBackend.INTERPRETER);
+        options.setOptimize(false);
+        return options;
+    }
+
+    // 解析脚本为未优化的AST
+    public Program parse(String content) {
+        return new AstBuilder().build(dslParser.parseProgram(content));
+    }
+
+    // 优先从持久化缓存解码，缓存中没有时解析并写入缓存；strict为true时有语法错误即抛出异常
+    private Program parse(String content, String contentHash, boolean strict) {
+        Program program = programCache.get(contentHash);
+        if (program == null) {
+            program = strict ? new AstBuilder().build(dslParser.parseProgramStrict(content)) : parse(content);
+            programCache.put(contentHash, program);
+        }
+        return program;
+    }
+
+    public AstOptimizer getOptimizer() {
+        return astOptimizer;
+    }
+
+    // 为每个函数生成字节码，同一脚本的类共用一个类加载器
+    private void generateBytecode(String scriptName, Map<String, FunctionDeclaration> declarations,
+                                  Map<String, CompiledFunction> functions, boolean switches,
+                                  ConditionNetwork network) {
+        DslClassLoader classLoader = new DslClassLoader(DslCompiler.class.getClassLoader());
+        BytecodeGenerator generator = new BytecodeGenerator(classLoader, functions, builtinRegistry, switches, network);
+        for (FunctionDeclaration declaration : declarations.values()) {
+            CompiledFunction function = functions.get(declaration.getName());
+            try {
+                function.setBytecode(generator.generate(declaration, function.getFrameSize()));
+            } catch (Exception | LinkageError e) {
+                log.warn("生成字节码失败，使用解释执行: {}.{}, 原因: {}", scriptName, declaration.getName(), e.getMessage());
+            }
+        }
+    }
+}
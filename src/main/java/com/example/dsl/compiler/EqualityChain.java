@@ -0,0 +1,99 @@
+package com.example.dsl.compiler;
+
+import com.example.dsl.ast.BinaryExpression;
+import com.example.dsl.ast.BinaryOperator;
+import com.example.dsl.ast.Block;
+import com.example.dsl.ast.Expression;
+import com.example.dsl.ast.Identifier;
+import com.example.dsl.ast.IfStatement;
+import com.example.dsl.ast.Literal;
+import com.example.dsl.ast.Statement;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 同一变量与常量逐个比较的if/else if链，如
+ * if (productId == "PROD001") {...} else if (productId == "PROD002") {...} else {...}
+ * 编译为按值查表分派（SwitchTable），不再逐个比较。
+ *
+ * 比较双方都是变量和常量，没有副作用，变量只读取一次与原语义一致；
+ * 相等判断为equals，与HashMap查找一致。定点数模式下数值按大小比较，只匹配非数值常量
+ */
+@Getter
+final class EqualityChain {
+
+    // 分支数少于该值时逐个比较更快
+    static final int MIN_CASES = 4;
+
+    // 链中比较的变量
+    private final Identifier subject;
+
+    // 各分支的常量，可以重复，重复时前面的分支优先
+    private final List<Object> keys = new ArrayList<>();
+
+    private final List<Block> branches = new ArrayList<>();
+
+    // 都不相等时执行的语句，可以是不符合条件的else if，可以为null
+    private Statement otherwise;
+
+    private EqualityChain(Identifier subject) {
+        this.subject = subject;
+    }
+
+    /**
+     * 识别从node开始的比较链，分支数不足MIN_CASES时返回null
+     * numberKeys为false时不匹配数值常量
+     */
+    static EqualityChain match(IfStatement node, boolean numberKeys) {
+        Identifier subject = subject(node.getCondition(), null, numberKeys);
+        if (subject == null) {
+            return null;
+        }
+        EqualityChain chain = new EqualityChain(subject);
+        Statement current = node;
+        while (current instanceof IfStatement) {
+            IfStatement branch = (IfStatement) current;
+            if (subject(branch.getCondition(), subject.getName(), numberKeys) == null) {
+                break;
+            }
+            chain.keys.add(key((BinaryExpression) branch.getCondition()));
+            chain.branches.add(branch.getThenBranch());
+            current = branch.getElseBranch();
+        }
+        if (chain.branches.size() < MIN_CASES) {
+            return null;
+        }
+        chain.otherwise = current;
+        return chain;
+    }
+
+    // 条件为“变量 == 常量”或“常量 == 变量”时返回变量，name不为null时变量名必须相同
+    private static Identifier subject(Expression condition, String name, boolean numberKeys) {
+        if (!(condition instanceof BinaryExpression)) {
+            return null;
+        }
+        BinaryExpression binary = (BinaryExpression) condition;
+        if (binary.getOperator() != BinaryOperator.EQ) {
+            return null;
+        }
+        Expression variable = binary.getLeft() instanceof Identifier ? binary.getLeft() : binary.getRight();
+        Expression constant = variable == binary.getLeft() ? binary.getRight() : binary.getLeft();
+        if (!(variable instanceof Identifier) || !(constant instanceof Literal)) {
+            return null;
+        }
+        if (name != null && !name.equals(((Identifier) variable).getName())) {
+            return null;
+        }
+        Object value = ((Literal) constant).getValue();
+        boolean supported = value == null || value instanceof String || value instanceof Boolean
+                || (numberKeys && value instanceof Double);
+        return supported ? (Identifier) variable : null;
+    }
+
+    private static Object key(BinaryExpression condition) {
+        Expression constant = condition.getLeft() instanceof Literal ? condition.getLeft() : condition.getRight();
+        return ((Literal) constant).getValue();
+    }
+}
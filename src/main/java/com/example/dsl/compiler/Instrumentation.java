@@ -0,0 +1,13 @@
+package com.example.dsl.compiler;
+
+/**
+ * 编译时插入的检测节点
+ */
+enum Instrumentation {
+    // 普通版本，不插入任何节点
+    NONE,
+    // 跟踪版本，记录声明、赋值、条件、比较、调用和返回的值
+    TRACE,
+    // 剖析版本，记录正在执行的函数和行
+    PROFILE
+}
@@ -0,0 +1,68 @@
+package com.example.dsl.compiler;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 编译期的词法作用域，把变量名解析为帧槽位下标
+ * 同一函数内的所有作用域共享一个槽位计数器
+ */
+final class LexicalScope {
+    private final LexicalScope parent;
+    private final LexicalScope function;
+    private final Map<String, Integer> slots = new HashMap<>();
+
+    // 仅函数级作用域使用
+    private int slotCount;
+
+    private LexicalScope(LexicalScope parent) {
+        this.parent = parent;
+        this.function = parent != null ? parent.function : this;
+    }
+
+    // 创建函数级作用域
+    static LexicalScope function() {
+        return new LexicalScope(null);
+    }
+
+    // 创建嵌套的块作用域
+    LexicalScope nested() {
+        return new LexicalScope(this);
+    }
+
+    LexicalScope getParent() {
+        return parent;
+    }
+
+    // 查找可见的变量，未找到返回-1（即全局变量）
+    int lookup(String name) {
+        for (LexicalScope scope = this; scope != null; scope = scope.parent) {
+            Integer slot = scope.slots.get(name);
+            if (slot != null) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    // 声明变量：已在外层可见的变量沿用原槽位，否则在当前作用域分配新槽位
+    int declare(String name) {
+        int slot = lookup(name);
+        if (slot >= 0) {
+            return slot;
+        }
+        slot = function.slotCount++;
+        slots.put(name, slot);
+        return slot;
+    }
+
+    // 当前作用域中声明的变量
+    Map<String, Integer> getSlots() {
+        return slots;
+    }
+
+    // 函数帧大小
+    int getFrameSize() {
+        return function.slotCount;
+    }
+}
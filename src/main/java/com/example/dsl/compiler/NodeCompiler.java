@@ -0,0 +1,376 @@
+package com.example.dsl.compiler;
+
+import com.example.dsl.ast.*;
+import com.example.dsl.runtime.CompiledFunction;
+import com.example.dsl.runtime.SharedCondition;
+import com.example.dsl.runtime.SwitchTable;
+import com.example.dsl.runtime.builtin.Builtin;
+import com.example.dsl.runtime.builtin.BuiltinRegistry;
+import com.example.dsl.runtime.numeric.FixedPoint;
+import com.example.dsl.runtime.node.*;
+import com.example.dsl.runtime.trace.TraceEvent;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 将AST转换为可执行节点树
+ * 变量名在编译期解析为帧槽位，找不到的变量作为全局变量读取；
+ * 函数调用在编译期解析为内置函数或脚本函数，内置函数按参数个数绑定到具体实现；
+ * 定点数模式下数值常量和算术、比较运算编译为定点数节点；
+ * 启用优化时，同一变量与常量逐个比较的if/else if链编译为查表分派；
+ * 编译规则集的入口函数时，只读取上下文变量的条件编译为共享条件（见ConditionNetwork）
+ * 编译跟踪版本时在声明、赋值、条件、比较、调用和返回处插入跟踪节点，
+ * 编译剖析版本时在每条语句前记录行号，调用内置函数时压入剖析栈帧
+ */
+class NodeCompiler implements AstVisitor<Object> {
+
+    private final Map<String, CompiledFunction> functions;
+
+    private final BuiltinRegistry builtins;
+
+    // 定点数运算，double模式为null
+    private final FixedPoint fixed;
+
+    // 是否把比较链编译为查表分派
+    private final boolean switches;
+
+    // 是否插入跟踪节点
+    private final boolean traced;
+
+    // 是否插入剖析节点
+    private final boolean profiled;
+
+    // 当前作用域
+    private LexicalScope scope;
+
+    // 当前函数的纯函数分析信息，编译顶层语句时为null
+    private PurityAnalysis.Usage usage;
+
+    // 编译规则集入口函数时的共享条件信息，其他情况为null
+    private ConditionNetwork.Entry sharing;
+
+    // 正在编译为共享条件的表达式，其本身不再查找共享条件
+    private Expression sharedRoot;
+
+    NodeCompiler(Map<String, CompiledFunction> functions, BuiltinRegistry builtins, FixedPoint fixed,
+                 boolean switches, Instrumentation instrumentation) {
+        this.functions = functions;
+        this.builtins = builtins;
+        this.fixed = fixed;
+        this.switches = switches;
+        this.traced = instrumentation == Instrumentation.TRACE;
+        this.profiled = instrumentation == Instrumentation.PROFILE;
+    }
+
+    // 在给定的函数作用域中编译函数体，同时记录纯函数分析所需的信息
+    StatementNode compile(LexicalScope functionScope, Statement node, PurityAnalysis.Usage usage) {
+        return compile(functionScope, node, usage, null);
+    }
+
+    // 编译规则集的入口函数，sharing不为null时条件按共享条件编译
+    StatementNode compile(LexicalScope functionScope, Statement node, PurityAnalysis.Usage usage,
+                          ConditionNetwork.Entry sharing) {
+        this.scope = functionScope;
+        this.usage = usage;
+        this.sharing = sharing;
+        try {
+            return statement(node);
+        } finally {
+            this.usage = null;
+            this.sharing = null;
+        }
+    }
+
+    // 在给定的函数作用域中编译语句列表，不创建新的块作用域
+    StatementNode compile(LexicalScope functionScope, List<Statement> nodes) {
+        this.scope = functionScope;
+        return new BlockNode(statements(nodes));
+    }
+
+    ExpressionNode expression(Expression node) {
+        return (ExpressionNode) node.accept(this);
+    }
+
+    StatementNode statement(Statement node) {
+        StatementNode statement = (StatementNode) node.accept(this);
+        // 代码块中的语句各自记录行号
+        if (profiled && !(node instanceof Block) && !(node instanceof CacheDeclaration)) {
+            return new ProfileLineNode(node.getLine(), statement);
+        }
+        return statement;
+    }
+
+    private StatementNode[] statements(List<Statement> nodes) {
+        StatementNode[] result = new StatementNode[nodes.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = statement(nodes.get(i));
+        }
+        return result;
+    }
+
+    // 跟踪版本中包装表达式，条件和比较的名称为表达式源码，在编译期生成
+    private ExpressionNode trace(AstNode node, TraceEvent.Kind kind, String name, ExpressionNode expression) {
+        return traced ? new TraceNode(node.getLine(), kind, name, expression) : expression;
+    }
+
+    // 只读取上下文变量的条件编译为共享条件节点，其他表达式返回null
+    private ExpressionNode shared(Expression node) {
+        if (sharing == null || node == sharedRoot) {
+            return null;
+        }
+        SharedCondition condition = sharing.condition(node, this::compileShared);
+        return condition != null ? new SharedConditionNode(condition) : null;
+    }
+
+    // 在空作用域中编译展开后的条件，变量都按全局变量读取，其中的子条件同样共享
+    private ExpressionNode compileShared(Expression resolved) {
+        LexicalScope savedScope = scope;
+        Expression savedRoot = sharedRoot;
+        scope = LexicalScope.function();
+        sharedRoot = resolved;
+        try {
+            return expression(resolved);
+        } finally {
+            scope = savedScope;
+            sharedRoot = savedRoot;
+        }
+    }
+
+    private ExpressionNode[] expressions(List<Expression> nodes) {
+        ExpressionNode[] result = new ExpressionNode[nodes.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = expression(nodes.get(i));
+        }
+        return result;
+    }
+
+    // ========== 表达式 ========== //
+    @Override
+    public Object visitLiteral(Literal node) {
+        if (fixed != null && node.getValue() instanceof Number) {
+            try {
+                return new FixedLiteralNode(fixed.box(fixed.toFixed((Number) node.getValue())));
+            } catch (ArithmeticException e) {
+                // 超出long范围的常量保留为BigDecimal
+                return new LiteralNode(fixed.normalize(fixed.toBigDecimal((Number) node.getValue())));
+            }
+        }
+        return new LiteralNode(node.getValue());
+    }
+
+    @Override
+    public Object visitIdentifier(Identifier node) {
+        int slot = scope.lookup(node.getName());
+        if (slot >= 0) {
+            return new ReadLocalNode(slot);
+        }
+        if (usage != null) {
+            usage.readsGlobals = true;
+        }
+        return new ReadGlobalNode(node.getName());
+    }
+
+    @Override
+    public Object visitBinary(BinaryExpression node) {
+        ExpressionNode shared = shared(node);
+        if (shared != null) {
+            return shared;
+        }
+        ExpressionNode left = expression(node.getLeft());
+        ExpressionNode right = expression(node.getRight());
+        if (fixed != null) {
+            return fixedBinary(node, left, right);
+        }
+        switch (node.getOperator()) {
+            case OR:
+                return new OrNode(left, right);
+            case AND:
+                return new AndNode(left, right);
+            case EQ:
+            case NE:
+                return trace(node, TraceEvent.Kind.COMPARE, traced ? AstPrinter.print(node) : null,
+                        new EqualityNode(node.getOperator() == BinaryOperator.NE, left, right));
+            case LT:
+            case GT:
+            case LE:
+            case GE:
+                return trace(node, TraceEvent.Kind.COMPARE, traced ? AstPrinter.print(node) : null,
+                        new ComparisonNode(node.getOperator(), left, right));
+            case ADD:
+                return new AddNode(left, right);
+            case SUB:
+                return new SubtractNode(left, right);
+            default:
+                return new ArithmeticNode(node.getOperator(), left, right);
+        }
+    }
+
+    // 定点数模式的二元运算，逻辑运算与double模式相同
+    private ExpressionNode fixedBinary(BinaryExpression node, ExpressionNode left, ExpressionNode right) {
+        switch (node.getOperator()) {
+            case OR:
+                return new OrNode(left, right);
+            case AND:
+                return new AndNode(left, right);
+            case EQ:
+            case NE:
+                return trace(node, TraceEvent.Kind.COMPARE, traced ? AstPrinter.print(node) : null,
+                        new FixedEqualityNode(node.getOperator() == BinaryOperator.NE, left, right, fixed));
+            case LT:
+            case GT:
+            case LE:
+            case GE:
+                return trace(node, TraceEvent.Kind.COMPARE, traced ? AstPrinter.print(node) : null,
+                        new FixedComparisonNode(node.getOperator(), left, right, fixed));
+            default:
+                return new FixedArithmeticNode(node.getOperator(), left, right, fixed);
+        }
+    }
+
+    @Override
+    public Object visitUnary(UnaryExpression node) {
+        ExpressionNode shared = shared(node);
+        if (shared != null) {
+            return shared;
+        }
+        ExpressionNode operand = expression(node.getOperand());
+        if (node.getOperator() == UnaryOperator.NOT) {
+            return new NotNode(operand);
+        }
+        return fixed != null ? new FixedNegateNode(operand, fixed) : new NegateNode(operand);
+    }
+
+    @Override
+    public Object visitIndex(IndexExpression node) {
+        // 字符串常量键与成员访问一样使用内联缓存
+        if (node.getIndex() instanceof Literal && ((Literal) node.getIndex()).getValue() instanceof String) {
+            return new KeyIndexNode(expression(node.getTarget()), (String) ((Literal) node.getIndex()).getValue());
+        }
+        return new IndexNode(expression(node.getTarget()), expression(node.getIndex()));
+    }
+
+    @Override
+    public Object visitMember(MemberExpression node) {
+        return new MemberNode(expression(node.getTarget()), node.getName());
+    }
+
+    @Override
+    public Object visitCall(CallExpression node) {
+        if (usage != null) {
+            usage.callees.add(node.getName());
+        }
+        ExpressionNode[] arguments = expressions(node.getArguments());
+        // 查找顺序：内置函数（含业务函数）、脚本中定义的函数
+        Builtin builtin = builtins.get(node.getName());
+        ExpressionNode call;
+        if (builtin == null) {
+            call = new CallNode(arguments, functions.get(node.getName()));
+        } else if (profiled) {
+            call = new ProfileCallNode(builtin, arguments);
+        } else {
+            call = BuiltinCallNode.of(builtin, arguments);
+        }
+        return trace(node, TraceEvent.Kind.CALL, node.getName(), call);
+    }
+
+    @Override
+    public Object visitArray(ArrayLiteral node) {
+        return new ArrayLiteralNode(expressions(node.getElements()));
+    }
+
+    @Override
+    public Object visitObject(ObjectLiteral node) {
+        return new ObjectLiteralNode(node.getKeys().toArray(new String[0]), expressions(node.getValues()));
+    }
+
+    @Override
+    public Object visitCached(CachedExpression node) {
+        return new CachedNode(scope.lookup(node.getTemp()), expression(node.getExpression()));
+    }
+
+    // ========== 语句 ========== //
+    @Override
+    public Object visitBlock(Block node) {
+        scope = scope.nested();
+        try {
+            return new BlockNode(statements(node.getStatements()));
+        } finally {
+            scope = scope.getParent();
+        }
+    }
+
+    @Override
+    public Object visitVariableDeclaration(VariableDeclaration node) {
+        // 先编译初始值，初始值中的同名变量指向外层
+        ExpressionNode value = node.getInitializer() != null
+                ? expression(node.getInitializer())
+                : new LiteralNode(null);
+        value = trace(node, TraceEvent.Kind.DECLARE, node.getName(), value);
+        if (sharing != null) {
+            sharing.declared(node);
+        }
+        return new WriteLocalNode(scope.declare(node.getName()), value);
+    }
+
+    @Override
+    public Object visitAssignment(Assignment node) {
+        // 赋值给未声明的变量时在当前作用域中创建
+        ExpressionNode value = trace(node, TraceEvent.Kind.ASSIGN, node.getName(), expression(node.getValue()));
+        return new WriteLocalNode(scope.declare(node.getName()), value);
+    }
+
+    @Override
+    public Object visitIf(IfStatement node) {
+        EqualityChain chain = switches ? EqualityChain.match(node, fixed == null) : null;
+        if (chain != null) {
+            StatementNode[] branches = new StatementNode[chain.getBranches().size()];
+            for (int i = 0; i < branches.length; i++) {
+                branches[i] = statement(chain.getBranches().get(i));
+            }
+            StatementNode otherwise = chain.getOtherwise() != null ? statement(chain.getOtherwise()) : null;
+            return new SwitchNode(expression(chain.getSubject()), new SwitchTable(chain.getKeys()), branches, otherwise);
+        }
+        StatementNode elseBranch = node.getElseBranch() != null ? statement(node.getElseBranch()) : null;
+        ExpressionNode condition = trace(node, TraceEvent.Kind.CONDITION,
+                traced ? AstPrinter.print(node.getCondition()) : null, expression(node.getCondition()));
+        return new IfNode(condition, statement(node.getThenBranch()), elseBranch);
+    }
+
+    @Override
+    public Object visitForIn(ForInStatement node) {
+        ExpressionNode iterable = expression(node.getIterable());
+        scope = scope.nested();
+        try {
+            int variableSlot = scope.declare(node.getVariable());
+            int currentSlot = scope.declare(ForInStatement.CURRENT);
+            return new ForInNode(variableSlot, currentSlot, iterable, statement(node.getBody()));
+        } finally {
+            scope = scope.getParent();
+        }
+    }
+
+    @Override
+    public Object visitReturn(ReturnStatement node) {
+        if (!traced) {
+            return new ReturnNode(node.getValue() != null ? expression(node.getValue()) : null);
+        }
+        ExpressionNode value = node.getValue() != null ? expression(node.getValue()) : new LiteralNode(null);
+        return new ReturnNode(trace(node, TraceEvent.Kind.RETURN, null, value));
+    }
+
+    @Override
+    public Object visitExpressionStatement(ExpressionStatement node) {
+        return new ExpressionStatementNode(expression(node.getExpression()));
+    }
+
+    @Override
+    public Object visitCacheDeclaration(CacheDeclaration node) {
+        return new CacheDeclarationNode(scope.declare(node.getTemp()));
+    }
+
+    @Override
+    public Object visitFunction(FunctionDeclaration node) {
+        return statement(node.getBody());
+    }
+}
@@ -0,0 +1,313 @@
+package com.example.dsl.compiler;
+
+import com.example.config.DslProperties;
+import com.example.dsl.ast.Program;
+import com.example.dsl.ast.ProgramCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * 解析结果的持久化缓存
+ * 未优化的AST按脚本内容哈希编码后写入本地文件，启动时内存映射该文件，
+ * 内容未变化的脚本直接解码AST，跳过词法和语法分析。
+ * 文件版本不符或损坏、条目校验失败时忽略对应内容，退回重新解析。
+ *
+ * 文件格式：魔数、文件格式版本、AST编码版本、条目数，
+ * 之后每个条目依次为内容哈希、AST编码长度、AST编码的CRC32和AST编码
+ */
+@Slf4j
+@Component
+public class ProgramCache {
+
+    private static final int MAGIC = 0x44534C50;
+
+    // 文件布局变化时递增
+    private static final int FORMAT_VERSION = 1;
+
+    // 为null时不启用
+    private final Path file;
+
+    private volatile Mapping mapping = Mapping.EMPTY;
+
+    // 本次运行新解析、尚未写入文件的AST编码
+    private final Map<String, byte[]> added = new ConcurrentHashMap<>();
+
+    // 本次运行用到的内容哈希，写文件时只保留这些条目，已删除或已修改的脚本随之淘汰
+    private final Set<String> used = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public ProgramCache(DslProperties dslProperties) {
+        String location = dslProperties.getProgramCacheFile();
+        this.file = location == null || location.isEmpty() ? null : Paths.get(location);
+    }
+
+    private ProgramCache() {
+        this.file = null;
+    }
+
+    // 不读写文件的缓存，用于单独构造编译器的场景
+    public static ProgramCache disabled() {
+        return new ProgramCache();
+    }
+
+    /**
+     * 内存映射缓存文件并建立内容哈希到条目位置的索引，只读取条目头，不解码AST
+     */
+    @PostConstruct
+    public void load() {
+        if (file == null || !Files.exists(file)) {
+            return;
+        }
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                log.warn("程序缓存文件过大，忽略: {}", file);
+                return;
+            }
+            mapping = Mapping.read(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+            log.info("加载程序缓存: {}, {}个条目, 耗时: {}ms", file, mapping.entries.size(),
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | IllegalArgumentException e) {
+            mapping = Mapping.EMPTY;
+            log.warn("程序缓存文件不可用，重新解析所有脚本: {}, 原因: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * 取出内容哈希对应的未优化AST，没有或校验失败时返回null
+     * 每次返回新解码的AST，调用方可以任意改写
+     */
+    public Program get(String contentHash) {
+        if (file == null || contentHash == null) {
+            return null;
+        }
+        ByteBuffer encoded = encoded(contentHash);
+        if (encoded == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        try {
+            Program program = ProgramCodec.decode(encoded);
+            used.add(contentHash);
+            hits.incrementAndGet();
+            return program;
+        } catch (IllegalArgumentException e) {
+            log.warn("程序缓存条目损坏，重新解析: {}, 原因: {}", contentHash, e.getMessage());
+            misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    // 记录新解析的AST，在下次写文件时持久化
+    public void put(String contentHash, Program program) {
+        if (file == null || contentHash == null) {
+            return;
+        }
+        try {
+            added.put(contentHash, ProgramCodec.encode(program));
+            used.add(contentHash);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            log.debug("AST无法编码，不写入程序缓存: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 把本次运行用到的条目写入新文件后原子替换旧文件，再重新映射
+     * 内容没有变化时不写文件
+     */
+    @PreDestroy
+    public synchronized void flush() {
+        if (file == null) {
+            return;
+        }
+        Mapping current = mapping;
+        if (added.isEmpty() && used.size() == current.entries.size()) {
+            return;
+        }
+
+        Map<String, byte[]> written = new HashMap<>();
+        List<String> hashes = new ArrayList<>();
+        List<byte[]> payloads = new ArrayList<>();
+        for (String hash : used) {
+            byte[] payload = added.get(hash);
+            if (payload != null) {
+                written.put(hash, payload);
+            } else {
+                ByteBuffer encoded = current.slice(hash);
+                if (encoded == null) {
+                    continue;
+                }
+                payload = new byte[encoded.remaining()];
+                encoded.get(payload);
+            }
+            hashes.add(hash);
+            payloads.add(payload);
+        }
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(ProgramCodec.VERSION);
+                out.writeInt(hashes.size());
+                CRC32 crc = new CRC32();
+                for (int i = 0; i < hashes.size(); i++) {
+                    byte[] hash = hashes.get(i).getBytes(StandardCharsets.UTF_8);
+                    byte[] payload = payloads.get(i);
+                    crc.reset();
+                    crc.update(payload, 0, payload.length);
+                    out.writeInt(hash.length);
+                    out.write(hash);
+                    out.writeInt(payload.length);
+                    out.writeInt((int) crc.getValue());
+                    out.write(payload);
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("写入程序缓存失败: {}, 原因: {}", file, e.getMessage());
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // 临时文件下次写入时覆盖
+            }
+            return;
+        }
+
+        load();
+        // 只移除已写入的内容，写文件期间新增的条目留到下次
+        written.forEach(added::remove);
+        log.info("写入程序缓存: {}, {}个条目, 命中{}次, 未命中{}次", file, hashes.size(), hits.get(), misses.get());
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    private ByteBuffer encoded(String contentHash) {
+        byte[] payload = added.get(contentHash);
+        if (payload != null) {
+            return ByteBuffer.wrap(payload);
+        }
+        return mapping.slice(contentHash);
+    }
+
+    /**
+     * 一次映射的缓存文件及其条目索引
+     */
+    private static final class Mapping {
+        static final Mapping EMPTY = new Mapping(null, Collections.emptyMap());
+
+        private final ByteBuffer buffer;
+        private final Map<String, Entry> entries;
+
+        private Mapping(ByteBuffer buffer, Map<String, Entry> entries) {
+            this.buffer = buffer;
+            this.entries = entries;
+        }
+
+        static Mapping read(MappedByteBuffer buffer) {
+            try {
+                if (buffer.getInt() != MAGIC) {
+                    throw new IllegalArgumentException("不是程序缓存文件");
+                }
+                int format = buffer.getInt();
+                int codec = buffer.getInt();
+                if (format != FORMAT_VERSION || codec != ProgramCodec.VERSION) {
+                    throw new IllegalArgumentException("版本不符: " + format + "/" + codec);
+                }
+                int count = buffer.getInt();
+                Map<String, Entry> entries = new HashMap<>(Math.max(16, count * 2));
+                for (int i = 0; i < count; i++) {
+                    byte[] hash = new byte[checkedLength(buffer)];
+                    buffer.get(hash);
+                    int length = checkedLength(buffer);
+                    int crc = buffer.getInt();
+                    int offset = buffer.position();
+                    if (length > buffer.remaining()) {
+                        throw new IllegalArgumentException("文件被截断");
+                    }
+                    buffer.position(offset + length);
+                    entries.put(new String(hash, StandardCharsets.UTF_8), new Entry(offset, length, crc));
+                }
+                return new Mapping(buffer, entries);
+            } catch (BufferUnderflowException e) {
+                throw new IllegalArgumentException("文件被截断");
+            }
+        }
+
+        private static int checkedLength(ByteBuffer buffer) {
+            int length = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                throw new IllegalArgumentException("条目长度错误: " + length);
+            }
+            return length;
+        }
+
+        // 条目的AST编码，CRC32不符时返回null
+        ByteBuffer slice(String contentHash) {
+            Entry entry = entries.get(contentHash);
+            if (entry == null) {
+                return null;
+            }
+            // 复制视图，各线程独立读取
+            ByteBuffer slice = buffer.duplicate();
+            slice.limit(entry.offset + entry.length).position(entry.offset);
+            CRC32 crc = new CRC32();
+            crc.update(slice.duplicate());
+            if ((int) crc.getValue() != entry.crc) {
+                log.warn("程序缓存条目校验失败: {}", contentHash);
+                return null;
+            }
+            return slice;
+        }
+    }
+
+    private static final class Entry {
+        private final int offset;
+        private final int length;
+        private final int crc;
+
+        Entry(int offset, int length, int crc) {
+            this.offset = offset;
+            this.length = length;
+            this.crc = crc;
+        }
+    }
+}
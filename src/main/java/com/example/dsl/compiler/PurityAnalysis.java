@@ -0,0 +1,74 @@
+package com.example.dsl.compiler;
+
+import com.example.dsl.runtime.builtin.Builtin;
+import com.example.dsl.runtime.builtin.BuiltinRegistry;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 纯函数分析：结果只取决于参数、没有副作用的脚本函数
+ * 函数内的赋值都写入局部变量，因此只需检查两点：
+ * 不读取全局变量（上下文变量和顶层变量），只调用标记为纯的内置函数和其他纯脚本函数。
+ * 业务函数代表平台提供的外部能力，不标记为纯
+ */
+final class PurityAnalysis {
+
+    /**
+     * 编译函数体时收集的信息
+     */
+    static final class Usage {
+        // 是否读取了全局变量
+        boolean readsGlobals;
+
+        // 调用的函数名
+        final Set<String> callees = new HashSet<>();
+    }
+
+    private final BuiltinRegistry builtins;
+
+    private final Map<String, Usage> usages = new LinkedHashMap<>();
+
+    PurityAnalysis(BuiltinRegistry builtins) {
+        this.builtins = builtins;
+    }
+
+    // 开始记录函数的信息
+    Usage record(String functionName) {
+        Usage usage = new Usage();
+        usages.put(functionName, usage);
+        return usage;
+    }
+
+    /**
+     * 计算纯函数集合：先假定所有不读取全局变量的函数为纯，
+     * 再反复剔除调用了非纯函数的函数，直到不再变化（递归和相互调用的函数可以为纯）
+     */
+    Set<String> pureFunctions() {
+        Set<String> pure = new LinkedHashSet<>();
+        usages.forEach((name, usage) -> {
+            if (!usage.readsGlobals) {
+                pure.add(name);
+            }
+        });
+        boolean changed = true;
+        while (changed) {
+            changed = pure.removeIf(name -> !callsOnlyPure(usages.get(name), pure));
+        }
+        return pure;
+    }
+
+    private boolean callsOnlyPure(Usage usage, Set<String> pure) {
+        for (String callee : usage.callees) {
+            // 查找顺序与NodeCompiler一致：内置函数遮蔽同名的脚本函数
+            Builtin builtin = builtins.get(callee);
+            if (builtin != null ? !builtin.isPure() : !pure.contains(callee)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.dsl.optimizer;
+
+import com.example.dsl.ast.Program;
+import com.example.dsl.runtime.ScriptOptions;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * AST优化流程，在解析之后、编译为执行节点之前按顺序执行各优化遍
+ */
+@Slf4j
+@Component
+public class AstOptimizer {
+
+    private final List<OptimizationPass> passes;
+
+    // Spring按@Order顺序注入所有优化遍
+    public AstOptimizer(List<OptimizationPass> passes) {
+        this.passes = Collections.unmodifiableList(new ArrayList<>(passes));
+    }
+
+    // 内置的优化流程，供非Spring环境使用
+    public static AstOptimizer defaultOptimizer() {
+        return new AstOptimizer(Arrays.asList(
+                new ConstantFoldingPass(),
+                new DeadCodeEliminationPass(),
+                new LoopInvariantHoistingPass(),
+                new CommonSubexpressionEliminationPass()));
+    }
+
+    public Program optimize(Program program) {
+        for (OptimizationPass pass : passes) {
+            program = pass.apply(program);
+        }
+        return program;
+    }
+
+    // 按脚本选项优化
+    public Program optimize(Program program, ScriptOptions options) {
+        for (OptimizationPass pass : passes) {
+            program = pass.apply(program, options);
+        }
+        return program;
+    }
+
+    public List<String> getPassNames() {
+        List<String> names = new ArrayList<>();
+        passes.forEach(pass -> names.add(pass.getName()));
+        return names;
+    }
+}
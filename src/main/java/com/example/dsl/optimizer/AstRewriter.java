@@ -0,0 +1,167 @@
+package com.example.dsl.optimizer;
+
+import com.example.dsl.ast.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * AST重写基类，默认原样复制，子节点未变化时复用原节点
+ * 子类覆盖需要改写的节点类型
+ */
+abstract class AstRewriter implements AstVisitor<AstNode> {
+
+    Program rewrite(Program program) {
+        List<FunctionDeclaration> functions = new ArrayList<>();
+        for (FunctionDeclaration function : program.getFunctions()) {
+            functions.add((FunctionDeclaration) function.accept(this));
+        }
+        return new Program(functions, statements(program.getStatements()));
+    }
+
+    Expression expression(Expression node) {
+        return (Expression) node.accept(this);
+    }
+
+    Statement statement(Statement node) {
+        return node != null ? (Statement) node.accept(this) : null;
+    }
+
+    Block block(Block node) {
+        return (Block) node.accept(this);
+    }
+
+    // 重写语句列表，返回null的语句被删除
+    List<Statement> statements(List<Statement> nodes) {
+        List<Statement> result = new ArrayList<>(nodes.size());
+        for (Statement node : nodes) {
+            Statement rewritten = statement(node);
+            if (rewritten != null) {
+                result.add(rewritten);
+            }
+        }
+        return result;
+    }
+
+    List<Expression> expressions(List<Expression> nodes) {
+        List<Expression> result = new ArrayList<>(nodes.size());
+        for (Expression node : nodes) {
+            result.add(expression(node));
+        }
+        return result;
+    }
+
+    // ========== 表达式 ========== //
+    @Override
+    public AstNode visitLiteral(Literal node) {
+        return node;
+    }
+
+    @Override
+    public AstNode visitIdentifier(Identifier node) {
+        return node;
+    }
+
+    @Override
+    public AstNode visitBinary(BinaryExpression node) {
+        Expression left = expression(node.getLeft());
+        Expression right = expression(node.getRight());
+        if (left == node.getLeft() && right == node.getRight()) {
+            return node;
+        }
+        return new BinaryExpression(node.getLine(), node.getOperator(), left, right);
+    }
+
+    @Override
+    public AstNode visitUnary(UnaryExpression node) {
+        Expression operand = expression(node.getOperand());
+        return operand == node.getOperand() ? node : new UnaryExpression(node.getLine(), node.getOperator(), operand);
+    }
+
+    @Override
+    public AstNode visitIndex(IndexExpression node) {
+        Expression target = expression(node.getTarget());
+        Expression index = expression(node.getIndex());
+        if (target == node.getTarget() && index == node.getIndex()) {
+            return node;
+        }
+        return new IndexExpression(node.getLine(), target, index);
+    }
+
+    @Override
+    public AstNode visitMember(MemberExpression node) {
+        Expression target = expression(node.getTarget());
+        return target == node.getTarget() ? node : new MemberExpression(node.getLine(), target, node.getName());
+    }
+
+    @Override
+    public AstNode visitCall(CallExpression node) {
+        return new CallExpression(node.getLine(), node.getName(), expressions(node.getArguments()));
+    }
+
+    @Override
+    public AstNode visitArray(ArrayLiteral node) {
+        return new ArrayLiteral(node.getLine(), expressions(node.getElements()));
+    }
+
+    @Override
+    public AstNode visitObject(ObjectLiteral node) {
+        return new ObjectLiteral(node.getLine(), node.getKeys(), expressions(node.getValues()));
+    }
+
+    @Override
+    public AstNode visitCached(CachedExpression node) {
+        Expression expression = expression(node.getExpression());
+        return expression == node.getExpression() ? node
+                : new CachedExpression(node.getLine(), node.getTemp(), expression);
+    }
+
+    // ========== 语句 ========== //
+    @Override
+    public AstNode visitBlock(Block node) {
+        return new Block(node.getLine(), statements(node.getStatements()));
+    }
+
+    @Override
+    public AstNode visitVariableDeclaration(VariableDeclaration node) {
+        Expression initializer = node.getInitializer() != null ? expression(node.getInitializer()) : null;
+        return new VariableDeclaration(node.getLine(), node.getName(), initializer);
+    }
+
+    @Override
+    public AstNode visitAssignment(Assignment node) {
+        return new Assignment(node.getLine(), node.getName(), expression(node.getValue()));
+    }
+
+    @Override
+    public AstNode visitIf(IfStatement node) {
+        return new IfStatement(node.getLine(), expression(node.getCondition()),
+                block(node.getThenBranch()), statement(node.getElseBranch()));
+    }
+
+    @Override
+    public AstNode visitForIn(ForInStatement node) {
+        return new ForInStatement(node.getLine(), node.getVariable(),
+                expression(node.getIterable()), block(node.getBody()));
+    }
+
+    @Override
+    public AstNode visitReturn(ReturnStatement node) {
+        return new ReturnStatement(node.getLine(), node.getValue() != null ? expression(node.getValue()) : null);
+    }
+
+    @Override
+    public AstNode visitExpressionStatement(ExpressionStatement node) {
+        return new ExpressionStatement(node.getLine(), expression(node.getExpression()));
+    }
+
+    @Override
+    public AstNode visitCacheDeclaration(CacheDeclaration node) {
+        return node;
+    }
+
+    @Override
+    public AstNode visitFunction(FunctionDeclaration node) {
+        return new FunctionDeclaration(node.getLine(), node.getName(), node.getParameters(), block(node.getBody()));
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.dsl.optimizer;
+
+import com.example.dsl.ast.CachedExpression;
+import com.example.dsl.ast.Expression;
+
+import java.util.Map;
+
+/**
+ * 把与给定表达式结构相同的子表达式替换为对应临时变量的缓存表达式
+ */
+final class CacheReplacer extends AstRewriter {
+    // 表达式key到临时变量名
+    private final Map<String, String> temps;
+
+    CacheReplacer(Map<String, String> temps) {
+        this.temps = temps;
+    }
+
+    @Override
+    Expression expression(Expression node) {
+        if (!(node instanceof CachedExpression)) {
+            String temp = temps.get(ExpressionAnalysis.key(node));
+            if (temp != null) {
+                return new CachedExpression(node.getLine(), temp, node);
+            }
+        }
+        return super.expression(node);
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.dsl.optimizer;
+
+import com.example.dsl.ast.*;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 公共子表达式消除：同一代码块的连续语句中重复出现的表达式只求值一次
+ * 区间内任何语句写入表达式读取的变量时区间结束；
+ * 与循环不变量外提相同，缓存在首次执行到的位置求值
+ */
+@Component
+@Order(400)
+public class CommonSubexpressionEliminationPass implements OptimizationPass {
+
+    static final String TEMP_PREFIX = CacheDeclaration.TEMP_PREFIX + "cse";
+
+    // 单次求值代价低于此值的表达式不值得缓存
+    private static final int MIN_COST = 2;
+
+    @Override
+    public Program apply(Program program) {
+        return new Eliminator().rewrite(program);
+    }
+
+    /**
+     * 重复表达式所在的语句区间[from, to]
+     */
+    private static final class Window {
+        final Expression expression;
+        final int from;
+        final int to;
+        final int occurrences;
+
+        Window(Expression expression, int from, int to, int occurrences) {
+            this.expression = expression;
+            this.from = from;
+            this.to = to;
+            this.occurrences = occurrences;
+        }
+
+        int saving() {
+            return ExpressionAnalysis.cost(expression) * (occurrences - 1);
+        }
+    }
+
+    private static final class Eliminator extends AstRewriter {
+        private int tempCount;
+
+        // 先处理当前代码块，再处理嵌套代码块
+        @Override
+        List<Statement> statements(List<Statement> nodes) {
+            List<Statement> current = new ArrayList<>(nodes);
+            Window window;
+            while ((window = bestWindow(current)) != null) {
+                String temp = TEMP_PREFIX + (++tempCount);
+                CacheReplacer replacer = new CacheReplacer(
+                        Collections.singletonMap(ExpressionAnalysis.key(window.expression), temp));
+                for (int i = window.from; i <= window.to; i++) {
+                    current.set(i, replacer.statement(current.get(i)));
+                }
+                current.add(window.from, new CacheDeclaration(current.get(window.from).getLine(), temp));
+            }
+            return super.statements(current);
+        }
+
+        private static Window bestWindow(List<Statement> statements) {
+            Map<String, Expression> candidates = new LinkedHashMap<>();
+            List<Map<String, Integer>> counts = new ArrayList<>();
+            List<Set<String>> writes = new ArrayList<>();
+            for (Statement statement : statements) {
+                Map<String, Integer> statementCounts = new LinkedHashMap<>();
+                for (Expression candidate : ExpressionAnalysis.candidates(statement, MIN_COST)) {
+                    String key = ExpressionAnalysis.key(candidate);
+                    candidates.putIfAbsent(key, candidate);
+                    statementCounts.merge(key, 1, Integer::sum);
+                }
+                counts.add(statementCounts);
+                writes.add(ExpressionAnalysis.writes(statement));
+            }
+
+            Window best = null;
+            for (Map.Entry<String, Expression> candidate : candidates.entrySet()) {
+                Set<String> reads = ExpressionAnalysis.reads(candidate.getValue());
+                int from = -1;
+                int to = -1;
+                int occurrences = 0;
+                for (int i = 0; i <= statements.size(); i++) {
+                    boolean blocked = i == statements.size() || ExpressionAnalysis.intersects(reads, writes.get(i));
+                    if (blocked) {
+                        if (occurrences > 1) {
+                            Window window = new Window(candidate.getValue(), from, to, occurrences);
+                            if (best == null || window.saving() > best.saving()) {
+                                best = window;
+                            }
+                        }
+                        from = -1;
+                        occurrences = 0;
+                        continue;
+                    }
+                    Integer count = counts.get(i).get(candidate.getKey());
+                    if (count != null) {
+                        if (from < 0) {
+                            from = i;
+                        }
+                        to = i;
+                        occurrences += count;
+                    }
+                }
+            }
+            return best;
+        }
+    }
+}
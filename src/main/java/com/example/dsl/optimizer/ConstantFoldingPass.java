@@ -0,0 +1,165 @@
+package com.example.dsl.optimizer;
+
+import com.example.dsl.ast.*;
+import com.example.dsl.runtime.DslOperations;
+import com.example.dsl.runtime.NumericMode;
+import com.example.dsl.runtime.ScriptOptions;
+import com.example.dsl.runtime.object.Shape;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 常量折叠：操作数都是常量的运算在编译期求值
+ * 元素全为常量的数组和对象字面量只在结果不会逃逸的位置（下标和成员访问的目标、for-in的集合）折叠为只读常量，
+ * 其他位置每次执行仍返回新的可修改集合
+ * 求值出错的表达式保持原样，错误留到执行时按原语义抛出
+ * 定点数模式的脚本不折叠数值参与的二元运算和含数值元素的数组、对象字面量，运算和舍入留到执行时按定点数进行
+ */
+@Component
+@Order(100)
+public class ConstantFoldingPass implements OptimizationPass {
+
+    @Override
+    public Program apply(Program program) {
+        return new Folder(false).rewrite(program);
+    }
+
+    @Override
+    public Program apply(Program program, ScriptOptions options) {
+        return new Folder(options.getNumericOrDefault() == NumericMode.DECIMAL).rewrite(program);
+    }
+
+    private static final class Folder extends AstRewriter {
+
+        // 是否为定点数模式
+        private final boolean decimal;
+
+        Folder(boolean decimal) {
+            this.decimal = decimal;
+        }
+
+        @Override
+        public AstNode visitBinary(BinaryExpression node) {
+            Expression left = expression(node.getLeft());
+            BinaryOperator operator = node.getOperator();
+            // 短路运算只需要左侧是常量
+            if (left instanceof Literal && (operator == BinaryOperator.AND || operator == BinaryOperator.OR)) {
+                boolean value = DslOperations.toBoolean(((Literal) left).getValue());
+                if (operator == BinaryOperator.AND ? !value : value) {
+                    return new Literal(node.getLine(), value);
+                }
+            }
+            Expression right = expression(node.getRight());
+            if (left instanceof Literal && right instanceof Literal
+                    && !(decimal && (isNumber(left) || isNumber(right)))) {
+                try {
+                    return new Literal(node.getLine(), DslOperations.binary(operator,
+                            ((Literal) left).getValue(), ((Literal) right).getValue()));
+                } catch (RuntimeException e) {
+                    // 保留原表达式
+                }
+            }
+            return rebuild(node, left, right);
+        }
+
+        private static boolean isNumber(Expression literal) {
+            return ((Literal) literal).getValue() instanceof Number;
+        }
+
+        private static Expression rebuild(BinaryExpression node, Expression left, Expression right) {
+            if (left == node.getLeft() && right == node.getRight()) {
+                return node;
+            }
+            return new BinaryExpression(node.getLine(), node.getOperator(), left, right);
+        }
+
+        @Override
+        public AstNode visitUnary(UnaryExpression node) {
+            Expression operand = expression(node.getOperand());
+            if (operand instanceof Literal) {
+                Object value = ((Literal) operand).getValue();
+                if (node.getOperator() == UnaryOperator.NOT) {
+                    return new Literal(node.getLine(), !DslOperations.toBoolean(value));
+                }
+                if (value instanceof Number) {
+                    return new Literal(node.getLine(), DslOperations.negate(value));
+                }
+            }
+            return operand == node.getOperand() ? node : new UnaryExpression(node.getLine(), node.getOperator(), operand);
+        }
+
+        @Override
+        public AstNode visitIndex(IndexExpression node) {
+            Expression target = readOnlyOperand(node.getTarget());
+            Expression index = expression(node.getIndex());
+            if (target instanceof Literal && index instanceof Literal) {
+                try {
+                    return new Literal(node.getLine(),
+                            DslOperations.index(((Literal) target).getValue(), ((Literal) index).getValue()));
+                } catch (RuntimeException e) {
+                    // 保留原表达式
+                }
+            }
+            if (target == node.getTarget() && index == node.getIndex()) {
+                return node;
+            }
+            return new IndexExpression(node.getLine(), target, index);
+        }
+
+        @Override
+        public AstNode visitMember(MemberExpression node) {
+            Expression target = readOnlyOperand(node.getTarget());
+            return target == node.getTarget() ? node : new MemberExpression(node.getLine(), target, node.getName());
+        }
+
+        @Override
+        public AstNode visitForIn(ForInStatement node) {
+            return new ForInStatement(node.getLine(), node.getVariable(),
+                    readOnlyOperand(node.getIterable()), block(node.getBody()));
+        }
+
+        // 结果只被读取、不会逃逸的位置：下标和成员访问的目标、for-in的集合
+        // 元素全为常量的字面量在这里才折叠为多次执行共享的只读常量；
+        // 其他位置的字面量可能被返回或修改，每次执行都要创建新的集合（常量元素由执行节点按模板复制）
+        private Expression readOnlyOperand(Expression node) {
+            Expression rewritten = expression(node);
+            if (rewritten instanceof ArrayLiteral) {
+                List<Expression> elements = ((ArrayLiteral) rewritten).getElements();
+                if (foldable(elements)) {
+                    List<Object> values = new ArrayList<>(elements.size());
+                    for (Expression element : elements) {
+                        values.add(((Literal) element).getValue());
+                    }
+                    return new Literal(rewritten.getLine(), Collections.unmodifiableList(values));
+                }
+            } else if (rewritten instanceof ObjectLiteral) {
+                ObjectLiteral object = (ObjectLiteral) rewritten;
+                if (foldable(object.getValues())) {
+                    // 与执行时创建的对象一样按字面量的形状存放，保持遍历顺序一致
+                    Object[] literalValues = new Object[object.getValues().size()];
+                    for (int i = 0; i < literalValues.length; i++) {
+                        literalValues[i] = ((Literal) object.getValues().get(i)).getValue();
+                    }
+                    Shape shape = Shape.forLiteral(object.getKeys().toArray(new String[0]));
+                    return new Literal(rewritten.getLine(), shape.instantiate(literalValues).readOnly());
+                }
+            }
+            return rewritten;
+        }
+
+        // 元素全为常量；定点数模式下数值元素需要在执行时按定点数缩放和舍入，不折叠
+        // 嵌套的字面量在外层字面量中会逃逸，不会折叠为常量，所以折叠结果的元素都是标量
+        private boolean foldable(List<Expression> expressions) {
+            for (Expression expression : expressions) {
+                if (!(expression instanceof Literal) || decimal && isNumber(expression)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
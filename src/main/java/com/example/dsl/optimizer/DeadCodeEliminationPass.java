@@ -0,0 +1,94 @@
+package com.example.dsl.optimizer;
+
+import com.example.dsl.ast.*;
+import com.example.dsl.runtime.DslOperations;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 死代码删除：
+ * 条件为常量的if只保留会执行的分支；分支都为空且条件求值安全的if；return之后的语句；
+ * 遍历常量空集合的循环；没有副作用的表达式语句和空代码块
+ */
+@Component
+@Order(200)
+public class DeadCodeEliminationPass implements OptimizationPass {
+
+    @Override
+    public Program apply(Program program) {
+        return new Eliminator().rewrite(program);
+    }
+
+    private static final class Eliminator extends AstRewriter {
+
+        @Override
+        List<Statement> statements(List<Statement> nodes) {
+            List<Statement> result = new ArrayList<>(nodes.size());
+            for (Statement node : nodes) {
+                Statement rewritten = statement(node);
+                if (rewritten == null || isEmptyBlock(rewritten)) {
+                    continue;
+                }
+                result.add(rewritten);
+                // return之后的语句不可达
+                if (rewritten instanceof ReturnStatement) {
+                    break;
+                }
+            }
+            return result;
+        }
+
+        private static boolean isEmptyBlock(Statement statement) {
+            return statement instanceof Block && ((Block) statement).getStatements().isEmpty();
+        }
+
+        @Override
+        public AstNode visitIf(IfStatement node) {
+            Expression condition = expression(node.getCondition());
+            if (condition instanceof Literal) {
+                // 分支仍是代码块，块内变量的作用域不变
+                return DslOperations.toBoolean(((Literal) condition).getValue())
+                        ? block(node.getThenBranch())
+                        : statement(node.getElseBranch());
+            }
+            Block thenBranch = block(node.getThenBranch());
+            Statement elseBranch = statement(node.getElseBranch());
+            if (thenBranch.getStatements().isEmpty() && (elseBranch == null || isEmptyBlock(elseBranch))
+                    && ExpressionAnalysis.isSafe(condition)) {
+                return null;
+            }
+            return new IfStatement(node.getLine(), condition, thenBranch, elseBranch);
+        }
+
+        @Override
+        public AstNode visitForIn(ForInStatement node) {
+            Expression iterable = expression(node.getIterable());
+            if (iterable instanceof Literal && isEmptyIteration(((Literal) iterable).getValue())) {
+                return null;
+            }
+            return new ForInStatement(node.getLine(), node.getVariable(), iterable, block(node.getBody()));
+        }
+
+        // 只有列表和对象会被遍历
+        private static boolean isEmptyIteration(Object value) {
+            if (value instanceof List || value instanceof Map) {
+                return value instanceof Collection ? ((Collection<?>) value).isEmpty() : ((Map<?, ?>) value).isEmpty();
+            }
+            return true;
+        }
+
+        @Override
+        public AstNode visitExpressionStatement(ExpressionStatement node) {
+            Expression expression = expression(node.getExpression());
+            if (ExpressionAnalysis.isSafe(expression)) {
+                return null;
+            }
+            return new ExpressionStatement(node.getLine(), expression);
+        }
+    }
+}
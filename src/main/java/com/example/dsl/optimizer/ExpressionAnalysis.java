@@ -0,0 +1,283 @@
+package com.example.dsl.optimizer;
+
+import com.example.dsl.ast.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 公共子表达式消除和循环不变量外提共用的分析
+ * 可缓存的表达式只读取变量，没有副作用也不创建新对象：
+ * 常量、变量、运算、下标和成员访问，以及已缓存的表达式
+ */
+final class ExpressionAnalysis {
+
+    private ExpressionAnalysis() {
+    }
+
+    static boolean isCacheable(Expression node) {
+        if (node instanceof Literal || node instanceof Identifier || node instanceof CachedExpression) {
+            return true;
+        }
+        if (node instanceof BinaryExpression) {
+            BinaryExpression binary = (BinaryExpression) node;
+            return isCacheable(binary.getLeft()) && isCacheable(binary.getRight());
+        }
+        if (node instanceof UnaryExpression) {
+            return isCacheable(((UnaryExpression) node).getOperand());
+        }
+        if (node instanceof IndexExpression) {
+            IndexExpression index = (IndexExpression) node;
+            return isCacheable(index.getTarget()) && isCacheable(index.getIndex());
+        }
+        if (node instanceof MemberExpression) {
+            return isCacheable(((MemberExpression) node).getTarget());
+        }
+        return false;
+    }
+
+    // 求值不会抛出异常也没有副作用：常量、变量、比较、逻辑运算和乘除取模（非数值时结果为null）
+    static boolean isSafe(Expression node) {
+        if (node instanceof Literal || node instanceof Identifier) {
+            return true;
+        }
+        if (node instanceof BinaryExpression) {
+            BinaryExpression binary = (BinaryExpression) node;
+            BinaryOperator operator = binary.getOperator();
+            return operator != BinaryOperator.ADD && operator != BinaryOperator.SUB
+                    && isSafe(binary.getLeft()) && isSafe(binary.getRight());
+        }
+        if (node instanceof UnaryExpression) {
+            UnaryExpression unary = (UnaryExpression) node;
+            return unary.getOperator() == UnaryOperator.NOT && isSafe(unary.getOperand());
+        }
+        return false;
+    }
+
+    // 估算求值代价：下标和成员访问为2，运算为1，已缓存的表达式视为变量读取
+    static int cost(Expression node) {
+        if (node instanceof BinaryExpression) {
+            BinaryExpression binary = (BinaryExpression) node;
+            return 1 + cost(binary.getLeft()) + cost(binary.getRight());
+        }
+        if (node instanceof UnaryExpression) {
+            return 1 + cost(((UnaryExpression) node).getOperand());
+        }
+        if (node instanceof IndexExpression) {
+            IndexExpression index = (IndexExpression) node;
+            return 2 + cost(index.getTarget()) + cost(index.getIndex());
+        }
+        if (node instanceof MemberExpression) {
+            return 2 + cost(((MemberExpression) node).getTarget());
+        }
+        return 0;
+    }
+
+    // 表达式读取的变量
+    static Set<String> reads(Expression node) {
+        Set<String> names = new HashSet<>();
+        node.accept(new Walker() {
+            @Override
+            public Void visitIdentifier(Identifier identifier) {
+                names.add(identifier.getName());
+                return null;
+            }
+        });
+        return names;
+    }
+
+    // 语句（含嵌套语句）声明或赋值的变量
+    static Set<String> writes(Statement node) {
+        Set<String> names = new HashSet<>();
+        node.accept(new Walker() {
+            @Override
+            public Void visitVariableDeclaration(VariableDeclaration declaration) {
+                names.add(declaration.getName());
+                return super.visitVariableDeclaration(declaration);
+            }
+
+            @Override
+            public Void visitAssignment(Assignment assignment) {
+                names.add(assignment.getName());
+                return super.visitAssignment(assignment);
+            }
+
+            @Override
+            public Void visitForIn(ForInStatement forIn) {
+                names.add(forIn.getVariable());
+                names.add(ForInStatement.CURRENT);
+                return super.visitForIn(forIn);
+            }
+        });
+        return names;
+    }
+
+    static boolean intersects(Set<String> a, Set<String> b) {
+        for (String name : a) {
+            if (b.contains(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 语句中所有可缓存且代价不低于minCost的表达式，已缓存的表达式内部不再收集
+    static List<Expression> candidates(Statement node, int minCost) {
+        List<Expression> result = new ArrayList<>();
+        node.accept(new Walker() {
+            @Override
+            void expression(Expression expression) {
+                if (expression instanceof CachedExpression) {
+                    return;
+                }
+                if (cost(expression) >= minCost && isCacheable(expression)) {
+                    result.add(expression);
+                }
+                super.expression(expression);
+            }
+        });
+        return result;
+    }
+
+    static String key(Expression node) {
+        return AstPrinter.print(node);
+    }
+
+    /**
+     * 遍历语句和表达式的访问者，子类覆盖关心的节点
+     */
+    abstract static class Walker implements AstVisitor<Void> {
+
+        void expression(Expression node) {
+            node.accept(this);
+        }
+
+        void statement(Statement node) {
+            if (node != null) {
+                node.accept(this);
+            }
+        }
+
+        @Override
+        public Void visitLiteral(Literal node) {
+            return null;
+        }
+
+        @Override
+        public Void visitIdentifier(Identifier node) {
+            return null;
+        }
+
+        @Override
+        public Void visitBinary(BinaryExpression node) {
+            expression(node.getLeft());
+            expression(node.getRight());
+            return null;
+        }
+
+        @Override
+        public Void visitUnary(UnaryExpression node) {
+            expression(node.getOperand());
+            return null;
+        }
+
+        @Override
+        public Void visitIndex(IndexExpression node) {
+            expression(node.getTarget());
+            expression(node.getIndex());
+            return null;
+        }
+
+        @Override
+        public Void visitMember(MemberExpression node) {
+            expression(node.getTarget());
+            return null;
+        }
+
+        @Override
+        public Void visitCall(CallExpression node) {
+            node.getArguments().forEach(this::expression);
+            return null;
+        }
+
+        @Override
+        public Void visitArray(ArrayLiteral node) {
+            node.getElements().forEach(this::expression);
+            return null;
+        }
+
+        @Override
+        public Void visitObject(ObjectLiteral node) {
+            node.getValues().forEach(this::expression);
+            return null;
+        }
+
+        @Override
+        public Void visitCached(CachedExpression node) {
+            expression(node.getExpression());
+            return null;
+        }
+
+        @Override
+        public Void visitBlock(Block node) {
+            node.getStatements().forEach(this::statement);
+            return null;
+        }
+
+        @Override
+        public Void visitVariableDeclaration(VariableDeclaration node) {
+            if (node.getInitializer() != null) {
+                expression(node.getInitializer());
+            }
+            return null;
+        }
+
+        @Override
+        public Void visitAssignment(Assignment node) {
+            expression(node.getValue());
+            return null;
+        }
+
+        @Override
+        public Void visitIf(IfStatement node) {
+            expression(node.getCondition());
+            statement(node.getThenBranch());
+            statement(node.getElseBranch());
+            return null;
+        }
+
+        @Override
+        public Void visitForIn(ForInStatement node) {
+            expression(node.getIterable());
+            statement(node.getBody());
+            return null;
+        }
+
+        @Override
+        public Void visitReturn(ReturnStatement node) {
+            if (node.getValue() != null) {
+                expression(node.getValue());
+            }
+            return null;
+        }
+
+        @Override
+        public Void visitExpressionStatement(ExpressionStatement node) {
+            expression(node.getExpression());
+            return null;
+        }
+
+        @Override
+        public Void visitCacheDeclaration(CacheDeclaration node) {
+            return null;
+        }
+
+        @Override
+        public Void visitFunction(FunctionDeclaration node) {
+            statement(node.getBody());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.dsl.optimizer;
+
+import com.example.dsl.ast.*;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 循环不变量外提：循环体中不读取循环内被写入变量的表达式，每次执行循环只求值一次
+ * 缓存变量在循环前声明，表达式在原位置首次执行时求值，
+ * 不会提前执行原本不会执行的表达式，出错时机也不变
+ */
+@Component
+@Order(300)
+public class LoopInvariantHoistingPass implements OptimizationPass {
+
+    static final String TEMP_PREFIX = CacheDeclaration.TEMP_PREFIX + "loop";
+
+    @Override
+    public Program apply(Program program) {
+        return new Hoister().rewrite(program);
+    }
+
+    private static final class Hoister extends AstRewriter {
+        private int tempCount;
+
+        @Override
+        List<Statement> statements(List<Statement> nodes) {
+            List<Statement> result = new ArrayList<>(nodes.size());
+            for (Statement node : nodes) {
+                if (node instanceof ForInStatement) {
+                    hoist((ForInStatement) node, result);
+                } else {
+                    Statement rewritten = statement(node);
+                    if (rewritten != null) {
+                        result.add(rewritten);
+                    }
+                }
+            }
+            return result;
+        }
+
+        // 先处理外层循环，使同时对内外层循环不变的表达式直接提到最外层
+        private void hoist(ForInStatement loop, List<Statement> result) {
+            Set<String> written = ExpressionAnalysis.writes(loop.getBody());
+            written.add(loop.getVariable());
+            written.add(ForInStatement.CURRENT);
+
+            Map<String, String> temps = new LinkedHashMap<>();
+            collectInvariants(loop.getBody(), written, temps);
+            Block body = loop.getBody();
+            if (!temps.isEmpty()) {
+                for (String temp : temps.values()) {
+                    result.add(new CacheDeclaration(loop.getLine(), temp));
+                }
+                body = new CacheReplacer(temps).block(body);
+            }
+            result.add(new ForInStatement(loop.getLine(), loop.getVariable(),
+                    expression(loop.getIterable()), block(body)));
+        }
+
+        // 只收集最大的不变表达式，其子表达式随之一起缓存
+        private void collectInvariants(Block body, Set<String> written, Map<String, String> temps) {
+            body.accept(new ExpressionAnalysis.Walker() {
+                @Override
+                void expression(Expression node) {
+                    if (node instanceof CachedExpression) {
+                        return;
+                    }
+                    if (ExpressionAnalysis.cost(node) > 0 && ExpressionAnalysis.isCacheable(node)
+                            && !ExpressionAnalysis.intersects(ExpressionAnalysis.reads(node), written)) {
+                        String key = ExpressionAnalysis.key(node);
+                        if (!temps.containsKey(key)) {
+                            temps.put(key, TEMP_PREFIX + (++tempCount));
+                        }
+                        return;
+                    }
+                    super.expression(node);
+                }
+            });
+        }
+    }
+}
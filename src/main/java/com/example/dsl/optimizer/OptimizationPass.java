@@ -0,0 +1,23 @@
+package com.example.dsl.optimizer;
+
+import com.example.dsl.ast.Program;
+import com.example.dsl.runtime.ScriptOptions;
+
+/**
+ * AST优化遍，输入输出都是不可变的AST，不改变脚本语义
+ * 注册为Spring Bean即可加入优化流程，按@Order排序执行
+ */
+public interface OptimizationPass {
+
+    // 遍名称，用于调试输出
+    default String getName() {
+        return getClass().getSimpleName();
+    }
+
+    Program apply(Program program);
+
+    // 语义与脚本选项有关的遍（如数值模式）覆盖此方法
+    default Program apply(Program program, ScriptOptions options) {
+        return apply(program);
+    }
+}
@@ -0,0 +1,253 @@
+package com.example.dsl.parser;
+
+import com.example.dsl.BusinessDslBaseVisitor;
+import com.example.dsl.BusinessDslParser;
+import com.example.dsl.ast.*;
+import org.antlr.v4.runtime.ParserRuleContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 将ANTLR解析树转换为AST
+ * 构建完成后解析树即可丢弃
+ */
+public class AstBuilder extends BusinessDslBaseVisitor<Object> {
+
+    private final List<FunctionDeclaration> functions = new ArrayList<>();
+
+    public Program build(BusinessDslParser.ProgramContext ctx) {
+        functions.clear();
+        List<Statement> statements = new ArrayList<>();
+        for (BusinessDslParser.StatementContext stmt : ctx.statement()) {
+            Statement statement = statement(stmt);
+            if (statement != null) {
+                statements.add(statement);
+            }
+        }
+        return new Program(Collections.unmodifiableList(new ArrayList<>(functions)),
+                Collections.unmodifiableList(statements));
+    }
+
+    // 函数声明统一提升到脚本级别，语句中返回null
+    private Statement statement(BusinessDslParser.StatementContext ctx) {
+        if (ctx.functionDecl() != null) {
+            functions.add(function(ctx.functionDecl()));
+            return null;
+        }
+        if (ctx.variableDecl() != null) {
+            return (Statement) visit(ctx.variableDecl());
+        }
+        if (ctx.assignmentStmt() != null) {
+            return (Statement) visit(ctx.assignmentStmt());
+        }
+        if (ctx.ifStatement() != null) {
+            return (Statement) visit(ctx.ifStatement());
+        }
+        if (ctx.forStatement() != null) {
+            return (Statement) visit(ctx.forStatement());
+        }
+        if (ctx.returnStatement() != null) {
+            return (Statement) visit(ctx.returnStatement());
+        }
+        if (ctx.functionCall() != null) {
+            return new ExpressionStatement(line(ctx), (Expression) visit(ctx.functionCall()));
+        }
+        // 空语句或语法错误恢复后的残留
+        return null;
+    }
+
+    private FunctionDeclaration function(BusinessDslParser.FunctionDeclContext ctx) {
+        List<String> parameters = new ArrayList<>();
+        if (ctx.paramList() != null) {
+            ctx.paramList().ID().forEach(id -> parameters.add(id.getText()));
+        }
+        return new FunctionDeclaration(line(ctx), ctx.ID().getText(),
+                Collections.unmodifiableList(parameters), block(ctx.block()));
+    }
+
+    private Block block(BusinessDslParser.BlockContext ctx) {
+        List<Statement> statements = new ArrayList<>();
+        if (ctx != null) {
+            for (BusinessDslParser.StatementContext stmt : ctx.statement()) {
+                Statement statement = statement(stmt);
+                if (statement != null) {
+                    statements.add(statement);
+                }
+            }
+        }
+        return new Block(ctx != null ? line(ctx) : 0, Collections.unmodifiableList(statements));
+    }
+
+    private Expression expr(BusinessDslParser.ExprContext ctx) {
+        if (ctx == null) {
+            // 语法错误恢复后可能缺失表达式
+            return new Literal(0, null);
+        }
+        Object result = visit(ctx);
+        return result instanceof Expression ? (Expression) result : new Literal(line(ctx), null);
+    }
+
+    private List<Expression> exprList(List<BusinessDslParser.ExprContext> ctxs) {
+        List<Expression> expressions = new ArrayList<>(ctxs.size());
+        for (BusinessDslParser.ExprContext ctx : ctxs) {
+            expressions.add(expr(ctx));
+        }
+        return Collections.unmodifiableList(expressions);
+    }
+
+    private static int line(ParserRuleContext ctx) {
+        return ctx.getStart() != null ? ctx.getStart().getLine() : 0;
+    }
+
+    private static String unquote(String text) {
+        return text.substring(1, text.length() - 1);
+    }
+
+    // ========== 语句 ========== //
+    @Override
+    public Object visitVariableDecl(BusinessDslParser.VariableDeclContext ctx) {
+        Expression initializer = ctx.expr() != null ? expr(ctx.expr()) : null;
+        return new VariableDeclaration(line(ctx), ctx.ID().getText(), initializer);
+    }
+
+    @Override
+    public Object visitAssignmentStmt(BusinessDslParser.AssignmentStmtContext ctx) {
+        return new Assignment(line(ctx), ctx.ID().getText(), expr(ctx.expr()));
+    }
+
+    @Override
+    public Object visitIfStatement(BusinessDslParser.IfStatementContext ctx) {
+        Statement elseBranch = null;
+        BusinessDslParser.ElseIfBlockContext elseCtx = ctx.elseIfBlock();
+        if (elseCtx != null) {
+            if (elseCtx.ifStatement() != null) {
+                elseBranch = (Statement) visit(elseCtx.ifStatement());
+            } else if (elseCtx.block() != null) {
+                elseBranch = block(elseCtx.block());
+            }
+        }
+        return new IfStatement(line(ctx), expr(ctx.expr()), block(ctx.block()), elseBranch);
+    }
+
+    @Override
+    public Object visitForStatement(BusinessDslParser.ForStatementContext ctx) {
+        return new ForInStatement(line(ctx), ctx.ID().getText(), expr(ctx.expr()), block(ctx.block()));
+    }
+
+    @Override
+    public Object visitReturnStatement(BusinessDslParser.ReturnStatementContext ctx) {
+        return new ReturnStatement(line(ctx), ctx.expr() != null ? expr(ctx.expr()) : null);
+    }
+
+    // ========== 表达式 ========== //
+    @Override
+    public Object visitOrExpr(BusinessDslParser.OrExprContext ctx) {
+        return new BinaryExpression(line(ctx), BinaryOperator.OR, expr(ctx.expr(0)), expr(ctx.expr(1)));
+    }
+
+    @Override
+    public Object visitAndExpr(BusinessDslParser.AndExprContext ctx) {
+        return new BinaryExpression(line(ctx), BinaryOperator.AND, expr(ctx.expr(0)), expr(ctx.expr(1)));
+    }
+
+    @Override
+    public Object visitEqualityExpr(BusinessDslParser.EqualityExprContext ctx) {
+        return binary(ctx, ctx.op.getText(), ctx.expr(0), ctx.expr(1));
+    }
+
+    @Override
+    public Object visitComparisonExpr(BusinessDslParser.ComparisonExprContext ctx) {
+        return binary(ctx, ctx.op.getText(), ctx.expr(0), ctx.expr(1));
+    }
+
+    @Override
+    public Object visitAddSubExpr(BusinessDslParser.AddSubExprContext ctx) {
+        return binary(ctx, ctx.op.getText(), ctx.expr(0), ctx.expr(1));
+    }
+
+    @Override
+    public Object visitMulDivExpr(BusinessDslParser.MulDivExprContext ctx) {
+        return binary(ctx, ctx.op.getText(), ctx.expr(0), ctx.expr(1));
+    }
+
+    private Expression binary(ParserRuleContext ctx, String op,
+                              BusinessDslParser.ExprContext left, BusinessDslParser.ExprContext right) {
+        return new BinaryExpression(line(ctx), BinaryOperator.fromSymbol(op), expr(left), expr(right));
+    }
+
+    @Override
+    public Object visitUnaryExpr(BusinessDslParser.UnaryExprContext ctx) {
+        return new UnaryExpression(line(ctx), UnaryOperator.fromSymbol(ctx.op.getText()), expr(ctx.expr()));
+    }
+
+    @Override
+    public Object visitIndexExpr(BusinessDslParser.IndexExprContext ctx) {
+        return new IndexExpression(line(ctx), expr(ctx.expr(0)), expr(ctx.expr(1)));
+    }
+
+    @Override
+    public Object visitMemberExpr(BusinessDslParser.MemberExprContext ctx) {
+        return new MemberExpression(line(ctx), expr(ctx.expr()), ctx.ID().getText());
+    }
+
+    @Override
+    public Object visitFuncExpr(BusinessDslParser.FuncExprContext ctx) {
+        return visit(ctx.functionCall());
+    }
+
+    @Override
+    public Object visitFunctionCall(BusinessDslParser.FunctionCallContext ctx) {
+        List<Expression> arguments = ctx.argumentList() != null
+                ? exprList(ctx.argumentList().expr())
+                : Collections.<Expression>emptyList();
+        return new CallExpression(line(ctx), ctx.ID().getText(), arguments);
+    }
+
+    @Override
+    public Object visitParenExpr(BusinessDslParser.ParenExprContext ctx) {
+        return expr(ctx.expr());
+    }
+
+    @Override
+    public Object visitIdExpr(BusinessDslParser.IdExprContext ctx) {
+        return new Identifier(line(ctx), ctx.ID().getText());
+    }
+
+    @Override
+    public Object visitStringExpr(BusinessDslParser.StringExprContext ctx) {
+        return new Literal(line(ctx), unquote(ctx.STRING().getText()));
+    }
+
+    @Override
+    public Object visitNumberExpr(BusinessDslParser.NumberExprContext ctx) {
+        return new Literal(line(ctx), Double.valueOf(ctx.NUMBER().getText()));
+    }
+
+    @Override
+    public Object visitBooleanExpr(BusinessDslParser.BooleanExprContext ctx) {
+        return new Literal(line(ctx), Boolean.valueOf(ctx.BOOLEAN().getText()));
+    }
+
+    @Override
+    public Object visitNullExpr(BusinessDslParser.NullExprContext ctx) {
+        return new Literal(line(ctx), null);
+    }
+
+    @Override
+    public Object visitArrayExpr(BusinessDslParser.ArrayExprContext ctx) {
+        return new ArrayLiteral(line(ctx), exprList(ctx.array().expr()));
+    }
+
+    @Override
+    public Object visitObjectExpr(BusinessDslParser.ObjectExprContext ctx) {
+        List<String> keys = new ArrayList<>();
+        List<Expression> values = new ArrayList<>();
+        for (BusinessDslParser.PairContext pairCtx : ctx.object().pair()) {
+            keys.add(pairCtx.STRING() != null ? unquote(pairCtx.STRING().getText()) : pairCtx.ID().getText());
+            values.add(expr(pairCtx.expr()));
+        }
+        return new ObjectLiteral(line(ctx), Collections.unmodifiableList(keys), Collections.unmodifiableList(values));
+    }
+}
@@ -5,11 +5,17 @@ import com.example.dsl.BusinessDslParser;
 import com.example.model.DslFunction;
 import com.example.model.DslScript;
 import com.example.dsl.runtime.DslContext;
+import com.example.dsl.runtime.builtin.Builtin;
+import com.example.dsl.runtime.builtin.BuiltinRegistry;
 import lombok.extern.slf4j.Slf4j;
 
 import java.time.LocalDateTime;
 import java.util.*;
 
+/**
+ * 解析树访问者，保存访问过程中的状态，每次解析创建新实例，不能在线程间共享
+ * 脚本执行走编译后的节点树（见DslCompiler）
+ */
 @Slf4j
 public class BusinessDslVisitorImpl extends BusinessDslBaseVisitor<Object> {
 
@@ -95,7 +101,7 @@ public class BusinessDslVisitorImpl extends BusinessDslBaseVisitor<Object> {
 
         // 添加到脚本
         script.addFunction(function);
-        log.info("解析到函数: {}", functionName);
+        log.debug("解析到函数: {}", functionName);
 
         // 如果是执行模式且是目标函数，直接执行它
         if (context.getVariable("__EXECUTE_MODE__") != null) {
@@ -121,7 +127,6 @@ public class BusinessDslVisitorImpl extends BusinessDslBaseVisitor<Object> {
         String varName = ctx.ID().getText();
         Object value = ctx.expr() != null ? visit(ctx.expr()) : null;
         context.setVariable(varName, value);
-        log.info("[Declare] {} = {}", varName, value);
         return null;
     }
 
@@ -130,7 +135,6 @@ public class BusinessDslVisitorImpl extends BusinessDslBaseVisitor<Object> {
         String varName = ctx.ID().getText();
         Object value = visit(ctx.expr());
         context.setVariable(varName, value);
-        log.info("[Assign] {} = {}", varName, value);
         return null;
     }
 
@@ -138,7 +142,6 @@ public class BusinessDslVisitorImpl extends BusinessDslBaseVisitor<Object> {
     @Override
     public Object visitIfStatement(BusinessDslParser.IfStatementContext ctx) {
         Object cond = visit(ctx.expr());
-        log.info("[If] condition: {} => {}", ctx.expr().getText(), cond);
         if (toBoolean(cond)) {
             context.enterScope();
             Object result = visit(ctx.block());
@@ -215,7 +218,6 @@ public class BusinessDslVisitorImpl extends BusinessDslBaseVisitor<Object> {
             // 如果返回值是Map，保持原样返回
             if (returnValue instanceof Map) {
                 hasReturn = true;
-                log.info("[Return] value: {}", returnValue);
                 return returnValue;
             }
             // 如果是其他类型的返回值，也需要包装成Map
@@ -228,7 +230,6 @@ public class BusinessDslVisitorImpl extends BusinessDslBaseVisitor<Object> {
             returnValue = result;
         }
         hasReturn = true;
-        log.info("[Return] value: {}", returnValue);
         return returnValue;
     }
 
@@ -255,18 +256,10 @@ public class BusinessDslVisitorImpl extends BusinessDslBaseVisitor<Object> {
             }
         }
 
-        // 先检查是否是内置函数
-        com.example.dsl.runtime.DslFunction dslFunction = context.getGlobalFunction(funcName);
-        if (dslFunction != null) {
-            return dslFunction.execute(args.toArray());
-        }
-
-        // 检查是否是业务函数
-        if ("checkVipStatus".equals(funcName)) {
-            return checkVipStatus(args.get(0));
-        }
-        if ("checkSeason".equals(funcName)) {
-            return checkSeason(args.get(0));
+        // 先检查是否是内置函数或业务函数
+        Builtin builtin = BuiltinRegistry.standard().get(funcName);
+        if (builtin != null) {
+            return builtin.invoke(args.toArray());
         }
 
         // 用户自定义函数
@@ -369,7 +362,6 @@ public class BusinessDslVisitorImpl extends BusinessDslBaseVisitor<Object> {
         } else {
             result = false;
         }
-        log.info("[EqualityExpr] {} {} {} => {}", left, op, right, result);
         return result;
     }
 
@@ -472,17 +464,6 @@ public class BusinessDslVisitorImpl extends BusinessDslBaseVisitor<Object> {
     // 这里只留接口，具体AST节点类可自定义
     // public AstNode visitVariableDecl(...) { ... return new VarDeclNode(...); }
 
-    // ========== 内置函数实现 ========== //
-    private boolean checkVipStatus(Object userId) {
-        // 简单示例：假设USER001是VIP
-        return userId != null && "USER001".equals(userId.toString());
-    }
-
-    private boolean checkSeason(Object season) {
-        // 简单示例：假设当前是夏季
-        return season != null && "summer".equals(season.toString());
-    }
-
     @Override
     protected Object aggregateResult(Object aggregate, Object nextResult) {
         return nextResult != null ? nextResult : aggregate;
@@ -0,0 +1,18 @@
+package com.example.dsl.parser;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 语法诊断信息，行号从1开始，列号从0开始，与ANTLR一致
+ */
+@Getter
+@RequiredArgsConstructor
+public class Diagnostic {
+
+    private final int line;
+
+    private final int column;
+
+    private final String message;
+}
@@ -4,32 +4,63 @@ import com.example.dsl.BusinessDslLexer;
 import com.example.dsl.BusinessDslParser;
 import com.example.model.DslScript;
 import lombok.extern.slf4j.Slf4j;
+import org.antlr.v4.runtime.ANTLRErrorStrategy;
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.BaseErrorListener;
 import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.antlr.v4.runtime.tree.ParseTree;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+
+/**
+ * DSL语法分析
+ * 先用SLL预测且遇错即停解析，绝大多数脚本一次完成；失败时再用完整LL预测重新解析，
+ * 区分真正的语法错误和SLL预测能力不足。词法和语法分析器按线程复用。
+ */
 @Slf4j
 @Component
 public class DslParser {
 
-    public Object parse(String scriptName, String content) {
-        try {
-            // 创建词法分析器
-            BusinessDslLexer lexer = new BusinessDslLexer(CharStreams.fromString(content));
+    // 覆盖全部语法结构的脚本，启动时解析一次预热共享的DFA缓存
+    private static final String WARM_UP_SCRIPT = "var base = 1.5e2;\n"
+            + "function warmUp(order, items) {\n"
+            + "    var total = 0;\n"
+            + "    var tags = [\"a\", \"b\\n\"];\n"
+            + "    var info = {name: \"x\", \"level\": order.level, list: [1, 2][0]};\n"
+            + "    for (item in items) { total = total + ((current.price * 2) / 3) % 4 - -1; }\n"
+            + "    if ((total >= 10) && !(total < 0) || (total <= 1) && (total > 2)) { total = base; }\n"
+            + "    else if ((total == 3) || (total != null)) { return true; }\n"
+            + "    else { total = false; }\n"
+            + "    log(info[\"name\"], tags);\n"
+            + "    ;\n"
+            + "    return;\n"
+            + "}";
 
-            // 创建词法符号流
-            CommonTokenStream tokens = new CommonTokenStream(lexer);
+    // 每个线程一组分析器，ANTLR的DFA缓存是静态的，各线程共享预测结果
+    private static final ThreadLocal<Analyzers> ANALYZERS = ThreadLocal.withInitial(Analyzers::new);
 
-            // 创建语法分析器
-            BusinessDslParser parser = new BusinessDslParser(tokens);
+    @PostConstruct
+    public void warmUp() {
+        long start = System.nanoTime();
+        parseProgram(WARM_UP_SCRIPT);
+        log.info("语法分析器预热完成, 耗时: {}ms", (System.nanoTime() - start) / 1_000_000);
+    }
 
+    public Object parse(String scriptName, String content) {
+        try {
             // 获取解析树
-            ParseTree tree = parser.program();
+            ParseTree tree = parseProgram(content);
 
             // 创建访问者并访问解析树
             BusinessDslVisitorImpl visitor = new BusinessDslVisitorImpl(scriptName);
-            
+
             // 如果是执行模式，设置执行标志
             if (Boolean.TRUE.equals(visitor.getVariable("__EXECUTE_MODE__"))) {
                 return visitor.visit(tree);
@@ -44,4 +75,110 @@ public class DslParser {
             throw new RuntimeException("解析DSL脚本失败: " + e.getMessage(), e);
         }
     }
+
+    // 只做词法和语法分析，返回解析树；有语法错误时按ANTLR默认策略恢复并记录警告
+    public BusinessDslParser.ProgramContext parseProgram(String content) {
+        return ANALYZERS.get().parse(content, false);
+    }
+
+    // 只做词法和语法分析，遇到第一个词法或语法错误即抛出IllegalArgumentException，不做错误恢复
+    public BusinessDslParser.ProgramContext parseProgramStrict(String content) {
+        try {
+            return ANALYZERS.get().parse(content, true);
+        } catch (ParseCancellationException e) {
+            throw new IllegalArgumentException("脚本语法错误: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 校验语法，遇到第一个词法或语法错误即返回false，不做错误恢复
+     */
+    public boolean validate(String content) {
+        try {
+            ANALYZERS.get().parse(content, true);
+            return true;
+        } catch (ParseCancellationException e) {
+            log.debug("脚本语法错误: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 一个线程复用的词法分析器、词法符号流和语法分析器
+     */
+    private static final class Analyzers {
+        private final BusinessDslLexer lexer = new BusinessDslLexer(null);
+        private final CommonTokenStream tokens = new CommonTokenStream(lexer);
+        private final BusinessDslParser parser = new BusinessDslParser(tokens);
+        private final ErrorCollector lexerErrors = new ErrorCollector("词法错误");
+        private final ErrorCollector parserErrors = new ErrorCollector("语法错误");
+
+        Analyzers() {
+            lexer.removeErrorListeners();
+            lexer.addErrorListener(lexerErrors);
+            parser.removeErrorListeners();
+        }
+
+        BusinessDslParser.ProgramContext parse(String content, boolean failFast) {
+            lexerErrors.reset();
+            lexer.setInputStream(CharStreams.fromString(content));
+            tokens.setTokenSource(lexer);
+            // 一次读完所有词法符号，两个阶段共用
+            tokens.fill();
+            if (failFast && lexerErrors.count > 0) {
+                throw new ParseCancellationException(lexerErrors.first);
+            }
+            parser.setTokenStream(tokens);
+            try {
+                return parse(PredictionMode.SLL, new BailErrorStrategy());
+            } catch (ParseCancellationException e) {
+                tokens.seek(0);
+                parser.reset();
+                if (failFast) {
+                    return parse(PredictionMode.LL, new BailErrorStrategy());
+                }
+                parserErrors.reset();
+                parser.addErrorListener(parserErrors);
+                try {
+                    return parse(PredictionMode.LL, new DefaultErrorStrategy());
+                } finally {
+                    parser.removeErrorListener(parserErrors);
+                }
+            }
+        }
+
+        private BusinessDslParser.ProgramContext parse(PredictionMode mode, ANTLRErrorStrategy errorStrategy) {
+            parser.getInterpreter().setPredictionMode(mode);
+            parser.setErrorHandler(errorStrategy);
+            return parser.program();
+        }
+    }
+
+    /**
+     * 记录错误数并输出警告日志，替代ANTLR默认输出到标准错误的监听器
+     */
+    private static final class ErrorCollector extends BaseErrorListener {
+        private final String kind;
+        private int count;
+        private String first;
+
+        ErrorCollector(String kind) {
+            this.kind = kind;
+        }
+
+        void reset() {
+            count = 0;
+            first = null;
+        }
+
+        @Override
+        public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                int charPositionInLine, String msg, RecognitionException e) {
+            String message = kind + " line " + line + ":" + charPositionInLine + " " + msg;
+            if (count++ == 0) {
+                first = message;
+            }
+            log.warn(message);
+        }
+    }
 }
@@ -0,0 +1,513 @@
+package com.example.dsl.parser;
+
+import com.example.config.DslProperties;
+import com.example.dsl.BusinessDslLexer;
+import com.example.dsl.BusinessDslParser;
+import lombok.extern.slf4j.Slf4j;
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.ListTokenSource;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.Interval;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 编辑器的增量语法校验
+ * 脚本按顶层语句（主要是函数定义）切分，每个编辑会话保留上次的切分和诊断结果。
+ * 再次校验时只重新词法分析改动所在的区域，直到词法分析与改动后未变的旧语句重新对齐，
+ * 改动前后未受影响的语句直接沿用上次的诊断信息。
+ * 与DslParser一样按码点计数，所有偏移量和列号都是码点下标。
+ */
+@Slf4j
+@Component
+public class IncrementalValidator {
+
+    private static final int FUNCTION = literalType("'function'");
+    private static final int IF = literalType("'if'");
+    private static final int ELSE = literalType("'else'");
+    private static final int FOR = literalType("'for'");
+    private static final int LBRACE = literalType("'{'");
+    private static final int RBRACE = literalType("'}'");
+
+    // 按编辑会话保存的上次校验状态，超出上限时淘汰最久未使用的
+    private final Map<String, Session> sessions;
+
+    public IncrementalValidator(DslProperties properties) {
+        int maxSessions = properties.getValidationSessions();
+        this.sessions = new LinkedHashMap<String, Session>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Session> eldest) {
+                return size() > maxSessions;
+            }
+        };
+    }
+
+    /**
+     * 校验脚本并返回所有诊断信息
+     * documentId标识一个编辑会话，为空时不保留状态，完整校验一次
+     */
+    public ValidationResult validate(String documentId, String content) {
+        if (documentId == null) {
+            return new Session().validate(content);
+        }
+        Session session;
+        synchronized (sessions) {
+            session = sessions.computeIfAbsent(documentId, id -> new Session());
+        }
+        synchronized (session) {
+            return session.validate(content);
+        }
+    }
+
+    private static int literalType(String literal) {
+        for (int type = 1; type <= BusinessDslLexer.VOCABULARY.getMaxTokenType(); type++) {
+            if (literal.equals(BusinessDslLexer.VOCABULARY.getLiteralName(type))) {
+                return type;
+            }
+        }
+        throw new IllegalStateException("词法规则中没有" + literal);
+    }
+
+    private static int countLines(int[] text, int from, int to) {
+        int lines = 0;
+        for (int i = from; i < to; i++) {
+            if (text[i] == '\n') {
+                lines++;
+            }
+        }
+        return lines;
+    }
+
+    // 偏移量所在行的列号，与ANTLR一样只把\n视为换行
+    private static int columnOf(int[] text, int offset) {
+        int lineStart = offset;
+        while (lineStart > 0 && text[lineStart - 1] != '\n') {
+            lineStart--;
+        }
+        return offset - lineStart;
+    }
+
+    /**
+     * 一个编辑会话：上次校验的内容、切分出的语句和复用的分析器
+     */
+    private static final class Session {
+        private final BusinessDslLexer lexer = new BusinessDslLexer(null);
+        private final BusinessDslParser parser = new BusinessDslParser(null);
+        private final ProblemCollector lexerErrors = new ProblemCollector("词法错误");
+        private final ProblemCollector parserErrors = new ProblemCollector("语法错误");
+        private String content;
+        // content的码点
+        private int[] points = new int[0];
+        private List<Segment> segments = new ArrayList<>();
+        private ValidationResult lastResult;
+
+        Session() {
+            lexer.removeErrorListeners();
+            lexer.addErrorListener(lexerErrors);
+            parser.removeErrorListeners();
+        }
+
+        ValidationResult validate(String text) {
+            if (text.equals(content)) {
+                return new ValidationResult(lastResult.getDiagnostics(), 0, segments.size());
+            }
+            int[] old = points;
+            int[] codePoints = text.codePoints().toArray();
+
+            // 新旧内容的公共前缀和公共后缀，二者之间为改动区域
+            int limit = Math.min(old.length, codePoints.length);
+            int prefix = 0;
+            while (prefix < limit && old[prefix] == codePoints[prefix]) {
+                prefix++;
+            }
+            int suffix = 0;
+            while (suffix < limit - prefix
+                    && old[old.length - 1 - suffix] == codePoints[codePoints.length - 1 - suffix]) {
+                suffix++;
+            }
+            int oldChangeEnd = old.length - suffix;
+            int delta = codePoints.length - old.length;
+            int lineDelta = countLines(codePoints, prefix, codePoints.length - suffix)
+                    - countLines(old, prefix, oldChangeEnd);
+
+            // 词法分析时读到的字符都在公共前缀中的语句原样保留；if语句是否结束取决于后面有没有else，不能作为最后一条保留
+            int keep = 0;
+            while (keep < segments.size() && segments.get(keep).reusable && segments.get(keep).lookahead < prefix) {
+                keep++;
+            }
+            if (keep > 0 && segments.get(keep - 1).conditional) {
+                keep--;
+            }
+            // 第一条完全位于公共后缀中的语句，之后的语句都可能沿用
+            int next = keep;
+            while (next < segments.size() && segments.get(next).start < oldChangeEnd) {
+                next++;
+            }
+
+            int regionStart = 0;
+            int line = 1;
+            if (keep > 0) {
+                Segment last = segments.get(keep - 1);
+                regionStart = last.end;
+                line = last.endLine;
+            }
+
+            // 从改动区域之前的语句边界开始词法分析，此处词法分析器处于初始状态
+            lexerErrors.reset();
+            TrackingCharStream input = new TrackingCharStream(text);
+            lexer.setInputStream(input);
+            input.seek(regionStart);
+            lexer.setLine(line);
+            lexer.setCharPositionInLine(columnOf(codePoints, regionStart));
+
+            List<Segment> reparsed = new ArrayList<>();
+            List<Segment> tail = Collections.emptyList();
+            SegmentBuilder current = new SegmentBuilder();
+            while (true) {
+                input.lookahead = input.index();
+                Token token = lexer.nextToken();
+                List<Problem> errors = lexerErrors.drain();
+
+                if (current.pendingClose && token.getType() != ELSE) {
+                    reparsed.add(finish(current, true));
+                    current = new SegmentBuilder();
+                } else if (!current.tokens.isEmpty() && token.getType() == FUNCTION && token.getCharPositionInLine() == 0) {
+                    // 行首的function视为新的函数定义开始，避免缺少右括号的函数吞掉后面所有函数
+                    reparsed.add(finish(current, false));
+                    current = new SegmentBuilder();
+                }
+
+                if (current.isEmpty() && errors.isEmpty() && token.getType() != Token.EOF) {
+                    while (next < segments.size() && segments.get(next).start + delta < token.getStartIndex()) {
+                        next++;
+                    }
+                    // 在旧语句的起始位置重新对齐，之后的词法符号和切分都与上次相同
+                    if (next < segments.size() && segments.get(next).reusable
+                            && segments.get(next).start + delta == token.getStartIndex()) {
+                        tail = segments.subList(next, segments.size());
+                        for (Segment segment : tail) {
+                            segment.shift(delta, lineDelta);
+                        }
+                        break;
+                    }
+                }
+
+                current.problems.addAll(errors);
+                if (token.getType() == Token.EOF) {
+                    if (!current.isEmpty()) {
+                        current.end = codePoints.length;
+                        reparsed.add(finish(current, false));
+                    }
+                    break;
+                }
+                current.add(token);
+                current.lookahead = Math.max(current.lookahead, input.lookahead);
+                if (current.closed) {
+                    reparsed.add(finish(current, true));
+                    current = new SegmentBuilder();
+                }
+            }
+
+            List<Segment> updated = new ArrayList<>(keep + reparsed.size() + tail.size());
+            updated.addAll(segments.subList(0, keep));
+            updated.addAll(reparsed);
+            updated.addAll(tail);
+            segments = updated;
+            content = text;
+            points = codePoints;
+
+            List<Diagnostic> diagnostics = new ArrayList<>();
+            for (Segment segment : segments) {
+                segment.collectDiagnostics(codePoints, diagnostics);
+            }
+            lastResult = new ValidationResult(diagnostics, reparsed.size(), keep + tail.size());
+            log.debug("增量校验: 重新解析{}条语句, 沿用{}条语句", lastResult.getReparsed(), lastResult.getReused());
+            return lastResult;
+        }
+
+        private Segment finish(SegmentBuilder builder, boolean complete) {
+            List<Problem> problems = builder.problems;
+            boolean lexicallyValid = problems.isEmpty();
+            if (!builder.tokens.isEmpty()) {
+                problems.addAll(parse(builder.tokens));
+            }
+            return builder.build(complete && lexicallyValid);
+        }
+
+        // 单独解析一条顶层语句，先SLL预测且遇错即停，失败时用LL预测和默认错误恢复收集全部错误
+        private List<Problem> parse(List<Token> tokens) {
+            CommonTokenStream stream = new CommonTokenStream(new ListTokenSource(tokens));
+            parser.setTokenStream(stream);
+            parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+            parser.setErrorHandler(new BailErrorStrategy());
+            try {
+                parser.program();
+                return Collections.emptyList();
+            } catch (ParseCancellationException e) {
+                stream.seek(0);
+                parser.reset();
+                parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+                parser.setErrorHandler(new DefaultErrorStrategy());
+                parserErrors.reset();
+                parser.addErrorListener(parserErrors);
+                try {
+                    parser.program();
+                } finally {
+                    parser.removeErrorListener(parserErrors);
+                }
+                return parserErrors.drain();
+            }
+        }
+    }
+
+    /**
+     * 正在切分的顶层语句
+     * 花括号深度回到0的分号结束一条语句；function、for语句在花括号深度回到0时结束，
+     * if语句还要看下一个词法符号是否为else
+     */
+    private static final class SegmentBuilder {
+        private final List<Token> tokens = new ArrayList<>();
+        private final List<Problem> problems = new ArrayList<>();
+        private int depth;
+        private boolean pendingClose;
+        private boolean closed;
+        private int end = -1;
+        // 词法分析这些词法符号时读到的最远字符下标
+        private int lookahead = -1;
+
+        boolean isEmpty() {
+            return tokens.isEmpty() && problems.isEmpty();
+        }
+
+        void add(Token token) {
+            tokens.add(token);
+            pendingClose = false;
+            int type = token.getType();
+            if (type == LBRACE) {
+                depth++;
+            } else if (type == RBRACE) {
+                depth--;
+                int first = tokens.get(0).getType();
+                if (depth < 0) {
+                    closed = true;
+                } else if (depth == 0 && (first == FUNCTION || first == FOR)) {
+                    closed = true;
+                } else if (depth == 0 && first == IF) {
+                    pendingClose = true;
+                }
+            } else if (type == BusinessDslLexer.SEMICOLON && depth == 0) {
+                closed = true;
+            }
+        }
+
+        Segment build(boolean reusable) {
+            int start;
+            int line;
+            int column;
+            if (!problems.isEmpty() && (tokens.isEmpty() || problems.get(0).offset < tokens.get(0).getStartIndex())) {
+                Problem first = problems.get(0);
+                start = first.offset;
+                line = first.line;
+                column = first.column;
+            } else {
+                Token first = tokens.get(0);
+                start = first.getStartIndex();
+                line = first.getLine();
+                column = first.getCharPositionInLine();
+            }
+            Token last = tokens.isEmpty() ? null : tokens.get(tokens.size() - 1);
+            int segmentEnd = end >= 0 ? end : last.getStopIndex() + 1;
+            int endLine = last == null ? line : last.getLine();
+            String name = tokens.size() > 1 && tokens.get(0).getType() == FUNCTION ? tokens.get(1).getText() : null;
+
+            problems.sort(Comparator.comparingInt((Problem problem) -> problem.line).thenComparingInt(problem -> problem.column));
+            List<Diagnostic> diagnostics = new ArrayList<>(problems.size());
+            for (Problem problem : problems) {
+                // 相对语句起始位置保存，语句整体移动后无需重新计算
+                int relativeLine = problem.line - line;
+                int relativeColumn = relativeLine == 0 ? problem.column - column : problem.column;
+                diagnostics.add(new Diagnostic(relativeLine, relativeColumn, problem.message));
+            }
+            boolean conditional = !tokens.isEmpty() && tokens.get(0).getType() == IF;
+            return new Segment(start, segmentEnd, Math.max(lookahead, segmentEnd - 1), line, endLine, name, reusable,
+                    conditional, diagnostics);
+        }
+    }
+
+    /**
+     * 切分出的一条顶层语句及其诊断信息
+     */
+    private static final class Segment {
+        private int start;
+        private int end;
+        // 词法分析读到的最远字符下标
+        private int lookahead;
+        private int line;
+        private int endLine;
+        private final String name;
+        // 以分号或右花括号正常结束且没有词法错误，其边界可用于重新对齐
+        private final boolean reusable;
+        private final boolean conditional;
+        private final List<Diagnostic> diagnostics;
+
+        Segment(int start, int end, int lookahead, int line, int endLine, String name, boolean reusable,
+                boolean conditional, List<Diagnostic> diagnostics) {
+            this.start = start;
+            this.end = end;
+            this.lookahead = lookahead;
+            this.line = line;
+            this.endLine = endLine;
+            this.name = name;
+            this.reusable = reusable;
+            this.conditional = conditional;
+            this.diagnostics = diagnostics;
+        }
+
+        void shift(int delta, int lineDelta) {
+            start += delta;
+            end += delta;
+            lookahead += delta;
+            line += lineDelta;
+            endLine += lineDelta;
+        }
+
+        void collectDiagnostics(int[] text, List<Diagnostic> out) {
+            if (diagnostics.isEmpty()) {
+                return;
+            }
+            int column = columnOf(text, start);
+            for (Diagnostic diagnostic : diagnostics) {
+                int absoluteColumn = diagnostic.getLine() == 0 ? column + diagnostic.getColumn() : diagnostic.getColumn();
+                String message = name == null ? diagnostic.getMessage() : diagnostic.getMessage() + " (函数 " + name + ")";
+                out.add(new Diagnostic(line + diagnostic.getLine(), absoluteColumn, message));
+            }
+        }
+    }
+
+    /**
+     * 记录词法分析器向前读到的最远位置
+     * 词法分析按最长匹配进行，例如未闭合的块注释会一直读到文件末尾再回退，
+     * 这类词法符号的结果取决于其后的字符
+     */
+    private static final class TrackingCharStream implements CharStream {
+        private final CharStream delegate;
+        private int lookahead;
+
+        TrackingCharStream(String text) {
+            this.delegate = CharStreams.fromString(text);
+        }
+
+        @Override
+        public int LA(int i) {
+            if (i > 0) {
+                lookahead = Math.max(lookahead, delegate.index() + i - 1);
+            }
+            return delegate.LA(i);
+        }
+
+        @Override
+        public String getText(Interval interval) {
+            return delegate.getText(interval);
+        }
+
+        @Override
+        public void consume() {
+            delegate.consume();
+        }
+
+        @Override
+        public int mark() {
+            return delegate.mark();
+        }
+
+        @Override
+        public void release(int marker) {
+            delegate.release(marker);
+        }
+
+        @Override
+        public int index() {
+            return delegate.index();
+        }
+
+        @Override
+        public void seek(int index) {
+            delegate.seek(index);
+        }
+
+        @Override
+        public int size() {
+            return delegate.size();
+        }
+
+        @Override
+        public String getSourceName() {
+            return delegate.getSourceName();
+        }
+    }
+
+    private static final class Problem {
+        private final int offset;
+        private final int line;
+        private final int column;
+        private final String message;
+
+        Problem(int offset, int line, int column, String message) {
+            this.offset = offset;
+            this.line = line;
+            this.column = column;
+            this.message = message;
+        }
+    }
+
+    /**
+     * 收集词法或语法错误及其位置
+     */
+    private static final class ProblemCollector extends BaseErrorListener {
+        private final String kind;
+        private List<Problem> problems = new ArrayList<>();
+
+        ProblemCollector(String kind) {
+            this.kind = kind;
+        }
+
+        void reset() {
+            problems = new ArrayList<>();
+        }
+
+        // 取出已收集的错误并清空
+        List<Problem> drain() {
+            if (problems.isEmpty()) {
+                return Collections.emptyList();
+            }
+            List<Problem> drained = problems;
+            problems = new ArrayList<>();
+            return drained;
+        }
+
+        @Override
+        public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                int charPositionInLine, String msg, RecognitionException e) {
+            int offset = offendingSymbol instanceof Token
+                    ? ((Token) offendingSymbol).getStartIndex()
+                    : ((Lexer) recognizer)._tokenStartCharIndex;
+            problems.add(new Problem(offset, line, charPositionInLine, kind + ": " + msg));
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.dsl.parser;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 增量校验结果
+ */
+@Getter
+@RequiredArgsConstructor
+public class ValidationResult {
+
+    private final List<Diagnostic> diagnostics;
+
+    // 本次重新解析的顶层语句数
+    private final int reparsed;
+
+    // 沿用上次结果的顶层语句数
+    private final int reused;
+
+    public boolean isValid() {
+        return diagnostics.isEmpty();
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.dsl.runtime;
+
+import lombok.Getter;
+
+/**
+ * 脚本执行超出预算
+ * 执行随即中止，调用方得到错误码BUDGET_EXCEEDED
+ */
+@Getter
+public class BudgetExceededException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public static final String CODE = "BUDGET_EXCEEDED";
+
+    public enum Budget {
+        // 执行步数
+        STEPS,
+        // 执行时间
+        TIMEOUT,
+        // 调用深度
+        CALL_DEPTH,
+        // 集合大小
+        COLLECTION_SIZE
+    }
+
+    private final Budget budget;
+
+    private final long limit;
+
+    public BudgetExceededException(Budget budget, long limit, String message) {
+        super(message, null, false, false);
+        this.budget = budget;
+        this.limit = limit;
+    }
+
+    public String getCode() {
+        return CODE;
+    }
+}
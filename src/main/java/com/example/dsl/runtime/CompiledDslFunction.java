@@ -0,0 +1,10 @@
+package com.example.dsl.runtime;
+
+/**
+ * 可调用的已编译DSL函数
+ * 由解释器（CompiledFunction）或字节码后端生成的类实现
+ */
+public interface CompiledDslFunction {
+
+    Object invoke(DslContext globals, Object[] args);
+}
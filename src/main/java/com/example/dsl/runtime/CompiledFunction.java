@@ -0,0 +1,98 @@
+package com.example.dsl.runtime;
+
+import com.example.dsl.runtime.node.StatementNode;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 编译后的DSL函数
+ * 参数占用前几个槽位，其余槽位为函数内声明的局部变量
+ * 启用字节码后端时调用转发给生成的类，纯函数的调用结果可以缓存
+ * 编译完成后不再修改，经缓存和引擎注册表（ConcurrentHashMap）发布后可被多线程同时调用
+ */
+@Getter
+public class CompiledFunction implements CompiledDslFunction {
+    private final String name;
+    private final List<String> parameters;
+
+    // 函数体和帧大小，编译器在所有函数创建后设置（允许相互调用和递归）
+    private StatementNode body;
+    private int frameSize;
+
+    // 字节码后端生成的实现，为null时解释执行
+    private CompiledDslFunction bytecode;
+
+    // 纯函数的调用结果缓存，为null时不缓存
+    private MemoCache memoCache;
+
+    public CompiledFunction(String name, List<String> parameters) {
+        this.name = name;
+        this.parameters = parameters;
+    }
+
+    public void setBody(StatementNode body, int frameSize) {
+        if (this.body != null) {
+            throw new IllegalStateException("函数体已设置: " + name);
+        }
+        this.body = body;
+        this.frameSize = frameSize;
+    }
+
+    public void setBytecode(CompiledDslFunction bytecode) {
+        if (this.bytecode != null) {
+            throw new IllegalStateException("字节码已设置: " + name);
+        }
+        this.bytecode = bytecode;
+    }
+
+    public void setMemoCache(MemoCache memoCache) {
+        if (this.memoCache != null) {
+            throw new IllegalStateException("结果缓存已设置: " + name);
+        }
+        this.memoCache = memoCache;
+    }
+
+    public ExecutionBackend getBackend() {
+        return bytecode != null ? ExecutionBackend.BYTECODE : ExecutionBackend.INTERPRETER;
+    }
+
+    // 在全局上下文下调用函数，纯函数先查结果缓存
+    @Override
+    public Object invoke(DslContext globals, Object[] args) {
+        if (memoCache != null) {
+            return memoCache.invoke(this, globals, args);
+        }
+        return invokeUncached(globals, args);
+    }
+
+    // 不经结果缓存调用函数，调用深度计入执行预算
+    Object invokeUncached(DslContext globals, Object[] args) {
+        ExecutionBudget budget = globals.getBudget();
+        if (budget == null) {
+            return invokeUnchecked(globals, args);
+        }
+        budget.enter();
+        try {
+            return invokeUnchecked(globals, args);
+        } finally {
+            budget.exit();
+        }
+    }
+
+    private Object invokeUnchecked(DslContext globals, Object[] args) {
+        if (bytecode != null) {
+            return bytecode.invoke(globals, args);
+        }
+        return execute(globals, args).getReturnValue();
+    }
+
+    // 解释执行函数体并返回执行帧
+    public Frame execute(DslContext globals, Object[] args) {
+        Object[] slots = new Object[frameSize];
+        System.arraycopy(args, 0, slots, 0, Math.min(args.length, parameters.size()));
+        Frame frame = new Frame(globals, slots);
+        body.execute(frame);
+        return frame;
+    }
+}
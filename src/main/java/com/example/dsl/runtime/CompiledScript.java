@@ -0,0 +1,50 @@
+package com.example.dsl.runtime;
+
+import com.example.dsl.ast.Program;
+import com.example.model.DslScript;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * 已编译脚本，缓存中的条目
+ * 只保留可执行节点，不再持有解析树；编译后不可变，可在线程间共享
+ */
+@Getter
+@RequiredArgsConstructor
+public class CompiledScript {
+    // 脚本名称
+    private final String name;
+
+    // 脚本内容哈希，用于判断是否需要重新编译
+    private final String contentHash;
+
+    // 脚本元数据，函数体为CompiledFunction
+    private final DslScript script;
+
+    // 编译使用的选项
+    private final ScriptOptions options;
+
+    // 优化后的AST，用于查看优化结果
+    private final Program program;
+
+    // 编译后的函数
+    private final Map<String, CompiledFunction> functions;
+
+    // 顶层语句，执行函数前执行，没有顶层语句时为null
+    private final CompiledFunction initializer;
+
+    // 顶层变量名到初始化帧槽位的映射，初始化后写入全局变量
+    private final Map<String, Integer> globalSlots;
+
+    // 纯函数调用结果缓存，没有纯函数或未启用时为null
+    private final MemoCache memoCache;
+
+    // 编译耗时（纳秒）
+    private final long compileNanos;
+
+    public CompiledFunction getFunction(String functionName) {
+        return functions.get(functionName);
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.dsl.runtime;
+
+import com.example.config.DslProperties;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+/**
+ * 批量执行
+ * 同一个已编译脚本在ForkJoin线程池中并行执行多组上下文，结果按输入顺序返回
+ */
+@Slf4j
+@Component
+public class DslBatchExecutor {
+
+    // 每个线程至少分到的任务段数，便于工作窃取均衡负载
+    private static final int SPLITS_PER_THREAD = 4;
+
+    private final DslEngine dslEngine;
+    private final ForkJoinPool pool;
+
+    public DslBatchExecutor(DslEngine dslEngine, DslProperties dslProperties) {
+        this.dslEngine = dslEngine;
+        int parallelism = dslProperties.getBatchParallelism() > 0
+                ? dslProperties.getBatchParallelism()
+                : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(parallelism);
+        log.info("批量执行线程池并行度: {}", parallelism);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * 执行批量任务，单个上下文执行失败不影响其他上下文
+     * 返回的列表与contexts一一对应，元素为执行结果或异常
+     */
+    public List<BatchItem> execute(CompiledScript script, String functionName,
+                                   List<Map<String, Object>> contexts) {
+        return execute(contexts, context -> dslEngine.execute(script, functionName, context));
+    }
+
+    /**
+     * 对任意输入并行执行任务，返回的列表与inputs一一对应
+     */
+    public <T> List<BatchItem> execute(List<T> inputs, Function<T, Object> task) {
+        BatchItem[] results = new BatchItem[inputs.size()];
+        if (results.length == 0) {
+            return new ArrayList<>();
+        }
+        int threshold = Math.max(1, results.length / (pool.getParallelism() * SPLITS_PER_THREAD));
+        pool.invoke(new BatchTask<>(inputs, task, results, 0, results.length, threshold));
+        return Arrays.asList(results);
+    }
+
+    /**
+     * 单个上下文的执行结果
+     */
+    @Getter
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    public static final class BatchItem {
+        private final Object result;
+        private final Exception error;
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+
+    /**
+     * 按下标区间二分拆分的任务
+     */
+    private static final class BatchTask<T> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<T> inputs;
+        private final Function<T, Object> task;
+        private final BatchItem[] results;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        BatchTask(List<T> inputs, Function<T, Object> task, BatchItem[] results, int from, int to, int threshold) {
+            this.inputs = inputs;
+            this.task = task;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                for (int i = from; i < to; i++) {
+                    try {
+                        results[i] = new BatchItem(task.apply(inputs.get(i)), null);
+                    } catch (Exception e) {
+                        results[i] = new BatchItem(null, e);
+                    }
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new BatchTask<>(inputs, task, results, from, middle, threshold),
+                    new BatchTask<>(inputs, task, results, middle, to, threshold));
+        }
+    }
+}
@@ -1,22 +1,43 @@
 package com.example.dsl.runtime;
 
+import com.example.dsl.runtime.profile.ProfileStack;
+import com.example.dsl.runtime.trace.ExecutionTrace;
 import lombok.Getter;
+import lombok.Setter;
 
 import java.util.*;
 
 /**
  * DSL执行上下文，用于存储变量和函数执行状态
+ * 每次执行创建独立的上下文，不在线程间共享
  */
 public class DslContext {
     // 作用域栈
     private final Deque<Map<String, Object>> scopeStack = new ArrayDeque<>();
     
-    // 全局函数
-    private final Map<String, DslFunction> globalFunctions = new HashMap<>();
-
     // 父上下文，用于支持作用域链
     private final DslContext parent;
 
+    // 执行跟踪，只有跟踪版本的脚本会写入，为null时不记录
+    @Getter
+    @Setter
+    private ExecutionTrace trace;
+
+    // 执行预算，为null时不限制
+    @Getter
+    @Setter
+    private ExecutionBudget budget;
+
+    // 剖析调用栈，只有剖析版本的脚本会写入，为null时不记录
+    @Getter
+    @Setter
+    private ProfileStack profile;
+
+    // 规则集共享条件的结果，同一订单的各脚本共用，不按规则集执行时为null（见SharedCondition）
+    @Getter
+    @Setter
+    private Object[] conditions;
+
     public DslContext() {
         this(null);
     }
@@ -25,43 +46,6 @@ public class DslContext {
         this.parent = parent;
         // 初始化全局作用域
         scopeStack.push(new HashMap<>());
-        initializeGlobalFunctions();
-    }
-
-    // 初始化全局函数
-    private void initializeGlobalFunctions() {
-        // 打印函数
-        globalFunctions.put("print", args -> {
-            if (args != null && args.length > 0) {
-                System.out.println(args[0]);
-            }
-            return null;
-        });
-
-        // 求和函数
-        globalFunctions.put("sum", args -> {
-            if (args == null || args.length == 0) return 0.0;
-            double sum = 0.0;
-            for (Object arg : args) {
-                if (arg instanceof Number) {
-                    sum += ((Number) arg).doubleValue();
-                }
-            }
-            return sum;
-        });
-
-        // 数组长度函数
-        globalFunctions.put("length", args -> {
-            if (args == null || args.length == 0) return 0;
-            Object arg = args[0];
-            if (arg instanceof List) {
-                return ((List<?>) arg).size();
-            }
-            if (arg instanceof String) {
-                return ((String) arg).length();
-            }
-            return 0;
-        });
     }
 
     // 进入新作用域
@@ -106,11 +90,6 @@ public class DslContext {
         return null;
     }
 
-    // 获取全局函数
-    public DslFunction getGlobalFunction(String name) {
-        return globalFunctions.get(name);
-    }
-
     // 创建子上下文
     public DslContext createChildContext() {
         return new DslContext(this);
@@ -1,106 +1,247 @@
 package com.example.dsl.runtime;
 
-import com.example.dsl.BusinessDslParser;
-import com.example.model.DslFunction;
+import com.example.dsl.runtime.columnar.ColumnBatch;
+import com.example.dsl.runtime.columnar.ColumnProgram;
+import com.example.dsl.runtime.metrics.ExecutionMetrics;
+import com.example.dsl.runtime.metrics.FunctionMetrics;
+import com.example.dsl.runtime.profile.ProfileStack;
+import com.example.dsl.runtime.trace.ExecutionTrace;
 import com.example.model.DslScript;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * DSL执行引擎
+ * 已编译脚本不可变，可被任意多个线程同时执行，每次调用的状态都在独立的执行帧中
+ * 脚本注册表读取无锁，重新加载时整体替换
+ */
 @Slf4j
 @Component
 public class DslEngine {
 
-    private final Map<String, DslScript> loadedScripts = new HashMap<>();
+    // 规则集执行记录指标时使用的脚本名称
+    public static final String RULE_SET = "<rules>";
 
-    // 加载脚本
-    public void loadScript(DslScript script) {
-        loadedScripts.put(script.getId(), script);
-        log.info("加载脚本: {}", script.getName());
+    // 列式执行记录指标时函数名的后缀，一批记为一次调用
+    public static final String COLUMNAR = "[columnar]";
+
+    private final Map<String, CompiledScript> loadedScripts = new ConcurrentHashMap<>();
+
+    @Getter
+    private final ExecutionMetrics metrics;
+
+    public DslEngine() {
+        this(new ExecutionMetrics());
+    }
+
+    @Autowired
+    public DslEngine(ExecutionMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // 加载脚本，已加载的同名脚本被原子替换，正在执行的调用继续使用旧版本
+    public void loadScript(CompiledScript script) {
+        CompiledScript previous = loadedScripts.put(script.getName(), script);
+        if (previous == null) {
+            log.info("加载脚本: {}", script.getName());
+        } else if (previous != script) {
+            log.info("替换脚本: {}", script.getName());
+        }
     }
 
     // 卸载脚本
     public void unloadScript(String scriptId) {
-        if (loadedScripts.containsKey(scriptId)) {
-            DslScript script = loadedScripts.remove(scriptId);
+        CompiledScript script = loadedScripts.remove(scriptId);
+        if (script != null) {
             log.info("卸载脚本: {}", script.getName());
         }
     }
 
+    // 获取已加载的编译脚本，未加载时返回null
+    public CompiledScript getScript(String scriptId) {
+        return loadedScripts.get(scriptId);
+    }
+
     // 执行脚本中的函数
     public Object executeFunction(String scriptId, String functionName, Object... args) {
-        DslScript script = loadedScripts.get(scriptId);
+        CompiledScript script = loadedScripts.get(scriptId);
         if (script == null) {
             throw new RuntimeException("脚本未加载: " + scriptId);
         }
+        return executeFunction(script, getFunction(script, functionName), new DslContext(), args, System.nanoTime());
+    }
 
-        DslFunction function = script.getFunction(functionName);
-        if (function == null) {
-            throw new RuntimeException("函数未找到: " + functionName);
-        }
+    // 执行函数，参数按名称从变量表中绑定，变量表同时作为全局变量
+    public Object execute(CompiledScript script, String functionName, Map<String, Object> variables) {
+        return execute(script, functionName, variables, null);
+    }
 
-        return executeFunction(script, function, args);
+    // 执行函数并记录跟踪，只有跟踪版本的脚本（见DslCompiler.compileTraced）会写入trace
+    public Object execute(CompiledScript script, String functionName, Map<String, Object> variables,
+                          ExecutionTrace trace) {
+        return execute(script, functionName, variables, trace, null);
     }
 
-    // 执行函数
-    private Object executeFunction(DslScript script, DslFunction function, Object... args) {
-        // 创建执行上下文
-        DslContext context = new DslContext();
+    // 执行函数并记录剖析调用栈，只有剖析版本的脚本（见DslCompiler.compileProfiled）会写入profile
+    public Object execute(CompiledScript script, String functionName, Map<String, Object> variables,
+                          ExecutionTrace trace, ProfileStack profile) {
+        CompiledFunction function = getFunction(script, functionName);
+
+        // 绑定阶段从创建全局上下文开始计时
+        long start = System.nanoTime();
+        DslContext globals = new DslContext();
+        globals.setTrace(trace);
+        globals.setProfile(profile);
+        if (variables != null) {
+            variables.forEach(globals::setVariable);
+        }
 
-        // 绑定参数
-        for (int i = 0; i < Math.min(function.getParameters().size(), args.length); i++) {
-            context.setVariable(function.getParameters().get(i), args[i]);
+        List<String> parameters = function.getParameters();
+        Object[] args = new Object[parameters.size()];
+        if (variables != null) {
+            for (int i = 0; i < args.length; i++) {
+                args[i] = variables.get(parameters.get(i));
+            }
         }
+        return executeFunction(script, function, globals, args, start);
+    }
 
-        try {
-            // 执行函数体
-            return executeBlock((BusinessDslParser.BlockContext) function.getBody(), context);
-        } catch (Exception e) {
-            log.error("执行函数失败: {}.{} - {}", script.getName(), function.getName(), e.getMessage(), e);
-            throw new RuntimeException("执行函数失败: " + e.getMessage(), e);
+    /**
+     * 对同一组变量（一个订单）依次执行规则集中的所有脚本，共享条件对这组变量只求值一次
+     * 变量只绑定一次，没有顶层语句的脚本直接使用同一个全局上下文，有顶层语句的脚本在其子上下文中执行，
+     * 顶层变量互不影响。结果与规则顺序一致，单个脚本失败时该脚本记录异常，不影响其他脚本
+     */
+    public List<RuleSet.Result> execute(RuleSet ruleSet, Map<String, Object> variables) {
+        long start = System.nanoTime();
+        DslContext order = new DslContext();
+        if (variables != null) {
+            variables.forEach(order::setVariable);
         }
+        Object[] conditions = ruleSet.newConditions();
+        order.setConditions(conditions);
+
+        long bound = System.nanoTime();
+        boolean failed = false;
+        List<RuleSet.Result> results = new ArrayList<>(ruleSet.getRules().size());
+        for (RuleSet.Rule rule : ruleSet.getRules()) {
+            CompiledScript script = rule.getScript();
+            DslContext globals = order;
+            if (script.getInitializer() != null) {
+                globals = order.createChildContext();
+                globals.setConditions(conditions);
+            }
+            CompiledFunction function = rule.getFunction();
+            List<String> parameters = function.getParameters();
+            Object[] args = new Object[parameters.size()];
+            if (variables != null) {
+                for (int i = 0; i < args.length; i++) {
+                    args[i] = variables.get(parameters.get(i));
+                }
+            }
+            try {
+                Object result = executeFunction(script, function, globals, args, bound, null);
+                results.add(new RuleSet.Result(rule.getName(), result, null));
+            } catch (RuntimeException e) {
+                failed = true;
+                results.add(new RuleSet.Result(rule.getName(), null, e));
+            }
+        }
+        // 逐个脚本查找指标的开销与规则数成正比，规则集整体记为一次调用
+        FunctionMetrics functionMetrics = metrics.function(RULE_SET, "execute");
+        if (failed) {
+            functionMetrics.recordFailure(System.nanoTime() - start);
+        } else {
+            functionMetrics.recordSuccess(bound - start, System.nanoTime() - bound);
+        }
+        return results;
     }
 
-    // 执行代码块
-    private Object executeBlock(BusinessDslParser.BlockContext blockContext, DslContext context) {
-        // 这里应该实现完整的解释器逻辑
-        // 为了简化示例，我们只实现一个基本框架
+    /**
+     * 按列执行整批记录，参数按名称绑定到同名的列，返回结果列
+     * 列式版本不读取全局变量，不执行顶层语句；没有循环和调用，不计执行预算
+     */
+    public ColumnBatch execute(CompiledScript script, ColumnProgram program, ColumnBatch columns) {
+        FunctionMetrics functionMetrics = metrics.function(script.getName(), program.getFunctionName() + COLUMNAR);
+        long start = System.nanoTime();
+        try {
+            ColumnBatch result = program.execute(columns);
+            functionMetrics.recordSuccess(0, System.nanoTime() - start);
+            return result;
+        } catch (RuntimeException e) {
+            functionMetrics.recordFailure(System.nanoTime() - start);
+            throw e;
+        }
+    }
 
-        // 创建块级作用域
-        DslContext dslContext = context.createChildContext();
+    private CompiledFunction getFunction(CompiledScript script, String functionName) {
+        CompiledFunction function = script.getFunction(functionName);
+        if (function == null) {
+            throw new RuntimeException("函数未找到: " + functionName);
+        }
+        return function;
+    }
 
-        // 遍历并执行块中的每个语句
-        Object result = null;
-        for (BusinessDslParser.StatementContext stmt : blockContext.statement()) {
-            // 根据语句类型执行不同的操作
-            // 这里需要实现完整的解释器逻辑
+    // 执行函数，start为绑定阶段的开始时间
+    // 超出执行预算时抛出BudgetExceededException，线程栈耗尽也按调用深度超限处理
+    private Object executeFunction(CompiledScript script, CompiledFunction function, DslContext globals,
+                                   Object[] args, long start) {
+        return executeFunction(script, function, globals, args, start,
+                metrics.function(script.getName(), function.getName()));
+    }
 
-            // 示例：处理返回语句
-            if (stmt.returnStatement() != null) {
-                if (stmt.returnStatement().expr() != null) {
-                    // 计算返回表达式的值
-                    result = evaluateExpression(stmt.returnStatement().expr(), dslContext);
-                }
-                break; // 遇到return语句就退出循环
+    // functionMetrics为null时不记录，规则集中的脚本按整个规则集记录
+    private Object executeFunction(CompiledScript script, CompiledFunction function, DslContext globals,
+                                   Object[] args, long start, FunctionMetrics functionMetrics) {
+        globals.setBudget(ExecutionBudget.start(script.getOptions()));
+        try {
+            // 先执行顶层语句，顶层变量写入全局上下文
+            CompiledFunction initializer = script.getInitializer();
+            if (initializer != null) {
+                Object[] slots = initializer.execute(globals, new Object[0]).getSlots();
+                script.getGlobalSlots().forEach((name, slot) -> globals.setVariable(name, slots[slot]));
             }
 
-            // 处理其他类型的语句...
+            // 执行函数体
+            long bound = System.nanoTime();
+            Object result = function.invoke(globals, args);
+            if (functionMetrics != null) {
+                functionMetrics.recordSuccess(bound - start, System.nanoTime() - bound);
+            }
+            return result;
+        } catch (BudgetExceededException e) {
+            recordFailure(functionMetrics, start);
+            log.warn("执行超出预算: {}.{} - {}", script.getName(), function.getName(), e.getMessage());
+            throw e;
+        } catch (StackOverflowError e) {
+            recordFailure(functionMetrics, start);
+            log.warn("执行超出预算: {}.{} - 线程栈耗尽", script.getName(), function.getName());
+            throw new BudgetExceededException(BudgetExceededException.Budget.CALL_DEPTH,
+                    script.getOptions().getMaxCallDepthOrDefault(), "调用过深，线程栈耗尽");
+        } catch (Exception e) {
+            recordFailure(functionMetrics, start);
+            log.error("执行函数失败: {}.{} - {}", script.getName(), function.getName(), e.getMessage(), e);
+            throw new RuntimeException("执行函数失败: " + e.getMessage(), e);
         }
-
-        return result;
     }
 
-    // 计算表达式的值
-    private Object evaluateExpression(BusinessDslParser.ExprContext exprContext, DslContext context) {
-        // 这里应该实现完整的表达式求值逻辑
-        // 为了简化示例，我们只返回一个占位符
-        return "表达式结果";
+    private static void recordFailure(FunctionMetrics functionMetrics, long start) {
+        if (functionMetrics != null) {
+            functionMetrics.recordFailure(System.nanoTime() - start);
+        }
     }
 
-    // 获取已加载的脚本
+    // 获取已加载脚本的快照
     public Map<String, DslScript> getLoadedScripts() {
-        return new HashMap<>(loadedScripts);
+        Map<String, DslScript> scripts = new HashMap<>();
+        loadedScripts.forEach((id, compiled) -> scripts.put(id, compiled.getScript()));
+        return scripts;
     }
 }
@@ -0,0 +1,195 @@
+package com.example.dsl.runtime;
+
+import com.example.dsl.ast.BinaryOperator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DSL运算语义
+ * 编译后的节点共用这些方法，保证和解释器行为一致
+ */
+public final class DslOperations {
+
+    private DslOperations() {
+    }
+
+    // 将对象转为布尔值
+    public static boolean toBoolean(Object obj) {
+        if (obj == null) return false;
+        if (obj instanceof Boolean) return (Boolean) obj;
+        if (obj instanceof Number) return ((Number) obj).doubleValue() != 0;
+        if (obj instanceof String) return !((String) obj).isEmpty();
+        if (obj instanceof Collection) return !((Collection<?>) obj).isEmpty();
+        if (obj instanceof Map) return !((Map<?, ?>) obj).isEmpty();
+        return true;
+    }
+
+    // 加法：数值相加或字符串拼接
+    public static Object add(Object left, Object right) {
+        if (left instanceof Number && right instanceof Number) {
+            return ((Number) left).doubleValue() + ((Number) right).doubleValue();
+        }
+        if (left instanceof String || right instanceof String) {
+            return String.valueOf(left) + String.valueOf(right);
+        }
+        throw new RuntimeException("Invalid operands for +: " + left + ", " + right);
+    }
+
+    // 减法
+    public static Object subtract(Object left, Object right) {
+        if (left instanceof Number && right instanceof Number) {
+            return ((Number) left).doubleValue() - ((Number) right).doubleValue();
+        }
+        throw new RuntimeException("Invalid operands for -: " + left + ", " + right);
+    }
+
+    // 乘、除、取模，操作数不是数值时返回null
+    public static Object arithmetic(BinaryOperator op, Object left, Object right) {
+        if (left instanceof Number && right instanceof Number) {
+            double l = ((Number) left).doubleValue();
+            double r = ((Number) right).doubleValue();
+            switch (op) {
+                case MUL: return l * r;
+                case DIV: return l / r;
+                case MOD: return l % r;
+                default: break;
+            }
+        }
+        return null;
+    }
+
+    // 取负
+    public static Object negate(Object value) {
+        if (value instanceof Number) {
+            return -((Number) value).doubleValue();
+        }
+        throw new RuntimeException("Invalid operand for -: " + value);
+    }
+
+    // 相等判断
+    public static boolean equal(Object left, Object right) {
+        if (left == null) return right == null;
+        return left.equals(right);
+    }
+
+    // 大小比较，数值和字符串之外的类型返回false
+    public static boolean compare(BinaryOperator op, Object left, Object right) {
+        if (left instanceof Number && right instanceof Number) {
+            double l = ((Number) left).doubleValue();
+            double r = ((Number) right).doubleValue();
+            switch (op) {
+                case LT: return l < r;
+                case GT: return l > r;
+                case LE: return l <= r;
+                case GE: return l >= r;
+                default: return false;
+            }
+        }
+        if (left instanceof String && right instanceof String) {
+            int cmp = ((String) left).compareTo((String) right);
+            switch (op) {
+                case LT: return cmp < 0;
+                case GT: return cmp > 0;
+                case LE: return cmp <= 0;
+                case GE: return cmp >= 0;
+                default: return false;
+            }
+        }
+        return false;
+    }
+
+    // 按运算符对两个已求值的操作数求值，&&和||不短路，供编译期常量折叠使用
+    public static Object binary(BinaryOperator op, Object left, Object right) {
+        switch (op) {
+            case OR: return toBoolean(left) || toBoolean(right);
+            case AND: return toBoolean(left) && toBoolean(right);
+            case EQ: return equal(left, right);
+            case NE: return !equal(left, right);
+            case LT:
+            case GT:
+            case LE:
+            case GE:
+                return compare(op, left, right);
+            case ADD: return add(left, right);
+            case SUB: return subtract(left, right);
+            default: return arithmetic(op, left, right);
+        }
+    }
+
+    // 下标访问
+    public static Object index(Object collection, Object index) {
+        if (collection instanceof List && index instanceof Number) {
+            int idx = ((Number) index).intValue();
+            List<?> list = (List<?>) collection;
+            if (idx >= 0 && idx < list.size()) {
+                return list.get(idx);
+            }
+            throw new RuntimeException("Array index out of bounds: " + idx);
+        } else if (collection instanceof Map) {
+            return ((Map<?, ?>) collection).get(index);
+        }
+        throw new RuntimeException("Invalid array/map access: " + collection + "[" + index + "]");
+    }
+
+    // 成员访问
+    public static Object member(Object obj, String member) {
+        if (obj instanceof Map) {
+            return ((Map<?, ?>) obj).get(member);
+        }
+        throw new RuntimeException("Cannot access member '" + member + "' of non-object: " + obj);
+    }
+
+    // 创建数组字面量
+    public static List<Object> newList(Object[] elements) {
+        return new ArrayList<>(Arrays.asList(elements));
+    }
+
+    // 字节码后端的for-in：有执行预算时先检查集合大小
+    public static Object[] forInEntries(DslContext globals, Object iterable) {
+        ExecutionBudget budget = globals.getBudget();
+        if (budget != null) {
+            if (iterable instanceof List) {
+                budget.checkCollectionSize(((List<?>) iterable).size());
+            } else if (iterable instanceof Map) {
+                budget.checkCollectionSize(((Map<?, ?>) iterable).size());
+            }
+        }
+        return forInEntries(iterable);
+    }
+
+    // 字节码后端的循环迭代计步
+    public static void step(DslContext globals) {
+        ExecutionBudget budget = globals.getBudget();
+        if (budget != null) {
+            budget.step();
+        }
+    }
+
+    // for-in遍历的键值对，按[键0, 值0, 键1, 值1...]展开，列表的键为下标，其他类型不遍历
+    public static Object[] forInEntries(Object iterable) {
+        if (iterable instanceof List) {
+            List<?> list = (List<?>) iterable;
+            Object[] entries = new Object[list.size() * 2];
+            for (int i = 0; i < list.size(); i++) {
+                entries[i * 2] = i;
+                entries[i * 2 + 1] = list.get(i);
+            }
+            return entries;
+        }
+        if (iterable instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) iterable;
+            Object[] entries = new Object[map.size() * 2];
+            int i = 0;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                entries[i++] = entry.getKey();
+                entries[i++] = entry.getValue();
+            }
+            return entries;
+        }
+        return new Object[0];
+    }
+}
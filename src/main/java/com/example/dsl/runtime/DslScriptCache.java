@@ -0,0 +1,221 @@
+package com.example.dsl.runtime;
+
+import com.example.dsl.compiler.DslCompiler;
+import com.example.dsl.runtime.columnar.ColumnBatch;
+import com.example.dsl.runtime.columnar.ColumnProgram;
+import com.example.dsl.runtime.metrics.ExecutionMetrics;
+import com.google.common.hash.Hashing;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 已编译脚本缓存
+ * 按脚本名称和内容哈希缓存编译结果，执行时无需再读取文件和解析
+ */
+@Slf4j
+@Component
+public class DslScriptCache {
+
+    private final DslCompiler dslCompiler;
+
+    private final ExecutionMetrics metrics;
+
+    private final Map<String, CompiledScript> compiledScripts = new ConcurrentHashMap<>();
+
+    // 跟踪版本，首次请求跟踪时编译，与普通版本内容哈希一致时复用
+    private final Map<String, CompiledScript> tracedScripts = new ConcurrentHashMap<>();
+
+    // 剖析版本，开启剖析后首次执行时编译
+    private final Map<String, CompiledScript> profiledScripts = new ConcurrentHashMap<>();
+
+    // 列式版本，按脚本名称、函数名和int[]列特化
+    private final Map<String, ColumnProgram> columnPrograms = new ConcurrentHashMap<>();
+
+    // 最近编译的规则集，组成规则集的脚本或其内容变化时重新编译
+    private volatile RuleSet ruleSet;
+
+    // 统计信息
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder compiles = new LongAdder();
+    private final LongAdder compileNanos = new LongAdder();
+
+    public DslScriptCache(DslCompiler dslCompiler) {
+        this(dslCompiler, new ExecutionMetrics());
+    }
+
+    @Autowired
+    public DslScriptCache(DslCompiler dslCompiler, ExecutionMetrics metrics) {
+        this.dslCompiler = dslCompiler;
+        this.metrics = metrics;
+    }
+
+    // 获取已编译脚本，未命中时返回null
+    public CompiledScript get(String scriptName) {
+        CompiledScript compiled = compiledScripts.get(scriptName);
+        if (compiled != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return compiled;
+    }
+
+    // 放入脚本内容，内容未变化时复用已有的编译结果
+    public CompiledScript put(String scriptName, String content) {
+        String contentHash = hash(content);
+        return compiledScripts.compute(scriptName, (name, existing) -> {
+            if (existing != null && existing.getContentHash().equals(contentHash)) {
+                return existing;
+            }
+            return compile(name, content, contentHash, false);
+        });
+    }
+
+    // 同put，但内容有语法错误时抛出IllegalArgumentException，缓存保持不变
+    public CompiledScript putStrict(String scriptName, String content) {
+        String contentHash = hash(content);
+        return compiledScripts.compute(scriptName, (name, existing) -> {
+            if (existing != null && existing.getContentHash().equals(contentHash)) {
+                return existing;
+            }
+            return compile(name, content, contentHash, true);
+        });
+    }
+
+    // 获取已编译脚本对应的跟踪版本
+    public CompiledScript getTraced(CompiledScript compiled) {
+        return tracedScripts.compute(compiled.getName(), (name, existing) -> {
+            if (existing != null && existing.getContentHash().equals(compiled.getContentHash())) {
+                return existing;
+            }
+            log.info("编译跟踪版本: {}", name);
+            return dslCompiler.compileTraced(name, compiled.getScript().getContent(), compiled.getContentHash());
+        });
+    }
+
+    // 获取已编译脚本对应的剖析版本
+    public CompiledScript getProfiled(CompiledScript compiled) {
+        return profiledScripts.compute(compiled.getName(), (name, existing) -> {
+            if (existing != null && existing.getContentHash().equals(compiled.getContentHash())) {
+                return existing;
+            }
+            log.info("编译剖析版本: {}", name);
+            return dslCompiler.compileProfiled(name, compiled.getScript().getContent(), compiled.getContentHash());
+        });
+    }
+
+    // 获取已编译脚本中函数的列式版本，按batch中各列的类型特化，与普通版本内容哈希一致时复用
+    public ColumnProgram getColumnar(CompiledScript compiled, String functionName, ColumnBatch batch) {
+        Set<String> intColumns = batch.getIntColumns();
+        String key = compiled.getName() + "#" + functionName + "#" + intColumns;
+        return columnPrograms.compute(key, (k, existing) -> {
+            if (existing != null && existing.getContentHash().equals(compiled.getContentHash())) {
+                return existing;
+            }
+            return dslCompiler.compileColumnar(compiled, functionName, intColumns);
+        });
+    }
+
+    // 获取由这些脚本组成的规则集，sources为各脚本的普通编译版本及其入口函数
+    public RuleSet getRuleSet(List<RuleSet.Rule> sources) {
+        RuleSet current = ruleSet;
+        if (current != null && current.matches(sources)) {
+            return current;
+        }
+        synchronized (this) {
+            current = ruleSet;
+            if (current == null || !current.matches(sources)) {
+                current = dslCompiler.compileRuleSet(sources);
+                ruleSet = current;
+            }
+            return current;
+        }
+    }
+
+    // 使缓存失效，同时清空脚本的纯函数结果缓存
+    public void invalidate(String scriptName) {
+        tracedScripts.remove(scriptName);
+        profiledScripts.remove(scriptName);
+        columnPrograms.keySet().removeIf(key -> key.startsWith(scriptName + "#"));
+        CompiledScript removed = compiledScripts.remove(scriptName);
+        if (removed != null) {
+            if (removed.getMemoCache() != null) {
+                removed.getMemoCache().invalidateAll();
+            }
+            log.info("脚本缓存失效: {}", scriptName);
+        }
+    }
+
+    // 清空缓存
+    public void invalidateAll() {
+        compiledScripts.clear();
+        tracedScripts.clear();
+        profiledScripts.clear();
+        columnPrograms.clear();
+        ruleSet = null;
+    }
+
+    // 获取缓存统计信息
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long compileCount = compiles.sum();
+        long totalCompileNanos = compileNanos.sum();
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("size", compiledScripts.size());
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("compiles", compileCount);
+        stats.put("totalCompileMillis", TimeUnit.NANOSECONDS.toMillis(totalCompileNanos));
+        stats.put("avgCompileMillis", compileCount == 0 ? 0.0 : totalCompileNanos / 1_000_000.0 / compileCount);
+
+        // 各脚本纯函数结果缓存的命中率
+        Map<String, Object> memo = new TreeMap<>();
+        compiledScripts.forEach((name, compiled) -> {
+            if (compiled.getMemoCache() != null) {
+                memo.put(name, compiled.getMemoCache().getStats());
+            }
+        });
+        stats.put("memo", memo);
+        stats.put("columnar", columnPrograms.size());
+
+        // 规则集的共享条件数和引用位置数，两者之差为每个订单少求值的条件数
+        RuleSet current = ruleSet;
+        if (current != null) {
+            Map<String, Object> rules = new HashMap<>();
+            rules.put("scripts", current.getRules().size());
+            rules.put("conditions", current.getConditionCount());
+            rules.put("conditionSites", current.getConditionSites());
+            stats.put("ruleSet", rules);
+        }
+        return stats;
+    }
+
+    private CompiledScript compile(String scriptName, String content, String contentHash, boolean strict) {
+        CompiledScript compiled = strict ? dslCompiler.compileStrict(scriptName, content, contentHash)
+                : dslCompiler.compile(scriptName, content, contentHash);
+        compiles.increment();
+        compileNanos.add(compiled.getCompileNanos());
+        metrics.recordCompile(scriptName, compiled.getCompileNanos());
+        log.info("编译脚本: {}, 耗时: {}ms", scriptName, TimeUnit.NANOSECONDS.toMillis(compiled.getCompileNanos()));
+        return compiled;
+    }
+
+    private static String hash(String content) {
+        return Hashing.sha256().hashString(content, StandardCharsets.UTF_8).toString();
+    }
+}
@@ -1,85 +1,177 @@
 package com.example.dsl.runtime;
 
-import com.example.dsl.parser.DslParser;
-import com.example.model.DslScript;
+import com.example.config.DslProperties;
+import com.example.dsl.compiler.ProgramCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PreDestroy;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.HashMap;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+/**
+ * 脚本热加载
+ * 通过WatchService监听脚本目录，文件变化经过去抖后在后台线程池中编译，
+ * 编译完成后原子替换引擎中的脚本，文件删除时卸载脚本；
+ * 已加载的脚本只按没有语法错误的新内容替换，编译失败时保留已加载的版本
+ */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class DslScriptLoader {
 
-    private final DslParser dslParser;
+    private final DslScriptCache scriptCache;
     private final DslEngine dslEngine;
+    private final DslProperties dslProperties;
+    private final ProgramCache programCache;
 
-    private final Map<String, Long> scriptLastModified = new HashMap<>();
-    private final Path scriptsDirectory = Paths.get("scripts");
+    private final Map<String, Long> scriptLastModified = new ConcurrentHashMap<>();
+
+    // 按脚本名称哈希分段的锁，同一脚本的加载串行执行，不同脚本大多可以并行编译
+    private static final int LOCK_STRIPES = 64;
+
+    private final Object[] scriptLocks = newLocks();
+
+    // 等待去抖结束的重新加载任务
+    private final Map<String, ScheduledFuture<?>> pendingReloads = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService debounceScheduler =
+            Executors.newSingleThreadScheduledExecutor(daemonThreads("dsl-reload-debounce"));
+
+    private final ExecutorService compilePool =
+            Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors() / 2),
+                    daemonThreads("dsl-reload-compile"));
+
+    private WatchService watchService;
+
+    // 脚本目录，由dsl.scripts-directory配置
+    private Path scriptsDirectory() {
+        return Paths.get(dslProperties.getScriptsDirectory());
+    }
 
     // 初始化脚本目录
     public void init() {
         try {
-            if (!Files.exists(scriptsDirectory)) {
-                Files.createDirectories(scriptsDirectory);
-                log.info("创建脚本目录: {}", scriptsDirectory);
+            if (!Files.exists(scriptsDirectory())) {
+                Files.createDirectories(scriptsDirectory());
+                log.info("创建脚本目录: {}", scriptsDirectory());
             }
 
-            // 加载所有脚本
+            // 先注册监听再加载，加载期间发生的变化不会丢失
+            startWatching();
+
+            // 加载所有脚本，再把新解析的脚本写入持久化缓存供下次启动使用
             loadAllScripts();
+            programCache.flush();
         } catch (IOException e) {
             log.error("初始化脚本目录失败: {}", e.getMessage(), e);
         }
     }
 
+    @PreDestroy
+    public void shutdown() {
+        try {
+            if (watchService != null) {
+                watchService.close();
+            }
+        } catch (IOException e) {
+            log.warn("关闭脚本目录监听失败: {}", e.getMessage());
+        }
+        debounceScheduler.shutdownNow();
+        compilePool.shutdownNow();
+    }
+
     // 加载所有脚本
     public void loadAllScripts() {
-        try {
-            Files.list(scriptsDirectory)
-                    .filter(path -> path.toString().endsWith(".dsl"))
+        try (Stream<Path> paths = Files.list(scriptsDirectory())) {
+            paths.filter(path -> path.toString().endsWith(".dsl"))
                     .forEach(this::loadScript);
         } catch (IOException e) {
             log.error("加载脚本失败: {}", e.getMessage(), e);
         }
     }
 
-    // 加载单个脚本
+    // 加载单个脚本，同一脚本的加载串行化，在锁内读取文件以保证最后加载的是最新内容
     public Object loadScript(Path path) {
-        try {
-            String scriptId = path.getFileName().toString();
-            // 替换 Files.readString(path)
-            byte[] fileBytes = Files.readAllBytes(path);
-            String content = new String(fileBytes, StandardCharsets.UTF_8);
-            long lastModified = Files.getLastModifiedTime(path).toMillis();
-
-            // 解析脚本
-            Object result = dslParser.parse(scriptId, content);
-
-            // 如果是DslScript，加载到引擎
-            if (result instanceof DslScript) {
-                DslScript script = (DslScript) result;
-                dslEngine.loadScript(script);
+        return loadScript(path, false);
+    }
+
+    // keepLoaded为true且脚本已加载时，新内容有语法错误则抛出异常，保留已加载的版本
+    private Object loadScript(Path path, boolean keepLoaded) {
+        String scriptId = path.getFileName().toString();
+        synchronized (lockFor(scriptId)) {
+            try {
+                // 替换 Files.readString(path)
+                byte[] fileBytes = Files.readAllBytes(path);
+                String content = new String(fileBytes, StandardCharsets.UTF_8);
+                long lastModified = Files.getLastModifiedTime(path).toMillis();
+
+                // 编译脚本并更新缓存（内容未变化时复用缓存），只解析一次
+                CompiledScript compiled = keepLoaded && dslEngine.getScript(scriptId) != null
+                        ? scriptCache.putStrict(scriptId, content)
+                        : scriptCache.put(scriptId, content);
+
+                // 加载到引擎
+                dslEngine.loadScript(compiled);
                 // 记录最后修改时间
                 scriptLastModified.put(scriptId, lastModified);
                 log.info("加载脚本: {}", scriptId);
+
+                return compiled.getScript();
+            } catch (IOException e) {
+                log.error("读取脚本文件失败: {}", e.getMessage(), e);
+                return null;
             }
+        }
+    }
 
-            return result;
-        } catch (IOException e) {
-            log.error("读取脚本文件失败: {}", e.getMessage(), e);
-            return null;
+    // 卸载已删除的脚本
+    public void unloadScript(String scriptId) {
+        synchronized (lockFor(scriptId)) {
+            if (Files.exists(scriptsDirectory().resolve(scriptId))) {
+                return;
+            }
+            scriptLastModified.remove(scriptId);
+            scriptCache.invalidate(scriptId);
+            dslEngine.unloadScript(scriptId);
         }
     }
 
+    private Object lockFor(String scriptId) {
+        return scriptLocks[(scriptId.hashCode() & Integer.MAX_VALUE) % LOCK_STRIPES];
+    }
+
+    private static Object[] newLocks() {
+        Object[] locks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+        return locks;
+    }
+
     // 保存脚本
 //    public void saveScript(String scriptId, String content) throws IOException {
 //        Path scriptPath = scriptsDirectory.resolve(scriptId);
@@ -90,7 +182,7 @@ public class DslScriptLoader {
 //        loadScript(scriptPath);
 //    }
     public void saveScript(String scriptId, String content) throws IOException {
-        Path scriptPath = scriptsDirectory.resolve(scriptId);
+        Path scriptPath = scriptsDirectory().resolve(scriptId);
 
         // Java 8 替代 Files.writeString()
         Files.write(scriptPath, content.getBytes(StandardCharsets.UTF_8));
@@ -100,29 +192,112 @@ public class DslScriptLoader {
         loadScript(scriptPath);
     }
 
-    // 定时检查脚本更新（热加载）
-    @Scheduled(fixedDelay = 5000) // 每5秒检查一次
+    // 全量核对脚本目录，加载新增和修改的脚本，卸载已删除的脚本
+    // 只在监听事件溢出时使用，正常情况下由文件事件驱动
     public void checkScriptUpdates() {
-        try {
-            Files.list(scriptsDirectory)
-                    .filter(path -> path.toString().endsWith(".dsl"))
+        try (Stream<Path> paths = Files.list(scriptsDirectory())) {
+            Set<String> present = new HashSet<>();
+            paths.filter(path -> path.toString().endsWith(".dsl"))
                     .forEach(path -> {
                         try {
                             String scriptId = path.getFileName().toString();
+                            present.add(scriptId);
                             long lastModified = Files.getLastModifiedTime(path).toMillis();
 
                             // 检查是否有更新
-                            if (!scriptLastModified.containsKey(scriptId) ||
-                                    scriptLastModified.get(scriptId) < lastModified) {
+                            Long loadedModified = scriptLastModified.get(scriptId);
+                            if (loadedModified == null || loadedModified < lastModified) {
                                 log.info("检测到脚本更新: {}", scriptId);
-                                loadScript(path);
+                                scheduleReload(scriptId);
                             }
                         } catch (IOException e) {
                             log.error("检查脚本更新失败: {}", e.getMessage(), e);
                         }
                     });
+            for (String scriptId : scriptLastModified.keySet().stream()
+                    .filter(id -> !present.contains(id)).collect(Collectors.toList())) {
+                scheduleReload(scriptId);
+            }
         } catch (IOException e) {
             log.error("检查脚本目录失败: {}", e.getMessage(), e);
         }
     }
+
+    // 注册目录监听并启动监听线程
+    private void startWatching() throws IOException {
+        watchService = scriptsDirectory().getFileSystem().newWatchService();
+        scriptsDirectory().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        Thread watcher = daemonThreads("dsl-script-watcher").newThread(this::watch);
+        watcher.start();
+        log.info("监听脚本目录: {}", scriptsDirectory().toAbsolutePath());
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        // 事件丢失，全量核对一次
+                        log.warn("脚本目录事件溢出，全量检查脚本");
+                        checkScriptUpdates();
+                        continue;
+                    }
+                    String scriptId = ((Path) event.context()).getFileName().toString();
+                    if (scriptId.endsWith(".dsl")) {
+                        scheduleReload(scriptId);
+                    }
+                }
+                if (!key.reset()) {
+                    log.error("脚本目录不再可用，停止监听: {}", scriptsDirectory());
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // 应用关闭
+        }
+    }
+
+    // 去抖：编辑器保存时连续产生的多个事件只触发最后一次重新加载
+    // 任务开始执行时移除自己的登记；compute持有该键的锁直到返回，任务中的remove会等到future登记完成
+    private void scheduleReload(String scriptId) {
+        pendingReloads.compute(scriptId, (id, pending) -> {
+            if (pending != null) {
+                pending.cancel(false);
+            }
+            AtomicReference<ScheduledFuture<?>> self = new AtomicReference<>();
+            ScheduledFuture<?> future = debounceScheduler.schedule(() -> {
+                pendingReloads.remove(id, self.get());
+                compilePool.execute(() -> reload(id));
+            }, dslProperties.getReloadDebounceMillis(), TimeUnit.MILLISECONDS);
+            self.set(future);
+            return future;
+        });
+    }
+
+    private void reload(String scriptId) {
+        try {
+            Path path = scriptsDirectory().resolve(scriptId);
+            if (Files.exists(path)) {
+                loadScript(path, true);
+            } else {
+                unloadScript(scriptId);
+            }
+        } catch (Exception e) {
+            // 编译失败时保留旧版本继续服务
+            log.error("重新加载脚本失败: {}", scriptId, e);
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger index = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
 }
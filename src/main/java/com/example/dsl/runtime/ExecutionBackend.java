@@ -0,0 +1,11 @@
+package com.example.dsl.runtime;
+
+/**
+ * 函数执行后端
+ */
+public enum ExecutionBackend {
+    // 执行节点树
+    INTERPRETER,
+    // 编译为JVM字节码，不支持的语法回退到解释器
+    BYTECODE
+}
@@ -0,0 +1,88 @@
+package com.example.dsl.runtime;
+
+/**
+ * 单次执行的预算，随全局上下文创建，只在执行线程中使用
+ * 循环迭代和函数调用计步，超时每DEADLINE_CHECK_INTERVAL步检查一次；
+ * 没有循环和调用的代码执行量受脚本长度限制，无需计步
+ */
+public final class ExecutionBudget {
+
+    // 未配置时的最大调用深度
+    public static final int DEFAULT_MAX_CALL_DEPTH = 200;
+
+    private static final int DEADLINE_CHECK_INTERVAL = 1024;
+
+    private final long maxSteps;
+    private final long timeoutMillis;
+    private final long deadline;
+    private final int maxCallDepth;
+    private final int maxCollectionSize;
+
+    private long steps;
+    private int depth;
+
+    private ExecutionBudget(ScriptOptions options) {
+        this.maxSteps = positive(options.getMaxSteps());
+        this.timeoutMillis = options.getTimeoutMillis() != null ? options.getTimeoutMillis() : 0;
+        this.deadline = timeoutMillis > 0 ? System.nanoTime() + timeoutMillis * 1_000_000 : 0;
+        int callDepth = options.getMaxCallDepthOrDefault();
+        this.maxCallDepth = callDepth > 0 ? callDepth : Integer.MAX_VALUE;
+        Integer collectionSize = options.getMaxCollectionSize();
+        this.maxCollectionSize = collectionSize != null && collectionSize > 0 ? collectionSize : Integer.MAX_VALUE;
+    }
+
+    // 按脚本选项开始计算预算，超时从此时开始计时
+    public static ExecutionBudget start(ScriptOptions options) {
+        return new ExecutionBudget(options);
+    }
+
+    // 计一步，循环每次迭代时调用
+    public void step() {
+        long current = ++steps;
+        if (current > maxSteps) {
+            throw new BudgetExceededException(BudgetExceededException.Budget.STEPS, maxSteps,
+                    "执行步数超过上限: " + maxSteps);
+        }
+        if (deadline != 0 && (current & (DEADLINE_CHECK_INTERVAL - 1)) == 0) {
+            checkDeadline();
+        }
+    }
+
+    // 进入脚本函数，计一步并检查调用深度
+    public void enter() {
+        if (++depth > maxCallDepth) {
+            depth--;
+            throw new BudgetExceededException(BudgetExceededException.Budget.CALL_DEPTH, maxCallDepth,
+                    "调用深度超过上限: " + maxCallDepth);
+        }
+        step();
+    }
+
+    // 退出脚本函数
+    public void exit() {
+        depth--;
+    }
+
+    // 检查for-in遍历的集合大小
+    public void checkCollectionSize(int size) {
+        if (size > maxCollectionSize) {
+            throw new BudgetExceededException(BudgetExceededException.Budget.COLLECTION_SIZE, maxCollectionSize,
+                    "集合元素数" + size + "超过上限: " + maxCollectionSize);
+        }
+    }
+
+    public void checkDeadline() {
+        if (deadline != 0 && System.nanoTime() - deadline > 0) {
+            throw new BudgetExceededException(BudgetExceededException.Budget.TIMEOUT, timeoutMillis,
+                    "执行时间超过上限: " + timeoutMillis + "ms");
+        }
+    }
+
+    public long getSteps() {
+        return steps;
+    }
+
+    private static long positive(Long value) {
+        return value != null && value > 0 ? value : Long.MAX_VALUE;
+    }
+}
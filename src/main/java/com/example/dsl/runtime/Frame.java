@@ -0,0 +1,35 @@
+package com.example.dsl.runtime;
+
+import com.example.dsl.runtime.profile.ProfileFrame;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 函数执行帧，保存一次调用的局部变量和返回状态
+ * 局部变量在编译期解析为槽位下标，帧内用平坦数组存储
+ */
+@Getter
+public final class Frame {
+    // 全局上下文，保存调用方传入的变量和内置函数
+    private final DslContext globals;
+    // 局部变量槽位
+    private final Object[] slots;
+
+    private Object returnValue;
+    private boolean returned;
+
+    // 剖析版本中当前函数的剖析栈帧，其他情况为null
+    @Setter
+    private ProfileFrame profileFrame;
+
+    public Frame(DslContext globals, Object[] slots) {
+        this.globals = globals;
+        this.slots = slots;
+    }
+
+    // 记录return的值，所在代码块随即停止执行
+    public void setReturnValue(Object value) {
+        this.returnValue = value;
+        this.returned = true;
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.dsl.runtime;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 纯函数调用结果缓存，每个编译脚本一个，脚本重新编译后随旧的编译结果一起丢弃
+ * 只缓存参数和返回值都是标量（null、字符串、数值、布尔）的调用：
+ * 集合参数可能被调用方修改，集合结果可能被调用方修改后影响其他调用
+ */
+public class MemoCache {
+
+    // 缓存值不能为null，null结果用占位对象表示
+    private static final Object NULL = new Object();
+
+    private final Cache<Key, Object> cache;
+
+    // 被缓存的函数名
+    private final Set<String> functions;
+
+    public MemoCache(long maximumSize, Set<String> functions) {
+        this.cache = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build();
+        this.functions = Collections.unmodifiableSet(functions);
+    }
+
+    // 调用函数，参数都是标量时先查缓存
+    Object invoke(CompiledFunction function, DslContext globals, Object[] args) {
+        if (!allScalar(args)) {
+            return function.invokeUncached(globals, args);
+        }
+        Key key = new Key(function, args.clone());
+        Object cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached == NULL ? null : cached;
+        }
+        // 不使用Cache.get(key, loader)：函数体可能递归调用同一缓存
+        Object result = function.invokeUncached(globals, args);
+        if (isScalar(result)) {
+            cache.put(key, result == null ? NULL : result);
+        }
+        return result;
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public Set<String> getFunctions() {
+        return functions;
+    }
+
+    public Map<String, Object> getStats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("functions", functions);
+        result.put("size", cache.size());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.requestCount() == 0 ? 0.0 : stats.hitRate());
+        result.put("evictions", stats.evictionCount());
+        return result;
+    }
+
+    private static boolean allScalar(Object[] args) {
+        for (Object arg : args) {
+            if (!isScalar(arg)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isScalar(Object value) {
+        return value == null || value instanceof String || value instanceof Number || value instanceof Boolean;
+    }
+
+    private static final class Key {
+        private final CompiledFunction function;
+        private final Object[] args;
+        private final int hash;
+
+        Key(CompiledFunction function, Object[] args) {
+            this.function = function;
+            this.args = args;
+            this.hash = 31 * System.identityHashCode(function) + Arrays.hashCode(args);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return function == other.function && hash == other.hash && Arrays.equals(args, other.args);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
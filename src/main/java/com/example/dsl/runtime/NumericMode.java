@@ -0,0 +1,11 @@
+package com.example.dsl.runtime;
+
+/**
+ * 脚本的数值模式
+ */
+public enum NumericMode {
+    // 数值按double计算
+    DOUBLE,
+    // 数值按声明的小数位数缩放为long计算（定点数），溢出时改用BigDecimal
+    DECIMAL
+}
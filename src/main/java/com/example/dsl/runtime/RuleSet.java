@@ -0,0 +1,91 @@
+package com.example.dsl.runtime;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 规则集：一起对同一个订单执行的多个脚本，编译后不可变
+ * 各脚本入口函数中只读取上下文变量的条件汇总为共享条件（见DslCompiler.compileRuleSet），
+ * 执行时同一个条件对一个订单只求值一次，结果供所有脚本使用
+ */
+@Getter
+public final class RuleSet {
+
+    private final List<Rule> rules;
+
+    // 不同条件的个数
+    private final int conditionCount;
+
+    // 引用共享条件的位置数
+    private final int conditionSites;
+
+    public RuleSet(List<Rule> rules, int conditionCount, int conditionSites) {
+        this.rules = Collections.unmodifiableList(rules);
+        this.conditionCount = conditionCount;
+        this.conditionSites = conditionSites;
+    }
+
+    // 一次执行的条件结果数组
+    Object[] newConditions() {
+        return new Object[conditionCount];
+    }
+
+    // 规则集是否由这些脚本的当前版本编译而来
+    public boolean matches(List<Rule> sources) {
+        if (sources.size() != rules.size()) {
+            return false;
+        }
+        for (int i = 0; i < rules.size(); i++) {
+            Rule rule = rules.get(i);
+            Rule source = sources.get(i);
+            if (!rule.getName().equals(source.getName())
+                    || !rule.getScript().getContentHash().equals(source.getScript().getContentHash())
+                    || !rule.getFunctionName().equals(source.getFunctionName())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 规则集中的一个脚本及其入口函数
+     */
+    @Getter
+    public static final class Rule {
+        private final CompiledScript script;
+        private final String functionName;
+        private final CompiledFunction function;
+
+        public Rule(CompiledScript script, String functionName) {
+            this.script = script;
+            this.functionName = functionName;
+            this.function = script.getFunction(functionName);
+            if (function == null) {
+                throw new IllegalArgumentException("函数未找到: " + script.getName() + "." + functionName);
+            }
+        }
+
+        public String getName() {
+            return script.getName();
+        }
+    }
+
+    /**
+     * 一个脚本的执行结果，失败时error不为null
+     */
+    @Getter
+    @RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+    public static final class Result {
+        private final String name;
+        private final Object result;
+        private final Exception error;
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.dsl.runtime;
+
+import lombok.Data;
+
+import java.math.RoundingMode;
+
+/**
+ * 脚本级编译和执行选项，未设置的选项为null，使用默认值
+ * 执行预算（max-steps、timeout-millis、max-call-depth、max-collection-size）不大于0时不限制
+ */
+@Data
+public class ScriptOptions {
+    // 执行后端
+    private ExecutionBackend backend;
+
+    // 是否执行AST优化
+    private Boolean optimize;
+
+    // 单次执行的最大步数，循环每次迭代和每次函数调用各计一步
+    private Long maxSteps;
+
+    // 单次执行的最长时间（毫秒）
+    private Long timeoutMillis;
+
+    // 脚本函数的最大调用深度
+    private Integer maxCallDepth;
+
+    // for-in遍历的集合的最大元素数
+    private Integer maxCollectionSize;
+
+    // 数值模式
+    private NumericMode numeric;
+
+    // 定点数模式的小数位数
+    private Integer decimalScale;
+
+    // 定点数模式的舍入方式
+    private RoundingMode roundingMode;
+
+    // 用override中已设置的选项覆盖当前选项，返回新对象
+    public ScriptOptions merge(ScriptOptions override) {
+        ScriptOptions merged = new ScriptOptions();
+        merged.setBackend(override != null && override.getBackend() != null ? override.getBackend() : backend);
+        merged.setOptimize(override != null && override.getOptimize() != null ? override.getOptimize() : optimize);
+        merged.setMaxSteps(override != null && override.getMaxSteps() != null ? override.getMaxSteps() : maxSteps);
+        merged.setTimeoutMillis(override != null && override.getTimeoutMillis() != null
+                ? override.getTimeoutMillis() : timeoutMillis);
+        merged.setMaxCallDepth(override != null && override.getMaxCallDepth() != null
+                ? override.getMaxCallDepth() : maxCallDepth);
+        merged.setMaxCollectionSize(override != null && override.getMaxCollectionSize() != null
+                ? override.getMaxCollectionSize() : maxCollectionSize);
+        merged.setNumeric(override != null && override.getNumeric() != null ? override.getNumeric() : numeric);
+        merged.setDecimalScale(override != null && override.getDecimalScale() != null
+                ? override.getDecimalScale() : decimalScale);
+        merged.setRoundingMode(override != null && override.getRoundingMode() != null
+                ? override.getRoundingMode() : roundingMode);
+        return merged;
+    }
+
+    public ExecutionBackend getBackendOrDefault() {
+        return backend != null ? backend : ExecutionBackend.INTERPRETER;
+    }
+
+    public boolean isOptimizeOrDefault() {
+        return optimize == null || optimize;
+    }
+
+    public NumericMode getNumericOrDefault() {
+        return numeric != null ? numeric : NumericMode.DOUBLE;
+    }
+
+    public int getDecimalScaleOrDefault() {
+        return decimalScale != null ? decimalScale : 4;
+    }
+
+    public RoundingMode getRoundingModeOrDefault() {
+        return roundingMode != null ? roundingMode : RoundingMode.HALF_UP;
+    }
+
+    // 未设置时限制为DEFAULT_MAX_CALL_DEPTH，防止递归耗尽线程栈
+    public int getMaxCallDepthOrDefault() {
+        return maxCallDepth != null ? maxCallDepth : ExecutionBudget.DEFAULT_MAX_CALL_DEPTH;
+    }
+}
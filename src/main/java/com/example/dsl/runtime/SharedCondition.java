@@ -0,0 +1,48 @@
+package com.example.dsl.runtime;
+
+import com.example.dsl.runtime.node.ExpressionNode;
+import lombok.Getter;
+
+/**
+ * 规则集中多个脚本共用的条件，只读取上下文变量，没有副作用
+ * 同一次执行（同一订单）中第一次用到时求值，结果记录在DslContext的条件结果数组中，之后直接返回；
+ * 没有条件结果数组时（不按规则集执行）每次求值
+ */
+@Getter
+public final class SharedCondition {
+
+    private static final Object[] NO_SLOTS = new Object[0];
+
+    // 条件结果数组中区分未求值和结果为null
+    private static final Object NULL = new Object();
+
+    // 在条件结果数组中的下标
+    private final int index;
+
+    // 条件的源码形式，相同的条件只有一个
+    private final String key;
+
+    // 所有变量都按全局变量读取
+    private final ExpressionNode node;
+
+    public SharedCondition(int index, String key, ExpressionNode node) {
+        this.index = index;
+        this.key = key;
+        this.node = node;
+    }
+
+    // 字节码后端生成的代码也调用此方法
+    public Object evaluate(DslContext globals) {
+        Object[] values = globals.getConditions();
+        if (values == null) {
+            return node.execute(new Frame(globals, NO_SLOTS));
+        }
+        Object value = values[index];
+        if (value == null) {
+            value = node.execute(new Frame(globals, NO_SLOTS));
+            values[index] = value == null ? NULL : value;
+            return value;
+        }
+        return value == NULL ? null : value;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.dsl.runtime;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 比较链的分派表：常量到分支下标的哈希表，编译期创建，之后只读
+ * 常量重复时保留第一个分支，与逐个比较的结果一致
+ */
+public final class SwitchTable {
+
+    private final Map<Object, Integer> indexes;
+
+    public SwitchTable(List<Object> keys) {
+        indexes = new HashMap<>(keys.size() * 2);
+        for (int i = 0; i < keys.size(); i++) {
+            indexes.putIfAbsent(keys.get(i), i);
+        }
+    }
+
+    // 与value相等（equals）的第一个分支的下标，没有时返回-1，字节码后端生成的代码也调用此方法
+    public int lookup(Object value) {
+        Integer index = indexes.get(value);
+        return index != null ? index : -1;
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.dsl.runtime.builtin;
+
+import com.example.dsl.runtime.DslFunction;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * 内置函数，不可变
+ * 可以按参数个数分别提供0到3个参数的实现，编译器按调用处的参数个数直接绑定对应实现，
+ * 调用时不查表、不创建参数数组。没有对应实现的参数个数退回可变参数实现；
+ * 也没有可变参数实现时，使用参数最多的实现，缺少的参数补null，多余的参数忽略
+ */
+@Getter
+public final class Builtin {
+
+    @FunctionalInterface
+    public interface Call0 {
+        Object call();
+    }
+
+    @FunctionalInterface
+    public interface Call1 {
+        Object call(Object a);
+    }
+
+    @FunctionalInterface
+    public interface Call2 {
+        Object call(Object a, Object b);
+    }
+
+    @FunctionalInterface
+    public interface Call3 {
+        Object call(Object a, Object b, Object c);
+    }
+
+    private static final Object[] NO_ARGS = new Object[0];
+
+    private final String name;
+
+    // 没有副作用、结果只取决于参数，调用它的脚本函数可以缓存结果（见PurityAnalysis）
+    private final boolean pure;
+
+    private final Call0 target0;
+    private final Call1 target1;
+    private final Call2 target2;
+    private final Call3 target3;
+
+    // 可变参数实现，为null时按参数最多的实现补齐或截断参数
+    @Getter(AccessLevel.NONE)
+    private final DslFunction varargs;
+
+    // 提供了实现的参数个数，按位记录
+    @Getter(AccessLevel.NONE)
+    private final int arities;
+
+    @Getter(AccessLevel.NONE)
+    private final int maxArity;
+
+    private Builtin(Builder builder) {
+        if (builder.name == null || builder.name.isEmpty()) {
+            throw new IllegalArgumentException("内置函数名称不能为空");
+        }
+        this.name = builder.name;
+        this.pure = builder.pure;
+        this.varargs = builder.varargs;
+        this.arities = (builder.call0 != null ? 1 : 0) | (builder.call1 != null ? 2 : 0)
+                | (builder.call2 != null ? 4 : 0) | (builder.call3 != null ? 8 : 0);
+        this.maxArity = builder.call3 != null ? 3 : builder.call2 != null ? 2 : builder.call1 != null ? 1
+                : builder.call0 != null ? 0 : -1;
+        if (varargs == null && maxArity < 0) {
+            throw new IllegalArgumentException("内置函数没有实现: " + name);
+        }
+        // 缺少的实现在构造时补齐为适配器，调用处不再判断
+        this.target0 = builder.call0 != null ? builder.call0 : () -> invoke(NO_ARGS);
+        this.target1 = builder.call1 != null ? builder.call1 : a -> invoke(new Object[]{a});
+        this.target2 = builder.call2 != null ? builder.call2 : (a, b) -> invoke(new Object[]{a, b});
+        this.target3 = builder.call3 != null ? builder.call3 : (a, b, c) -> invoke(new Object[]{a, b, c});
+    }
+
+    public static Builder builder(String name) {
+        return new Builder(name);
+    }
+
+    /**
+     * 以参数数组调用，用于参数超过3个的调用和按名称调用的场景
+     */
+    public Object invoke(Object[] args) {
+        if (varargs != null) {
+            return varargs.execute(args);
+        }
+        int arity = args.length <= 3 && (arities & (1 << args.length)) != 0 ? args.length : maxArity;
+        Object[] fixed = args.length == arity ? args : Arrays.copyOf(args, arity);
+        switch (arity) {
+            case 0:
+                return target0.call();
+            case 1:
+                return target1.call(fixed[0]);
+            case 2:
+                return target2.call(fixed[0], fixed[1]);
+            default:
+                return target3.call(fixed[0], fixed[1], fixed[2]);
+        }
+    }
+
+    public static final class Builder {
+        private final String name;
+        private boolean pure;
+        private Call0 call0;
+        private Call1 call1;
+        private Call2 call2;
+        private Call3 call3;
+        private DslFunction varargs;
+
+        private Builder(String name) {
+            this.name = name;
+        }
+
+        public Builder pure() {
+            this.pure = true;
+            return this;
+        }
+
+        public Builder arity0(Call0 call) {
+            this.call0 = call;
+            return this;
+        }
+
+        public Builder arity1(Call1 call) {
+            this.call1 = call;
+            return this;
+        }
+
+        public Builder arity2(Call2 call) {
+            this.call2 = call;
+            return this;
+        }
+
+        public Builder arity3(Call3 call) {
+            this.call3 = call;
+            return this;
+        }
+
+        public Builder varargs(DslFunction function) {
+            this.varargs = function;
+            return this;
+        }
+
+        public Builtin build() {
+            return new Builtin(this);
+        }
+    }
+}
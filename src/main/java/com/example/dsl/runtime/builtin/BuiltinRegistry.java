@@ -0,0 +1,67 @@
+package com.example.dsl.runtime.builtin;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 内置函数注册表，构造后不可变
+ * 包含引擎自带的函数（print、sum、length）和业务函数（checkVipStatus、checkSeason），
+ * 容器中的Builtin Bean作为扩展注册，名称不能与已有函数重复。
+ * 内置函数遮蔽脚本中定义的同名函数，编译器在编译期把调用解析为具体实现
+ */
+@Slf4j
+@Component
+public class BuiltinRegistry {
+
+    private static final BuiltinRegistry STANDARD = new BuiltinRegistry(Collections.emptyList());
+
+    private final Map<String, Builtin> builtins;
+
+    @Autowired
+    public BuiltinRegistry(ObjectProvider<Builtin> extensions) {
+        this(extensions.orderedStream().collect(Collectors.toList()));
+    }
+
+    public BuiltinRegistry(List<Builtin> extensions) {
+        Map<String, Builtin> map = new LinkedHashMap<>();
+        for (Builtin builtin : CoreBuiltins.all()) {
+            map.put(builtin.getName(), builtin);
+        }
+        for (Builtin builtin : extensions) {
+            if (map.putIfAbsent(builtin.getName(), builtin) != null) {
+                throw new IllegalStateException("内置函数重复定义: " + builtin.getName());
+            }
+        }
+        this.builtins = Collections.unmodifiableMap(map);
+        if (!extensions.isEmpty()) {
+            log.info("注册扩展内置函数: {}", extensions.stream().map(Builtin::getName).collect(Collectors.toList()));
+        }
+    }
+
+    // 只包含引擎自带函数的注册表，用于单独构造编译器的场景
+    public static BuiltinRegistry standard() {
+        return STANDARD;
+    }
+
+    // 按名称查找，不存在时返回null
+    public Builtin get(String name) {
+        return builtins.get(name);
+    }
+
+    public boolean contains(String name) {
+        return builtins.containsKey(name);
+    }
+
+    public Collection<Builtin> getAll() {
+        return builtins.values();
+    }
+}
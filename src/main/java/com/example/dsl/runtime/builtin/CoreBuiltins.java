@@ -0,0 +1,80 @@
+package com.example.dsl.runtime.builtin;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 引擎自带的内置函数和业务函数
+ * 业务函数代表平台提供的外部能力，不标记为纯函数
+ */
+final class CoreBuiltins {
+
+    private CoreBuiltins() {
+    }
+
+    static List<Builtin> all() {
+        return Arrays.asList(print(), sum(), length(), checkVipStatus(), checkSeason());
+    }
+
+    // 打印函数，只打印第一个参数
+    private static Builtin print() {
+        return Builtin.builder("print")
+                .arity0(() -> null)
+                .arity1(value -> {
+                    System.out.println(value);
+                    return null;
+                })
+                .build();
+    }
+
+    // 求和函数，忽略非数值参数
+    private static Builtin sum() {
+        return Builtin.builder("sum")
+                .pure()
+                .arity1(a -> number(a))
+                .arity2((a, b) -> number(a) + number(b))
+                .arity3((a, b, c) -> number(a) + number(b) + number(c))
+                .varargs(args -> {
+                    double sum = 0.0;
+                    for (Object arg : args) {
+                        sum += number(arg);
+                    }
+                    return sum;
+                })
+                .build();
+    }
+
+    // 数组长度函数
+    private static Builtin length() {
+        return Builtin.builder("length")
+                .pure()
+                .arity1(value -> {
+                    if (value instanceof List) {
+                        return ((List<?>) value).size();
+                    }
+                    if (value instanceof String) {
+                        return ((String) value).length();
+                    }
+                    return 0;
+                })
+                .build();
+    }
+
+    private static Builtin checkVipStatus() {
+        // 简单示例：假设USER001是VIP
+        return Builtin.builder("checkVipStatus")
+                .arity1(userId -> userId != null && "USER001".equals(userId.toString()))
+                .build();
+    }
+
+    private static Builtin checkSeason() {
+        // 简单示例：假设当前是夏季
+        return Builtin.builder("checkSeason")
+                .arity1(season -> season != null && "summer".equals(season.toString()))
+                .build();
+    }
+
+    private static double number(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : 0.0;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.dsl.runtime.columnar;
+
+import com.example.dsl.ast.BinaryOperator;
+
+/**
+ * 加、减、乘、除、取模，按double运算，语义见DslOperations
+ */
+public final class ArithmeticOp extends ColumnOp {
+    private final BinaryOperator operator;
+    private final int target;
+    private final int left;
+    private final int right;
+
+    public ArithmeticOp(BinaryOperator operator, int target, int left, int right) {
+        this.operator = operator;
+        this.target = target;
+        this.left = left;
+        this.right = right;
+    }
+
+    @Override
+    void execute(ColumnFrame frame, int n) {
+        double[] out = frame.doubles[target];
+        double[] l = frame.doubles[left];
+        double[] r = frame.doubles[right];
+        // 运算符在循环外分派，每个循环只做一种运算
+        switch (operator) {
+            case ADD:
+                for (int i = 0; i < n; i++) {
+                    out[i] = l[i] + r[i];
+                }
+                break;
+            case SUB:
+                for (int i = 0; i < n; i++) {
+                    out[i] = l[i] - r[i];
+                }
+                break;
+            case MUL:
+                for (int i = 0; i < n; i++) {
+                    out[i] = l[i] * r[i];
+                }
+                break;
+            case DIV:
+                for (int i = 0; i < n; i++) {
+                    out[i] = l[i] / r[i];
+                }
+                break;
+            case MOD:
+                for (int i = 0; i < n; i++) {
+                    out[i] = l[i] % r[i];
+                }
+                break;
+            default:
+                throw new IllegalStateException("不是算术运算符: " + operator);
+        }
+    }
+}
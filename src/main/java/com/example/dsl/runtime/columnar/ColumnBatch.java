@@ -0,0 +1,120 @@
+package com.example.dsl.runtime.columnar;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 按列存放的一批记录，所有列的行数相同
+ * 输入列为double[]或int[]，列式程序的结果列为double[]或boolean[]；只持有数组引用，不复制数据
+ */
+public final class ColumnBatch {
+    private final int rows;
+    private final Map<String, Object> columns = new LinkedHashMap<>();
+
+    public ColumnBatch(int rows) {
+        if (rows < 0) {
+            throw new IllegalArgumentException("行数不能为负数: " + rows);
+        }
+        this.rows = rows;
+    }
+
+    /**
+     * 从列名到数值列表的映射创建，用于JSON请求
+     * 全部为整数的列按int[]存放，与逐行执行时上下文中的Integer一致；其余按double[]存放，其中的整数按Double处理
+     */
+    public static ColumnBatch fromLists(Map<String, ? extends List<?>> lists) {
+        int rows = lists.isEmpty() ? 0 : lists.values().iterator().next().size();
+        ColumnBatch batch = new ColumnBatch(rows);
+        lists.forEach((name, values) -> {
+            boolean ints = true;
+            for (Object value : values) {
+                if (!(value instanceof Number)) {
+                    throw new IllegalArgumentException("列中包含非数值: " + name + ", " + value);
+                }
+                ints &= value instanceof Integer;
+            }
+            if (ints) {
+                int[] column = new int[values.size()];
+                for (int i = 0; i < column.length; i++) {
+                    column[i] = (Integer) values.get(i);
+                }
+                batch.put(name, column);
+            } else {
+                double[] column = new double[values.size()];
+                for (int i = 0; i < column.length; i++) {
+                    column[i] = ((Number) values.get(i)).doubleValue();
+                }
+                batch.put(name, column);
+            }
+        });
+        return batch;
+    }
+
+    public ColumnBatch put(String name, double[] values) {
+        return add(name, values, values.length);
+    }
+
+    public ColumnBatch put(String name, int[] values) {
+        return add(name, values, values.length);
+    }
+
+    public ColumnBatch put(String name, boolean[] values) {
+        return add(name, values, values.length);
+    }
+
+    private ColumnBatch add(String name, Object values, int length) {
+        if (length != rows) {
+            throw new IllegalArgumentException("列的行数不一致: " + name + ", " + length + ", 应为" + rows);
+        }
+        columns.put(name, values);
+        return this;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    // 列数组，没有该列时返回null
+    public Object getColumn(String name) {
+        return columns.get(name);
+    }
+
+    public double[] getDoubles(String name) {
+        return column(name, double[].class);
+    }
+
+    public int[] getInts(String name) {
+        return column(name, int[].class);
+    }
+
+    public boolean[] getBooleans(String name) {
+        return column(name, boolean[].class);
+    }
+
+    // 按int[]存放的列名，列式程序按这些列的类型特化
+    public Set<String> getIntColumns() {
+        Set<String> names = new TreeSet<>();
+        columns.forEach((name, values) -> {
+            if (values instanceof int[]) {
+                names.add(name);
+            }
+        });
+        return names;
+    }
+
+    public Map<String, Object> getColumns() {
+        return Collections.unmodifiableMap(columns);
+    }
+
+    private <T> T column(String name, Class<T> type) {
+        Object values = columns.get(name);
+        if (!type.isInstance(values)) {
+            throw new IllegalArgumentException("列不存在或类型不符: " + name + ", 应为" + type.getSimpleName());
+        }
+        return type.cast(values);
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.dsl.runtime.columnar;
+
+/**
+ * 列式程序一次执行的寄存器，每个寄存器是一个数据块大小的数组
+ * 每次执行单独创建，程序本身可在线程间共享
+ */
+final class ColumnFrame {
+    final ColumnBatch input;
+    final double[][] doubles;
+    final boolean[][] masks;
+
+    // 当前数据块在批中的起始行
+    int offset;
+
+    ColumnFrame(ColumnBatch input, int doubleRegisters, int maskRegisters, int chunk) {
+        this.input = input;
+        this.doubles = new double[doubleRegisters][chunk];
+        this.masks = new boolean[maskRegisters][chunk];
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.dsl.runtime.columnar;
+
+/**
+ * 列式程序的一条指令，每次处理当前数据块的前n行
+ * 指令内部是对寄存器数组的简单循环，没有类型判断和装箱，便于JIT自动向量化
+ */
+public abstract class ColumnOp {
+
+    abstract void execute(ColumnFrame frame, int n);
+}
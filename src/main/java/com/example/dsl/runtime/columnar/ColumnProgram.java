@@ -0,0 +1,106 @@
+package com.example.dsl.runtime.columnar;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 列式程序：脚本函数按列批量执行的版本，由ColumnarCompiler生成
+ * 每次处理CHUNK行，逐条指令处理整个数据块；分支两侧都求值，赋值和返回按掩码选择，结果与逐行执行一致
+ * 按编译时输入列的类型特化，执行时参数列的类型必须与编译时一致；编译后不可变，可在线程间共享
+ */
+@Getter
+public final class ColumnProgram {
+    // 结果列的名称
+    public static final String RESULT = "result";
+
+    // 数据块行数，寄存器在L2缓存内
+    public static final int CHUNK = 1024;
+
+    private final String functionName;
+
+    private final List<String> parameters;
+
+    // 按int[]传入的参数，其余参数按double[]传入
+    private final Set<String> intParameters;
+
+    // 编译所用脚本的内容哈希
+    private final String contentHash;
+
+    // 结果列为boolean[]，否则为double[]
+    private final boolean booleanResult;
+
+    // 只在执行开始时执行一次的指令（常量）
+    @Getter(AccessLevel.NONE)
+    private final ColumnOp[] prologue;
+
+    @Getter(AccessLevel.NONE)
+    private final ColumnOp[] body;
+
+    private final int doubleRegisters;
+
+    private final int maskRegisters;
+
+    @Getter(AccessLevel.NONE)
+    private final int result;
+
+    public ColumnProgram(String functionName, List<String> parameters, Set<String> intParameters,
+                         String contentHash, List<ColumnOp> prologue, List<ColumnOp> body,
+                         int doubleRegisters, int maskRegisters, int result, boolean booleanResult) {
+        this.functionName = functionName;
+        this.parameters = parameters;
+        this.intParameters = intParameters;
+        this.contentHash = contentHash;
+        this.prologue = prologue.toArray(new ColumnOp[0]);
+        this.body = body.toArray(new ColumnOp[0]);
+        this.doubleRegisters = doubleRegisters;
+        this.maskRegisters = maskRegisters;
+        this.result = result;
+        this.booleanResult = booleanResult;
+    }
+
+    public int getInstructionCount() {
+        return prologue.length + body.length;
+    }
+
+    /**
+     * 执行整批记录，参数按名称绑定到输入列，返回只含结果列（RESULT）的批
+     */
+    public ColumnBatch execute(ColumnBatch input) {
+        for (String parameter : parameters) {
+            Object column = input.getColumn(parameter);
+            if (column == null) {
+                throw new IllegalArgumentException("缺少列: " + parameter);
+            }
+            boolean ints = intParameters.contains(parameter);
+            if (ints ? !(column instanceof int[]) : !(column instanceof double[])) {
+                throw new IllegalArgumentException("列类型与编译时不一致: " + parameter + ", 应为"
+                        + (ints ? "int[]" : "double[]"));
+            }
+        }
+
+        int rows = input.getRows();
+        ColumnFrame frame = new ColumnFrame(input, doubleRegisters, maskRegisters, CHUNK);
+        for (ColumnOp op : prologue) {
+            op.execute(frame, CHUNK);
+        }
+        double[] numbers = booleanResult ? null : new double[rows];
+        boolean[] flags = booleanResult ? new boolean[rows] : null;
+        for (int offset = 0; offset < rows; offset += CHUNK) {
+            int n = Math.min(CHUNK, rows - offset);
+            frame.offset = offset;
+            for (ColumnOp op : body) {
+                op.execute(frame, n);
+            }
+            if (booleanResult) {
+                System.arraycopy(frame.masks[result], 0, flags, offset, n);
+            } else {
+                System.arraycopy(frame.doubles[result], 0, numbers, offset, n);
+            }
+        }
+        ColumnBatch output = new ColumnBatch(rows);
+        return booleanResult ? output.put(RESULT, flags) : output.put(RESULT, numbers);
+    }
+}
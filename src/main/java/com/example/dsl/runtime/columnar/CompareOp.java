@@ -0,0 +1,62 @@
+package com.example.dsl.runtime.columnar;
+
+import com.example.dsl.ast.BinaryOperator;
+
+/**
+ * 数值比较，结果写入掩码寄存器
+ * == 和 != 与Double.equals一致：按位比较，NaN等于NaN，0.0不等于-0.0
+ */
+public final class CompareOp extends ColumnOp {
+    private final BinaryOperator operator;
+    private final int target;
+    private final int left;
+    private final int right;
+
+    public CompareOp(BinaryOperator operator, int target, int left, int right) {
+        this.operator = operator;
+        this.target = target;
+        this.left = left;
+        this.right = right;
+    }
+
+    @Override
+    void execute(ColumnFrame frame, int n) {
+        boolean[] out = frame.masks[target];
+        double[] l = frame.doubles[left];
+        double[] r = frame.doubles[right];
+        switch (operator) {
+            case LT:
+                for (int i = 0; i < n; i++) {
+                    out[i] = l[i] < r[i];
+                }
+                break;
+            case GT:
+                for (int i = 0; i < n; i++) {
+                    out[i] = l[i] > r[i];
+                }
+                break;
+            case LE:
+                for (int i = 0; i < n; i++) {
+                    out[i] = l[i] <= r[i];
+                }
+                break;
+            case GE:
+                for (int i = 0; i < n; i++) {
+                    out[i] = l[i] >= r[i];
+                }
+                break;
+            case EQ:
+                for (int i = 0; i < n; i++) {
+                    out[i] = Double.doubleToLongBits(l[i]) == Double.doubleToLongBits(r[i]);
+                }
+                break;
+            case NE:
+                for (int i = 0; i < n; i++) {
+                    out[i] = Double.doubleToLongBits(l[i]) != Double.doubleToLongBits(r[i]);
+                }
+                break;
+            default:
+                throw new IllegalStateException("不是比较运算符: " + operator);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.dsl.runtime.columnar;
+
+import java.util.Arrays;
+
+/**
+ * 用常量填满寄存器，只在执行开始时执行一次
+ */
+public final class ConstantOp extends ColumnOp {
+    private final int target;
+    private final boolean mask;
+    private final double number;
+    private final boolean flag;
+
+    private ConstantOp(int target, boolean mask, double number, boolean flag) {
+        this.target = target;
+        this.mask = mask;
+        this.number = number;
+        this.flag = flag;
+    }
+
+    public static ConstantOp number(int target, double value) {
+        return new ConstantOp(target, false, value, false);
+    }
+
+    public static ConstantOp mask(int target, boolean value) {
+        return new ConstantOp(target, true, 0, value);
+    }
+
+    @Override
+    void execute(ColumnFrame frame, int n) {
+        if (mask) {
+            Arrays.fill(frame.masks[target], 0, n, flag);
+        } else {
+            Arrays.fill(frame.doubles[target], 0, n, number);
+        }
+    }
+}
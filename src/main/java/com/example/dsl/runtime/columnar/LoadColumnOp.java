@@ -0,0 +1,29 @@
+package com.example.dsl.runtime.columnar;
+
+/**
+ * 把输入列中当前数据块的行读入数值寄存器，int列转换为double
+ */
+public final class LoadColumnOp extends ColumnOp {
+    private final String column;
+    private final int target;
+
+    public LoadColumnOp(String column, int target) {
+        this.column = column;
+        this.target = target;
+    }
+
+    @Override
+    void execute(ColumnFrame frame, int n) {
+        double[] out = frame.doubles[target];
+        Object values = frame.input.getColumn(column);
+        int offset = frame.offset;
+        if (values instanceof double[]) {
+            System.arraycopy((double[]) values, offset, out, 0, n);
+            return;
+        }
+        int[] ints = (int[]) values;
+        for (int i = 0; i < n; i++) {
+            out[i] = ints[offset + i];
+        }
+    }
+}
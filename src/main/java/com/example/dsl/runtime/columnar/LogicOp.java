@@ -0,0 +1,52 @@
+package com.example.dsl.runtime.columnar;
+
+import com.example.dsl.ast.BinaryOperator;
+
+/**
+ * 掩码之间的 &&、||、== 和 !=
+ * 操作数没有副作用，两侧都求值，结果与短路求值一致
+ */
+public final class LogicOp extends ColumnOp {
+    private final BinaryOperator operator;
+    private final int target;
+    private final int left;
+    private final int right;
+
+    public LogicOp(BinaryOperator operator, int target, int left, int right) {
+        this.operator = operator;
+        this.target = target;
+        this.left = left;
+        this.right = right;
+    }
+
+    @Override
+    void execute(ColumnFrame frame, int n) {
+        boolean[] out = frame.masks[target];
+        boolean[] l = frame.masks[left];
+        boolean[] r = frame.masks[right];
+        switch (operator) {
+            case AND:
+                for (int i = 0; i < n; i++) {
+                    out[i] = l[i] & r[i];
+                }
+                break;
+            case OR:
+                for (int i = 0; i < n; i++) {
+                    out[i] = l[i] | r[i];
+                }
+                break;
+            case EQ:
+                for (int i = 0; i < n; i++) {
+                    out[i] = l[i] == r[i];
+                }
+                break;
+            case NE:
+                for (int i = 0; i < n; i++) {
+                    out[i] = l[i] != r[i];
+                }
+                break;
+            default:
+                throw new IllegalStateException("不是逻辑运算符: " + operator);
+        }
+    }
+}
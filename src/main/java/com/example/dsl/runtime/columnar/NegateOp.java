@@ -0,0 +1,23 @@
+package com.example.dsl.runtime.columnar;
+
+/**
+ * 取负
+ */
+public final class NegateOp extends ColumnOp {
+    private final int target;
+    private final int operand;
+
+    public NegateOp(int target, int operand) {
+        this.target = target;
+        this.operand = operand;
+    }
+
+    @Override
+    void execute(ColumnFrame frame, int n) {
+        double[] out = frame.doubles[target];
+        double[] values = frame.doubles[operand];
+        for (int i = 0; i < n; i++) {
+            out[i] = -values[i];
+        }
+    }
+}
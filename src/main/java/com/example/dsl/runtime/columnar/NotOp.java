@@ -0,0 +1,23 @@
+package com.example.dsl.runtime.columnar;
+
+/**
+ * 掩码取反
+ */
+public final class NotOp extends ColumnOp {
+    private final int target;
+    private final int operand;
+
+    public NotOp(int target, int operand) {
+        this.target = target;
+        this.operand = operand;
+    }
+
+    @Override
+    void execute(ColumnFrame frame, int n) {
+        boolean[] out = frame.masks[target];
+        boolean[] values = frame.masks[operand];
+        for (int i = 0; i < n; i++) {
+            out[i] = !values[i];
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.dsl.runtime.columnar;
+
+/**
+ * 按掩码逐行选择两个寄存器之一，用于分支中的赋值和返回：掩码为真的行取新值，其余行保留原值
+ * mask为true时两个操作数是掩码寄存器，否则是数值寄存器
+ */
+public final class SelectOp extends ColumnOp {
+    private final boolean mask;
+    private final int target;
+    private final int condition;
+    private final int whenTrue;
+    private final int whenFalse;
+
+    public SelectOp(boolean mask, int target, int condition, int whenTrue, int whenFalse) {
+        this.mask = mask;
+        this.target = target;
+        this.condition = condition;
+        this.whenTrue = whenTrue;
+        this.whenFalse = whenFalse;
+    }
+
+    @Override
+    void execute(ColumnFrame frame, int n) {
+        boolean[] c = frame.masks[condition];
+        if (mask) {
+            boolean[] out = frame.masks[target];
+            boolean[] t = frame.masks[whenTrue];
+            boolean[] f = frame.masks[whenFalse];
+            for (int i = 0; i < n; i++) {
+                out[i] = c[i] ? t[i] : f[i];
+            }
+            return;
+        }
+        double[] out = frame.doubles[target];
+        double[] t = frame.doubles[whenTrue];
+        double[] f = frame.doubles[whenFalse];
+        for (int i = 0; i < n; i++) {
+            out[i] = c[i] ? t[i] : f[i];
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.dsl.runtime.columnar;
+
+/**
+ * 数值转换为布尔值，不等于0为真，与DslOperations.toBoolean一致
+ */
+public final class TruthOp extends ColumnOp {
+    private final int target;
+    private final int operand;
+
+    public TruthOp(int target, int operand) {
+        this.target = target;
+        this.operand = operand;
+    }
+
+    @Override
+    void execute(ColumnFrame frame, int n) {
+        boolean[] out = frame.masks[target];
+        double[] values = frame.doubles[operand];
+        for (int i = 0; i < n; i++) {
+            out[i] = values[i] != 0;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.dsl.runtime.metrics;
+
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 脚本执行指标：按脚本和函数统计调用次数、失败次数和延迟分布，以及编译、绑定、执行各阶段耗时
+ * 计数都是分段累加的LongAdder，记录时只在首次遇到脚本或函数时写注册表
+ */
+@Component
+public class ExecutionMetrics {
+
+    /**
+     * 新脚本或新函数开始统计时的回调，用于把指标注册到外部监控系统
+     */
+    public interface Listener {
+
+        void scriptAdded(ScriptMetrics script);
+
+        void functionAdded(ScriptMetrics script, String functionName, FunctionMetrics function);
+    }
+
+    private final Map<String, ScriptMetrics> scripts = new ConcurrentHashMap<>();
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    public FunctionMetrics function(String scriptName, String functionName) {
+        ScriptMetrics script = script(scriptName);
+        FunctionMetrics function = script.getFunctions().get(functionName);
+        if (function != null) {
+            return function;
+        }
+        boolean[] added = new boolean[1];
+        function = script.getFunctions().computeIfAbsent(functionName, name -> {
+            added[0] = true;
+            return new FunctionMetrics(script);
+        });
+        if (added[0]) {
+            for (Listener listener : listeners) {
+                listener.functionAdded(script, functionName, function);
+            }
+        }
+        return function;
+    }
+
+    public void recordCompile(String scriptName, long nanos) {
+        script(scriptName).getCompile().record(nanos);
+    }
+
+    /**
+     * 注册回调，已有的脚本和函数立即回调一次
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+        for (ScriptMetrics script : scripts.values()) {
+            listener.scriptAdded(script);
+            script.getFunctions().forEach((name, function) -> listener.functionAdded(script, name, function));
+        }
+    }
+
+    // 所有脚本的指标快照，按脚本名排序
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new TreeMap<>();
+        scripts.forEach((name, script) -> snapshot.put(name, script.snapshot()));
+        return snapshot;
+    }
+
+    // 单个脚本的指标快照，没有记录时返回null
+    public Map<String, Object> snapshot(String scriptName) {
+        ScriptMetrics script = scripts.get(scriptName);
+        return script == null ? null : script.snapshot();
+    }
+
+    private ScriptMetrics script(String scriptName) {
+        ScriptMetrics script = scripts.get(scriptName);
+        if (script != null) {
+            return script;
+        }
+        boolean[] added = new boolean[1];
+        script = scripts.computeIfAbsent(scriptName, name -> {
+            added[0] = true;
+            return new ScriptMetrics(name);
+        });
+        if (added[0]) {
+            for (Listener listener : listeners) {
+                listener.scriptAdded(script);
+            }
+        }
+        return script;
+    }
+}
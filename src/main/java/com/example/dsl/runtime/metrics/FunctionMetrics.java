@@ -0,0 +1,58 @@
+package com.example.dsl.runtime.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个函数的调用次数、失败次数和调用延迟
+ */
+public class FunctionMetrics {
+
+    private final ScriptMetrics script;
+
+    private final LongAdder calls = new LongAdder();
+
+    private final LongAdder errors = new LongAdder();
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    FunctionMetrics(ScriptMetrics script) {
+        this.script = script;
+    }
+
+    // 成功的调用，分别记录绑定和执行阶段
+    public void recordSuccess(long bindNanos, long executeNanos) {
+        calls.increment();
+        latency.record(bindNanos + executeNanos);
+        script.getBind().record(bindNanos);
+        script.getExecute().record(executeNanos);
+    }
+
+    // 失败的调用只计入调用延迟，不计入阶段耗时
+    public void recordFailure(long nanos) {
+        calls.increment();
+        errors.increment();
+        latency.record(nanos);
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("calls", getCalls());
+        snapshot.put("errors", getErrors());
+        snapshot.put("latency", latency.snapshot());
+        return snapshot;
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.dsl.runtime.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 延迟直方图
+ * 按2的幂分段，每段再均分为8个桶，分位数的相对误差不超过12.5%；
+ * 64纳秒以下和约68秒以上各归入一个桶。
+ * 每个桶是一个LongAdder，并发记录时各线程写入不同的单元，互不竞争；桶在首次记录时创建
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int MIN_EXPONENT = 6;
+    private static final int MAX_EXPONENT = 36;
+    private static final int BUCKETS = (MAX_EXPONENT - MIN_EXPONENT) * SUB_BUCKETS + 2;
+
+    private final AtomicReferenceArray<LongAdder> buckets = new AtomicReferenceArray<>(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        int index = index(nanos);
+        LongAdder bucket = buckets.get(index);
+        if (bucket == null) {
+            buckets.compareAndSet(index, null, new LongAdder());
+            bucket = buckets.get(index);
+        }
+        bucket.increment();
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * 分位数（纳秒），取所在桶的上界，不超过记录到的最大值
+     */
+    public long percentile(double quantile) {
+        return percentile(snapshotBuckets(), quantile);
+    }
+
+    /**
+     * 统计快照：次数、平均值、最大值和常用分位数，时间单位为微秒
+     */
+    public Map<String, Object> snapshot() {
+        long[] counts = snapshotBuckets();
+        long total = 0;
+        for (long bucketCount : counts) {
+            total += bucketCount;
+        }
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("count", total);
+        snapshot.put("meanMicros", total == 0 ? 0.0 : micros(totalNanos.sum() / (double) count.sum()));
+        snapshot.put("maxMicros", micros(maxNanos.get()));
+        snapshot.put("p50Micros", micros(percentile(counts, 0.5)));
+        snapshot.put("p99Micros", micros(percentile(counts, 0.99)));
+        snapshot.put("p999Micros", micros(percentile(counts, 0.999)));
+        return snapshot;
+    }
+
+    /**
+     * 合并多个直方图的快照，用于按脚本汇总各函数
+     */
+    public static Map<String, Object> merge(Iterable<LatencyHistogram> histograms) {
+        LatencyHistogram merged = new LatencyHistogram();
+        for (LatencyHistogram histogram : histograms) {
+            for (int i = 0; i < BUCKETS; i++) {
+                LongAdder bucket = histogram.buckets.get(i);
+                if (bucket != null) {
+                    long bucketCount = bucket.sum();
+                    if (bucketCount > 0) {
+                        merged.buckets.compareAndSet(i, null, new LongAdder());
+                        merged.buckets.get(i).add(bucketCount);
+                    }
+                }
+            }
+            merged.count.add(histogram.count.sum());
+            merged.totalNanos.add(histogram.totalNanos.sum());
+            merged.maxNanos.accumulate(histogram.maxNanos.get());
+        }
+        return merged.snapshot();
+    }
+
+    private long[] snapshotBuckets() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            LongAdder bucket = buckets.get(i);
+            counts[i] = bucket == null ? 0 : bucket.sum();
+        }
+        return counts;
+    }
+
+    private long percentile(long[] counts, double quantile) {
+        long total = 0;
+        for (long bucketCount : counts) {
+            total += bucketCount;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= Math.max(1, rank)) {
+                return Math.min(upperBound(i), maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+
+    static int index(long nanos) {
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        if (exponent < MIN_EXPONENT) {
+            return 0;
+        }
+        if (exponent >= MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int sub = (int) (nanos >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return 1 + (exponent - MIN_EXPONENT) * SUB_BUCKETS + sub;
+    }
+
+    // 桶的上界（不含）
+    static long upperBound(int index) {
+        if (index == 0) {
+            return 1L << MIN_EXPONENT;
+        }
+        if (index == BUCKETS - 1) {
+            return Long.MAX_VALUE;
+        }
+        int exponent = MIN_EXPONENT + (index - 1) / SUB_BUCKETS;
+        int sub = (index - 1) % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BITS);
+        return (1L << exponent) + (sub + 1) * width;
+    }
+
+    private static double micros(double nanos) {
+        return Math.round(nanos) / 1000.0;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.dsl.runtime.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 把脚本执行指标注册到Micrometer，通过Actuator的/actuator/metrics查看
+ * 计量器直接读取ExecutionMetrics中的计数和直方图，执行路径上没有额外开销
+ *
+ * dsl.function.calls、dsl.function.errors：函数调用和失败次数，标签script、function
+ * dsl.function.latency：函数调用延迟分位数，标签script、function、quantile
+ * dsl.script.phase：编译、绑定、执行各阶段耗时分位数，标签script、phase、quantile
+ */
+@Component
+public class MicrometerMetricsBinder implements MeterBinder {
+
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+
+    private final ExecutionMetrics metrics;
+
+    public MicrometerMetricsBinder(ExecutionMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        metrics.addListener(new ExecutionMetrics.Listener() {
+            @Override
+            public void scriptAdded(ScriptMetrics script) {
+                Tags tags = Tags.of("script", script.getName());
+                quantiles(registry, "dsl.script.phase", tags.and("phase", "compile"), script.getCompile());
+                quantiles(registry, "dsl.script.phase", tags.and("phase", "bind"), script.getBind());
+                quantiles(registry, "dsl.script.phase", tags.and("phase", "execute"), script.getExecute());
+            }
+
+            @Override
+            public void functionAdded(ScriptMetrics script, String functionName, FunctionMetrics function) {
+                Tags tags = Tags.of("script", script.getName(), "function", functionName);
+                FunctionCounter.builder("dsl.function.calls", function, FunctionMetrics::getCalls)
+                        .tags(tags)
+                        .register(registry);
+                FunctionCounter.builder("dsl.function.errors", function, FunctionMetrics::getErrors)
+                        .tags(tags)
+                        .register(registry);
+                quantiles(registry, "dsl.function.latency", tags, function.getLatency());
+            }
+        });
+    }
+
+    private static void quantiles(MeterRegistry registry, String name, Tags tags, LatencyHistogram histogram) {
+        for (double quantile : QUANTILES) {
+            TimeGauge.builder(name, histogram, TimeUnit.NANOSECONDS, h -> h.percentile(quantile))
+                    .tags(tags.and("quantile", String.valueOf(quantile)))
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.dsl.runtime.metrics;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 单个脚本的各阶段耗时和各函数的指标
+ * compile为解析和编译，bind为创建全局上下文、绑定参数和执行顶层语句，execute为执行函数体
+ */
+@Getter
+public class ScriptMetrics {
+
+    private final String name;
+
+    private final LatencyHistogram compile = new LatencyHistogram();
+
+    private final LatencyHistogram bind = new LatencyHistogram();
+
+    private final LatencyHistogram execute = new LatencyHistogram();
+
+    private final Map<String, FunctionMetrics> functions = new ConcurrentHashMap<>();
+
+    ScriptMetrics(String name) {
+        this.name = name;
+    }
+
+    Map<String, Object> snapshot() {
+        long calls = 0;
+        long errors = 0;
+        List<LatencyHistogram> latencies = new ArrayList<>();
+        Map<String, Object> functionSnapshots = new TreeMap<>();
+        for (Map.Entry<String, FunctionMetrics> entry : functions.entrySet()) {
+            FunctionMetrics function = entry.getValue();
+            calls += function.getCalls();
+            errors += function.getErrors();
+            latencies.add(function.getLatency());
+            functionSnapshots.put(entry.getKey(), function.snapshot());
+        }
+
+        Map<String, Object> phases = new LinkedHashMap<>();
+        phases.put("compile", compile.snapshot());
+        phases.put("bind", bind.snapshot());
+        phases.put("execute", execute.snapshot());
+
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("calls", calls);
+        snapshot.put("errors", errors);
+        snapshot.put("latency", LatencyHistogram.merge(latencies));
+        snapshot.put("phases", phases);
+        snapshot.put("functions", functionSnapshots);
+        return snapshot;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.dsl.runtime.node;
+
+import com.example.dsl.runtime.DslOperations;
+
+/**
+ * 加法，字符串参与时拼接
+ */
+public final class AddNode extends NumericBinaryNode {
+
+    public AddNode(ExpressionNode left, ExpressionNode right) {
+        super(left, right);
+    }
+
+    @Override
+    protected double executeDouble(double left, double right) {
+        return left + right;
+    }
+
+    @Override
+    protected Object executeGeneric(Object left, Object right) {
+        return DslOperations.add(left, right);
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.dsl.runtime.node;
+
+import com.example.dsl.ast.BinaryOperator;
+import com.example.dsl.runtime.DslOperations;
+
+/**
+ * 乘、除、取模
+ */
+public final class ArithmeticNode extends NumericBinaryNode {
+    private final BinaryOperator operator;
+
+    public ArithmeticNode(BinaryOperator operator, ExpressionNode left, ExpressionNode right) {
+        super(left, right);
+        this.operator = operator;
+    }
+
+    @Override
+    protected double executeDouble(double left, double right) {
+        switch (operator) {
+            case MUL: return left * right;
+            case DIV: return left / right;
+            default: return left % right;
+        }
+    }
+
+    @Override
+    protected Object executeGeneric(Object left, Object right) {
+        return DslOperations.arithmetic(operator, left, right);
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.dsl.runtime.node;
+
+import com.example.dsl.runtime.Frame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 数组字面量，每次执行创建新的列表；元素全为常量时按编译期求出的模板复制
+ */
+public final class ArrayLiteralNode extends ExpressionNode {
+    private final ExpressionNode[] elements;
+
+    // 元素全为常量时的值，否则为null
+    private final Object[] template;
+
+    public ArrayLiteralNode(ExpressionNode[] elements) {
+        this.elements = elements;
+        this.template = LiteralNode.constants(elements);
+    }
+
+    @Override
+    public Object execute(Frame frame) {
+        if (template != null) {
+            return new ArrayList<>(Arrays.asList(template));
+        }
+        List<Object> list = new ArrayList<>(elements.length);
+        for (ExpressionNode element : elements) {
+            list.add(element.execute(frame));
+        }
+        return list;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.dsl.runtime.node;
+
+import com.example.dsl.runtime.Frame;
+
+/**
+ * 代码块，作用域已在编译期解析为槽位，执行时无需创建作用域
+ */
+public final class BlockNode extends StatementNode {
+    private final StatementNode[] statements;
+
+    public BlockNode(StatementNode[] statements) {
+        this.statements = statements;
+    }
+
+    @Override
+    public void execute(Frame frame) {
+        for (StatementNode statement : statements) {
+            statement.execute(frame);
+            if (frame.isReturned()) {
+                break;
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.dsl.runtime.node;
+
+import com.example.dsl.runtime.Frame;
+import com.example.dsl.runtime.builtin.Builtin;
+
+/**
+ * 无参数的内置函数调用，目标在编译期确定
+ */
+public final class BuiltinCall0Node extends ExpressionNode {
+    private final Builtin.Call0 target;
+
+    public BuiltinCall0Node(Builtin builtin) {
+        this.target = builtin.getTarget0();
+    }
+
+    @Override
+    public Object execute(Frame frame) {
+        return target.call();
+    }
+}
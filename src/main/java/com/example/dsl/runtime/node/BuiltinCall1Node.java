@@ -0,0 +1,22 @@
+package com.example.dsl.runtime.node;
+
+import com.example.dsl.runtime.Frame;
+import com.example.dsl.runtime.builtin.Builtin;
+
+/**
+ * 一个参数的内置函数调用，目标在编译期确定
+ */
+public final class BuiltinCall1Node extends ExpressionNode {
+    private final Builtin.Call1 target;
+    private final ExpressionNode a;
+
+    public BuiltinCall1Node(Builtin builtin, ExpressionNode a) {
+        this.target = builtin.getTarget1();
+        this.a = a;
+    }
+
+    @Override
+    public Object execute(Frame frame) {
+        return target.call(a.execute(frame));
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.dsl.runtime.node;
+
+import com.example.dsl.runtime.Frame;
+import com.example.dsl.runtime.builtin.Builtin;
+
+/**
+ * 两个参数的内置函数调用，目标在编译期确定
+ */
+public final class BuiltinCall2Node extends ExpressionNode {
+    private final Builtin.Call2 target;
+    private final ExpressionNode a;
+    private final ExpressionNode b;
+
+    public BuiltinCall2Node(Builtin builtin, ExpressionNode a, ExpressionNode b) {
+        this.target = builtin.getTarget2();
+        this.a = a;
+        this.b = b;
+    }
+
+    @Override
+    public Object execute(Frame frame) {
+        Object first = a.execute(frame);
+        return target.call(first, b.execute(frame));
+    }
+}
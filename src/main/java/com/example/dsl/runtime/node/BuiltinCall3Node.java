@@ -0,0 +1,28 @@
+package com.example.dsl.runtime.node;
+
+import com.example.dsl.runtime.Frame;
+import com.example.dsl.runtime.builtin.Builtin;
+
+/**
+ * 三个参数的内置函数调用，目标在编译期确定
+ */
+public final class BuiltinCall3Node extends ExpressionNode {
+    private final Builtin.Call3 target;
+    private final ExpressionNode a;
+    private final ExpressionNode b;
+    private final ExpressionNode c;
+
+    public BuiltinCall3Node(Builtin builtin, ExpressionNode a, ExpressionNode b, ExpressionNode c) {
+        this.target = builtin.getTarget3();
+        this.a = a;
+        this.b = b;
+        this.c = c;
+    }
+
+    @Override
+    public Object execute(Frame frame) {
+        Object first = a.execute(frame);
+        Object second = b.execute(frame);
+        return target.call(first, second, c.execute(frame));
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.dsl.runtime.node;
+
+import com.example.dsl.runtime.Frame;
+import com.example.dsl.runtime.builtin.Builtin;
+
+/**
+ * 超过三个参数的内置函数调用，以参数数组调用
+ * 参数个数不超过三个的调用编译为BuiltinCall0Node到BuiltinCall3Node，不创建参数数组
+ */
+public final class BuiltinCallNode extends ExpressionNode {
+    private final Builtin builtin;
+    private final ExpressionNode[] arguments;
+
+    public BuiltinCallNode(Builtin builtin, ExpressionNode[] arguments) {
+        this.builtin = builtin;
+        this.arguments = arguments;
+    }
+
+    // 按参数个数选择调用节点
+    public static ExpressionNode of(Builtin builtin, ExpressionNode[] arguments) {
+        switch (arguments.length) {
+            case 0:
+                return new BuiltinCall0Node(builtin);
+            case 1:
+                return new BuiltinCall1Node(builtin, arguments[0]);
+            case 2:
+                return new BuiltinCall2Node(builtin, arguments[0], arguments[1]);
+            case 3:
+                return new BuiltinCall3Node(builtin, arguments[0], arguments[1], arguments[2]);
+            default:
+                return new BuiltinCallNode(builtin, arguments);
+        }
+    }
+
+    @Override
+    public Object execute(Frame frame) {
+        Object[] args = new Object[arguments.length];
+        for (int i = 0; i < arguments.length; i++) {
+            args[i] = arguments[i].execute(frame);
+        }
+        return builtin.invoke(args);
+    }
+}
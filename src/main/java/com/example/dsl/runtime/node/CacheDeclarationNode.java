@@ -0,0 +1,19 @@
+package com.example.dsl.runtime.node;
+
+import com.example.dsl.runtime.Frame;
+
+/**
+ * 缓存变量声明，把缓存槽位重置为未求值
+ */
+public final class CacheDeclarationNode extends StatementNode {
+    private final int slot;
+
+    public CacheDeclarationNode(int slot) {
+        this.slot = slot;
+    }
+
+    @Override
+    public void execute(Frame frame) {
+        frame.getSlots()[slot] = CachedNode.UNSET;
+    }
+}
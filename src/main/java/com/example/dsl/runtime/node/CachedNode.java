@@ -0,0 +1,30 @@
+package com.example.dsl.runtime.node;
+
+import com.example.dsl.runtime.Frame;
+
+/**
+ * 缓存表达式，槽位为UNSET时求值并写入槽位，否则直接返回槽位中的值
+ */
+public final class CachedNode extends ExpressionNode {
+    // 未求值标记，只存在于缓存槽位中
+    public static final Object UNSET = new Object();
+
+    private final int slot;
+    private final ExpressionNode expression;
+
+    public CachedNode(int slot, ExpressionNode expression) {
+        this.slot = slot;
+        this.expression = expression;
+    }
+
+    @Override
+    public Object execute(Frame frame) {
+        Object[] slots = frame.getSlots();
+        Object value = slots[slot];
+        if (value == UNSET) {
+            value = expression.execute(frame);
+            slots[slot] = value;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.dsl.runtime.node;
+
+import com.example.dsl.runtime.CompiledFunction;
+import com.example.dsl.runtime.Frame;
+
+/**
+ * 脚本中定义的函数的调用
+ * 内置函数和业务函数在编译期解析为BuiltinCallNode，同名的脚本函数被遮蔽；
+ * 未定义的函数仍对参数求值，结果为null
+ */
+public final class CallNode extends ExpressionNode {
+    private final ExpressionNode[] arguments;
+    // 被调用的脚本函数，未定义时为null
+    private final CompiledFunction function;
+
+    public CallNode(ExpressionNode[] arguments, CompiledFunction function) {
+        this.arguments = arguments;
+        this.function = function;
+    }
+
+    @Override
+    public Object execute(Frame frame) {
+        Object[] args = new Object[arguments.length];
+        for (int i = 0; i < arguments.length; i++) {
+            args[i] = arguments[i].execute(frame);
+        }
+        return function != null ? function.invoke(frame.getGlobals(), args) : null;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.dsl.runtime.node;
+
+import com.example.dsl.ast.BinaryOperator;
+import com.example.dsl.runtime.DslOperations;
+import com.example.dsl.runtime.Frame;
+
+/**
+ * 大小比较
+ * 与NumericBinaryNode相同，先假定两侧都是数值，按double比较，遇到非数值后改为通用路径
+ */
+public final class ComparisonNode extends ExpressionNode {
+    private final BinaryOperator operator;
+    private final ExpressionNode left;
+    private final ExpressionNode right;
+
+    private boolean generic;
+
+    public ComparisonNode(BinaryOperator operator, ExpressionNode left, ExpressionNode right) {
+        this.operator = operator;
+        this.left = left;
+        this.right = right;
+    }
+
+    // 是否已改为通用路径
+    public boolean isGeneric() {
+        return generic;
+    }
+
+    @Override
+    public Object execute(Frame frame) {
+        if (generic) {
+            return DslOperations.compare(operator, left.execute(frame), right.execute(frame));
+        }
+        double l;
+        try {
+            l = left.executeNumber(frame);
+        } catch (UnexpectedResultException e) {
+            generic = true;
+            return DslOperations.compare(operator, e.getResult(), right.execute(frame));
+        }
+        double r;
+        try {
+            r = right.executeNumber(frame);
+        } catch (UnexpectedResultException e) {
+            generic = true;
+            return DslOperations.compare(operator, l, e.getResult());
+        }
+        switch (operator) {
+            case LT: return l < r;
+            case GT: return l > r;
+            case LE: return l <= r;
+            case GE: return l >= r;
+            default: return false;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.dsl.runtime.node;
+
+import com.example.dsl.runtime.DslOperations;
+import com.example.dsl.runtime.Frame;
+
+/**
+ * == 与 !=
+ */
+public final class EqualityNode extends ExpressionNode {
+    private final boolean negated;
+    private final ExpressionNode left;
+    private final ExpressionNode right;
+
+    public EqualityNode(boolean negated, ExpressionNode left, ExpressionNode right) {
+        this.negated = negated;
+        this.left = left;
+        this.right = right;
+    }
+
+    @Override
+    public Object execute(Frame frame) {
+        return DslOperations.equal(left.execute(frame), right.execute(frame)) != negated;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.dsl.runtime.node;
+
+import com.example.dsl.runtime.Frame;
+import com.example.dsl.runtime.numeric.FixedPoint;
+
+/**
+ * 可执行的表达式节点
+ */
+public abstract class ExpressionNode {
+
+    public abstract Object execute(Frame frame);
+
+    // 按数值求值，返回结果的double值，结果不是数值时抛出UnexpectedResultException
+    // 只用于算术、比较和取负的操作数，这些运算对任何Number都按doubleValue计算（见DslOperations），
+    // 上下文中的Integer等也走快速路径；相等判断按equals区分类型，不使用
+    public double executeNumber(Frame frame) throws UnexpectedResultException {
+        return expectNumber(execute(frame));
+    }
+
+    protected static double expectNumber(Object value) throws UnexpectedResultException {
+        if (value instanceof Double) {
+            return (Double) value;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        throw new UnexpectedResultException(value);
+    }
+
+    // 定点数模式下按缩放后的long求值，结果不是数值或无法用long表示时抛出UnexpectedResultException
+    public long executeFixed(Frame frame, FixedPoint fixed) throws UnexpectedResultException {
+        return expectFixed(execute(frame), fixed);
+    }
+
+    protected static long expectFixed(Object value, FixedPoint fixed) throws UnexpectedResultException {
+        if (value instanceof Number) {
+            try {
+                return fixed.toFixed((Number) value);
+            } catch (ArithmeticException e) {
+                // 溢出的值走BigDecimal路径
+            }
+        }
+        throw new UnexpectedResultException(value);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.dsl.runtime.node;
+
+import com.example.dsl.runtime.Frame;
+
+public final class ExpressionStatementNode extends StatementNode {
+    private final ExpressionNode expression;
+
+    public ExpressionStatementNode(ExpressionNode expression) {
+        this.expression = expression;
+    }
+
+    @Override
+    public void execute(Frame frame) {
+        expression.execute(frame);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.dsl.runtime.node;
+
+import com.example.dsl.ast.BinaryOperator;
+import com.example.dsl.runtime.Frame;
+import com.example.dsl.runtime.numeric.FixedPoint;
+
+/**
+ * 定点数模式下的加、减、乘、除、取模
+ * 与NumericBinaryNode一样按类型反馈特化：两侧都是数值时按long求值，中间结果不装箱；
+ * 遇到非数值操作数后改为通用路径。long运算溢出时本次改用BigDecimal计算，不影响特化
+ */
+public final class FixedArithmeticNode extends ExpressionNode {
+    private final BinaryOperator operator;
+    private final ExpressionNode left;
+    private final ExpressionNode right;
+    private final FixedPoint fixed;
+
+    // 特化失败标记，只会从false变为true
+    private boolean generic;
+
+    public FixedArithmeticNode(BinaryOperator operator, ExpressionNode left, ExpressionNode right, FixedPoint fixed) {
+        this.operator = operator;
+        this.left = left;
+        this.right = right;
+        this.fixed = fixed;
+    }
+
+    @Override
+    public Object execute(Frame frame) {
+        if (generic) {
+            return fixed.binary(operator, left.execute(frame), right.execute(frame));
+        }
+        try {
+            return fixed.box(executeFixed(frame, fixed));
+        } catch (UnexpectedResultException e) {
+            return e.getResult();
+        }
+    }
+
+    @Override
+    public long executeFixed(Frame frame, FixedPoint fixed) throws UnexpectedResultException {
+        if (generic) {
+            return expectFixed(this.fixed.binary(operator, left.execute(frame), right.execute(frame)), fixed);
+        }
+        long l;
+        try {
+            l = left.executeFixed(frame, fixed);
+        } catch (UnexpectedResultException e) {
+            return expectFixed(respecialize(e.getResult(), right.execute(frame)), fixed);
+        }
+        long r;
+        try {
+            r = right.executeFixed(frame, fixed);
+        } catch (UnexpectedResultException e) {
+            return expectFixed(respecialize(fixed.box(l), e.getResult()), fixed);
+        }
+        try {
+            return fixed.binary(operator, l, r);
+        } catch (ArithmeticException e) {
+            return expectFixed(fixed.bigBinary(operator, fixed.box(l), fixed.box(r)), fixed);
+        }
+    }
+
+    // 已求值的操作数不再重复求值；溢出产生的BigDecimal仍是数值，不放弃特化
+    private Object respecialize(Object l, Object r) {
+        if (!(l instanceof Number) || !(r instanceof Number)) {
+            generic = true;
+        }
+        return fixed.binary(operator, l, r);
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.dsl.runtime.node;
+
+import com.example.dsl.ast.BinaryOperator;
+import com.example.dsl.runtime.Frame;
+import com.example.dsl.runtime.numeric.FixedPoint;
+
+/**
+ * 定点数模式下的大小比较，两侧都是数值时比较缩放后的long，不装箱
+ * 遇到非数值操作数（如字符串比较）后改为通用路径
+ */
+public final class FixedComparisonNode extends ExpressionNode {
+    private final BinaryOperator operator;
+    private final ExpressionNode left;
+    private final ExpressionNode right;
+    private final FixedPoint fixed;
+
+    // 特化失败标记，只会从false变为true
+    private boolean generic;
+
+    public FixedComparisonNode(BinaryOperator operator, ExpressionNode left, ExpressionNode right, FixedPoint fixed) {
+        this.operator = operator;
+        this.left = left;
+        this.right = right;
+        this.fixed = fixed;
+    }
+
+    @Override
+    public Object execute(Frame frame) {
+        if (generic) {
+            return fixed.compare(operator, left.execute(frame), right.execute(frame));
+        }
+        long l;
+        try {
+            l = left.executeFixed(frame, fixed);
+        } catch (UnexpectedResultException e) {
+            return respecialize(e.getResult(), right.execute(frame));
+        }
+        long r;
+        try {
+            r = right.executeFixed(frame, fixed);
+        } catch (UnexpectedResultException e) {
+            return respecialize(fixed.box(l), e.getResult());
+        }
+        switch (operator) {
+            case LT: return l < r;
+            case GT: return l > r;
+            case LE: return l <= r;
+            default: return l >= r;
+        }
+    }
+
+    private boolean respecialize(Object l, Object r) {
+        if (!(l instanceof Number) || !(r instanceof Number)) {
+            generic = true;
+        }
+        return fixed.compare(operator, l, r);
+    }
+}
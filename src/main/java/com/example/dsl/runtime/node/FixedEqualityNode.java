@@ -0,0 +1,26 @@
+package com.example.dsl.runtime.node;
+
+import com.example.dsl.runtime.Frame;
+import com.example.dsl.runtime.numeric.FixedPoint;
+
+/**
+ * 定点数模式下的相等判断，数值按大小比较，Decimal和调用方传入的Double等类型可以相等
+ */
+public final class FixedEqualityNode extends ExpressionNode {
+    private final boolean negated;
+    private final ExpressionNode left;
+    private final ExpressionNode right;
+    private final FixedPoint fixed;
+
+    public FixedEqualityNode(boolean negated, ExpressionNode left, ExpressionNode right, FixedPoint fixed) {
+        this.negated = negated;
+        this.left = left;
+        this.right = right;
+        this.fixed = fixed;
+    }
+
+    @Override
+    public Object execute(Frame frame) {
+        return fixed.equal(left.execute(frame), right.execute(frame)) != negated;
+    }
+}
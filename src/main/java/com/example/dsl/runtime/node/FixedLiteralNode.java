@@ -0,0 +1,26 @@
+package com.example.dsl.runtime.node;
+
+import com.example.dsl.runtime.Frame;
+import com.example.dsl.runtime.numeric.Decimal;
+import com.example.dsl.runtime.numeric.FixedPoint;
+
+/**
+ * 定点数模式下的数值常量，编译期转为缩放后的long
+ */
+public final class FixedLiteralNode extends ExpressionNode {
+    private final Decimal value;
+
+    public FixedLiteralNode(Decimal value) {
+        this.value = value;
+    }
+
+    @Override
+    public Object execute(Frame frame) {
+        return value;
+    }
+
+    @Override
+    public long executeFixed(Frame frame, FixedPoint fixed) {
+        return value.unscaledValue();
+    }
+}
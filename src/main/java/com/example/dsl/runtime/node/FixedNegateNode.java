@@ -0,0 +1,37 @@
+package com.example.dsl.runtime.node;
+
+import com.example.dsl.runtime.Frame;
+import com.example.dsl.runtime.numeric.FixedPoint;
+
+/**
+ * 定点数模式下的取负
+ */
+public final class FixedNegateNode extends ExpressionNode {
+    private final ExpressionNode operand;
+    private final FixedPoint fixed;
+
+    public FixedNegateNode(ExpressionNode operand, FixedPoint fixed) {
+        this.operand = operand;
+        this.fixed = fixed;
+    }
+
+    @Override
+    public Object execute(Frame frame) {
+        return fixed.negate(operand.execute(frame));
+    }
+
+    @Override
+    public long executeFixed(Frame frame, FixedPoint fixed) throws UnexpectedResultException {
+        long value;
+        try {
+            value = operand.executeFixed(frame, fixed);
+        } catch (UnexpectedResultException e) {
+            return expectFixed(fixed.negate(e.getResult()), fixed);
+        }
+        try {
+            return fixed.negate(value);
+        } catch (ArithmeticException e) {
+            return expectFixed(fixed.negate(fixed.toBigDecimal(fixed.box(value))), fixed);
+        }
+    }
+}
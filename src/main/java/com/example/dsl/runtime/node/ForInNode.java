@@ -0,0 +1,63 @@
+package com.example.dsl.runtime.node;
+
+import com.example.dsl.runtime.ExecutionBudget;
+import com.example.dsl.runtime.Frame;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * for-in循环，列表按下标遍历，对象按键遍历
+ * 循环变量和current都是局部槽位
+ * 有执行预算时检查集合大小，每次迭代计一步
+ */
+public final class ForInNode extends StatementNode {
+    private final int variableSlot;
+    private final int currentSlot;
+    private final ExpressionNode iterable;
+    private final StatementNode body;
+
+    public ForInNode(int variableSlot, int currentSlot, ExpressionNode iterable, StatementNode body) {
+        this.variableSlot = variableSlot;
+        this.currentSlot = currentSlot;
+        this.iterable = iterable;
+        this.body = body;
+    }
+
+    @Override
+    public void execute(Frame frame) {
+        Object value = iterable.execute(frame);
+        Object[] slots = frame.getSlots();
+        ExecutionBudget budget = frame.getGlobals().getBudget();
+        if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            if (budget != null) {
+                budget.checkCollectionSize(list.size());
+            }
+            for (int i = 0; i < list.size() && !frame.isReturned(); i++) {
+                if (budget != null) {
+                    budget.step();
+                }
+                slots[variableSlot] = i;
+                slots[currentSlot] = list.get(i);
+                body.execute(frame);
+            }
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            if (budget != null) {
+                budget.checkCollectionSize(map.size());
+            }
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (budget != null) {
+                    budget.step();
+                }
+                slots[variableSlot] = entry.getKey();
+                slots[currentSlot] = entry.getValue();
+                body.execute(frame);
+                if (frame.isReturned()) {
+                    break;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.dsl.runtime.node;
+
+import com.example.dsl.runtime.DslOperations;
+import com.example.dsl.runtime.Frame;
+
+public final class IfNode extends StatementNode {
+    private final ExpressionNode condition;
+    private final StatementNode thenBranch;
+    // 可以为null
+    private final StatementNode elseBranch;
+
+    public IfNode(ExpressionNode condition, StatementNode thenBranch, StatementNode elseBranch) {
+        this.condition = condition;
+        this.thenBranch = thenBranch;
+        this.elseBranch = elseBranch;
+    }
+
+    @Override
+    public void execute(Frame frame) {
+        if (DslOperations.toBoolean(condition.execute(frame))) {
+            thenBranch.execute(frame);
+        } else if (elseBranch != null) {
+            elseBranch.execute(frame);
+        }
+    }
+}
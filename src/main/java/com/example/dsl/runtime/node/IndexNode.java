@@ -0,0 +1,19 @@
+package com.example.dsl.runtime.node;
+
+import com.example.dsl.runtime.DslOperations;
+import com.example.dsl.runtime.Frame;
+
+public final class IndexNode extends ExpressionNode {
+    private final ExpressionNode target;
+    private final ExpressionNode index;
+
+    public IndexNode(ExpressionNode target, ExpressionNode index) {
+        this.target = target;
+        this.index = index;
+    }
+
+    @Override
+    public Object execute(Frame frame) {
+        return DslOperations.index(target.execute(frame), index.execute(frame));
+    }
+}
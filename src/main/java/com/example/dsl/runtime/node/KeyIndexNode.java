@@ -0,0 +1,22 @@
+package com.example.dsl.runtime.node;
+
+import com.example.dsl.runtime.Frame;
+import com.example.dsl.runtime.object.PropertyCache;
+
+/**
+ * 以字符串常量为键的索引，如product["basePrice"]，与成员访问一样经内联缓存读取
+ */
+public final class KeyIndexNode extends ExpressionNode {
+    private final ExpressionNode target;
+    private final PropertyCache cache;
+
+    public KeyIndexNode(ExpressionNode target, String key) {
+        this.target = target;
+        this.cache = new PropertyCache(key);
+    }
+
+    @Override
+    public Object execute(Frame frame) {
+        return cache.index(target.execute(frame));
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.dsl.runtime.node;
+
+import com.example.dsl.runtime.Frame;
+
+public final class LiteralNode extends ExpressionNode {
+    private final Object value;
+
+    public LiteralNode(Object value) {
+        this.value = value;
+    }
+
+    @Override
+    public Object execute(Frame frame) {
+        return value;
+    }
+
+    // 节点全为常量时返回各自的值，否则返回null
+    static Object[] constants(ExpressionNode[] nodes) {
+        Object[] values = new Object[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            if (nodes[i] instanceof LiteralNode) {
+                values[i] = ((LiteralNode) nodes[i]).value;
+            } else if (nodes[i] instanceof FixedLiteralNode) {
+                values[i] = nodes[i].execute(null);
+            } else {
+                return null;
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.dsl.runtime.node;
+
+import com.example.dsl.runtime.Frame;
+import com.example.dsl.runtime.object.PropertyCache;
+
+/**
+ * 成员访问，对象字面量创建的对象经内联缓存按位置读取
+ */
+public final class MemberNode extends ExpressionNode {
+    private final ExpressionNode target;
+    private final PropertyCache cache;
+
+    public MemberNode(ExpressionNode target, String name) {
+        this.target = target;
+        this.cache = new PropertyCache(name);
+    }
+
+    @Override
+    public Object execute(Frame frame) {
+        return cache.member(target.execute(frame));
+    }
+}
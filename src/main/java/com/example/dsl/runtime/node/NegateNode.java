@@ -0,0 +1,30 @@
+package com.example.dsl.runtime.node;
+
+import com.example.dsl.runtime.DslOperations;
+import com.example.dsl.runtime.Frame;
+
+public final class NegateNode extends ExpressionNode {
+    private final ExpressionNode operand;
+
+    public NegateNode(ExpressionNode operand) {
+        this.operand = operand;
+    }
+
+    @Override
+    public Object execute(Frame frame) {
+        try {
+            return executeNumber(frame);
+        } catch (UnexpectedResultException e) {
+            return e.getResult();
+        }
+    }
+
+    @Override
+    public double executeNumber(Frame frame) throws UnexpectedResultException {
+        try {
+            return -operand.executeNumber(frame);
+        } catch (UnexpectedResultException e) {
+            return expectNumber(DslOperations.negate(e.getResult()));
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.dsl.runtime.node;
+
+import com.example.dsl.runtime.DslOperations;
+import com.example.dsl.runtime.Frame;
+
+public final class NotNode extends ExpressionNode {
+    private final ExpressionNode operand;
+
+    public NotNode(ExpressionNode operand) {
+        this.operand = operand;
+    }
+
+    @Override
+    public Object execute(Frame frame) {
+        return !DslOperations.toBoolean(operand.execute(frame));
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.dsl.runtime.node;
+
+import com.example.dsl.runtime.Frame;
+
+/**
+ * 根据类型反馈特化的数值二元运算
+ * 初始假定两侧都是数值（Double，或上下文中的Integer等），按double求值，中间结果不装箱；
+ * 遇到非数值后改为通用路径，此后不再尝试特化
+ */
+abstract class NumericBinaryNode extends ExpressionNode {
+    protected final ExpressionNode left;
+    protected final ExpressionNode right;
+
+    // 特化失败标记，只会从false变为true，多线程下的竞争只会导致多尝试几次特化
+    private boolean generic;
+
+    protected NumericBinaryNode(ExpressionNode left, ExpressionNode right) {
+        this.left = left;
+        this.right = right;
+    }
+
+    // 是否已改为通用路径
+    public boolean isGeneric() {
+        return generic;
+    }
+
+    // 两侧都是数值时的运算
+    protected abstract double executeDouble(double left, double right);
+
+    // 通用路径，语义见DslOperations
+    protected abstract Object executeGeneric(Object left, Object right);
+
+    @Override
+    public Object execute(Frame frame) {
+        if (generic) {
+            return executeGeneric(left.execute(frame), right.execute(frame));
+        }
+        try {
+            return executeNumber(frame);
+        } catch (UnexpectedResultException e) {
+            return e.getResult();
+        }
+    }
+
+    @Override
+    public double executeNumber(Frame frame) throws UnexpectedResultException {
+        if (generic) {
+            return expectNumber(executeGeneric(left.execute(frame), right.execute(frame)));
+        }
+        double l;
+        try {
+            l = left.executeNumber(frame);
+        } catch (UnexpectedResultException e) {
+            return expectNumber(respecialize(e.getResult(), right.execute(frame)));
+        }
+        double r;
+        try {
+            r = right.executeNumber(frame);
+        } catch (UnexpectedResultException e) {
+            return expectNumber(respecialize(l, e.getResult()));
+        }
+        return executeDouble(l, r);
+    }
+
+    // 已求值的操作数不再重复求值，避免重复执行函数调用
+    private Object respecialize(Object l, Object r) {
+        generic = true;
+        return executeGeneric(l, r);
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.dsl.runtime.node;
+
+import com.example.dsl.runtime.Frame;
+import com.example.dsl.runtime.object.DslObject;
+import com.example.dsl.runtime.object.Shape;
+
+/**
+ * 对象字面量，同一字面量创建的对象共用编译期确定的形状
+ * 值全为常量时编译期创建模板对象，执行时只复制值数组
+ */
+public final class ObjectLiteralNode extends ExpressionNode {
+    private final Shape shape;
+    private final ExpressionNode[] values;
+
+    // 值全为常量时的模板，不对外发布，否则为null
+    private final DslObject template;
+
+    public ObjectLiteralNode(String[] keys, ExpressionNode[] values) {
+        this.shape = Shape.forLiteral(keys);
+        this.values = values;
+        Object[] constants = LiteralNode.constants(values);
+        this.template = constants != null ? shape.instantiate(constants) : null;
+    }
+
+    @Override
+    public Object execute(Frame frame) {
+        if (template != null) {
+            return template.copy();
+        }
+        Object[] result = new Object[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = values[i].execute(frame);
+        }
+        return shape.instantiate(result);
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.dsl.runtime.node;
+
+import com.example.dsl.runtime.DslOperations;
+import com.example.dsl.runtime.Frame;
+
+public final class OrNode extends ExpressionNode {
+    private final ExpressionNode left;
+    private final ExpressionNode right;
+
+    public OrNode(ExpressionNode left, ExpressionNode right) {
+        this.left = left;
+        this.right = right;
+    }
+
+    @Override
+    public Object execute(Frame frame) {
+        // 短路求值
+        return DslOperations.toBoolean(left.execute(frame)) || DslOperations.toBoolean(right.execute(frame));
+    }
+}
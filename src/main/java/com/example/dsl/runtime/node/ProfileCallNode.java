@@ -0,0 +1,38 @@
+package com.example.dsl.runtime.node;
+
+import com.example.dsl.runtime.Frame;
+import com.example.dsl.runtime.builtin.Builtin;
+import com.example.dsl.runtime.profile.ProfileFrame;
+import com.example.dsl.runtime.profile.ProfileStack;
+
+/**
+ * 剖析版本中对内置函数和业务函数的调用，参数求值后压入以函数名命名的栈帧再调用
+ * 脚本中定义的函数由ProfileFunctionNode压栈
+ */
+public final class ProfileCallNode extends ExpressionNode {
+    private final Builtin builtin;
+    private final ExpressionNode[] arguments;
+
+    public ProfileCallNode(Builtin builtin, ExpressionNode[] arguments) {
+        this.builtin = builtin;
+        this.arguments = arguments;
+    }
+
+    @Override
+    public Object execute(Frame frame) {
+        Object[] args = new Object[arguments.length];
+        for (int i = 0; i < arguments.length; i++) {
+            args[i] = arguments[i].execute(frame);
+        }
+        ProfileStack stack = frame.getGlobals().getProfile();
+        if (stack == null) {
+            return builtin.invoke(args);
+        }
+        ProfileFrame callFrame = stack.enter(builtin.getName());
+        try {
+            return builtin.invoke(args);
+        } finally {
+            stack.exit(callFrame);
+        }
+    }
+}
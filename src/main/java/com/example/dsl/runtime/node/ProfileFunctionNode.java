@@ -0,0 +1,33 @@
+package com.example.dsl.runtime.node;
+
+import com.example.dsl.runtime.Frame;
+import com.example.dsl.runtime.profile.ProfileStack;
+
+/**
+ * 剖析节点，包装函数体，执行期间在剖析栈中压入该函数的栈帧
+ * 只在编译剖析版本的脚本时插入
+ */
+public final class ProfileFunctionNode extends StatementNode {
+    private final String function;
+    private final StatementNode body;
+
+    public ProfileFunctionNode(String function, StatementNode body) {
+        this.function = function;
+        this.body = body;
+    }
+
+    @Override
+    public void execute(Frame frame) {
+        ProfileStack stack = frame.getGlobals().getProfile();
+        if (stack == null) {
+            body.execute(frame);
+            return;
+        }
+        frame.setProfileFrame(stack.enter(function));
+        try {
+            body.execute(frame);
+        } finally {
+            stack.exit(frame.getProfileFrame());
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.dsl.runtime.node;
+
+import com.example.dsl.runtime.Frame;
+import com.example.dsl.runtime.profile.ProfileFrame;
+
+/**
+ * 剖析节点，执行语句前把所在行记入当前剖析栈帧
+ * 只在编译剖析版本的脚本时插入
+ */
+public final class ProfileLineNode extends StatementNode {
+    private final int line;
+    private final StatementNode statement;
+
+    public ProfileLineNode(int line, StatementNode statement) {
+        this.line = line;
+        this.statement = statement;
+    }
+
+    @Override
+    public void execute(Frame frame) {
+        ProfileFrame profileFrame = frame.getProfileFrame();
+        if (profileFrame != null) {
+            profileFrame.setLine(line);
+        }
+        statement.execute(frame);
+    }
+}
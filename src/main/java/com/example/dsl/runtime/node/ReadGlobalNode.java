@@ -0,0 +1,19 @@
+package com.example.dsl.runtime.node;
+
+import com.example.dsl.runtime.Frame;
+
+/**
+ * 读取全局变量（调用方传入的上下文变量和脚本顶层变量）
+ */
+public final class ReadGlobalNode extends ExpressionNode {
+    private final String name;
+
+    public ReadGlobalNode(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public Object execute(Frame frame) {
+        return frame.getGlobals().getVariable(name);
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.dsl.runtime.node;
+
+import com.example.dsl.runtime.Frame;
+
+/**
+ * 读取局部变量，槽位在编译期确定
+ */
+public final class ReadLocalNode extends ExpressionNode {
+    private final int slot;
+
+    public ReadLocalNode(int slot) {
+        this.slot = slot;
+    }
+
+    @Override
+    public Object execute(Frame frame) {
+        return frame.getSlots()[slot];
+    }
+}
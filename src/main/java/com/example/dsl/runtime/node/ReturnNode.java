@@ -0,0 +1,17 @@
+package com.example.dsl.runtime.node;
+
+import com.example.dsl.runtime.Frame;
+
+public final class ReturnNode extends StatementNode {
+    // 可以为null
+    private final ExpressionNode value;
+
+    public ReturnNode(ExpressionNode value) {
+        this.value = value;
+    }
+
+    @Override
+    public void execute(Frame frame) {
+        frame.setReturnValue(value != null ? value.execute(frame) : null);
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.dsl.runtime.node;
+
+import com.example.dsl.runtime.Frame;
+import com.example.dsl.runtime.SharedCondition;
+
+/**
+ * 引用规则集中的共享条件，同一次执行中只求值一次
+ */
+public final class SharedConditionNode extends ExpressionNode {
+    private final SharedCondition condition;
+
+    public SharedConditionNode(SharedCondition condition) {
+        this.condition = condition;
+    }
+
+    @Override
+    public Object execute(Frame frame) {
+        return condition.evaluate(frame.getGlobals());
+    }
+}
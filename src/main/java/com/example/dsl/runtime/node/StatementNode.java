@@ -0,0 +1,11 @@
+package com.example.dsl.runtime.node;
+
+import com.example.dsl.runtime.Frame;
+
+/**
+ * 可执行的语句节点，return通过Frame传递
+ */
+public abstract class StatementNode {
+
+    public abstract void execute(Frame frame);
+}
@@ -0,0 +1,20 @@
+package com.example.dsl.runtime.node;
+
+import com.example.dsl.runtime.DslOperations;
+
+public final class SubtractNode extends NumericBinaryNode {
+
+    public SubtractNode(ExpressionNode left, ExpressionNode right) {
+        super(left, right);
+    }
+
+    @Override
+    protected double executeDouble(double left, double right) {
+        return left - right;
+    }
+
+    @Override
+    protected Object executeGeneric(Object left, Object right) {
+        return DslOperations.subtract(left, right);
+    }
+}
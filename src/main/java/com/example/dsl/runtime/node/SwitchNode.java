@@ -0,0 +1,32 @@
+package com.example.dsl.runtime.node;
+
+import com.example.dsl.runtime.Frame;
+import com.example.dsl.runtime.SwitchTable;
+
+/**
+ * 由同一变量与常量逐个比较的if/else if链编译而来，按变量的值查表执行对应分支
+ */
+public final class SwitchNode extends StatementNode {
+    private final ExpressionNode subject;
+    private final SwitchTable table;
+    private final StatementNode[] branches;
+    // 可以为null
+    private final StatementNode otherwise;
+
+    public SwitchNode(ExpressionNode subject, SwitchTable table, StatementNode[] branches, StatementNode otherwise) {
+        this.subject = subject;
+        this.table = table;
+        this.branches = branches;
+        this.otherwise = otherwise;
+    }
+
+    @Override
+    public void execute(Frame frame) {
+        int index = table.lookup(subject.execute(frame));
+        if (index >= 0) {
+            branches[index].execute(frame);
+        } else if (otherwise != null) {
+            otherwise.execute(frame);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.dsl.runtime.node;
+
+import com.example.dsl.runtime.Frame;
+import com.example.dsl.runtime.trace.ExecutionTrace;
+import com.example.dsl.runtime.trace.TraceEvent;
+
+/**
+ * 跟踪节点，包装一个表达式并记录其求值结果
+ * 只在编译跟踪版本的脚本时插入，普通执行的节点树中没有跟踪节点
+ */
+public final class TraceNode extends ExpressionNode {
+    private final int line;
+    private final TraceEvent.Kind kind;
+    private final String name;
+    private final ExpressionNode expression;
+
+    public TraceNode(int line, TraceEvent.Kind kind, String name, ExpressionNode expression) {
+        this.line = line;
+        this.kind = kind;
+        this.name = name;
+        this.expression = expression;
+    }
+
+    @Override
+    public Object execute(Frame frame) {
+        Object value = expression.execute(frame);
+        ExecutionTrace trace = frame.getGlobals().getTrace();
+        if (trace != null) {
+            trace.record(line, kind, name, value);
+        }
+        return value;
+    }
+}
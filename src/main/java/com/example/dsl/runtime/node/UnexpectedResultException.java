@@ -0,0 +1,19 @@
+package com.example.dsl.runtime.node;
+
+import lombok.Getter;
+
+/**
+ * 按特定类型求值时结果类型不符，携带已求得的值，调用方用它走通用路径
+ * 作为控制流使用，不填充异常栈
+ */
+@Getter
+public final class UnexpectedResultException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    private final transient Object result;
+
+    public UnexpectedResultException(Object result) {
+        super(null, null, false, false);
+        this.result = result;
+    }
+}
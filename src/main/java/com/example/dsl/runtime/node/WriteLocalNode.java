@@ -0,0 +1,21 @@
+package com.example.dsl.runtime.node;
+
+import com.example.dsl.runtime.Frame;
+
+/**
+ * 局部变量声明和赋值
+ */
+public final class WriteLocalNode extends StatementNode {
+    private final int slot;
+    private final ExpressionNode value;
+
+    public WriteLocalNode(int slot, ExpressionNode value) {
+        this.slot = slot;
+        this.value = value;
+    }
+
+    @Override
+    public void execute(Frame frame) {
+        frame.getSlots()[slot] = value.execute(frame);
+    }
+}
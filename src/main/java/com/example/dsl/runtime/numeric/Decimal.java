@@ -0,0 +1,92 @@
+package com.example.dsl.runtime.numeric;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.math.BigDecimal;
+
+/**
+ * 定点数模式下的数值：按小数位数缩放后的long，不可变
+ * 只在存入变量、作为参数或结果时创建，表达式中间结果不装箱（见FixedPoint）
+ */
+public final class Decimal extends Number implements Comparable<Decimal> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long unscaled;
+
+    private final int scale;
+
+    Decimal(long unscaled, int scale) {
+        this.unscaled = unscaled;
+        this.scale = scale;
+    }
+
+    public long unscaledValue() {
+        return unscaled;
+    }
+
+    public int scale() {
+        return scale;
+    }
+
+    // JSON序列化为数值，保留全部小数位
+    @JsonValue
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(unscaled, scale);
+    }
+
+    @Override
+    public int intValue() {
+        return (int) longValue();
+    }
+
+    @Override
+    public long longValue() {
+        return unscaled / FixedPoint.POWERS_OF_TEN[scale];
+    }
+
+    @Override
+    public float floatValue() {
+        return (float) doubleValue();
+    }
+
+    @Override
+    public double doubleValue() {
+        // 缩放值不超过2^53时两次转换都是精确的，商为正确舍入的结果
+        if (Math.abs(unscaled) < (1L << 53)) {
+            return unscaled / (double) FixedPoint.POWERS_OF_TEN[scale];
+        }
+        return toBigDecimal().doubleValue();
+    }
+
+    @Override
+    public int compareTo(Decimal other) {
+        if (scale == other.scale) {
+            return Long.compare(unscaled, other.unscaled);
+        }
+        return toBigDecimal().compareTo(other.toBigDecimal());
+    }
+
+    // 与BigDecimal一样，小数位数不同的值不相等
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Decimal)) {
+            return false;
+        }
+        Decimal other = (Decimal) o;
+        return unscaled == other.unscaled && scale == other.scale;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(unscaled) + scale;
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.dsl.runtime.numeric;
+
+import com.example.dsl.ast.BinaryOperator;
+import com.example.dsl.runtime.DslOperations;
+import com.google.common.math.LongMath;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+/**
+ * 定点数运算：数值按声明的小数位数缩放为long，加减乘除不创建对象
+ * 每个定点数模式的脚本一个实例，脚本中所有数值使用相同的小数位数和舍入方式。
+ * long运算溢出时抛出ArithmeticException，调用方改用BigDecimal计算（见bigBinary），
+ * 结果能用long表示时仍转回定点数
+ */
+@Getter
+public final class FixedPoint {
+
+    // 支持的最大小数位数，保证缩放因子能用long表示
+    public static final int MAX_SCALE = 18;
+
+    static final long[] POWERS_OF_TEN = new long[MAX_SCALE + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i <= MAX_SCALE; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    // 2^53，小于它的long与double之间的转换是精确的
+    private static final double EXACT_DOUBLE_LIMIT = 9007199254740992.0;
+
+    private final int scale;
+
+    private final RoundingMode roundingMode;
+
+    // 10^scale
+    private final long factor;
+
+    public FixedPoint(int scale, RoundingMode roundingMode) {
+        if (scale < 0 || scale > MAX_SCALE) {
+            throw new IllegalArgumentException("定点数小数位数必须在0到" + MAX_SCALE + "之间: " + scale);
+        }
+        if (roundingMode == null) {
+            throw new IllegalArgumentException("定点数舍入方式不能为空");
+        }
+        this.scale = scale;
+        this.roundingMode = roundingMode;
+        this.factor = POWERS_OF_TEN[scale];
+    }
+
+    // 装箱为Decimal
+    public Decimal box(long unscaled) {
+        return new Decimal(unscaled, scale);
+    }
+
+    /**
+     * 数值转为缩放后的long，超出小数位数的部分按舍入方式舍入
+     * 无法用long表示（溢出、NaN、无穷大）时抛出ArithmeticException
+     */
+    public long toFixed(Number value) {
+        if (value instanceof Decimal) {
+            Decimal decimal = (Decimal) value;
+            if (decimal.scale() == scale) {
+                return decimal.unscaledValue();
+            }
+        } else if (value instanceof Double || value instanceof Float) {
+            double d = value.doubleValue();
+            double scaled = d * factor;
+            // 小数位数不超过scale的double缩放后与整数的差在舍入误差内，直接取整
+            if (Math.abs(scaled) < EXACT_DOUBLE_LIMIT) {
+                long rounded = Math.round(scaled);
+                if (Math.abs(scaled - rounded) <= factor * Math.ulp(d)) {
+                    return rounded;
+                }
+            }
+            if (Double.isNaN(d) || Double.isInfinite(d)) {
+                throw new ArithmeticException("无法转为定点数: " + d);
+            }
+            return BigDecimal.valueOf(d).setScale(scale, roundingMode).unscaledValue().longValueExact();
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return LongMath.checkedMultiply(value.longValue(), factor);
+        }
+        return toBigDecimal(value).setScale(scale, roundingMode).unscaledValue().longValueExact();
+    }
+
+    public long add(long left, long right) {
+        return LongMath.checkedAdd(left, right);
+    }
+
+    public long subtract(long left, long right) {
+        return LongMath.checkedSubtract(left, right);
+    }
+
+    // 乘积超出long时溢出，即使缩放回去后能表示
+    public long multiply(long left, long right) {
+        return LongMath.divide(LongMath.checkedMultiply(left, right), factor, roundingMode);
+    }
+
+    public long divide(long left, long right) {
+        if (right == 0) {
+            throw new RuntimeException("Division by zero");
+        }
+        return LongMath.divide(LongMath.checkedMultiply(left, factor), right, roundingMode);
+    }
+
+    public long mod(long left, long right) {
+        if (right == 0) {
+            throw new RuntimeException("Division by zero");
+        }
+        return left % right;
+    }
+
+    public long negate(long value) {
+        return LongMath.checkedSubtract(0, value);
+    }
+
+    // 乘、除、取模、加、减
+    public long binary(BinaryOperator op, long left, long right) {
+        switch (op) {
+            case ADD: return add(left, right);
+            case SUB: return subtract(left, right);
+            case MUL: return multiply(left, right);
+            case DIV: return divide(left, right);
+            case MOD: return mod(left, right);
+            default: throw new IllegalArgumentException("不是算术运算: " + op);
+        }
+    }
+
+    /**
+     * 按运算符对已求值的操作数计算，两侧都是数值时按定点数计算，溢出时改用BigDecimal；
+     * 否则与double模式语义相同（字符串拼接、非数值操作数报错或返回null）
+     */
+    public Object binary(BinaryOperator op, Object left, Object right) {
+        if (left instanceof Number && right instanceof Number) {
+            try {
+                return box(binary(op, toFixed((Number) left), toFixed((Number) right)));
+            } catch (ArithmeticException e) {
+                return bigBinary(op, (Number) left, (Number) right);
+            }
+        }
+        switch (op) {
+            case ADD: return DslOperations.add(left, right);
+            case SUB: return DslOperations.subtract(left, right);
+            default: return DslOperations.arithmetic(op, left, right);
+        }
+    }
+
+    // 溢出后的BigDecimal计算，结果按小数位数舍入，能用long表示时转回定点数
+    public Object bigBinary(BinaryOperator op, Number left, Number right) {
+        BigDecimal l = toBigDecimal(left);
+        BigDecimal r = toBigDecimal(right);
+        BigDecimal result;
+        switch (op) {
+            case ADD: result = l.add(r); break;
+            case SUB: result = l.subtract(r); break;
+            case MUL: result = l.multiply(r); break;
+            case DIV:
+                if (r.signum() == 0) {
+                    throw new RuntimeException("Division by zero");
+                }
+                result = l.divide(r, scale, roundingMode);
+                break;
+            case MOD:
+                if (r.signum() == 0) {
+                    throw new RuntimeException("Division by zero");
+                }
+                result = l.remainder(r);
+                break;
+            default: throw new IllegalArgumentException("不是算术运算: " + op);
+        }
+        return normalize(result);
+    }
+
+    public Object negate(Object value) {
+        if (value instanceof Number) {
+            try {
+                return box(negate(toFixed((Number) value)));
+            } catch (ArithmeticException e) {
+                return normalize(toBigDecimal((Number) value).negate());
+            }
+        }
+        return DslOperations.negate(value);
+    }
+
+    // 大小比较，数值之外的类型与double模式语义相同
+    public boolean compare(BinaryOperator op, Object left, Object right) {
+        if (left instanceof Number && right instanceof Number) {
+            return DslOperations.compare(op, compareNumbers((Number) left, (Number) right), 0);
+        }
+        return DslOperations.compare(op, left, right);
+    }
+
+    // 数值按大小判断相等，不区分Decimal、Double等类型
+    public boolean equal(Object left, Object right) {
+        if (left instanceof Number && right instanceof Number) {
+            return compareNumbers((Number) left, (Number) right) == 0;
+        }
+        return DslOperations.equal(left, right);
+    }
+
+    private int compareNumbers(Number left, Number right) {
+        try {
+            return Long.compare(toFixed(left), toFixed(right));
+        } catch (ArithmeticException e) {
+            return toBigDecimal(left).compareTo(toBigDecimal(right));
+        }
+    }
+
+    // 能用long表示时转为Decimal，否则保留BigDecimal
+    public Number normalize(BigDecimal value) {
+        BigDecimal scaled = value.setScale(scale, roundingMode);
+        BigInteger unscaled = scaled.unscaledValue();
+        if (unscaled.bitLength() < Long.SIZE) {
+            return box(unscaled.longValue());
+        }
+        return scaled;
+    }
+
+    public BigDecimal toBigDecimal(Number value) {
+        if (value instanceof Decimal) {
+            return ((Decimal) value).toBigDecimal();
+        }
+        if (value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return BigDecimal.valueOf(value.longValue());
+        }
+        if (value instanceof BigInteger) {
+            return new BigDecimal((BigInteger) value);
+        }
+        double d = value.doubleValue();
+        if (Double.isNaN(d) || Double.isInfinite(d)) {
+            throw new RuntimeException("无法转为定点数: " + d);
+        }
+        return BigDecimal.valueOf(d);
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.dsl.runtime.object;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * DSL对象字面量的值：共享的形状加上按位置存放的值数组
+ * 实现Map接口，调用方和JSON序列化按普通Map处理，遍历顺序为字面量中键的顺序。
+ * 修改已有键的值直接写入数组；增加或删除键后转为LinkedHashMap存储，不再有形状。
+ * 常量折叠生成的对象在多次执行间共享，为只读
+ * 与HashMap一样不是线程安全的
+ */
+public final class DslObject extends AbstractMap<String, Object> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // 转为普通Map后为null
+    Shape shape;
+
+    Object[] values;
+
+    private Map<String, Object> fallback;
+
+    private boolean readOnly;
+
+    private transient Set<Entry<String, Object>> entrySet;
+
+    DslObject(Shape shape, Object[] values) {
+        this.shape = shape;
+        this.values = values;
+    }
+
+    // 复制为可修改的新对象，有形状时共用形状，只复制值数组
+    public DslObject copy() {
+        if (shape != null) {
+            return new DslObject(shape, values.clone());
+        }
+        DslObject copy = new DslObject(null, null);
+        copy.fallback = new LinkedHashMap<>(fallback);
+        return copy;
+    }
+
+    // 设为只读并返回自身，须在对象发布前调用
+    public DslObject readOnly() {
+        this.readOnly = true;
+        return this;
+    }
+
+    @Override
+    public int size() {
+        return shape != null ? shape.size() : fallback.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return shape != null ? shape.indexOf(key) >= 0 : fallback.containsKey(key);
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (shape == null) {
+            return fallback.get(key);
+        }
+        int slot = shape.indexOf(key);
+        return slot >= 0 ? values[slot] : null;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        checkWritable();
+        if (shape != null) {
+            int slot = shape.indexOf(key);
+            if (slot >= 0) {
+                Object previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            detach();
+        }
+        return fallback.put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        checkWritable();
+        if (shape != null) {
+            if (shape.indexOf(key) < 0) {
+                return null;
+            }
+            detach();
+        }
+        return fallback.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        checkWritable();
+        if (shape != null) {
+            detach();
+        }
+        fallback.clear();
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    private void checkWritable() {
+        if (readOnly) {
+            throw new UnsupportedOperationException("常量对象不能修改");
+        }
+    }
+
+    // 结构变化后改用LinkedHashMap，保持原有顺序
+    private void detach() {
+        Map<String, Object> map = new LinkedHashMap<>(shape.size() * 2);
+        for (int i = 0; i < shape.size(); i++) {
+            map.put(shape.key(i), values[i]);
+        }
+        fallback = map;
+        shape = null;
+        values = null;
+    }
+
+    // 序列化为LinkedHashMap，反序列化方不依赖形状
+    private Object writeReplace() {
+        return new LinkedHashMap<>(this);
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<String, Object>> {
+        @Override
+        public int size() {
+            return DslObject.this.size();
+        }
+
+        @Override
+        public Iterator<Entry<String, Object>> iterator() {
+            if (shape == null) {
+                return fallback.entrySet().iterator();
+            }
+            return new SlotIterator(DslObject.this, shape, values);
+        }
+    }
+
+    // 遍历期间增删键会使对象转为普通Map，迭代器仍读取原来的值数组
+    private static final class SlotIterator implements Iterator<Entry<String, Object>> {
+        private final DslObject owner;
+        private final Shape shape;
+        private final Object[] values;
+        private int next;
+
+        SlotIterator(DslObject owner, Shape shape, Object[] values) {
+            this.owner = owner;
+            this.shape = shape;
+            this.values = values;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < shape.size();
+        }
+
+        @Override
+        public Entry<String, Object> next() {
+            if (next >= shape.size()) {
+                throw new NoSuchElementException();
+            }
+            int slot = next++;
+            return new SimpleEntry<String, Object>(shape.key(slot), values[slot]) {
+                @Override
+                public Object setValue(Object value) {
+                    owner.checkWritable();
+                    values[slot] = value;
+                    return super.setValue(value);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.dsl.runtime.object;
+
+import com.example.dsl.runtime.DslOperations;
+
+/**
+ * 成员访问和常量键索引的内联缓存，每个访问位置一个
+ * 记录最近见过的形状及键在其中的位置，同一形状再次出现时直接读取值数组，不再查找键；
+ * 最多记录MAX_SHAPES个形状，超过后不再记录。其他Map和非对象按DslOperations的语义处理
+ *
+ * 节点树在线程间共享，缓存项不可变，整体替换发布，读到旧缓存只会多查找一次
+ */
+public final class PropertyCache {
+
+    // 多态缓存的形状数上限
+    static final int MAX_SHAPES = 4;
+
+    private final String key;
+
+    private Entry entries;
+
+    private int size;
+
+    public PropertyCache(String key) {
+        this.key = key.intern();
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    // obj.key
+    public Object member(Object obj) {
+        if (obj instanceof DslObject) {
+            return read((DslObject) obj);
+        }
+        return DslOperations.member(obj, key);
+    }
+
+    // obj["key"]
+    public Object index(Object obj) {
+        if (obj instanceof DslObject) {
+            return read((DslObject) obj);
+        }
+        return DslOperations.index(obj, key);
+    }
+
+    private Object read(DslObject obj) {
+        Shape shape = obj.shape;
+        if (shape == null) {
+            return obj.get(key);
+        }
+        for (Entry entry = entries; entry != null; entry = entry.next) {
+            if (entry.shape == shape) {
+                return entry.slot >= 0 ? obj.values[entry.slot] : null;
+            }
+        }
+        int slot = shape.indexOf(key);
+        if (size < MAX_SHAPES) {
+            entries = new Entry(shape, slot, entries);
+            size++;
+        }
+        return slot >= 0 ? obj.values[slot] : null;
+    }
+
+    private static final class Entry {
+        final Shape shape;
+        final int slot;
+        final Entry next;
+
+        Entry(Shape shape, int slot, Entry next) {
+            this.shape = shape;
+            this.slot = slot;
+            this.next = next;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.dsl.runtime.object;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 对象字面量的形状：键及其在值数组中的位置，每个字面量在编译期创建一个，不可变
+ * 字面量中重复的键共用一个位置，后出现的值覆盖先出现的值，与HashMap一致
+ */
+public final class Shape {
+
+    // 键数超过该值时用哈希表查找位置，否则线性查找
+    private static final int LINEAR_LOOKUP_LIMIT = 8;
+
+    private final String[] keys;
+
+    // 字面量中第i个值写入的位置，没有重复键时为null
+    private final int[] literalSlots;
+
+    private final Map<String, Integer> index;
+
+    private Shape(String[] keys, int[] literalSlots) {
+        this.keys = keys;
+        this.literalSlots = literalSlots;
+        if (keys.length > LINEAR_LOOKUP_LIMIT) {
+            index = new HashMap<>(keys.length * 2);
+            for (int i = 0; i < keys.length; i++) {
+                index.put(keys[i], i);
+            }
+        } else {
+            index = null;
+        }
+    }
+
+    // 按字面量中键的顺序创建形状，键名驻留以便按引用比较
+    public static Shape forLiteral(String[] literalKeys) {
+        String[] keys = new String[literalKeys.length];
+        int[] slots = new int[literalKeys.length];
+        int size = 0;
+        boolean duplicated = false;
+        for (int i = 0; i < literalKeys.length; i++) {
+            String key = literalKeys[i].intern();
+            int slot = indexOf(keys, size, key);
+            if (slot < 0) {
+                slot = size;
+                keys[size++] = key;
+            } else {
+                duplicated = true;
+            }
+            slots[i] = slot;
+        }
+        return new Shape(size == keys.length ? keys : Arrays.copyOf(keys, size), duplicated ? slots : null);
+    }
+
+    private static int indexOf(String[] keys, int size, Object key) {
+        // 编译期的键名都已驻留，先按引用比较
+        for (int i = 0; i < size; i++) {
+            if (keys[i] == key) {
+                return i;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            if (keys[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // 键的位置，不存在时返回-1
+    public int indexOf(Object key) {
+        if (index != null) {
+            Integer slot = index.get(key);
+            return slot != null ? slot : -1;
+        }
+        return indexOf(keys, keys.length, key);
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    String key(int slot) {
+        return keys[slot];
+    }
+
+    /**
+     * 用字面量各项的值创建对象，没有重复键时直接使用传入的数组
+     */
+    public DslObject instantiate(Object[] literalValues) {
+        if (literalSlots == null) {
+            return new DslObject(this, literalValues);
+        }
+        Object[] values = new Object[keys.length];
+        for (int i = 0; i < literalValues.length; i++) {
+            values[literalSlots[i]] = literalValues[i];
+        }
+        return new DslObject(this, values);
+    }
+
+    @Override
+    public String toString() {
+        return "Shape" + Arrays.toString(keys);
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.dsl.runtime.profile;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * 读取线程的累计分配字节数，JVM不支持时返回-1
+ */
+final class AllocationMeter {
+
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+
+    private AllocationMeter() {
+    }
+
+    static long allocatedBytes(Thread thread) {
+        if (THREADS == null) {
+            return -1;
+        }
+        return THREADS.getThreadAllocatedBytes(thread.getId());
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        if (!threads.isThreadAllocatedMemoryEnabled()) {
+            threads.setThreadAllocatedMemoryEnabled(true);
+        }
+        return threads;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.dsl.runtime.profile;
+
+/**
+ * 剖析栈中的一帧：正在执行的函数及其当前行
+ * 只由执行线程写入，采样线程读取，line为volatile以保证采样时可见
+ */
+public final class ProfileFrame {
+
+    final String function;
+
+    final ProfileFrame parent;
+
+    final int depth;
+
+    volatile int line;
+
+    ProfileFrame(String function, ProfileFrame parent) {
+        this.function = function;
+        this.parent = parent;
+        this.depth = parent == null ? 1 : parent.depth + 1;
+    }
+
+    // 进入新的语句
+    public void setLine(int line) {
+        this.line = line;
+    }
+}
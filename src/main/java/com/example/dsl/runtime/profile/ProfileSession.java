@@ -0,0 +1,302 @@
+package com.example.dsl.runtime.profile;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 一个脚本的剖析会话
+ * 执行线程在执行前后登记和注销调用栈；采样线程定期读取正在执行的调用栈，
+ * 把两次采样之间的时间和线程分配的内存计入当时所在的DSL行。
+ * 样本按完整调用栈汇总，报告中的行表、函数表和折叠栈都由汇总结果计算
+ */
+public class ProfileSession {
+
+    // 不同调用栈数的上限，超出后新调用栈的样本只计入droppedSamples
+    static final int MAX_STACKS = 10000;
+
+    // 采样时调用栈的最大深度，更深的部分截断
+    static final int MAX_DEPTH = 128;
+
+    @Getter
+    private final String scriptName;
+
+    @Getter
+    private final long startedAt = System.currentTimeMillis();
+
+    // 自动结束的时间
+    private final long deadline;
+
+    private volatile boolean active = true;
+
+    private final Set<ProfileStack> running = ConcurrentHashMap.newKeySet();
+
+    // 以下字段只在持有会话锁时访问
+    private final Map<StackKey, Sample> samples = new HashMap<>();
+    private long sampleCount;
+    private long droppedSamples;
+    private long stoppedAt;
+
+    ProfileSession(String scriptName, long durationMillis) {
+        this.scriptName = scriptName;
+        this.deadline = startedAt + durationMillis;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    // 登记当前线程的一次执行
+    public ProfileStack begin() {
+        ProfileStack stack = new ProfileStack(Thread.currentThread(),
+                AllocationMeter.allocatedBytes(Thread.currentThread()));
+        running.add(stack);
+        return stack;
+    }
+
+    // 注销执行，之后的时间不再计入
+    public void end(ProfileStack stack) {
+        running.remove(stack);
+    }
+
+    synchronized void stop() {
+        if (active) {
+            active = false;
+            stoppedAt = System.currentTimeMillis();
+            running.clear();
+        }
+    }
+
+    boolean isExpired(long now) {
+        return now >= deadline;
+    }
+
+    /**
+     * 采样一次，weightNanos为距上次采样的时间
+     */
+    synchronized void sample(long weightNanos) {
+        if (!active) {
+            return;
+        }
+        for (ProfileStack stack : running) {
+            ProfileFrame top = stack.getTop();
+            if (top == null) {
+                continue;
+            }
+            long allocated = AllocationMeter.allocatedBytes(stack.thread);
+            long bytes = allocated >= 0 && stack.allocatedBytes >= 0 ? Math.max(0, allocated - stack.allocatedBytes) : 0;
+            stack.allocatedBytes = allocated;
+
+            sampleCount++;
+            StackKey key = StackKey.of(top);
+            Sample sample = samples.get(key);
+            if (sample == null) {
+                if (samples.size() >= MAX_STACKS) {
+                    droppedSamples++;
+                    continue;
+                }
+                sample = new Sample();
+                samples.put(key, sample);
+            }
+            sample.count++;
+            sample.nanos += weightNanos;
+            sample.bytes += bytes;
+        }
+    }
+
+    /**
+     * 折叠栈格式，每行为“函数:行;函数:行 权重”，可直接用flamegraph.pl等工具生成火焰图
+     * weight为time时权重为微秒，为alloc时为分配的字节数
+     */
+    public synchronized String collapsed(String weight) {
+        boolean allocation = "alloc".equals(weight);
+        Map<String, Long> lines = new TreeMap<>();
+        samples.forEach((key, sample) -> {
+            long value = allocation ? sample.bytes : sample.nanos / 1000;
+            if (value > 0) {
+                lines.merge(key.toString(), value, Long::sum);
+            }
+        });
+        StringBuilder out = new StringBuilder();
+        lines.forEach((stack, value) -> out.append(stack).append(' ').append(value).append('\n'));
+        return out.toString();
+    }
+
+    /**
+     * 剖析报告：按行和按函数的自身时间、总时间和分配字节数，按自身时间降序
+     * 自身时间是该行位于栈顶的时间，总时间是该行出现在调用栈中的时间（递归只计一次）
+     */
+    public synchronized Map<String, Object> report() {
+        Map<String, Stats> lineStats = new HashMap<>();
+        Map<String, Stats> functionStats = new HashMap<>();
+        long totalNanos = 0;
+        long totalBytes = 0;
+        for (Map.Entry<StackKey, Sample> entry : samples.entrySet()) {
+            StackKey key = entry.getKey();
+            Sample sample = entry.getValue();
+            totalNanos += sample.nanos;
+            totalBytes += sample.bytes;
+
+            int leaf = key.functions.length - 1;
+            lineStats.computeIfAbsent(key.frame(leaf), name -> new Stats(key.functions[leaf], key.lines[leaf]))
+                    .addSelf(sample);
+            functionStats.computeIfAbsent(key.functions[leaf], name -> new Stats(name, 0)).addSelf(sample);
+
+            Set<String> seenLines = new HashSet<>();
+            Set<String> seenFunctions = new HashSet<>();
+            for (int i = 0; i <= leaf; i++) {
+                String frame = key.frame(i);
+                int index = i;
+                if (seenLines.add(frame)) {
+                    lineStats.computeIfAbsent(frame, name -> new Stats(key.functions[index], key.lines[index]))
+                            .addTotal(sample);
+                }
+                if (seenFunctions.add(key.functions[i])) {
+                    functionStats.computeIfAbsent(key.functions[i], name -> new Stats(name, 0)).addTotal(sample);
+                }
+            }
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("scriptName", scriptName);
+        report.put("active", active);
+        report.put("startedAt", startedAt);
+        report.put("elapsedMillis", (active ? System.currentTimeMillis() : stoppedAt) - startedAt);
+        report.put("samples", sampleCount);
+        report.put("droppedSamples", droppedSamples);
+        report.put("sampledMicros", totalNanos / 1000);
+        report.put("allocatedBytes", totalBytes);
+        report.put("lines", table(lineStats, totalNanos, true));
+        report.put("functions", table(functionStats, totalNanos, false));
+        report.put("collapsed", collapsed("time"));
+        return report;
+    }
+
+    private static List<Map<String, Object>> table(Map<String, Stats> stats, long totalNanos, boolean withLine) {
+        List<Stats> sorted = new ArrayList<>(stats.values());
+        sorted.sort(Comparator.comparingLong((Stats s) -> s.selfNanos).reversed()
+                .thenComparing(Comparator.comparingLong((Stats s) -> s.totalNanos).reversed()));
+        List<Map<String, Object>> rows = new ArrayList<>(sorted.size());
+        for (Stats s : sorted) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("function", s.function);
+            if (withLine) {
+                row.put("line", s.line);
+            }
+            row.put("samples", s.samples);
+            row.put("selfMicros", s.selfNanos / 1000);
+            row.put("totalMicros", s.totalNanos / 1000);
+            row.put("selfPercent", percent(s.selfNanos, totalNanos));
+            row.put("totalPercent", percent(s.totalNanos, totalNanos));
+            row.put("selfAllocatedBytes", s.selfBytes);
+            row.put("totalAllocatedBytes", s.totalBytes);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static double percent(long part, long total) {
+        return total == 0 ? 0.0 : Math.round(part * 1000.0 / total) / 10.0;
+    }
+
+    private static final class Sample {
+        long count;
+        long nanos;
+        long bytes;
+    }
+
+    private static final class Stats {
+        final String function;
+        final int line;
+        long samples;
+        long selfNanos;
+        long totalNanos;
+        long selfBytes;
+        long totalBytes;
+
+        Stats(String function, int line) {
+            this.function = function;
+            this.line = line;
+        }
+
+        void addSelf(Sample sample) {
+            samples += sample.count;
+            selfNanos += sample.nanos;
+            selfBytes += sample.bytes;
+        }
+
+        void addTotal(Sample sample) {
+            totalNanos += sample.nanos;
+            totalBytes += sample.bytes;
+        }
+    }
+
+    /**
+     * 采样时的调用栈，从最外层函数开始
+     */
+    private static final class StackKey {
+        final String[] functions;
+        final int[] lines;
+        private final int hash;
+
+        private StackKey(String[] functions, int[] lines) {
+            this.functions = functions;
+            this.lines = lines;
+            this.hash = 31 * Arrays.hashCode(functions) + Arrays.hashCode(lines);
+        }
+
+        static StackKey of(ProfileFrame top) {
+            int depth = Math.min(top.depth, MAX_DEPTH);
+            String[] functions = new String[depth];
+            int[] lines = new int[depth];
+            ProfileFrame frame = top;
+            for (int i = depth - 1; i >= 0; i--) {
+                functions[i] = frame.function;
+                lines[i] = frame.line;
+                frame = frame.parent;
+            }
+            return new StackKey(functions, lines);
+        }
+
+        // 行号为0的帧（内置函数）只显示函数名
+        String frame(int index) {
+            return lines[index] == 0 ? functions[index] : functions[index] + ":" + lines[index];
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof StackKey)) {
+                return false;
+            }
+            StackKey other = (StackKey) o;
+            return hash == other.hash && Arrays.equals(lines, other.lines) && Arrays.equals(functions, other.functions);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder out = new StringBuilder();
+            for (int i = 0; i < functions.length; i++) {
+                if (i > 0) {
+                    out.append(';');
+                }
+                out.append(frame(i));
+            }
+            return out.toString();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.dsl.runtime.profile;
+
+/**
+ * 一次被剖析的执行的DSL调用栈
+ * 执行线程在进入和退出函数时替换栈顶，采样线程读取栈顶并沿parent遍历
+ */
+public final class ProfileStack {
+
+    final Thread thread;
+
+    private volatile ProfileFrame top;
+
+    // 上次采样时线程的累计分配字节数，只由采样线程读写
+    long allocatedBytes;
+
+    ProfileStack(Thread thread, long allocatedBytes) {
+        this.thread = thread;
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    // 进入函数，返回新的栈帧
+    public ProfileFrame enter(String function) {
+        ProfileFrame frame = new ProfileFrame(function, top);
+        top = frame;
+        return frame;
+    }
+
+    // 退出函数，恢复调用方的栈帧
+    public void exit(ProfileFrame frame) {
+        top = frame.parent;
+    }
+
+    ProfileFrame getTop() {
+        return top;
+    }
+}
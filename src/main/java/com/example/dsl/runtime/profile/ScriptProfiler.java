@@ -0,0 +1,151 @@
+package com.example.dsl.runtime.profile;
+
+import com.example.config.DslProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * DSL源码级采样剖析器
+ * 按脚本按需开启，开启后该脚本的执行改用剖析版本（见DslCompiler.compileProfiled），
+ * 后台线程每dsl.profile-sample-interval-micros采样一次所有正在执行的DSL调用栈。
+ * 没有开启剖析的脚本执行路径不变，没有会话时采样线程退出
+ */
+@Slf4j
+@Component
+public class ScriptProfiler {
+
+    private final long intervalNanos;
+
+    private final long maxDurationMillis;
+
+    // 每个脚本最近一次的会话，结束后保留以便查询报告
+    private final Map<String, ProfileSession> sessions = new ConcurrentHashMap<>();
+
+    private Thread sampler;
+
+    public ScriptProfiler(DslProperties dslProperties) {
+        this.intervalNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(1, dslProperties.getProfileSampleIntervalMicros()));
+        this.maxDurationMillis = TimeUnit.SECONDS.toMillis(dslProperties.getProfileMaxSeconds());
+    }
+
+    /**
+     * 开启脚本的剖析，替换该脚本之前的会话
+     * durationSeconds不大于0或超过上限时使用dsl.profile-max-seconds
+     */
+    public ProfileSession start(String scriptName, long durationSeconds) {
+        long durationMillis = TimeUnit.SECONDS.toMillis(durationSeconds);
+        if (durationMillis <= 0 || durationMillis > maxDurationMillis) {
+            durationMillis = maxDurationMillis;
+        }
+        ProfileSession session = new ProfileSession(scriptName, durationMillis);
+        ProfileSession previous = sessions.put(scriptName, session);
+        if (previous != null) {
+            previous.stop();
+        }
+        log.info("开始剖析脚本: {}, 时长: {}s", scriptName, durationMillis / 1000);
+        startSampler();
+        return session;
+    }
+
+    // 结束脚本的剖析，返回该会话，没有会话时返回null
+    public ProfileSession stop(String scriptName) {
+        ProfileSession session = sessions.get(scriptName);
+        if (session != null && session.isActive()) {
+            session.stop();
+            log.info("结束剖析脚本: {}", scriptName);
+        }
+        return session;
+    }
+
+    // 脚本最近一次的会话，可能已结束，没有时返回null
+    public ProfileSession getSession(String scriptName) {
+        return sessions.get(scriptName);
+    }
+
+    // 正在剖析时返回会话，执行路径上只有一次哈希查找
+    public ProfileSession getActiveSession(String scriptName) {
+        if (sessions.isEmpty()) {
+            return null;
+        }
+        ProfileSession session = sessions.get(scriptName);
+        return session != null && session.isActive() ? session : null;
+    }
+
+    // 删除脚本的剖析数据
+    public void clear(String scriptName) {
+        ProfileSession session = sessions.remove(scriptName);
+        if (session != null) {
+            session.stop();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sessions.values().forEach(ProfileSession::stop);
+        Thread thread;
+        synchronized (this) {
+            thread = sampler;
+            sampler = null;
+        }
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private synchronized void startSampler() {
+        if (sampler != null && sampler.isAlive()) {
+            return;
+        }
+        sampler = new Thread(this::sampleLoop, "dsl-profiler");
+        sampler.setDaemon(true);
+        sampler.start();
+    }
+
+    private void sampleLoop() {
+        long last = System.nanoTime();
+        while (!Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(intervalNanos);
+            long now = System.nanoTime();
+            // 线程被挂起过久时只按采样间隔的若干倍计权，避免单个样本过重
+            long weight = Math.min(now - last, intervalNanos * 10);
+            last = now;
+
+            boolean active = false;
+            long wallClock = System.currentTimeMillis();
+            for (ProfileSession session : sessions.values()) {
+                if (!session.isActive()) {
+                    continue;
+                }
+                if (session.isExpired(wallClock)) {
+                    session.stop();
+                    log.info("剖析到期: {}", session.getScriptName());
+                    continue;
+                }
+                session.sample(weight);
+                active = true;
+            }
+            if (!active && exitIfIdle()) {
+                return;
+            }
+        }
+    }
+
+    // 没有进行中的会话时退出采样线程，与startSampler互斥，避免刚开启的会话无人采样
+    private synchronized boolean exitIfIdle() {
+        for (ProfileSession session : sessions.values()) {
+            if (session.isActive()) {
+                return false;
+            }
+        }
+        if (sampler == Thread.currentThread()) {
+            sampler = null;
+        }
+        return true;
+    }
+}
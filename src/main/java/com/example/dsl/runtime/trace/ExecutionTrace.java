@@ -0,0 +1,59 @@
+package com.example.dsl.runtime.trace;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一次执行的跟踪记录
+ * 只在一个执行线程中写入，执行结束后才被读取
+ */
+@Getter
+public class ExecutionTrace {
+
+    // 单次执行最多记录的事件数，超出后丢弃并标记truncated
+    public static final int MAX_EVENTS = 10000;
+
+    private final String scriptName;
+
+    // 是否为采样产生的跟踪
+    private final boolean sampled;
+
+    private final long startedAt = System.currentTimeMillis();
+
+    private final List<TraceEvent> events = new ArrayList<>();
+
+    private boolean truncated;
+
+    public ExecutionTrace(String scriptName, boolean sampled) {
+        this.scriptName = scriptName;
+        this.sampled = sampled;
+    }
+
+    public void record(int line, TraceEvent.Kind kind, String name, Object value) {
+        if (events.size() >= MAX_EVENTS) {
+            truncated = true;
+            return;
+        }
+        events.add(new TraceEvent(line, kind, name, snapshot(value)));
+    }
+
+    public List<TraceEvent> getEvents() {
+        return Collections.unmodifiableList(events);
+    }
+
+    // 集合在之后的执行中可能被修改，记录当时的浅拷贝
+    private static Object snapshot(Object value) {
+        if (value instanceof Map) {
+            return new HashMap<>((Map<?, ?>) value);
+        }
+        if (value instanceof List) {
+            return new ArrayList<>((List<?>) value);
+        }
+        return value;
+    }
+}
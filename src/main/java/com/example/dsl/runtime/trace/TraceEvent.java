@@ -0,0 +1,38 @@
+package com.example.dsl.runtime.trace;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 执行跟踪事件
+ */
+@Getter
+@RequiredArgsConstructor
+public class TraceEvent {
+
+    public enum Kind {
+        // 变量声明
+        DECLARE,
+        // 变量赋值
+        ASSIGN,
+        // if条件求值
+        CONDITION,
+        // 相等和大小比较
+        COMPARE,
+        // 函数调用返回
+        CALL,
+        // 函数返回
+        RETURN
+    }
+
+    // 源码行号
+    private final int line;
+
+    private final Kind kind;
+
+    // 变量名、函数名或条件表达式
+    private final String name;
+
+    // 求值结果，集合为记录时的快照
+    private final Object value;
+}
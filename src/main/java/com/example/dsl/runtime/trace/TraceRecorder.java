@@ -0,0 +1,52 @@
+package com.example.dsl.runtime.trace;
+
+import com.example.config.DslProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 执行跟踪的采样和保存
+ * 每dsl.trace-sample-rate次执行抽取一次跟踪，最近的跟踪记录保存在内存中供查询
+ */
+@Component
+public class TraceRecorder {
+
+    // 保存的最近跟踪数
+    private static final int MAX_RECENT = 100;
+
+    private final int sampleRate;
+
+    private final AtomicLong executions = new AtomicLong();
+
+    private final Deque<ExecutionTrace> recent = new ConcurrentLinkedDeque<>();
+
+    private final AtomicInteger recentSize = new AtomicInteger();
+
+    public TraceRecorder(DslProperties dslProperties) {
+        this.sampleRate = dslProperties.getTraceSampleRate();
+    }
+
+    // 本次执行是否抽样跟踪，采样率不大于0时不抽样
+    public boolean shouldSample() {
+        return sampleRate > 0 && executions.incrementAndGet() % sampleRate == 0;
+    }
+
+    // 保存执行结束的跟踪
+    public void publish(ExecutionTrace trace) {
+        recent.addFirst(trace);
+        if (recentSize.incrementAndGet() > MAX_RECENT && recent.pollLast() != null) {
+            recentSize.decrementAndGet();
+        }
+    }
+
+    // 最近的跟踪，最新的在前
+    public List<ExecutionTrace> getRecent() {
+        return new ArrayList<>(recent);
+    }
+}
@@ -1,13 +1,23 @@
 package com.example.service;
 
-import com.example.dsl.BusinessDslLexer;
-import com.example.dsl.BusinessDslParser;
-import com.example.dsl.parser.BusinessDslVisitorImpl;
+import com.example.dsl.ast.AstPrinter;
+import com.example.dsl.compiler.DslCompiler;
 import com.example.dsl.parser.DslParser;
+import com.example.dsl.runtime.BudgetExceededException;
+import com.example.dsl.runtime.CompiledScript;
+import com.example.dsl.runtime.DslBatchExecutor;
+import com.example.dsl.runtime.DslEngine;
+import com.example.dsl.runtime.DslScriptCache;
+import com.example.dsl.runtime.RuleSet;
+import com.example.dsl.runtime.columnar.ColumnBatch;
+import com.example.dsl.runtime.columnar.ColumnProgram;
+import com.example.dsl.runtime.profile.ProfileSession;
+import com.example.dsl.runtime.profile.ProfileStack;
+import com.example.dsl.runtime.profile.ScriptProfiler;
+import com.example.dsl.runtime.trace.ExecutionTrace;
+import com.example.dsl.runtime.trace.TraceRecorder;
 import com.example.model.DslScript;
 import lombok.extern.slf4j.Slf4j;
-import org.antlr.v4.runtime.CharStreams;
-import org.antlr.v4.runtime.CommonTokenStream;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -16,9 +26,12 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * DSL脚本服务
@@ -28,13 +41,37 @@ import java.util.stream.Collectors;
 @Service
 public class DSLScriptService {
     
-    @Value("${dsl.scripts.path:scripts}")
+    // 未单独配置时与脚本热加载使用同一目录
+    @Value("${dsl.scripts.path:${dsl.scripts-directory:scripts}}")
     private String scriptsPath;
     
     private final DslParser dslParser;
+
+    private final DslCompiler dslCompiler;
+
+    private final DslScriptCache scriptCache;
+
+    private final DslEngine dslEngine;
+
+    private final DslBatchExecutor batchExecutor;
+
+    private final TraceRecorder traceRecorder;
+
+    private final ScriptProfiler scriptProfiler;
+
+    // 参与规则集的脚本名称，保存或删除脚本时清空
+    private volatile List<String> ruleScriptNames;
     
-    public DSLScriptService(DslParser dslParser) {
+    public DSLScriptService(DslParser dslParser, DslCompiler dslCompiler, DslScriptCache scriptCache,
+                            DslEngine dslEngine, DslBatchExecutor batchExecutor, TraceRecorder traceRecorder,
+                            ScriptProfiler scriptProfiler) {
         this.dslParser = dslParser;
+        this.dslCompiler = dslCompiler;
+        this.scriptCache = scriptCache;
+        this.dslEngine = dslEngine;
+        this.batchExecutor = batchExecutor;
+        this.traceRecorder = traceRecorder;
+        this.scriptProfiler = scriptProfiler;
     }
     
     /**
@@ -87,6 +124,8 @@ public class DSLScriptService {
         
         Path scriptPath = scriptDir.resolve(scriptName);
         Files.write(scriptPath, content.getBytes(StandardCharsets.UTF_8));
+        scriptCache.invalidate(scriptName);
+        ruleScriptNames = null;
     }
     
     /**
@@ -97,52 +136,191 @@ public class DSLScriptService {
         if (Files.exists(scriptPath)) {
             Files.delete(scriptPath);
         }
+        scriptCache.invalidate(scriptName);
+        ruleScriptNames = null;
     }
     
     /**
      * 执行脚本
      */
     public Object executeScript(String scriptName, Map<String, Object> context) throws Exception {
-        String content = getScript(scriptName);
-        if (content == null) {
-            throw new IllegalArgumentException("脚本不存在: " + scriptName);
-        }
+        return executeScript(scriptName, context, null);
+    }
+
+    /**
+     * 执行脚本，trace不为null时用跟踪版本执行并记录到trace
+     * 未请求跟踪时按采样率抽样跟踪，跟踪结束后保存到最近跟踪记录
+     * 脚本正在剖析且本次不跟踪时用剖析版本执行
+     */
+    public Object executeScript(String scriptName, Map<String, Object> context, ExecutionTrace trace) throws Exception {
+        CompiledScript compiled = getCompiledScript(scriptName);
 
-        // 创建访问者
-        BusinessDslVisitorImpl visitor = new BusinessDslVisitorImpl(scriptName);
-        
-        // 设置执行模式标志
-        visitor.setVariable("__EXECUTE_MODE__", true);
-        
         // 根据脚本名称确定要执行的函数
-        if (scriptName.equals("pricing.dsl")) {
-            visitor.setVariable("__FUNCTION_TO_EXECUTE__", "calculatePrice");
-        } else if (scriptName.equals("discount.dsl")) {
-            visitor.setVariable("__FUNCTION_TO_EXECUTE__", "calculateDiscount");
-        } else if (scriptName.equals("logic.dsl")) {
-            visitor.setVariable("__FUNCTION_TO_EXECUTE__", "logicTest");
+        String functionName = resolveEntryFunction(scriptName);
+        if (functionName == null) {
+            throw new RuntimeException("未指定要执行的函数名");
         }
-        
-        // 设置上下文变量
-        if (context != null) {
-            context.forEach(visitor::setVariable);
+
+        if (trace == null && traceRecorder.shouldSample()) {
+            trace = new ExecutionTrace(scriptName, true);
+        }
+        if (trace == null) {
+            ProfileSession session = scriptProfiler.getActiveSession(scriptName);
+            if (session != null) {
+                ProfileStack stack = session.begin();
+                try {
+                    return wrapResult(dslEngine.execute(scriptCache.getProfiled(compiled), functionName, context,
+                            null, stack));
+                } finally {
+                    session.end(stack);
+                }
+            }
+            // 上下文变量按名称绑定到函数参数
+            return wrapResult(dslEngine.execute(compiled, functionName, context));
+        }
+        try {
+            return wrapResult(dslEngine.execute(scriptCache.getTraced(compiled), functionName, context, trace));
+        } finally {
+            traceRecorder.publish(trace);
         }
+    }
 
-        // 创建词法分析器
-        BusinessDslLexer lexer = new BusinessDslLexer(CharStreams.fromString(content));
-        CommonTokenStream tokens = new CommonTokenStream(lexer);
-        BusinessDslParser parser = new BusinessDslParser(tokens);
-        
-        // 获取解析树并执行
-        Object result = visitor.visit(parser.program());
-        
-        // 如果结果不是Map类型，将其包装成Map
+    /**
+     * 开启脚本的源码级剖析，之后该脚本的执行按行采样
+     */
+    public ProfileSession startProfiling(String scriptName, long durationSeconds) throws IOException {
+        // 先确认脚本存在并能编译，剖析版本在首次执行时编译
+        getCompiledScript(scriptName);
+        return scriptProfiler.start(scriptName, durationSeconds);
+    }
+
+    /**
+     * 结束脚本的剖析，返回剖析报告，没有剖析记录时返回null
+     */
+    public Map<String, Object> stopProfiling(String scriptName) {
+        ProfileSession session = scriptProfiler.stop(scriptName);
+        return session == null ? null : session.report();
+    }
+
+    /**
+     * 获取脚本最近一次剖析的报告，剖析进行中时为当前结果，没有剖析记录时返回null
+     */
+    public Map<String, Object> getProfile(String scriptName) {
+        ProfileSession session = scriptProfiler.getSession(scriptName);
+        return session == null ? null : session.report();
+    }
+
+    /**
+     * 获取剖析结果的折叠栈，weight为time（微秒）或alloc（字节），没有剖析记录时返回null
+     */
+    public String getCollapsedProfile(String scriptName, String weight) {
+        ProfileSession session = scriptProfiler.getSession(scriptName);
+        return session == null ? null : session.collapsed(weight);
+    }
+
+    /**
+     * 获取最近的执行跟踪
+     */
+    public List<ExecutionTrace> getRecentTraces() {
+        return traceRecorder.getRecent();
+    }
+
+    /**
+     * 批量执行脚本，脚本只编译一次，各上下文并行执行
+     * 返回结果与输入顺序一致，单条失败时该条记录错误信息
+     */
+    public List<Map<String, Object>> executeBatch(String scriptName, List<Map<String, Object>> contexts) throws Exception {
+        CompiledScript compiled = getCompiledScript(scriptName);
+        String functionName = resolveEntryFunction(scriptName);
+        if (functionName == null) {
+            throw new RuntimeException("未指定要执行的函数名");
+        }
+
+        List<Map<String, Object>> items = new ArrayList<>(contexts.size());
+        for (DslBatchExecutor.BatchItem item : batchExecutor.execute(compiled, functionName, contexts)) {
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("success", item.isSuccess());
+            if (item.isSuccess()) {
+                entry.put("data", wrapResult(item.getResult()));
+            } else {
+                entry.put("error", item.getError().getMessage());
+                if (item.getError() instanceof BudgetExceededException) {
+                    entry.put("code", BudgetExceededException.CODE);
+                }
+            }
+            items.add(entry);
+        }
+        return items;
+    }
+
+    /**
+     * 按列批量执行脚本的入口函数，参数按名称绑定到同名的列，返回结果列
+     * 入口函数只能含算术、比较和if/else，否则抛出IllegalArgumentException，调用方应改用executeBatch
+     */
+    public ColumnBatch executeColumnar(String scriptName, ColumnBatch columns) throws IOException {
+        CompiledScript compiled = getCompiledScript(scriptName);
+        String functionName = resolveEntryFunction(scriptName);
+        if (functionName == null) {
+            throw new RuntimeException("未指定要执行的函数名");
+        }
+        ColumnProgram program = scriptCache.getColumnar(compiled, functionName, columns);
+        return dslEngine.execute(compiled, program, columns);
+    }
+
+    /**
+     * 按规则集对同一个上下文（订单）执行所有已启用且有入口函数的脚本，
+     * 各脚本中相同的条件只求值一次。结果按脚本名称排列，单个脚本失败时该脚本记录错误信息
+     */
+    public Map<String, Object> executeRuleSet(Map<String, Object> context) throws IOException {
+        List<RuleSet.Rule> sources = new ArrayList<>();
+        for (String scriptName : getRuleScriptNames()) {
+            CompiledScript compiled = getCompiledScript(scriptName);
+            if (compiled.getScript().isEnabled()) {
+                sources.add(new RuleSet.Rule(compiled, resolveEntryFunction(scriptName)));
+            }
+        }
+        RuleSet ruleSet = scriptCache.getRuleSet(sources);
+
+        Map<String, Object> results = new LinkedHashMap<>();
+        for (RuleSet.Result item : dslEngine.execute(ruleSet, context)) {
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("success", item.isSuccess());
+            if (item.isSuccess()) {
+                entry.put("data", wrapResult(item.getResult()));
+            } else {
+                entry.put("error", item.getError().getMessage());
+                if (item.getError() instanceof BudgetExceededException) {
+                    entry.put("code", BudgetExceededException.CODE);
+                }
+            }
+            results.put(item.getName(), entry);
+        }
+        return results;
+    }
+
+    // 脚本目录中有入口函数的脚本，按名称排序
+    private List<String> getRuleScriptNames() throws IOException {
+        List<String> names = ruleScriptNames;
+        if (names == null) {
+            names = new ArrayList<>();
+            for (String scriptName : listScripts().keySet()) {
+                if (resolveEntryFunction(scriptName) != null) {
+                    names.add(scriptName);
+                }
+            }
+            Collections.sort(names);
+            ruleScriptNames = names;
+        }
+        return names;
+    }
+
+    // 如果结果不是Map类型，将其包装成Map
+    static Object wrapResult(Object result) {
         if (!(result instanceof Map)) {
             Map<String, Object> wrappedResult = new HashMap<>();
             wrappedResult.put("result", result);
             return wrappedResult;
         }
-        
         return result;
     }
 
@@ -150,40 +328,62 @@ public class DSLScriptService {
      * 加载脚本
      */
     public DslScript loadScript(String scriptName) throws Exception {
+        return getCompiledScript(scriptName).getScript();
+    }
+
+    /**
+     * 获取已编译脚本，缓存未命中时读取文件并编译
+     */
+    public CompiledScript getCompiledScript(String scriptName) throws IOException {
+        CompiledScript compiled = scriptCache.get(scriptName);
+        if (compiled != null) {
+            return compiled;
+        }
         String content = getScript(scriptName);
         if (content == null) {
             throw new IllegalArgumentException("脚本不存在: " + scriptName);
         }
-        
-        // 创建访问者（不设置执行模式，只解析脚本）
-        BusinessDslVisitorImpl visitor = new BusinessDslVisitorImpl(scriptName);
-        
-        // 创建词法分析器
-        BusinessDslLexer lexer = new BusinessDslLexer(CharStreams.fromString(content));
-        CommonTokenStream tokens = new CommonTokenStream(lexer);
-        BusinessDslParser parser = new BusinessDslParser(tokens);
-        
-        // 获取解析树并访问
-        Object result = visitor.visit(parser.program());
-        
-        if (result instanceof DslScript) {
-            DslScript script = (DslScript) result;
-            script.setContent(content);
-            return script;
+        return scriptCache.put(scriptName, content);
+    }
+
+    /**
+     * 获取脚本缓存统计信息
+     */
+    public Map<String, Object> getCacheStats() {
+        return scriptCache.getStats();
+    }
+
+    /**
+     * 获取脚本优化前后的AST（以源码形式输出），用于调试优化器
+     */
+    public Map<String, Object> getOptimizedForm(String scriptName) throws IOException {
+        CompiledScript compiled = getCompiledScript(scriptName);
+        Map<String, Object> form = new HashMap<>();
+        form.put("source", AstPrinter.print(dslCompiler.parse(compiled.getScript().getContent())));
+        form.put("optimized", AstPrinter.print(compiled.getProgram()));
+        form.put("passes", compiled.getOptions().isOptimizeOrDefault()
+                ? dslCompiler.getOptimizer().getPassNames() : Collections.emptyList());
+        return form;
+    }
+
+    // 根据脚本名称确定入口函数
+    String resolveEntryFunction(String scriptName) {
+        switch (scriptName) {
+            case "pricing.dsl":
+                return "calculatePrice";
+            case "discount.dsl":
+                return "calculateDiscount";
+            case "logic.dsl":
+                return "logicTest";
+            default:
+                return null;
         }
-        throw new RuntimeException("解析脚本失败: 返回类型不是DslScript");
     }
     
     /**
-     * 验证脚本语法
+     * 验证脚本语法，遇到第一个错误即返回，不做错误恢复
      */
     public boolean validateScript(String content) {
-        try {
-            dslParser.parse("validate.dsl", content);
-            return true;
-        } catch (Exception e) {
-            log.error("脚本语法错误", e);
-            return false;
-        }
+        return dslParser.validate(content);
     }
 }
@@ -0,0 +1,95 @@
+package com.example.service;
+
+import com.example.dsl.runtime.CompiledScript;
+import lombok.Getter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 流式执行任务
+ * 记录任务的输入来源和执行进度，计数器在执行线程中更新，状态查询可随时读取
+ */
+@Getter
+public class StreamingJob {
+
+    public enum State {
+        RUNNING, COMPLETED, FAILED, CANCELLED
+    }
+
+    private final String id;
+    private final String scriptName;
+    private final String functionName;
+    private final String source;
+    private final String output;
+    // 输入总字节数，未知时为-1
+    private final long totalBytes;
+    private final long startedAt = System.currentTimeMillis();
+
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong bytesRead = new AtomicLong();
+
+    private volatile State state = State.RUNNING;
+    private volatile long finishedAt;
+    private volatile String error;
+    private volatile boolean cancelRequested;
+
+    // 执行使用的脚本版本，任务开始时确定，执行中脚本被替换不影响本任务
+    private final CompiledScript script;
+
+    StreamingJob(String id, CompiledScript script, String functionName, String source, String output, long totalBytes) {
+        this.id = id;
+        this.scriptName = script.getName();
+        this.script = script;
+        this.functionName = functionName;
+        this.source = source;
+        this.output = output;
+        this.totalBytes = totalBytes;
+    }
+
+    /**
+     * 请求取消，执行线程在读取下一条记录前停止
+     */
+    public void cancel() {
+        cancelRequested = true;
+    }
+
+    public boolean isFinished() {
+        return state != State.RUNNING;
+    }
+
+    void finish(State finalState, String message) {
+        this.error = message;
+        this.finishedAt = System.currentTimeMillis();
+        this.state = finalState;
+    }
+
+    /**
+     * 任务状态快照
+     */
+    public Map<String, Object> toStatus() {
+        long end = finishedAt > 0 ? finishedAt : System.currentTimeMillis();
+        long elapsed = Math.max(1, end - startedAt);
+        long done = processed.get();
+
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("id", id);
+        status.put("scriptName", scriptName);
+        status.put("source", source);
+        status.put("output", output);
+        status.put("state", state);
+        status.put("processed", done);
+        status.put("failed", failed.get());
+        status.put("bytesRead", bytesRead.get());
+        status.put("totalBytes", totalBytes);
+        status.put("progress", totalBytes > 0 ? Math.min(1.0, (double) bytesRead.get() / totalBytes) : null);
+        status.put("startedAt", startedAt);
+        status.put("finishedAt", finishedAt > 0 ? finishedAt : null);
+        status.put("elapsedMillis", elapsed);
+        status.put("recordsPerSecond", done * 1000.0 / elapsed);
+        status.put("error", error);
+        return status;
+    }
+}
@@ -0,0 +1,376 @@
+package com.example.service;
+
+import com.example.config.DslProperties;
+import com.example.dsl.runtime.BudgetExceededException;
+import com.example.dsl.runtime.CompiledScript;
+import com.example.dsl.runtime.DslBatchExecutor;
+import com.example.dsl.runtime.DslEngine;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 流式执行服务
+ * 逐行读取NDJSON输入，每读满一批交给批量执行器并行执行，按输入顺序写出一行结果后再读下一批。
+ * 读取由写出驱动，输出端消费慢时读取随之暂停，内存中最多只有一批记录，输入可以大于堆内存。
+ * 单行不超过dsl.stream-max-line-bytes字节，超出的行跳过，结果中报告该行失败。
+ */
+@Slf4j
+@Service
+public class StreamingJobService {
+
+    private static final TypeReference<Map<String, Object>> CONTEXT_TYPE = new TypeReference<Map<String, Object>>() {
+    };
+
+    // 保留的已结束任务数，超出后移除最早结束的任务
+    private static final int MAX_FINISHED_JOBS = 100;
+
+    private final DSLScriptService scriptService;
+
+    private final DslEngine dslEngine;
+
+    private final DslBatchExecutor batchExecutor;
+
+    private final DslProperties dslProperties;
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, StreamingJob> jobs = new ConcurrentHashMap<>();
+
+    // 文件任务的执行线程，每个任务占用一个线程，记录的执行在批量执行器的线程池中
+    private final ExecutorService jobExecutor;
+
+    public StreamingJobService(DSLScriptService scriptService, DslEngine dslEngine, DslBatchExecutor batchExecutor,
+                               DslProperties dslProperties, ObjectMapper objectMapper) {
+        this.scriptService = scriptService;
+        this.dslEngine = dslEngine;
+        this.batchExecutor = batchExecutor;
+        this.dslProperties = dslProperties;
+        this.objectMapper = objectMapper;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.jobExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "dsl-stream-job-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobs.values().forEach(StreamingJob::cancel);
+        jobExecutor.shutdown();
+    }
+
+    /**
+     * 创建任务，脚本在此时编译，脚本不存在或没有入口函数时直接失败
+     */
+    public StreamingJob createJob(String scriptName, String source, String output, long totalBytes) throws IOException {
+        CompiledScript compiled = scriptService.getCompiledScript(scriptName);
+        String functionName = scriptService.resolveEntryFunction(scriptName);
+        if (functionName == null) {
+            throw new IllegalArgumentException("未指定要执行的函数名: " + scriptName);
+        }
+        return createJob(compiled, functionName, source, output, totalBytes);
+    }
+
+    public StreamingJob createJob(CompiledScript script, String functionName, String source, String output,
+                                  long totalBytes) {
+        StreamingJob job = new StreamingJob(UUID.randomUUID().toString(), script, functionName, source, output, totalBytes);
+        jobs.put(job.getId(), job);
+        return job;
+    }
+
+    /**
+     * 启动文件任务，输入输出路径相对于任务目录，在后台线程中执行
+     */
+    public StreamingJob startFileJob(String scriptName, String inputPath, String outputPath) throws IOException {
+        if (inputPath == null || inputPath.isEmpty()) {
+            throw new IllegalArgumentException("输入文件不能为空");
+        }
+        Path input = resolveJobPath(inputPath);
+        if (!Files.isRegularFile(input)) {
+            throw new IllegalArgumentException("输入文件不存在: " + inputPath);
+        }
+        Path output = resolveJobPath(outputPath != null && !outputPath.isEmpty() ? outputPath : inputPath + ".out");
+        if (output.equals(input)) {
+            throw new IllegalArgumentException("输出文件不能与输入文件相同: " + outputPath);
+        }
+
+        StreamingJob job = createJob(scriptName, input.toString(), output.toString(), Files.size(input));
+        jobExecutor.execute(() -> {
+            try (InputStream in = Files.newInputStream(input);
+                 OutputStream out = Files.newOutputStream(output)) {
+                run(job, in, out);
+            } catch (Exception e) {
+                // run中已记录失败状态，这里只处理打开文件的失败
+                if (!job.isFinished()) {
+                    finish(job, StreamingJob.State.FAILED, e.getMessage());
+                }
+            }
+        });
+        log.info("启动流式任务: {}, 脚本: {}, 输入: {}", job.getId(), scriptName, input);
+        return job;
+    }
+
+    // 任务路径不允许超出任务目录
+    private Path resolveJobPath(String path) throws IOException {
+        Path base = Paths.get(dslProperties.getJobsDirectory()).toAbsolutePath().normalize();
+        Path resolved = base.resolve(path).normalize();
+        if (!resolved.startsWith(base)) {
+            throw new IllegalArgumentException("路径超出任务目录: " + path);
+        }
+        Files.createDirectories(resolved.getParent());
+        return resolved;
+    }
+
+    /**
+     * 执行任务，从in逐行读取上下文，向out逐行写出结果，直到输入结束或任务被取消
+     * 每行结果为{"line":行号,"success":是否成功,"data"或"error"}，空行跳过；单条记录失败不影响其他记录
+     * 行以\n或\r\n结束
+     */
+    public void run(StreamingJob job, InputStream in, OutputStream out) throws IOException {
+        int chunkSize = Math.max(1, dslProperties.getStreamChunkSize());
+        int maxLineBytes = Math.max(1, dslProperties.getStreamMaxLineBytes());
+        try {
+            LineReader reader = new LineReader(new CountingInputStream(in, job.getBytesRead()), maxLineBytes);
+            OutputStream writer = new BufferedOutputStream(out);
+            List<Record> chunk = new ArrayList<>(chunkSize);
+            long lineNumber = 0;
+            while (!job.isCancelRequested() && reader.next()) {
+                lineNumber++;
+                if (reader.isOversized()) {
+                    chunk.add(new Record(lineNumber, null, "输入行超过" + maxLineBytes + "字节"));
+                } else {
+                    String line = reader.text();
+                    if (line.trim().isEmpty()) {
+                        continue;
+                    }
+                    chunk.add(new Record(lineNumber, line, null));
+                }
+                if (chunk.size() >= chunkSize) {
+                    executeChunk(job, chunk, writer);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty() && !job.isCancelRequested()) {
+                executeChunk(job, chunk, writer);
+            }
+            writer.flush();
+        } catch (IOException | RuntimeException e) {
+            log.error("流式任务执行失败: {}", job.getId(), e);
+            finish(job, StreamingJob.State.FAILED, e.getMessage());
+            throw e;
+        }
+        finish(job, job.isCancelRequested() ? StreamingJob.State.CANCELLED : StreamingJob.State.COMPLETED, null);
+        log.info("流式任务结束: {}, 状态: {}, 处理: {}, 失败: {}",
+                job.getId(), job.getState(), job.getProcessed().get(), job.getFailed().get());
+    }
+
+    private void executeChunk(StreamingJob job, List<Record> chunk, OutputStream writer) throws IOException {
+        List<DslBatchExecutor.BatchItem> items = batchExecutor.execute(chunk,
+                record -> {
+                    if (record.error != null) {
+                        throw new IllegalArgumentException(record.error);
+                    }
+                    return dslEngine.execute(job.getScript(), job.getFunctionName(), parseContext(record.text));
+                });
+        for (int i = 0; i < items.size(); i++) {
+            DslBatchExecutor.BatchItem item = items.get(i);
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("line", chunk.get(i).lineNumber);
+            entry.put("success", item.isSuccess());
+            if (item.isSuccess()) {
+                entry.put("data", DSLScriptService.wrapResult(item.getResult()));
+            } else {
+                entry.put("error", item.getError().getMessage());
+                if (item.getError() instanceof BudgetExceededException) {
+                    entry.put("code", BudgetExceededException.CODE);
+                }
+                job.getFailed().incrementAndGet();
+            }
+            writer.write(objectMapper.writeValueAsBytes(entry));
+            writer.write('\n');
+        }
+        // 每批写完后刷新，客户端可以边执行边接收结果
+        writer.flush();
+        job.getProcessed().addAndGet(items.size());
+    }
+
+    private Map<String, Object> parseContext(String line) {
+        try {
+            return objectMapper.readValue(line, CONTEXT_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("JSON格式错误: " + e.getOriginalMessage());
+        }
+    }
+
+    private void finish(StreamingJob job, StreamingJob.State state, String error) {
+        job.finish(state, error);
+        List<StreamingJob> finished = jobs.values().stream()
+                .filter(StreamingJob::isFinished)
+                .sorted(Comparator.comparingLong(StreamingJob::getFinishedAt))
+                .collect(Collectors.toList());
+        for (int i = 0; i < finished.size() - MAX_FINISHED_JOBS; i++) {
+            jobs.remove(finished.get(i).getId());
+        }
+    }
+
+    public StreamingJob getJob(String id) {
+        return jobs.get(id);
+    }
+
+    /**
+     * 所有任务的状态，按开始时间倒序
+     */
+    public List<Map<String, Object>> listJobs() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparingLong(StreamingJob::getStartedAt).reversed())
+                .map(StreamingJob::toStatus)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 一行输入记录，读取失败时text为null，error为失败原因
+     */
+    private static final class Record {
+        private final long lineNumber;
+        private final String text;
+        private final String error;
+
+        Record(long lineNumber, String text, String error) {
+            this.lineNumber = lineNumber;
+            this.text = text;
+            this.error = error;
+        }
+    }
+
+    /**
+     * 按字节逐行读取，单行最多保留maxBytes字节，超出时丢弃该行已读的内容并跳过其余部分
+     * 避免没有换行符或过长的输入把整行读入内存
+     */
+    private static final class LineReader {
+        private final InputStream in;
+        private final int maxBytes;
+        private final byte[] buffer = new byte[8192];
+        private int position;
+        private int limit;
+
+        private byte[] line = new byte[256];
+        private int length;
+        private boolean oversized;
+
+        LineReader(InputStream in, int maxBytes) {
+            this.in = in;
+            this.maxBytes = maxBytes;
+        }
+
+        // 读取下一行，输入已结束时返回false
+        boolean next() throws IOException {
+            length = 0;
+            oversized = false;
+            boolean read = false;
+            while (true) {
+                if (position == limit) {
+                    int n = in.read(buffer);
+                    if (n < 0) {
+                        return read;
+                    }
+                    position = 0;
+                    limit = n;
+                }
+                read = true;
+                int start = position;
+                while (position < limit && buffer[position] != '\n') {
+                    position++;
+                }
+                append(start, position - start);
+                if (position < limit) {
+                    // 跳过换行符
+                    position++;
+                    return true;
+                }
+            }
+        }
+
+        private void append(int start, int count) {
+            if (oversized || count == 0) {
+                return;
+            }
+            if (length + count > maxBytes) {
+                oversized = true;
+                length = 0;
+                return;
+            }
+            if (length + count > line.length) {
+                line = Arrays.copyOf(line, Math.min(maxBytes, Math.max(line.length * 2, length + count)));
+            }
+            System.arraycopy(buffer, start, line, length, count);
+            length += count;
+        }
+
+        boolean isOversized() {
+            return oversized;
+        }
+
+        String text() {
+            int end = length > 0 && line[length - 1] == '\r' ? length - 1 : length;
+            return new String(line, 0, end, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * 统计已读取字节数，用于计算任务进度
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        private final AtomicLong counter;
+
+        CountingInputStream(InputStream in, AtomicLong counter) {
+            super(in);
+            this.counter = counter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                counter.incrementAndGet();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                counter.addAndGet(n);
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.dsl;
+
+import com.example.config.DslProperties;
+import com.example.dsl.ast.AstPrinter;
+import com.example.dsl.compiler.DslCompiler;
+import com.example.dsl.optimizer.AstOptimizer;
+import com.example.dsl.parser.DslParser;
+import com.example.dsl.runtime.CompiledScript;
+import com.example.dsl.runtime.DslEngine;
+import com.example.dsl.runtime.ScriptOptions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AstOptimizerTest {
+    private final DslEngine engine = new DslEngine();
+
+    private DslCompiler compiler(boolean optimize) {
+        DslProperties properties = new DslProperties();
+        properties.getDefaults().setOptimize(optimize);
+        return new DslCompiler(new DslParser(), properties, AstOptimizer.defaultOptimizer());
+    }
+
+    private String optimized(String dsl) {
+        return AstPrinter.print(compiler(true).compile("test.dsl", dsl, "test").getProgram());
+    }
+
+    // 优化前后执行结果一致
+    private Object runBoth(String dsl, String function, Map<String, Object> variables) {
+        Object expected = engine.execute(compiler(false).compile("test.dsl", dsl, "test"), function, variables);
+        Object actual = engine.execute(compiler(true).compile("test.dsl", dsl, "test"), function, variables);
+        assertEquals(expected, actual);
+        return actual;
+    }
+
+    @Test
+    public void testConstantFoldingAndDeadBranches() {
+        String dsl = "function f() {\n"
+                + "  var x = (1 + 2) * 3;\n"
+                + "  if (!true) { x = 0; } else if (1 < 2) { x = x + 1; }\n"
+                + "  for (i in []) { x = 0; }\n"
+                + "  return [x, \"a\" + 1, [1, 2][1]];\n"
+                + "  x = 5;\n"
+                + "}";
+        String optimized = optimized(dsl);
+        assertTrue(optimized.contains("var x = 9.0;"), optimized);
+        assertFalse(optimized.contains("if"), optimized);
+        assertFalse(optimized.contains("for"), optimized);
+        assertFalse(optimized.contains("x = 5.0"), optimized);
+        // 只被下标读取的常量数组折叠，返回的数组每次执行重新创建
+        assertTrue(optimized.contains("return [x, \"a1.0\", 2.0];"), optimized);
+        assertEquals(Arrays.asList(10.0, "a1.0", 2.0), runBoth(dsl, "f", new HashMap<>()));
+    }
+
+    @Test
+    public void testCommonSubexpressions() {
+        String dsl = "function f(p) {\n"
+                + "  var a = (p[\"price\"]) * (p[\"rate\"]);\n"
+                + "  var b = ((p[\"price\"]) * (p[\"rate\"])) + 1;\n"
+                + "  p = {\"price\": 1, \"rate\": 1};\n"
+                + "  return [a, b, (p[\"price\"]) * (p[\"rate\"])];\n"
+                + "}";
+        String optimized = optimized(dsl);
+        assertTrue(optimized.contains("cache $cse1;"), optimized);
+        // 赋值之后的表达式不能复用之前的结果
+        assertTrue(optimized.contains("return [a, b, ((p[\"price\"]) * (p[\"rate\"]))];"), optimized);
+
+        Map<String, Object> product = new HashMap<>();
+        product.put("price", 10.0);
+        product.put("rate", 0.5);
+        assertEquals(Arrays.asList(5.0, 6.0, 1.0), runBoth(dsl, "f", Collections.singletonMap("p", product)));
+    }
+
+    @Test
+    public void testLoopInvariantHoisting() {
+        String dsl = "function f(items, p) {\n"
+                + "  var total = 0;\n"
+                + "  for (i in items) { total = total + (current * (p.rate)); var t = p.tax; total = total + (t * i); }\n"
+                + "  return total;\n"
+                + "}";
+        String optimized = optimized(dsl);
+        assertTrue(optimized.contains("cache $loop1;"), optimized);
+        assertTrue(optimized.contains("$loop1{p.rate}"), optimized);
+
+        Map<String, Object> p = new HashMap<>();
+        p.put("rate", 2.0);
+        p.put("tax", 1.0);
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("items", Arrays.asList(1.0, 2.0, 3.0));
+        variables.put("p", p);
+        assertEquals(15.0, runBoth(dsl, "f", variables));
+
+        // 缓存的表达式在首次执行时才求值，循环不执行时不会访问null的成员
+        variables.put("items", Collections.emptyList());
+        variables.put("p", null);
+        assertEquals(0.0, runBoth(dsl, "f", variables));
+    }
+
+    @Test
+    public void testScriptsUnchanged() throws Exception {
+        String logic = new String(Files.readAllBytes(Paths.get("scripts/logic.dsl")));
+        runBoth(logic, "logicTest", new HashMap<>());
+
+        String discount = new String(Files.readAllBytes(Paths.get("scripts/discount.dsl")));
+        Map<String, Object> context = new HashMap<>();
+        context.put("productId", "PROD001");
+        context.put("price", 100.0);
+        context.put("userId", "VIP123");
+        assertEquals(80.0, runBoth(discount, "calculateDiscount", context));
+    }
+
+    @Test
+    public void testOptimizationCanBeDisabled() {
+        DslProperties properties = new DslProperties();
+        ScriptOptions options = new ScriptOptions();
+        options.setOptimize(false);
+        properties.getScriptOptions().put("test.dsl", options);
+        CompiledScript script = new DslCompiler(new DslParser(), properties, AstOptimizer.defaultOptimizer())
+                .compile("test.dsl", "function f() { return 1 + 2; }", "test");
+        assertTrue(AstPrinter.print(script.getProgram()).contains("(1.0 + 2.0)"));
+    }
+}
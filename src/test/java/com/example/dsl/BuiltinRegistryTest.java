@@ -0,0 +1,123 @@
+package com.example.dsl;
+
+import com.example.dsl.compiler.DslCompiler;
+import com.example.dsl.runtime.CompiledScript;
+import com.example.dsl.runtime.DslEngine;
+import com.example.dsl.runtime.ExecutionBackend;
+import com.example.dsl.runtime.builtin.Builtin;
+import com.example.dsl.runtime.builtin.BuiltinRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.dsl.TestCompilers.vars;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BuiltinRegistryTest {
+
+    private static final String SCRIPT = ""
+            + "function zero() { return join(); }\n"
+            + "function one(a) { return join(a); }\n"
+            + "function two(a, b) { return join(a, b); }\n"
+            + "function three(a, b, c) { return join(a, b, c); }\n"
+            + "function four(a, b, c, d) { return join(a, b, c, d); }\n"
+            + "function total(a, b) { return sum(a, b, 1) + sum(a, b, 1, 1) + length(\"abc\"); }\n"
+            + "function vip(u) { return checkVipStatus(u); }\n"
+            + "function checkSeason(s) { return \"shadowed\"; }\n"
+            + "function season(s) { return checkSeason(s); }\n"
+            + "function missing(a) { return undefinedFunction(a); }\n"
+            + "function fixed(a, b, c) { return pad(a, b, c); }\n";
+
+    private final AtomicInteger arrayCalls = new AtomicInteger();
+
+    // 0到3个参数分别实现，超过3个参数时使用可变参数实现
+    private Builtin join() {
+        return Builtin.builder("join")
+                .pure()
+                .arity0(() -> "")
+                .arity1(a -> String.valueOf(a))
+                .arity2((a, b) -> a + "," + b)
+                .arity3((a, b, c) -> a + "," + b + "," + c)
+                .varargs(args -> {
+                    arrayCalls.incrementAndGet();
+                    StringBuilder sb = new StringBuilder();
+                    for (Object arg : args) {
+                        sb.append(sb.length() > 0 ? "," : "").append(arg);
+                    }
+                    return sb.toString();
+                })
+                .build();
+    }
+
+    // 只有两个参数的实现，其他参数个数补null或截断
+    private Builtin pad() {
+        return Builtin.builder("pad").arity2((a, b) -> a + "|" + b).build();
+    }
+
+    private DslCompiler compiler(BuiltinRegistry registry, ExecutionBackend backend) {
+        return TestCompilers.compiler(TestCompilers.options(backend), registry);
+    }
+
+    @Test
+    public void testArityDispatch() {
+        BuiltinRegistry registry = new BuiltinRegistry(Arrays.asList(join(), pad()));
+        for (ExecutionBackend backend : ExecutionBackend.values()) {
+            arrayCalls.set(0);
+            CompiledScript script = compiler(registry, backend).compile("builtin.dsl", SCRIPT, "builtin");
+            DslEngine engine = new DslEngine();
+            assertEquals("", engine.execute(script, "zero", vars()), backend.name());
+            assertEquals("x", engine.execute(script, "one", vars("a", "x")), backend.name());
+            assertEquals("x,y", engine.execute(script, "two", vars("a", "x", "b", "y")), backend.name());
+            assertEquals("x,y,z", engine.execute(script, "three", vars("a", "x", "b", "y", "c", "z")));
+            assertEquals(0, arrayCalls.get(), backend.name());
+
+            assertEquals("w,x,y,z", engine.execute(script, "four",
+                    vars("a", "w", "b", "x", "c", "y", "d", "z")), backend.name());
+            assertEquals(1, arrayCalls.get(), backend.name());
+
+            assertEquals("x|y", engine.execute(script, "fixed", vars("a", "x", "b", "y", "c", "z")));
+        }
+    }
+
+    @Test
+    public void testCoreBuiltins() {
+        for (ExecutionBackend backend : ExecutionBackend.values()) {
+            CompiledScript script = compiler(BuiltinRegistry.standard(), backend).compile("builtin.dsl", SCRIPT, "builtin");
+            DslEngine engine = new DslEngine();
+            assertEquals(16.0, ((Number) engine.execute(script, "total", vars("a", 2.0, "b", 3.0))).doubleValue(),
+                    backend.name());
+            assertEquals(true, engine.execute(script, "vip", vars("u", "USER001")), backend.name());
+            // 业务函数遮蔽同名的脚本函数
+            assertEquals(true, engine.execute(script, "season", vars("s", "summer")), backend.name());
+            assertNull(engine.execute(script, "missing", vars("a", 1.0)), backend.name());
+        }
+    }
+
+    @Test
+    public void testFallbackToWidestArity() {
+        Builtin pad = pad();
+        assertEquals("null|null", pad.getTarget0().call());
+        assertEquals("a|null", pad.getTarget1().call("a"));
+        assertEquals("a|b", pad.invoke(new Object[]{"a", "b", "c", "d"}));
+        assertThrows(IllegalArgumentException.class, () -> Builtin.builder("empty").build());
+    }
+
+    @Test
+    public void testRejectsDuplicates() {
+        Builtin print = Builtin.builder("print").arity1(a -> a).build();
+        assertThrows(IllegalStateException.class, () -> new BuiltinRegistry(Collections.singletonList(print)));
+        List<Builtin> twice = Arrays.asList(join(), join());
+        assertThrows(IllegalStateException.class, () -> new BuiltinRegistry(twice));
+    }
+
+    @Test
+    public void testPureExtensionsAllowMemoization() {
+        BuiltinRegistry registry = new BuiltinRegistry(Collections.singletonList(join()));
+        CompiledScript script = compiler(registry, ExecutionBackend.INTERPRETER).compile("builtin.dsl", SCRIPT, "builtin");
+        assertTrue(script.getMemoCache().getFunctions().contains("two"));
+        assertFalse(script.getMemoCache().getFunctions().contains("vip"));
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.dsl;
+
+import com.example.dsl.compiler.DslCompiler;
+import com.example.dsl.runtime.CompiledScript;
+import com.example.dsl.runtime.DslEngine;
+import com.example.dsl.runtime.DslScriptCache;
+import com.example.dsl.runtime.ExecutionBackend;
+import com.example.dsl.runtime.NumericMode;
+import com.example.dsl.runtime.ScriptOptions;
+import com.example.dsl.runtime.columnar.ColumnBatch;
+import com.example.dsl.runtime.columnar.ColumnProgram;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColumnarTest {
+
+    // 行数跨越多个数据块，最后一块不满
+    private static final int ROWS = 3000;
+
+    private static final String PRICING = ""
+            + "function reprice(basePrice, stock, rate) {\n"
+            + "    var price = basePrice * rate;\n"
+            + "    if ((stock < 10) && !(rate == 0)) {\n"
+            + "        price = price * 1.1;\n"
+            + "    } else if (stock > 100) {\n"
+            + "        price = price * 0.9;\n"
+            + "        if (price > 500) { return price - 50; }\n"
+            + "    }\n"
+            + "    if (stock == 5) { return -1; }\n"
+            + "    if (basePrice % 7) { price = price + 1; }\n"
+            + "    var bonus = 0;\n"
+            + "    if (price >= 1000) { bonus = 5; var extra = price / 100; price = price - extra; }\n"
+            + "    return price - bonus;\n"
+            + "}\n";
+
+    private static final String ELIGIBLE = ""
+            + "function eligible(amount, count) {\n"
+            + "    if (count == amount) { return true; }\n"
+            + "    return (amount > 100) || ((count >= 3) && !(amount < 0));\n"
+            + "}\n";
+
+    private DslCompiler compiler(ExecutionBackend backend, NumericMode numeric) {
+        ScriptOptions options = TestCompilers.options(backend);
+        options.setNumeric(numeric);
+        return TestCompilers.compiler(options);
+    }
+
+    private DslCompiler compiler(ExecutionBackend backend) {
+        return compiler(backend, NumericMode.DOUBLE);
+    }
+
+    // 含NaN、0.0、-0.0和7的倍数
+    private static double[] prices(Random random) {
+        double[] values = new double[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            switch (random.nextInt(10)) {
+                case 0: values[i] = Double.NaN; break;
+                case 1: values[i] = -0.0; break;
+                case 2: values[i] = 0.0; break;
+                case 3: values[i] = 7 * random.nextInt(300); break;
+                default: values[i] = random.nextDouble() * 2000 - 100; break;
+            }
+        }
+        return values;
+    }
+
+    private static int[] stocks(Random random) {
+        int[] values = new int[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            values[i] = random.nextInt(4) == 0 ? 5 : random.nextInt(200) - 20;
+        }
+        return values;
+    }
+
+    private static double[] rates(Random random) {
+        double[] choices = {0, -0.0, 1, 1.2, 0.5};
+        double[] values = new double[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            values[i] = choices[random.nextInt(choices.length)];
+        }
+        return values;
+    }
+
+    private static Map<String, Object> row(ColumnBatch batch, int index) {
+        Map<String, Object> context = new HashMap<>();
+        batch.getColumns().forEach((name, values) -> context.put(name, values instanceof int[]
+                ? (Object) ((int[]) values)[index] : (Object) ((double[]) values)[index]));
+        return context;
+    }
+
+    // 逐行执行的结果与列式结果逐行比较，数值按位比较
+    private void assertMatchesRows(DslCompiler compiler, String name, String source, String function,
+                                   ColumnBatch batch) {
+        CompiledScript compiled = compiler.compile(name, source, name);
+        ColumnProgram program = compiler.compileColumnar(compiled, function, batch.getIntColumns());
+        ColumnBatch result = new DslEngine().execute(compiled, program, batch);
+        assertEquals(ROWS, result.getRows());
+
+        DslEngine engine = new DslEngine();
+        for (int i = 0; i < ROWS; i++) {
+            Object expected = engine.execute(compiled, function, row(batch, i));
+            if (program.isBooleanResult()) {
+                assertEquals(expected, result.getBooleans(ColumnProgram.RESULT)[i], "第" + i + "行");
+            } else {
+                assertEquals(((Number) expected).doubleValue(), result.getDoubles(ColumnProgram.RESULT)[i],
+                        "第" + i + "行: " + row(batch, i));
+            }
+        }
+    }
+
+    @Test
+    public void testMatchesRowExecution() {
+        Random random = new Random(42);
+        ColumnBatch ints = new ColumnBatch(ROWS)
+                .put("basePrice", prices(random)).put("stock", stocks(random)).put("rate", rates(random));
+        // stock为double列时 stock == 5 可以成立
+        double[] doubleStocks = Arrays.stream(stocks(random)).asDoubleStream().toArray();
+        doubleStocks[17] = Double.NaN;
+        ColumnBatch doubles = new ColumnBatch(ROWS)
+                .put("basePrice", prices(random)).put("stock", doubleStocks).put("rate", rates(random));
+
+        for (ExecutionBackend backend : ExecutionBackend.values()) {
+            DslCompiler compiler = compiler(backend);
+            assertMatchesRows(compiler, "pricing.dsl", PRICING, "reprice", ints);
+            assertMatchesRows(compiler, "pricing.dsl", PRICING, "reprice", doubles);
+        }
+    }
+
+    @Test
+    public void testBooleanResult() {
+        Random random = new Random(7);
+        int[] counts = new int[ROWS];
+        double[] amounts = prices(random);
+        for (int i = 0; i < ROWS; i++) {
+            counts[i] = random.nextInt(6);
+            // 数值相等的行：int列与double列比较仍不相等
+            if (i % 50 == 0) {
+                amounts[i] = counts[i];
+            }
+        }
+        ColumnBatch mixed = new ColumnBatch(ROWS).put("amount", amounts).put("count", counts);
+        ColumnBatch doubles = new ColumnBatch(ROWS).put("amount", amounts)
+                .put("count", Arrays.stream(counts).asDoubleStream().toArray());
+
+        for (ExecutionBackend backend : ExecutionBackend.values()) {
+            DslCompiler compiler = compiler(backend);
+            assertMatchesRows(compiler, "eligible.dsl", ELIGIBLE, "eligible", mixed);
+            assertMatchesRows(compiler, "eligible.dsl", ELIGIBLE, "eligible", doubles);
+        }
+    }
+
+    @Test
+    public void testUnsupportedScripts() {
+        DslCompiler compiler = compiler(ExecutionBackend.INTERPRETER);
+        List<String> sources = Arrays.asList(
+                "function f(a, n) { return max(a, 1); }",
+                "function f(a, n) { return a[\"x\"]; }",
+                "var g = 1;\nfunction f(a, n) { return a + g; }",
+                "function f(a, n) { return a + \"x\"; }",
+                "function f(a, n) { if (a > 1) { return a; } }",
+                "function f(a, n) { var x = a; if (a > 1) { x = n; } return x; }",
+                "function f(a, n) { return (a > 1) + 1; }");
+        for (String source : sources) {
+            CompiledScript compiled = compiler.compile("f.dsl", source, source);
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                    () -> compiler.compileColumnar(compiled, "f", Collections.singleton("n")), source);
+            assertTrue(e.getMessage().startsWith("不支持列式执行"), e.getMessage());
+        }
+
+        DslCompiler decimal = compiler(ExecutionBackend.INTERPRETER, NumericMode.DECIMAL);
+        CompiledScript compiled = decimal.compile("pricing.dsl", PRICING, "pricing");
+        assertThrows(IllegalArgumentException.class,
+                () -> decimal.compileColumnar(compiled, "reprice", Collections.emptySet()));
+        assertThrows(IllegalArgumentException.class,
+                () -> compiler.compileColumnar(compiler.compile("pricing.dsl", PRICING, "pricing"), "missing",
+                        Collections.emptySet()));
+    }
+
+    @Test
+    public void testColumnsMustMatchProgram() {
+        DslCompiler compiler = compiler(ExecutionBackend.INTERPRETER);
+        CompiledScript compiled = compiler.compile("pricing.dsl", PRICING, "pricing");
+        ColumnProgram program = compiler.compileColumnar(compiled, "reprice", Collections.singleton("stock"));
+
+        ColumnBatch doubles = new ColumnBatch(2).put("basePrice", new double[]{1, 2})
+                .put("stock", new double[]{1, 2}).put("rate", new double[]{1, 1});
+        assertThrows(IllegalArgumentException.class, () -> program.execute(doubles));
+        ColumnBatch missing = new ColumnBatch(2).put("basePrice", new double[]{1, 2}).put("stock", new int[]{1, 2});
+        assertThrows(IllegalArgumentException.class, () -> program.execute(missing));
+        assertThrows(IllegalArgumentException.class, () -> new ColumnBatch(2).put("rate", new double[3]));
+
+        ColumnBatch empty = new ColumnBatch(0).put("basePrice", new double[0])
+                .put("stock", new int[0]).put("rate", new double[0]);
+        assertEquals(0, program.execute(empty).getDoubles(ColumnProgram.RESULT).length);
+    }
+
+    @Test
+    public void testFromListsAndCache() {
+        Map<String, List<?>> lists = new LinkedHashMap<>();
+        lists.put("basePrice", Arrays.asList(100, 2000.5, 30));
+        lists.put("stock", Arrays.asList(5, 150, 3));
+        lists.put("rate", Arrays.asList(1, 1, 1));
+        ColumnBatch batch = ColumnBatch.fromLists(lists);
+        assertArrayEquals(new double[]{100, 2000.5, 30}, batch.getDoubles("basePrice"));
+        assertArrayEquals(new int[]{5, 150, 3}, batch.getInts("stock"));
+
+        DslCompiler compiler = compiler(ExecutionBackend.INTERPRETER);
+        DslScriptCache cache = new DslScriptCache(compiler);
+        CompiledScript compiled = cache.put("pricing.dsl", PRICING);
+        ColumnProgram program = cache.getColumnar(compiled, "reprice", batch);
+        assertSame(program, cache.getColumnar(compiled, "reprice", batch));
+        assertEquals(batch.getIntColumns(), program.getIntParameters());
+
+        ColumnBatch result = new DslEngine().execute(compiled, program, batch);
+        // stock为整数列，与常量5不相等；basePrice只参与算术运算，其中的整数与逐行执行结果相同
+        DslEngine engine = new DslEngine();
+        for (int i = 0; i < 3; i++) {
+            int index = i;
+            Map<String, Object> context = new HashMap<>();
+            lists.forEach((name, values) -> context.put(name, values.get(index)));
+            assertEquals(((Number) engine.execute(compiled, "reprice", context)).doubleValue(),
+                    result.getDoubles(ColumnProgram.RESULT)[i]);
+        }
+
+        // 内容变化后重新编译
+        CompiledScript changed = cache.put("pricing.dsl", PRICING + "\n");
+        assertNotSame(program, cache.getColumnar(changed, "reprice", batch));
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.dsl;
+
+import com.example.config.DslProperties;
+import com.example.dsl.compiler.DslCompiler;
+import com.example.dsl.optimizer.AstOptimizer;
+import com.example.dsl.parser.DslParser;
+import com.example.dsl.runtime.CompiledScript;
+import com.example.dsl.runtime.DslBatchExecutor;
+import com.example.dsl.runtime.DslEngine;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DslBatchExecutorTest {
+
+    @Test
+    public void testResultsInInputOrderWithPerItemErrors() {
+        DslBatchExecutor executor = new DslBatchExecutor(new DslEngine(), new DslProperties());
+        CompiledScript script = new DslCompiler(new DslParser(), new DslProperties(), AstOptimizer.defaultOptimizer())
+                .compile("test.dsl", "function f(x) { return -x; }", "test");
+        try {
+            List<Map<String, Object>> contexts = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                // 字符串取负会执行失败
+                Object x = i % 100 == 7 ? "bad" : (Object) (double) i;
+                contexts.add(Collections.singletonMap("x", x));
+            }
+
+            List<DslBatchExecutor.BatchItem> results = executor.execute(script, "f", contexts);
+            assertEquals(contexts.size(), results.size());
+            for (int i = 0; i < results.size(); i++) {
+                DslBatchExecutor.BatchItem item = results.get(i);
+                if (i % 100 == 7) {
+                    assertFalse(item.isSuccess());
+                    assertNotNull(item.getError());
+                } else {
+                    assertTrue(item.isSuccess());
+                    assertEquals(-(double) i, item.getResult());
+                }
+            }
+            assertTrue(executor.execute(script, "f", Collections.<Map<String, Object>>emptyList()).isEmpty());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
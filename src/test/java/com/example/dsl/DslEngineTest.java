@@ -0,0 +1,221 @@
+package com.example.dsl;
+
+import com.example.config.DslProperties;
+import com.example.dsl.compiler.DslCompiler;
+import com.example.dsl.optimizer.AstOptimizer;
+import com.example.dsl.parser.DslParser;
+import com.example.dsl.runtime.CompiledFunction;
+import com.example.dsl.runtime.CompiledScript;
+import com.example.dsl.runtime.DslEngine;
+import com.example.dsl.runtime.ExecutionBackend;
+import com.example.dsl.runtime.trace.ExecutionTrace;
+import com.example.dsl.runtime.trace.TraceEvent;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DslEngineTest {
+    private final DslCompiler compiler = new DslCompiler(new DslParser(), new DslProperties(), AstOptimizer.defaultOptimizer());
+    private final DslEngine engine = new DslEngine();
+
+    private CompiledScript compileFile(String name) throws Exception {
+        String dsl = new String(Files.readAllBytes(Paths.get("scripts/" + name)));
+        return compiler.compile(name, dsl, "test");
+    }
+
+    private Object run(String dsl, String function, Map<String, Object> variables) {
+        return engine.execute(compiler.compile("test.dsl", dsl, "test"), function, variables);
+    }
+
+    @Test
+    public void testCalculateDiscount() throws Exception {
+        CompiledScript script = compileFile("discount.dsl");
+        Map<String, Object> context = new HashMap<>();
+        context.put("productId", "PROD001");
+        context.put("price", 100.0);
+        context.put("userId", "VIP123");
+        assertEquals(80.0, engine.execute(script, "calculateDiscount", context));
+
+        context.put("productId", "PROD002");
+        context.put("userId", "USER001");
+        assertEquals(85.0, engine.execute(script, "calculateDiscount", context));
+    }
+
+    @Test
+    public void testLogicAllSyntax() throws Exception {
+        Object result = engine.execute(compileFile("logic.dsl"), "logicTest", new HashMap<>());
+        assertTrue(result instanceof Map);
+        Map<?, ?> map = (Map<?, ?>) result;
+        assertEquals(100, ((Number) map.get("result")).intValue());
+        assertEquals(6, ((Number) map.get("sum")).intValue());
+        assertEquals(true, map.get("logic"));
+        assertEquals(true, map.get("eq"));
+        assertEquals(true, map.get("neq"));
+        assertEquals(10, ((Number) map.get("ox")).intValue());
+        assertEquals(2, ((Number) map.get("ay")).intValue());
+        assertNull(map.get("nothing"));
+    }
+
+    @Test
+    public void testParseTreeIsDropped() throws Exception {
+        CompiledScript script = compileFile("pricing.dsl");
+        assertTrue(script.getScript().getFunction("calculatePrice").getBody() instanceof CompiledFunction);
+        assertNotNull(script.getFunction("checkSeason"));
+    }
+
+    @Test
+    public void testUserFunctionsAndGlobals() {
+        String dsl = "var offset = 5;\n"
+                + "function f(x) { return square(x) + offset; }\n"
+                + "function square(y) { return y * y; }";
+        Map<String, Object> context = new HashMap<>();
+        context.put("x", 3.0);
+        assertEquals(14.0, run(dsl, "f", context));
+    }
+
+    @Test
+    public void testRecursionAndEarlyReturn() {
+        String dsl = "function fact(n) { if (n <= 1) { return 1; } return n * fact(n - 1); }\n"
+                + "function firstAbove(limit) { for (i in [1, 2, 3, 4]) { if (current > limit) { return current; } } return null; }";
+        Map<String, Object> context = new HashMap<>();
+        context.put("n", 5.0);
+        context.put("limit", 2.0);
+        assertEquals(120.0, run(dsl, "fact", context));
+        assertEquals(3.0, run(dsl, "firstAbove", context));
+    }
+
+    @Test
+    public void testLexicalScoping() {
+        // 块内声明的变量在块外不可见，外层已有的变量在块内声明时沿用外层变量
+        String dsl = "function f() {\n"
+                + "  var x = 1;\n"
+                + "  if (true) { var y = 2; var x = x + y; }\n"
+                + "  return [x, y, hidden];\n"
+                + "}";
+        Map<String, Object> context = new HashMap<>();
+        context.put("hidden", "global");
+        assertEquals(Arrays.asList(3.0, null, "global"), run(dsl, "f", context));
+    }
+
+    @Test
+    public void testUnaryOperators() {
+        Map<String, Object> context = new HashMap<>();
+        context.put("flag", false);
+        assertEquals(true, run("function f(flag) { return !flag; }", "f", context));
+        assertEquals(-2.0, run("function f() { return -(1 + 1); }", "f", context));
+    }
+
+    @Test
+    public void testBytecodeBackendMatchesInterpreter() throws Exception {
+        DslCompiler bytecodeCompiler = TestCompilers.compiler(ExecutionBackend.BYTECODE);
+
+        String dsl = new String(Files.readAllBytes(Paths.get("scripts/logic.dsl")))
+                + "\nfunction fact(n) { if ((n <= 1) && (n == n)) { return 1; } return n * fact(n - 1); }\n"
+                + "function loop(limit) { var total = 0; for (k in {a: 1, b: 2}) { total = total + current; }"
+                + " for (i in [1, 2, 3, 4]) { if ((current > limit) || !true) { return [total, i, current]; } } return null; }\n"
+                + "function scoping() { var x = 1; if (false) { } else { var y = 2; var x = x + y; } return [x, y, -x, \"s\" + x]; }";
+        CompiledScript interpreted = compiler.compile("test.dsl", dsl, "test");
+        CompiledScript compiled = bytecodeCompiler.compile("test.dsl", dsl, "test");
+
+        Map<String, Object> context = new HashMap<>();
+        context.put("n", 5.0);
+        context.put("limit", 2.0);
+        for (String function : Arrays.asList("logicTest", "fact", "loop", "scoping")) {
+            assertEquals(ExecutionBackend.INTERPRETER, interpreted.getFunction(function).getBackend());
+            assertEquals(ExecutionBackend.BYTECODE, compiled.getFunction(function).getBackend());
+            assertEquals(engine.execute(interpreted, function, context), engine.execute(compiled, function, context), function);
+        }
+        assertEquals(Arrays.asList(3.0, 2, 3.0), engine.execute(compiled, "loop", context));
+    }
+
+    @Test
+    public void testConcurrentExecutionSharesScript() throws Exception {
+        String dsl = "function f(x) { var total = 0; for (i in [1, 2, 3]) { total = total + (x * current); } return total; }";
+        CompiledScript script = compiler.compile("test.dsl", dsl, "test");
+        engine.loadScript(script);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                final double x = t;
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        if (!Double.valueOf(x * 6).equals(engine.executeFunction("test.dsl", "f", x))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            // 执行过程中替换脚本不影响正在执行的调用
+            engine.loadScript(compiler.compile("test.dsl", dsl, "test2"));
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testNumericSpecializationFallsBack() {
+        CompiledScript script = compiler.compile("test.dsl",
+                "function f(a, b) { return (a * 2) + b; }\n"
+                        + "function g(a, b) { return a < b; }", "test");
+        engine.loadScript(script);
+        assertEquals(8.0, engine.executeFunction("test.dsl", "f", 2.0, 4.0));
+        // 类型反馈改为通用路径后结果与解释器语义一致
+        assertEquals("4.0x", engine.executeFunction("test.dsl", "f", 2.0, "x"));
+        assertEquals(8.0, engine.executeFunction("test.dsl", "f", 2.0, 4.0));
+        assertEquals("nullx", engine.executeFunction("test.dsl", "f", "a", "x"));
+
+        assertEquals(true, engine.executeFunction("test.dsl", "g", 1.0, 2.0));
+        assertEquals(true, engine.executeFunction("test.dsl", "g", "a", "b"));
+        assertEquals(false, engine.executeFunction("test.dsl", "g", 1, "b"));
+        assertEquals(true, engine.executeFunction("test.dsl", "g", 1, 2.0));
+    }
+
+    @Test
+    public void testTracedScriptRecordsEvents() {
+        String dsl = "function f(x) {\n"
+                + "  var y = x * 2;\n"
+                + "  if (y > 3) {\n"
+                + "    y = sum(y, 6);\n"
+                + "  }\n"
+                + "  return y;\n"
+                + "}";
+        Map<String, Object> context = new HashMap<>();
+        context.put("x", 2.0);
+
+        // 普通版本中没有跟踪节点，传入trace也不会记录
+        ExecutionTrace untraced = new ExecutionTrace("test.dsl", false);
+        assertEquals(10.0, engine.execute(compiler.compile("test.dsl", dsl, "test"), "f", context, untraced));
+        assertTrue(untraced.getEvents().isEmpty());
+
+        ExecutionTrace trace = new ExecutionTrace("test.dsl", false);
+        assertEquals(10.0, engine.execute(compiler.compileTraced("test.dsl", dsl, "test"), "f", context, trace));
+        List<String> events = new ArrayList<>();
+        for (TraceEvent event : trace.getEvents()) {
+            events.add(event.getLine() + " " + event.getKind() + " " + event.getName() + " = " + event.getValue());
+        }
+        assertEquals(Arrays.asList(
+                "2 DECLARE y = 4.0",
+                "3 COMPARE (y > 3.0) = true",
+                "3 CONDITION (y > 3.0) = true",
+                "4 CALL sum = 10.0",
+                "4 ASSIGN y = 10.0",
+                "6 RETURN null = 10.0"), events);
+    }
+}
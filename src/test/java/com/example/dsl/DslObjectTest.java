@@ -0,0 +1,150 @@
+package com.example.dsl;
+
+import com.example.dsl.runtime.CompiledScript;
+import com.example.dsl.runtime.DslEngine;
+import com.example.dsl.runtime.ExecutionBackend;
+import com.example.dsl.runtime.object.DslObject;
+import com.example.dsl.runtime.object.Shape;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DslObjectTest {
+
+    private static final String SCRIPT = ""
+            + "function price(product) {\n"
+            + "    var result = { \"id\": product[\"id\"], \"price\": product[\"basePrice\"], \"tags\": [1, 2], \"note\": null };\n"
+            + "    return result;\n"
+            + "}\n"
+            + "function name(o) { return o.name; }\n"
+            + "function pick(kind) {\n"
+            + "    var a = { \"name\": \"a\", \"x\": 1 };\n"
+            + "    var b = { \"x\": 2, \"name\": \"b\" };\n"
+            + "    var c = { \"y\": 3 };\n"
+            + "    var d = { \"z\": 4, \"w\": 5, \"name\": \"d\" };\n"
+            + "    var e = { \"name\": \"e\" };\n"
+            + "    var f = { \"v\": 6, \"name\": \"f\" };\n"
+            + "    return [name(a), name(b), name(c), name(d), name(e), name(f), name(a), a[\"x\"], c[\"x\"]];\n"
+            + "}\n"
+            + "function duplicated() { return { \"k\": 1, \"j\": 2, \"k\": 3 }; }\n"
+            + "function constant() { return { \"a\": 1, \"b\": \"two\" }; }\n"
+            + "function constantList() { return [1, 2, 3]; }\n"
+            + "function lookup(k) {\n"
+            + "    var c = { \"c\": 100 }.c;\n"
+            + "    var total = { \"a\": 1, \"b\": 2 }[k] + c;\n"
+            + "    for (x in [1, 2, 3]) { total = total + current; }\n"
+            + "    return total;\n"
+            + "}\n";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private CompiledScript compile(ExecutionBackend backend) {
+        return TestCompilers.compiler(backend).compile("object.dsl", SCRIPT, "object");
+    }
+
+    private Map<String, Object> product() {
+        Map<String, Object> product = new HashMap<>();
+        product.put("id", "P1");
+        product.put("basePrice", 120.0);
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("product", product);
+        return variables;
+    }
+
+    @Test
+    public void testLiteralObjectsSerializeLikeMaps() throws Exception {
+        for (ExecutionBackend backend : ExecutionBackend.values()) {
+            Object result = new DslEngine().execute(compile(backend), "price", product());
+            assertTrue(result instanceof DslObject, backend.name());
+
+            Map<String, Object> expected = new LinkedHashMap<>();
+            expected.put("id", "P1");
+            expected.put("price", 120.0);
+            expected.put("tags", Arrays.asList(1.0, 2.0));
+            expected.put("note", null);
+            assertEquals(expected, result, backend.name());
+            assertEquals(result, expected, backend.name());
+            assertEquals(expected.hashCode(), result.hashCode(), backend.name());
+            assertEquals(objectMapper.writeValueAsString(expected), objectMapper.writeValueAsString(result));
+            assertTrue(((Map<?, ?>) result).containsKey("note"));
+        }
+    }
+
+    @Test
+    public void testPolymorphicMemberAccess() {
+        for (ExecutionBackend backend : ExecutionBackend.values()) {
+            List<?> names = (List<?>) new DslEngine().execute(compile(backend), "pick", new HashMap<>());
+            // 超过内联缓存上限的形状仍按键查找
+            assertEquals(Arrays.asList("a", "b", null, "d", "e", "f", "a", 1.0, null), names, backend.name());
+        }
+    }
+
+    @Test
+    public void testDuplicateKeysKeepLastValue() {
+        for (ExecutionBackend backend : ExecutionBackend.values()) {
+            Map<?, ?> result = (Map<?, ?>) new DslEngine().execute(compile(backend), "duplicated", new HashMap<>());
+            assertEquals(2, result.size(), backend.name());
+            assertEquals(3.0, result.get("k"), backend.name());
+            assertEquals(Arrays.asList("k", "j"), Arrays.asList(result.keySet().toArray()), backend.name());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testConstantLiteralsReturnFreshValues() {
+        for (ExecutionBackend backend : ExecutionBackend.values()) {
+            CompiledScript script = compile(backend);
+            DslEngine engine = new DslEngine();
+            Map<String, Object> first = (Map<String, Object>) engine.execute(script, "constant", new HashMap<>());
+            Map<String, Object> second = (Map<String, Object>) engine.execute(script, "constant", new HashMap<>());
+            assertNotSame(first, second, backend.name());
+            // 返回值可以修改，且不影响之后的执行
+            first.put("a", 2.0);
+            assertEquals(1.0, second.get("a"), backend.name());
+            assertEquals(1.0, ((Map<?, ?>) engine.execute(script, "constant", new HashMap<>())).get("a"), backend.name());
+
+            List<Object> list = (List<Object>) engine.execute(script, "constantList", new HashMap<>());
+            list.add(4.0);
+            assertEquals(Arrays.asList(1.0, 2.0, 3.0), engine.execute(script, "constantList", new HashMap<>()),
+                    backend.name());
+
+            // 只被读取的常量字面量折叠后结果不变
+            Map<String, Object> variables = new HashMap<>();
+            variables.put("k", "b");
+            assertEquals(108.0, engine.execute(script, "lookup", variables), backend.name());
+        }
+    }
+
+    @Test
+    public void testStructuralChangesFallBackToMap() throws Exception {
+        DslObject object = Shape.forLiteral(new String[]{"a", "b"}).instantiate(new Object[]{1, 2});
+        assertEquals(1, object.put("a", 10));
+        assertEquals(10, object.get("a"));
+        object.put("c", 3);
+        object.remove("b");
+        assertEquals("{\"a\":10,\"c\":3}", objectMapper.writeValueAsString(object));
+        object.entrySet().iterator().next().setValue(11);
+        assertEquals(11, object.get("a"));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            Object copy = in.readObject();
+            assertEquals(LinkedHashMap.class, copy.getClass());
+            assertEquals(object, copy);
+        }
+    }
+}
@@ -3,6 +3,8 @@ package com.example.dsl;
 import com.example.dsl.parser.BusinessDslVisitorImpl;
 import com.example.dsl.parser.DslParser;
 import com.example.model.DslScript;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
 import org.junit.jupiter.api.Test;
 
 import java.nio.file.Files;
@@ -79,4 +81,29 @@ public class DslParserTest {
         assertEquals(2, ((Number)map.get("ay")).intValue()); // 数组下标
         assertNull(map.get("nothing")); // null判断
     }
+
+    @Test
+    public void testTwoStageParseMatchesFullLL() throws Exception {
+        DslParser parser = new DslParser();
+        parser.warmUp();
+        for (String name : new String[]{"pricing.dsl", "discount.dsl", "logic.dsl"}) {
+            String dsl = readDsl("scripts/" + name);
+            BusinessDslParser reference = new BusinessDslParser(new CommonTokenStream(new BusinessDslLexer(CharStreams.fromString(dsl))));
+            reference.removeErrorListeners();
+            // 同一线程连续解析复用分析器，结果与独立的LL解析一致
+            assertEquals(reference.program().toStringTree(reference), parser.parseProgram(dsl).toStringTree(reference), name);
+        }
+    }
+
+    @Test
+    public void testValidateFailsFast() throws Exception {
+        DslParser parser = new DslParser();
+        assertTrue(parser.validate(readDsl("scripts/logic.dsl")));
+        assertTrue(parser.validate(readDsl("scripts/discount.dsl")));
+        // pricing.dsl中的下标赋值不符合语法，解析时会被恢复跳过，校验时直接判定失败
+        assertFalse(parser.validate(readDsl("scripts/pricing.dsl")));
+        assertFalse(parser.validate("var a = #;"));
+        assertFalse(parser.validate("function f( { return 1; }"));
+        assertNotNull(parser.parseProgram(readDsl("scripts/pricing.dsl")));
+    }
 }
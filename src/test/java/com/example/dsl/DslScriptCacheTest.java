@@ -0,0 +1,72 @@
+package com.example.dsl;
+
+import com.example.config.DslProperties;
+import com.example.dsl.compiler.DslCompiler;
+import com.example.dsl.optimizer.AstOptimizer;
+import com.example.dsl.parser.DslParser;
+import com.example.dsl.runtime.CompiledScript;
+import com.example.dsl.runtime.DslScriptCache;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DslScriptCacheTest {
+    private DslScriptCache newCache() {
+        return new DslScriptCache(new DslCompiler(new DslParser(), new DslProperties(), AstOptimizer.defaultOptimizer()));
+    }
+
+    private String readDsl(String path) throws Exception {
+        return new String(Files.readAllBytes(Paths.get(path)));
+    }
+
+    @Test
+    public void testHitAndMiss() throws Exception {
+        DslScriptCache cache = newCache();
+        assertNull(cache.get("discount.dsl"));
+
+        CompiledScript compiled = cache.put("discount.dsl", readDsl("scripts/discount.dsl"));
+        assertNotNull(compiled.getScript().getFunction("calculateDiscount"));
+        assertEquals("discount.dsl", compiled.getScript().getId());
+        assertSame(compiled, cache.get("discount.dsl"));
+
+        Map<String, Object> stats = cache.getStats();
+        assertEquals(1L, stats.get("hits"));
+        assertEquals(1L, stats.get("misses"));
+        assertEquals(1L, stats.get("compiles"));
+    }
+
+    @Test
+    public void testSameContentIsNotRecompiled() throws Exception {
+        DslScriptCache cache = newCache();
+        String dsl = readDsl("scripts/discount.dsl");
+        CompiledScript first = cache.put("discount.dsl", dsl);
+        CompiledScript second = cache.put("discount.dsl", dsl);
+        assertSame(first, second);
+
+        CompiledScript changed = cache.put("discount.dsl", dsl + "\n// changed");
+        assertNotSame(first, changed);
+        assertNotEquals(first.getContentHash(), changed.getContentHash());
+        assertEquals(2L, cache.getStats().get("compiles"));
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+        DslScriptCache cache = newCache();
+        cache.put("logic.dsl", readDsl("scripts/logic.dsl"));
+        cache.invalidate("logic.dsl");
+        assertNull(cache.get("logic.dsl"));
+    }
+
+    @Test
+    public void testPutStrictKeepsExistingOnSyntaxError() throws Exception {
+        DslScriptCache cache = newCache();
+        CompiledScript compiled = cache.putStrict("logic.dsl", readDsl("scripts/logic.dsl"));
+        assertThrows(IllegalArgumentException.class, () -> cache.putStrict("logic.dsl", "function f( { return 1; }"));
+        assertSame(compiled, cache.get("logic.dsl"));
+        assertEquals(1L, cache.getStats().get("compiles"));
+    }
+}
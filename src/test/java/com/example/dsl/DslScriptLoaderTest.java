@@ -0,0 +1,97 @@
+package com.example.dsl;
+
+import com.example.config.DslProperties;
+import com.example.dsl.compiler.DslCompiler;
+import com.example.dsl.compiler.ProgramCache;
+import com.example.dsl.optimizer.AstOptimizer;
+import com.example.dsl.parser.DslParser;
+import com.example.dsl.runtime.DslEngine;
+import com.example.dsl.runtime.DslScriptCache;
+import com.example.dsl.runtime.DslScriptLoader;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DslScriptLoaderTest {
+
+    private Path directory;
+    private DslEngine engine;
+    private DslScriptLoader loader;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("dsl-scripts");
+        DslProperties properties = new DslProperties();
+        properties.setScriptsDirectory(directory.toString());
+        properties.setReloadDebounceMillis(20);
+        DslCompiler compiler = new DslCompiler(new DslParser(), properties, AstOptimizer.defaultOptimizer());
+        engine = new DslEngine();
+        loader = new DslScriptLoader(new DslScriptCache(compiler), engine, properties, ProgramCache.disabled());
+        loader.init();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        loader.shutdown();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private void write(String name, String content) throws Exception {
+        Files.write(directory.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Object result() {
+        return engine.getScript("test.dsl") == null ? null : engine.executeFunction("test.dsl", "f");
+    }
+
+    // 文件事件是异步的，轮询等待条件成立
+    private void await(BooleanSupplier condition, String message) throws Exception {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail(message);
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    @Test
+    public void testCreateModifyAndDelete() throws Exception {
+        write("test.dsl", "function f() { return 1; }");
+        await(() -> Double.valueOf(1.0).equals(result()), "新建的脚本未加载");
+
+        // 连续修改只需保证最终加载最后一次的内容
+        for (int i = 2; i <= 10; i++) {
+            write("test.dsl", "function f() { return " + i + "; }");
+        }
+        await(() -> Double.valueOf(10.0).equals(result()), "连续修改后未加载最新内容");
+
+        Files.delete(directory.resolve("test.dsl"));
+        await(() -> engine.getScript("test.dsl") == null, "删除的脚本未卸载");
+    }
+
+    @Test
+    public void testCompileFailureKeepsOldVersion() throws Exception {
+        write("test.dsl", "function f() { return 1; }");
+        await(() -> Double.valueOf(1.0).equals(result()), "新建的脚本未加载");
+
+        write("test.dsl", "function f( { return 2; }");
+        // 语法错误的版本不替换已加载的版本；等待远超去抖时间，确保它已经处理过
+        Thread.sleep(500);
+        assertEquals(1.0, result());
+
+        write("test.dsl", "function f() { return 3; }");
+        await(() -> Double.valueOf(3.0).equals(result()), "修复后的脚本未加载");
+    }
+}
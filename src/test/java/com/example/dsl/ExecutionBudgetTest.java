@@ -0,0 +1,132 @@
+package com.example.dsl;
+
+import com.example.config.DslProperties;
+import com.example.dsl.compiler.DslCompiler;
+import com.example.dsl.optimizer.AstOptimizer;
+import com.example.dsl.parser.DslParser;
+import com.example.dsl.runtime.BudgetExceededException;
+import com.example.dsl.runtime.CompiledScript;
+import com.example.dsl.runtime.DslEngine;
+import com.example.dsl.runtime.ExecutionBackend;
+import com.example.dsl.runtime.ScriptOptions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExecutionBudgetTest {
+
+    private static final String LOOP = "function f(items) { total = 0; for (i in items) { for (j in items) { total = total + 1; } } return total; }";
+
+    private static final String RECURSION = "function down(n) { return down(n + 1); }";
+
+    private final DslEngine engine = new DslEngine();
+
+    private CompiledScript compile(String dsl, ExecutionBackend backend, ScriptOptions budget) {
+        DslProperties properties = new DslProperties();
+        budget.setBackend(backend);
+        properties.getScriptOptions().put("test.dsl", budget);
+        return new DslCompiler(new DslParser(), properties, AstOptimizer.defaultOptimizer()).compile("test.dsl", dsl, "test");
+    }
+
+    private Map<String, Object> items(int size) {
+        List<Object> items = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            items.add(i);
+        }
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("items", items);
+        return variables;
+    }
+
+    private Map<String, Object> start() {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("n", 0);
+        return variables;
+    }
+
+    private BudgetExceededException exceeded(CompiledScript script, String function, Map<String, Object> variables) {
+        return assertThrows(BudgetExceededException.class, () -> engine.execute(script, function, variables));
+    }
+
+    @Test
+    public void testStepBudget() {
+        for (ExecutionBackend backend : ExecutionBackend.values()) {
+            ScriptOptions budget = new ScriptOptions();
+            budget.setMaxSteps(1000L);
+            CompiledScript script = compile(LOOP, backend, budget);
+            // 10 + 10*10次迭代加一次调用，在预算内
+            assertEquals(100.0, ((Number) engine.execute(script, "f", items(10))).doubleValue(), backend.name());
+            BudgetExceededException e = exceeded(script, "f", items(100));
+            assertEquals(BudgetExceededException.Budget.STEPS, e.getBudget());
+            assertEquals(1000L, e.getLimit());
+            assertEquals(BudgetExceededException.CODE, e.getCode());
+        }
+    }
+
+    @Test
+    public void testTimeout() {
+        for (ExecutionBackend backend : ExecutionBackend.values()) {
+            ScriptOptions budget = new ScriptOptions();
+            budget.setTimeoutMillis(50L);
+            CompiledScript script = compile(LOOP, backend, budget);
+            long start = System.nanoTime();
+            BudgetExceededException e = exceeded(script, "f", items(20000));
+            assertEquals(BudgetExceededException.Budget.TIMEOUT, e.getBudget());
+            assertTrue(System.nanoTime() - start < 5_000_000_000L);
+        }
+    }
+
+    @Test
+    public void testCallDepth() {
+        for (ExecutionBackend backend : ExecutionBackend.values()) {
+            ScriptOptions budget = new ScriptOptions();
+            budget.setMaxCallDepth(50);
+            BudgetExceededException e = exceeded(compile(RECURSION, backend, budget), "down", start());
+            assertEquals(BudgetExceededException.Budget.CALL_DEPTH, e.getBudget());
+            assertEquals(50L, e.getLimit());
+        }
+    }
+
+    @Test
+    public void testUnboundedRecursionDoesNotOverflowStack() {
+        // 不限制调用深度时线程栈耗尽也按调用深度超限返回
+        ScriptOptions unlimited = new ScriptOptions();
+        unlimited.setMaxCallDepth(0);
+        BudgetExceededException e = exceeded(compile(RECURSION, ExecutionBackend.INTERPRETER, unlimited), "down", start());
+        assertEquals(BudgetExceededException.Budget.CALL_DEPTH, e.getBudget());
+
+        // 默认深度上限
+        e = exceeded(compile(RECURSION, ExecutionBackend.INTERPRETER, new ScriptOptions()), "down", start());
+        assertEquals(BudgetExceededException.Budget.CALL_DEPTH, e.getBudget());
+    }
+
+    @Test
+    public void testCollectionSize() {
+        for (ExecutionBackend backend : ExecutionBackend.values()) {
+            ScriptOptions budget = new ScriptOptions();
+            budget.setMaxCollectionSize(10);
+            CompiledScript script = compile(LOOP, backend, budget);
+            assertEquals(100.0, ((Number) engine.execute(script, "f", items(10))).doubleValue());
+            BudgetExceededException e = exceeded(script, "f", items(11));
+            assertEquals(BudgetExceededException.Budget.COLLECTION_SIZE, e.getBudget());
+        }
+    }
+
+    @Test
+    public void testBudgetOptionsMerge() {
+        ScriptOptions defaults = new ScriptOptions();
+        defaults.setMaxSteps(100L);
+        defaults.setTimeoutMillis(1000L);
+        ScriptOptions override = new ScriptOptions();
+        override.setMaxSteps(5L);
+        ScriptOptions merged = defaults.merge(override);
+        assertEquals(Long.valueOf(5), merged.getMaxSteps());
+        assertEquals(Long.valueOf(1000), merged.getTimeoutMillis());
+        assertNull(merged.getMaxCollectionSize());
+    }
+}
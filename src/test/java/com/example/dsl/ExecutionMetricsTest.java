@@ -0,0 +1,107 @@
+package com.example.dsl;
+
+import com.example.config.DslProperties;
+import com.example.dsl.compiler.DslCompiler;
+import com.example.dsl.optimizer.AstOptimizer;
+import com.example.dsl.parser.DslParser;
+import com.example.dsl.runtime.CompiledScript;
+import com.example.dsl.runtime.DslEngine;
+import com.example.dsl.runtime.DslScriptCache;
+import com.example.dsl.runtime.metrics.ExecutionMetrics;
+import com.example.dsl.runtime.metrics.FunctionMetrics;
+import com.example.dsl.runtime.metrics.LatencyHistogram;
+import com.example.dsl.runtime.metrics.ScriptMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExecutionMetricsTest {
+
+    private final DslCompiler compiler = new DslCompiler(new DslParser(), new DslProperties(), AstOptimizer.defaultOptimizer());
+
+    @Test
+    public void testPercentileWithinBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(42);
+        long[] values = new long[10000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 100 + (long) (random.nextDouble() * 10_000_000);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        for (double quantile : new double[]{0.5, 0.99, 0.999}) {
+            long exact = values[(int) Math.ceil(quantile * values.length) - 1];
+            long estimated = histogram.percentile(quantile);
+            assertTrue(estimated >= exact, quantile + ": " + estimated + " < " + exact);
+            assertTrue(estimated <= exact * 1.125 + 1, quantile + ": " + estimated + " > " + exact);
+        }
+        assertEquals(values.length, histogram.getCount());
+        assertEquals(0, new LatencyHistogram().percentile(0.99));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCallsErrorsAndPhases() {
+        ExecutionMetrics metrics = new ExecutionMetrics();
+        DslEngine engine = new DslEngine(metrics);
+        DslScriptCache cache = new DslScriptCache(compiler, metrics);
+        CompiledScript script = cache.put("test.dsl",
+                "function f(x) { return 10 / x; } function g() { return true - 1; }");
+
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("x", 2);
+        for (int i = 0; i < 5; i++) {
+            engine.execute(script, "f", variables);
+        }
+        assertThrows(RuntimeException.class, () -> engine.execute(script, "g", variables));
+
+        Map<String, Object> snapshot = metrics.snapshot("test.dsl");
+        assertEquals(6L, snapshot.get("calls"));
+        assertEquals(1L, snapshot.get("errors"));
+
+        Map<String, Object> functions = (Map<String, Object>) snapshot.get("functions");
+        Map<String, Object> f = (Map<String, Object>) functions.get("f");
+        assertEquals(5L, f.get("calls"));
+        assertEquals(0L, f.get("errors"));
+        Map<String, Object> g = (Map<String, Object>) functions.get("g");
+        assertEquals(1L, g.get("errors"));
+
+        // 失败的调用不计入阶段耗时
+        Map<String, Object> phases = (Map<String, Object>) snapshot.get("phases");
+        assertEquals(1L, ((Map<String, Object>) phases.get("compile")).get("count"));
+        assertEquals(5L, ((Map<String, Object>) phases.get("bind")).get("count"));
+        assertEquals(5L, ((Map<String, Object>) phases.get("execute")).get("count"));
+        assertEquals(6L, ((Map<String, Object>) snapshot.get("latency")).get("count"));
+
+        assertNull(metrics.snapshot("other.dsl"));
+        assertTrue(metrics.snapshot().containsKey("test.dsl"));
+    }
+
+    @Test
+    public void testListenerSeesExistingAndNewFunctions() {
+        ExecutionMetrics metrics = new ExecutionMetrics();
+        metrics.function("a.dsl", "f");
+        StringBuilder seen = new StringBuilder();
+        metrics.addListener(new ExecutionMetrics.Listener() {
+            @Override
+            public void scriptAdded(ScriptMetrics script) {
+                seen.append("script:").append(script.getName()).append(';');
+            }
+
+            @Override
+            public void functionAdded(ScriptMetrics script, String functionName,
+                                      FunctionMetrics function) {
+                seen.append("function:").append(functionName).append(';');
+            }
+        });
+        metrics.function("a.dsl", "f");
+        metrics.function("a.dsl", "g");
+        metrics.function("b.dsl", "h");
+        assertEquals("script:a.dsl;function:f;function:g;script:b.dsl;function:h;", seen.toString());
+    }
+}
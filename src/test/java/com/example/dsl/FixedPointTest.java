@@ -0,0 +1,148 @@
+package com.example.dsl;
+
+import com.example.dsl.runtime.CompiledScript;
+import com.example.dsl.runtime.DslEngine;
+import com.example.dsl.runtime.ExecutionBackend;
+import com.example.dsl.runtime.NumericMode;
+import com.example.dsl.runtime.ScriptOptions;
+import com.example.dsl.runtime.numeric.Decimal;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static com.example.dsl.TestCompilers.vars;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FixedPointTest {
+
+    private static final String SCRIPT = ""
+            + "function tenths() { return (0.1 + 0.2) == 0.3; }\n"
+            + "function price(basePrice, rate) {\n"
+            + "    var finalPrice = basePrice * rate;\n"
+            + "    if (finalPrice > 100) { finalPrice = finalPrice - 5; }\n"
+            + "    return finalPrice;\n"
+            + "}\n"
+            + "function divide(a, b) { return a / b; }\n"
+            + "function multiply(a, b) { return a * b; }\n"
+            + "function label(a) { var p = a * 1; return \"price: \" + p; }\n"
+            + "function same(a, b) { return a == b; }\n"
+            + "function less(a, b) { return a < b; }\n"
+            + "function negate(a) { return -a; }\n"
+            + "function result(basePrice) { return { \"price\": basePrice * 1.1, \"count\": 3 }; }\n"
+            + "function literals() { return { \"a\": 1.00005, \"b\": 2, \"items\": [1.00005, \"x\", true] }; }\n";
+
+    private final DslEngine engine = new DslEngine();
+
+    private CompiledScript compile(NumericMode numeric, int scale, RoundingMode roundingMode, ExecutionBackend backend) {
+        return compile(numeric, scale, roundingMode, backend, true);
+    }
+
+    private CompiledScript compile(NumericMode numeric, int scale, RoundingMode roundingMode, ExecutionBackend backend,
+                                   boolean optimize) {
+        ScriptOptions options = TestCompilers.options(backend);
+        options.setOptimize(optimize);
+        options.setNumeric(numeric);
+        options.setDecimalScale(scale);
+        options.setRoundingMode(roundingMode);
+        return TestCompilers.compiler(options).compile("money.dsl", SCRIPT, "money");
+    }
+
+    private CompiledScript decimal(int scale, RoundingMode roundingMode) {
+        return compile(NumericMode.DECIMAL, scale, roundingMode, ExecutionBackend.INTERPRETER);
+    }
+
+    private static BigDecimal decimalValue(Object value) {
+        assertTrue(value instanceof Decimal, String.valueOf(value));
+        return ((Decimal) value).toBigDecimal();
+    }
+
+    @Test
+    public void testExactDecimalArithmetic() {
+        assertEquals(false, engine.execute(compile(NumericMode.DOUBLE, 4, RoundingMode.HALF_UP,
+                ExecutionBackend.INTERPRETER), "tenths", vars()));
+        assertEquals(true, engine.execute(decimal(4, RoundingMode.HALF_UP), "tenths", vars()));
+
+        CompiledScript script = decimal(2, RoundingMode.HALF_UP);
+        // 调用方传入的double按小数位数转换
+        assertEquals(new BigDecimal("21.99"), decimalValue(engine.execute(script, "price", vars("basePrice", 19.99, "rate", 1.1))));
+        // 操作数先按小数位数舍入：1.1099为1.11
+        assertEquals(new BigDecimal("106.00"), decimalValue(engine.execute(script, "price", vars("basePrice", 100, "rate", 1.1099))));
+        assertEquals(new BigDecimal("-1.50"), decimalValue(engine.execute(script, "negate", vars("a", 1.5))));
+    }
+
+    @Test
+    public void testRoundingMode() {
+        assertEquals(new BigDecimal("0.67"),
+                decimalValue(engine.execute(decimal(2, RoundingMode.HALF_UP), "divide", vars("a", 2, "b", 3))));
+        assertEquals(new BigDecimal("0.66"),
+                decimalValue(engine.execute(decimal(2, RoundingMode.DOWN), "divide", vars("a", 2, "b", 3))));
+        assertEquals(new BigDecimal("0.12"),
+                decimalValue(engine.execute(decimal(2, RoundingMode.HALF_EVEN), "multiply", vars("a", 0.25, "b", 0.5))));
+        assertEquals(new BigDecimal("0.13"),
+                decimalValue(engine.execute(decimal(2, RoundingMode.HALF_UP), "multiply", vars("a", 0.25, "b", 0.5))));
+        assertThrows(RuntimeException.class,
+                () -> engine.execute(decimal(2, RoundingMode.HALF_UP), "divide", vars("a", 1, "b", 0)));
+    }
+
+    @Test
+    public void testOverflowFallsBackToBigDecimal() {
+        CompiledScript script = decimal(4, RoundingMode.HALF_UP);
+        // 缩放后的乘积超出long，结果仍能用long表示
+        assertEquals(new BigDecimal("1000000000000.0000"),
+                decimalValue(engine.execute(script, "multiply", vars("a", 1000000, "b", 1000000))));
+        // 结果超出long时返回BigDecimal
+        Object big = engine.execute(script, "multiply", vars("a", 1000000000000L, "b", 1000000000000L));
+        assertEquals(new BigDecimal("1000000000000000000000000.0000"), big);
+        // 之后的运算仍按定点数进行
+        assertEquals(new BigDecimal("6.0000"), decimalValue(engine.execute(script, "multiply", vars("a", 2, "b", 3))));
+    }
+
+    @Test
+    public void testMixedOperands() {
+        CompiledScript script = decimal(2, RoundingMode.HALF_UP);
+        assertEquals("price: 1.50", engine.execute(script, "label", vars("a", 1.5)));
+        assertEquals(true, engine.execute(script, "same", vars("a", 1.5, "b", new BigDecimal("1.50"))));
+        assertEquals(true, engine.execute(script, "same", vars("a", "x", "b", "x")));
+        assertEquals(true, engine.execute(script, "less", vars("a", "a", "b", "b")));
+        assertEquals(true, engine.execute(script, "less", vars("a", 1, "b", 1.01)));
+    }
+
+    @Test
+    public void testResultSerialization() throws Exception {
+        for (ExecutionBackend backend : ExecutionBackend.values()) {
+            // 定点数模式忽略字节码后端
+            Object result = engine.execute(compile(NumericMode.DECIMAL, 2, RoundingMode.HALF_UP, backend),
+                    "result", vars("basePrice", 19.99));
+            assertEquals("{\"price\":21.99,\"count\":3.00}", new ObjectMapper().writeValueAsString(result));
+        }
+    }
+
+    @Test
+    public void testContainerLiteralsNotFolded() throws Exception {
+        // 数组和对象字面量中的数值按定点数缩放和舍入，与是否优化无关
+        ObjectMapper mapper = new ObjectMapper();
+        String optimized = mapper.writeValueAsString(engine.execute(
+                compile(NumericMode.DECIMAL, 4, RoundingMode.HALF_UP, ExecutionBackend.INTERPRETER, true),
+                "literals", vars()));
+        String unoptimized = mapper.writeValueAsString(engine.execute(
+                compile(NumericMode.DECIMAL, 4, RoundingMode.HALF_UP, ExecutionBackend.INTERPRETER, false),
+                "literals", vars()));
+        assertEquals("{\"a\":1.0001,\"b\":2.0000,\"items\":[1.0001,\"x\",true]}", unoptimized);
+        assertEquals(unoptimized, optimized);
+    }
+
+    @Test
+    public void testOptionsMerge() {
+        ScriptOptions defaults = new ScriptOptions();
+        defaults.setNumeric(NumericMode.DECIMAL);
+        ScriptOptions override = new ScriptOptions();
+        override.setDecimalScale(2);
+        ScriptOptions merged = defaults.merge(override);
+        assertEquals(NumericMode.DECIMAL, merged.getNumericOrDefault());
+        assertEquals(2, merged.getDecimalScaleOrDefault());
+        assertEquals(RoundingMode.HALF_UP, merged.getRoundingModeOrDefault());
+        assertEquals(NumericMode.DOUBLE, new ScriptOptions().getNumericOrDefault());
+    }
+}
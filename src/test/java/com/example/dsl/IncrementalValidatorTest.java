@@ -0,0 +1,141 @@
+package com.example.dsl;
+
+import com.example.config.DslProperties;
+import com.example.dsl.BusinessDslLexer;
+import com.example.dsl.parser.Diagnostic;
+import com.example.dsl.parser.IncrementalValidator;
+import com.example.dsl.parser.ValidationResult;
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IncrementalValidatorTest {
+
+    private static String function(int i) {
+        return "function rule" + i + "(order) {\n"
+                + "    var total = order.amount;\n"
+                + "    if (total > " + i + ") {\n"
+                + "        total = total - 1;\n"
+                + "    } else {\n"
+                + "        total = total + 1;\n"
+                + "    }\n"
+                + "    return total;\n"
+                + "}\n";
+    }
+
+    private static String script(int functions) {
+        StringBuilder sb = new StringBuilder("var rate = 0.15;\n");
+        for (int i = 0; i < functions; i++) {
+            sb.append(function(i));
+        }
+        return sb.toString();
+    }
+
+    private static List<String> describe(ValidationResult result) {
+        return result.getDiagnostics().stream()
+                .map(d -> d.getLine() + ":" + d.getColumn() + " " + d.getMessage())
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testSingleEditReparsesOnlyAffectedFunction() {
+        IncrementalValidator validator = new IncrementalValidator(new DslProperties());
+        String content = script(50);
+        ValidationResult first = validator.validate("doc", content);
+        assertTrue(first.isValid());
+        assertEquals(51, first.getReparsed());
+
+        // 删除rule20中return语句的分号
+        int at = content.indexOf("return total;", content.indexOf("function rule20(")) + "return total".length();
+        String broken = content.substring(0, at) + content.substring(at + 1);
+        ValidationResult result = validator.validate("doc", broken);
+        assertFalse(result.isValid());
+        assertEquals(1, result.getReparsed());
+        assertEquals(50, result.getReused());
+
+        Diagnostic diagnostic = result.getDiagnostics().get(0);
+        // var占第1行，每个函数9行，rule20的右花括号在第1 + 20 * 9 + 9行
+        assertEquals(190, diagnostic.getLine());
+        assertEquals(0, diagnostic.getColumn());
+        assertTrue(diagnostic.getMessage().contains("rule20"), diagnostic.getMessage());
+
+        // 在前面插入一行，后面函数的诊断位置随之移动
+        String shifted = "// 注释\n" + broken;
+        ValidationResult moved = validator.validate("doc", shifted);
+        assertEquals(191, moved.getDiagnostics().get(0).getLine());
+        assertTrue(moved.getReused() >= 50);
+
+        assertTrue(validator.validate("doc", content).isValid());
+    }
+
+    @Test
+    public void testIncrementalMatchesFullValidation() {
+        IncrementalValidator validator = new IncrementalValidator(new DslProperties());
+        String[] fragments = {"}", "{", ";", "\"", "/*", "*/", "else ", "function f() {", "x", "\n", "if (a) {", "@", "\"😀\""};
+        Random random = new Random(42);
+        String content = script(8);
+        validator.validate("doc", content);
+        for (int i = 0; i < 500; i++) {
+            int at = random.nextInt(content.length() + 1);
+            if (random.nextBoolean() && at < content.length()) {
+                int end = Math.min(content.length(), at + 1 + random.nextInt(6));
+                content = content.substring(0, at) + content.substring(end);
+            } else {
+                content = content.substring(0, at) + fragments[random.nextInt(fragments.length)] + content.substring(at);
+            }
+            // 偶尔恢复为合法脚本，避免错误一直累积
+            if (i % 50 == 49) {
+                content = script(8);
+            }
+            List<String> expected = describe(validator.validate(null, content));
+            assertEquals(expected, describe(validator.validate("doc", content)), "第" + i + "次编辑后: " + content);
+        }
+    }
+
+    @Test
+    public void testLexerErrorPosition() {
+        IncrementalValidator validator = new IncrementalValidator(new DslProperties());
+        ValidationResult result = validator.validate("doc", "var a = 1;\nvar b = 2 # 3;\n");
+        assertFalse(result.isValid());
+        Diagnostic diagnostic = result.getDiagnostics().get(0);
+        assertEquals(2, diagnostic.getLine());
+        assertEquals(10, diagnostic.getColumn());
+        assertTrue(diagnostic.getMessage().startsWith("词法错误"), diagnostic.getMessage());
+    }
+
+    @Test
+    public void testNonBmpColumnsMatchParser() {
+        // 补充平面字符在String中占两个编码单元，列号与DslParser一样按码点计数
+        String content = "var s = \"😀😀\"; var b = 2 # 3;\n";
+        List<String> expected = new ArrayList<>();
+        BusinessDslLexer lexer = new BusinessDslLexer(CharStreams.fromString(content));
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(new BaseErrorListener() {
+            @Override
+            public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                    int charPositionInLine, String msg, RecognitionException e) {
+                expected.add(line + ":" + charPositionInLine);
+            }
+        });
+        lexer.getAllTokens();
+        assertEquals(1, expected.size());
+
+        IncrementalValidator validator = new IncrementalValidator(new DslProperties());
+        validator.validate("doc", "var s = \"😀😀\";\n");
+        for (ValidationResult result : new ValidationResult[]{validator.validate(null, content),
+                validator.validate("doc", content)}) {
+            Diagnostic diagnostic = result.getDiagnostics().get(0);
+            assertEquals(expected.get(0), diagnostic.getLine() + ":" + diagnostic.getColumn());
+        }
+    }
+}
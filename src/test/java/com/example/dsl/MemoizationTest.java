@@ -0,0 +1,107 @@
+package com.example.dsl;
+
+import com.example.config.DslProperties;
+import com.example.dsl.compiler.DslCompiler;
+import com.example.dsl.runtime.CompiledScript;
+import com.example.dsl.runtime.DslEngine;
+import com.example.dsl.runtime.DslScriptCache;
+import com.example.dsl.runtime.ExecutionBackend;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+
+import static com.example.dsl.TestCompilers.vars;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MemoizationTest {
+
+    private static final String SCRIPT = ""
+            + "function square(x) { var y = x * x; return y; }\n"
+            + "function useSquare(x) { return square(x) + sum(x, 1); }\n"
+            + "function fact(n) { if (n <= 1) { return 1; } return n * fact(n - 1); }\n"
+            + "function even(n) { if (n == 0) { return true; } return odd(n - 1); }\n"
+            + "function odd(n) { if (n == 0) { return false; } return even(n - 1); }\n"
+            + "function addRate(x) { return x * rate; }\n"
+            + "function useRate(x) { return addRate(x); }\n"
+            + "function noisy(x) { print(x); return x; }\n"
+            + "function season(s) { return checkSeason(s); }\n"
+            + "function pair(x) { return [x, x]; }\n"
+            + "function main(x) { total = 0; for (i in [1, 2, 3]) { total = total + useSquare(x); } return total; }\n"
+            + "var rate = 2;\n";
+
+    private DslCompiler compiler(long memoCacheSize, ExecutionBackend backend) {
+        DslProperties properties = TestCompilers.properties(TestCompilers.options(backend));
+        properties.setMemoCacheSize(memoCacheSize);
+        return TestCompilers.compiler(properties);
+    }
+
+    @Test
+    public void testDetectsPureFunctions() {
+        CompiledScript script = compiler(100, ExecutionBackend.INTERPRETER).compile("test.dsl", SCRIPT, "test");
+        assertEquals(new HashSet<>(Arrays.asList("square", "useSquare", "fact", "even", "odd", "pair", "main")),
+                script.getMemoCache().getFunctions());
+    }
+
+    @Test
+    public void testCachesScalarCalls() {
+        for (ExecutionBackend backend : ExecutionBackend.values()) {
+            CompiledScript script = compiler(100, backend).compile("test.dsl", SCRIPT, "test");
+            DslEngine engine = new DslEngine();
+            assertEquals(39.0, ((Number) engine.execute(script, "main", vars("x", 3.0))).doubleValue(), backend.name());
+            // main未命中，useSquare第一次未命中、之后两次命中，square未命中一次
+            Map<String, Object> stats = script.getMemoCache().getStats();
+            assertEquals(2L, stats.get("hits"), backend.name());
+            assertEquals(3L, stats.get("misses"), backend.name());
+
+            assertEquals(39.0, ((Number) engine.execute(script, "main", vars("x", 3.0))).doubleValue());
+            assertEquals(3L, script.getMemoCache().getStats().get("hits"));
+
+            // 读取全局变量的函数每次执行
+            assertEquals(6.0, ((Number) engine.execute(script, "useRate", vars("x", 3.0))).doubleValue());
+            assertEquals(120.0, ((Number) engine.execute(script, "fact", vars("n", 5.0))).doubleValue());
+            assertEquals(true, engine.execute(script, "even", vars("n", 10.0)));
+        }
+    }
+
+    @Test
+    public void testCollectionsAreNotCached() {
+        CompiledScript script = compiler(100, ExecutionBackend.INTERPRETER).compile("test.dsl", SCRIPT, "test");
+        DslEngine engine = new DslEngine();
+        Object first = engine.execute(script, "pair", vars("x", 1.0));
+        Object second = engine.execute(script, "pair", vars("x", 1.0));
+        assertEquals(first, second);
+        assertNotSame(first, second);
+        assertEquals(0L, script.getMemoCache().getStats().get("hits"));
+        assertEquals(0L, script.getMemoCache().getStats().get("size"));
+    }
+
+    @Test
+    public void testDisabledAndInstrumentedVersionsDoNotCache() {
+        assertNull(compiler(0, ExecutionBackend.INTERPRETER).compile("test.dsl", SCRIPT, "test").getMemoCache());
+        DslCompiler compiler = compiler(100, ExecutionBackend.INTERPRETER);
+        assertNull(compiler.compileTraced("test.dsl", SCRIPT, "test").getMemoCache());
+        assertNull(compiler.compileProfiled("test.dsl", SCRIPT, "test").getMemoCache());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testReloadStartsWithEmptyCache() {
+        DslScriptCache cache = new DslScriptCache(compiler(100, ExecutionBackend.INTERPRETER));
+        DslEngine engine = new DslEngine();
+        CompiledScript first = cache.put("test.dsl", SCRIPT);
+        engine.execute(first, "square", vars("x", 2.0));
+        engine.execute(first, "square", vars("x", 2.0));
+        Map<String, Object> memo = (Map<String, Object>) cache.getStats().get("memo");
+        assertEquals(1L, ((Map<String, Object>) memo.get("test.dsl")).get("hits"));
+
+        CompiledScript reloaded = cache.put("test.dsl", SCRIPT.replace("x * x", "x * x * 2"));
+        assertNotSame(first.getMemoCache(), reloaded.getMemoCache());
+        assertEquals(8.0, ((Number) engine.execute(reloaded, "square", vars("x", 2.0))).doubleValue());
+        assertEquals(0L, reloaded.getMemoCache().getStats().get("hits"));
+
+        cache.invalidate("test.dsl");
+        assertEquals(0L, reloaded.getMemoCache().getStats().get("size"));
+    }
+}
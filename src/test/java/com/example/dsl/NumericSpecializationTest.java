@@ -0,0 +1,42 @@
+package com.example.dsl;
+
+import com.example.dsl.ast.BinaryOperator;
+import com.example.dsl.runtime.DslContext;
+import com.example.dsl.runtime.Frame;
+import com.example.dsl.runtime.node.AddNode;
+import com.example.dsl.runtime.node.ArithmeticNode;
+import com.example.dsl.runtime.node.ComparisonNode;
+import com.example.dsl.runtime.node.LiteralNode;
+import com.example.dsl.runtime.node.ReadLocalNode;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NumericSpecializationTest {
+
+    private static Frame frame(Object... slots) {
+        return new Frame(new DslContext(), slots);
+    }
+
+    @Test
+    public void testIntegerOperandsStaySpecialized() {
+        // JSON上下文中的整数为Integer，如 stock: 5, quantity: 2
+        AddNode add = new AddNode(new ReadLocalNode(0), new LiteralNode(1.5));
+        ArithmeticNode multiply = new ArithmeticNode(BinaryOperator.MUL, new ReadLocalNode(0), new ReadLocalNode(1));
+        ComparisonNode less = new ComparisonNode(BinaryOperator.LT, new ReadLocalNode(0), new LiteralNode(10.0));
+
+        assertEquals(6.5, add.execute(frame(5, 2)));
+        assertEquals(10.0, multiply.execute(frame(5, 2)));
+        assertEquals(true, less.execute(frame(5, 2)));
+        assertEquals(7.5, multiply.execute(frame(2.5, 3L)));
+        assertFalse(add.isGeneric());
+        assertFalse(multiply.isGeneric());
+        assertFalse(less.isGeneric());
+
+        // 非数值仍改为通用路径，语义不变
+        assertEquals("a1.5", add.execute(frame("a", 2)));
+        assertTrue(add.isGeneric());
+        assertEquals(false, new ComparisonNode(BinaryOperator.LT, new ReadLocalNode(0), new LiteralNode(10.0))
+                .execute(frame(true)));
+    }
+}
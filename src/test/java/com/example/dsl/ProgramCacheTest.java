@@ -0,0 +1,142 @@
+package com.example.dsl;
+
+import com.example.config.DslProperties;
+import com.example.dsl.ast.AstPrinter;
+import com.example.dsl.ast.Program;
+import com.example.dsl.compiler.DslCompiler;
+import com.example.dsl.compiler.ProgramCache;
+import com.example.dsl.optimizer.AstOptimizer;
+import com.example.dsl.parser.DslParser;
+import com.example.dsl.runtime.CompiledScript;
+import com.example.dsl.runtime.DslEngine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProgramCacheTest {
+
+    private static final String SCRIPT = "var rate = 0.5;\n"
+            + "function f(order) {\n"
+            + "    var tags = [\"a\", null, true];\n"
+            + "    if ((order.amount > 100) && !(order.vip == false)) {\n"
+            + "        return {total: (order.amount) * rate, \"tags\": tags[0]};\n"
+            + "    } else {\n"
+            + "        for (item in order.items) { print(current); }\n"
+            + "    }\n"
+            + "    return -1;\n"
+            + "}\n";
+
+    private Path directory;
+
+    private Path file;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("program-cache");
+        file = directory.resolve("programs.bin");
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private ProgramCache cache() {
+        DslProperties properties = new DslProperties();
+        properties.setProgramCacheFile(file.toString());
+        ProgramCache cache = new ProgramCache(properties);
+        cache.load();
+        return cache;
+    }
+
+    private DslCompiler compiler(ProgramCache cache) {
+        return new DslCompiler(new DslParser(), new DslProperties(), AstOptimizer.defaultOptimizer(), cache);
+    }
+
+    @Test
+    public void testRestartDecodesCachedProgram() throws Exception {
+        ProgramCache first = cache();
+        DslCompiler compiler = compiler(first);
+        Program parsed = compiler.parse(SCRIPT);
+        compiler.compile("test.dsl", SCRIPT, "hash");
+        assertEquals(0, first.getHits());
+        assertEquals(1, first.getMisses());
+        first.flush();
+        assertTrue(Files.exists(file));
+
+        // 模拟重启：新实例映射文件后直接解码
+        ProgramCache restarted = cache();
+        Program decoded = restarted.get("hash");
+        assertNotNull(decoded);
+        assertEquals(AstPrinter.print(parsed), AstPrinter.print(decoded));
+        assertEquals(parsed.getFunctions().get(0).getLine(), decoded.getFunctions().get(0).getLine());
+        assertNull(restarted.get("other"));
+
+        CompiledScript script = compiler(restarted).compile("test.dsl", SCRIPT, "hash");
+        assertEquals(2, restarted.getHits());
+        Map<String, Object> order = new HashMap<>();
+        order.put("amount", 50.0);
+        order.put("items", Collections.emptyList());
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("order", order);
+        assertEquals(-1.0, new DslEngine().execute(script, "f", variables));
+    }
+
+    @Test
+    public void testCorruptFileFallsBackToParsing() throws Exception {
+        ProgramCache cache = cache();
+        compiler(cache).compile("test.dsl", SCRIPT, "hash");
+        cache.flush();
+
+        // 破坏最后一个字节，条目校验失败
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 0x5A;
+        Files.write(file, bytes);
+        ProgramCache corrupted = cache();
+        assertNull(corrupted.get("hash"));
+        CompiledScript script = compiler(corrupted).compile("test.dsl", SCRIPT, "hash");
+        assertNotNull(script.getFunction("f"));
+
+        // 重新写入后恢复可用
+        corrupted.flush();
+        assertNotNull(cache().get("hash"));
+
+        // 截断和无关内容都忽略整个文件
+        Files.write(file, Arrays.copyOf(bytes, 20));
+        assertNull(cache().get("hash"));
+        Files.write(file, "not a cache".getBytes(StandardCharsets.UTF_8));
+        assertNull(cache().get("hash"));
+    }
+
+    @Test
+    public void testFlushDropsUnusedEntries() throws Exception {
+        ProgramCache cache = cache();
+        DslCompiler compiler = compiler(cache);
+        compiler.compile("a.dsl", SCRIPT, "a");
+        compiler.compile("b.dsl", "function g() { return 1; }", "b");
+        cache.flush();
+
+        ProgramCache restarted = cache();
+        assertNotNull(restarted.get("a"));
+        restarted.flush();
+        ProgramCache next = cache();
+        assertNotNull(next.get("a"));
+        assertNull(next.get("b"));
+        assertFalse(Files.exists(Paths.get(file + ".tmp")));
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.dsl;
+
+import com.example.dsl.compiler.DslCompiler;
+import com.example.dsl.runtime.CompiledScript;
+import com.example.dsl.runtime.DslEngine;
+import com.example.dsl.runtime.ExecutionBackend;
+import com.example.dsl.runtime.RuleSet;
+import com.example.dsl.runtime.builtin.Builtin;
+import com.example.dsl.runtime.builtin.BuiltinRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RuleSetTest {
+
+    private static final String PRICING = ""
+            + "function price(product, userId) {\n"
+            + "    var stock = product[\"stock\"];\n"
+            + "    var category = product[\"category\"];\n"
+            + "    var base = product[\"basePrice\"];\n"
+            + "    var rate = 1;\n"
+            + "    if ((probe(category) == \"electronics\") && (stock < 10)) { rate = 1.1; }\n"
+            + "    if (stock > 100) { rate = 0.9; }\n"
+            + "    return base * rate;\n"
+            + "}\n";
+
+    // 条件写法不同但与PRICING相同；顶层变量和循环变量不是上下文变量
+    private static final String DISCOUNT = ""
+            + "var bonus = 2;\n"
+            + "function discount(product, userId) {\n"
+            + "    var rate = 1;\n"
+            + "    if ((\"electronics\" == probe(product[\"category\"])) && ((product[\"stock\"]) < 10)) { rate = 0.8; }\n"
+            + "    if (bonus > 1) { rate = rate * 0.5; }\n"
+            + "    for (tag in product[\"tags\"]) { if (current == \"sale\") { rate = rate * 0.5; } }\n"
+            + "    return rate;\n"
+            + "}\n";
+
+    // 重新赋值的局部变量和参数不按上下文变量共享
+    private static final String STOCK = ""
+            + "function restock(product, userId) {\n"
+            + "    var stock = product[\"stock\"];\n"
+            + "    stock = stock + 100;\n"
+            + "    if (stock < 10) { return \"low\"; }\n"
+            + "    userId = \"VIP\";\n"
+            + "    if (userId == \"VIP\") { return \"vip\"; }\n"
+            + "    return \"normal\";\n"
+            + "}\n";
+
+    private final AtomicInteger probes = new AtomicInteger();
+
+    private DslCompiler compiler(ExecutionBackend backend) {
+        Builtin probe = Builtin.builder("probe").pure().arity1(value -> {
+            probes.incrementAndGet();
+            return value;
+        }).build();
+        return TestCompilers.compiler(TestCompilers.options(backend),
+                new BuiltinRegistry(Collections.singletonList(probe)));
+    }
+
+    private List<RuleSet.Rule> rules(DslCompiler compiler) {
+        return Arrays.asList(
+                new RuleSet.Rule(compiler.compile("pricing.dsl", PRICING, "pricing"), "price"),
+                new RuleSet.Rule(compiler.compile("discount.dsl", DISCOUNT, "discount"), "discount"),
+                new RuleSet.Rule(compiler.compile("stock.dsl", STOCK, "stock"), "restock"));
+    }
+
+    private Map<String, Object> order(String category, int stock, String... tags) {
+        Map<String, Object> product = new HashMap<>();
+        product.put("category", category);
+        product.put("stock", stock);
+        product.put("basePrice", 100.0);
+        product.put("tags", Arrays.asList(tags));
+        Map<String, Object> order = new HashMap<>();
+        order.put("product", product);
+        order.put("userId", "USER001");
+        return order;
+    }
+
+    @Test
+    public void testSameResultsAsSeparateExecution() {
+        List<Map<String, Object>> orders = Arrays.asList(order("electronics", 5, "sale"),
+                order("electronics", 50), order("clothing", 500, "new", "sale"), order(null, 5));
+        DslEngine engine = new DslEngine();
+        for (ExecutionBackend backend : ExecutionBackend.values()) {
+            DslCompiler compiler = compiler(backend);
+            List<RuleSet.Rule> rules = rules(compiler);
+            RuleSet ruleSet = compiler.compileRuleSet(rules);
+            assertTrue(ruleSet.matches(rules));
+            for (Map<String, Object> order : orders) {
+                List<Object> separate = new ArrayList<>();
+                for (RuleSet.Rule rule : rules) {
+                    separate.add(engine.execute(rule.getScript(), rule.getFunctionName(), order));
+                }
+                List<RuleSet.Result> results = engine.execute(ruleSet, order);
+                assertEquals(rules.size(), results.size());
+                for (int i = 0; i < results.size(); i++) {
+                    assertTrue(results.get(i).isSuccess(), backend + ": " + results.get(i).getName());
+                    assertEquals(rules.get(i).getName(), results.get(i).getName());
+                    assertEquals(separate.get(i), results.get(i).getResult(), backend + ": " + order);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSharedConditionsEvaluatedOncePerOrder() {
+        for (ExecutionBackend backend : ExecutionBackend.values()) {
+            DslCompiler compiler = compiler(backend);
+            List<RuleSet.Rule> rules = rules(compiler);
+            RuleSet ruleSet = compiler.compileRuleSet(rules);
+            // 两个脚本的类别比较、库存比较和两者的与运算各只有一个
+            assertTrue(ruleSet.getConditionCount() < ruleSet.getConditionSites(), backend.name());
+
+            DslEngine engine = new DslEngine();
+            Map<String, Object> order = order("electronics", 5);
+            probes.set(0);
+            engine.execute(rules.get(0).getScript(), "price", order);
+            engine.execute(rules.get(1).getScript(), "discount", order);
+            assertEquals(2, probes.get(), backend.name());
+
+            probes.set(0);
+            List<RuleSet.Result> results = engine.execute(ruleSet, order);
+            assertEquals(1, probes.get(), backend.name());
+            assertEquals(110.00000000000001, results.get(0).getResult());
+            assertEquals(0.4, results.get(1).getResult());
+            assertEquals("vip", results.get(2).getResult());
+
+            // 每个订单重新求值
+            engine.execute(ruleSet, order("clothing", 5));
+            assertEquals(2, probes.get(), backend.name());
+        }
+    }
+
+    @Test
+    public void testFailureIsolatedPerScript() {
+        DslCompiler compiler = compiler(ExecutionBackend.INTERPRETER);
+        List<RuleSet.Rule> rules = new ArrayList<>(rules(compiler));
+        CompiledScript broken = compiler.compile("broken.dsl",
+                "function broken(product) { var tags = product[\"tags\"]; return tags[\"x\"]; }", "broken");
+        assertThrows(IllegalArgumentException.class, () -> new RuleSet.Rule(broken, "missing"));
+        rules.add(new RuleSet.Rule(broken, "broken"));
+        List<RuleSet.Result> results = new DslEngine().execute(compiler.compileRuleSet(rules), order("electronics", 5));
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(3).isSuccess());
+        assertNotNull(results.get(3).getError());
+    }
+}
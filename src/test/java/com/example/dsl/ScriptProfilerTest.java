@@ -0,0 +1,114 @@
+package com.example.dsl;
+
+import com.example.config.DslProperties;
+import com.example.dsl.compiler.DslCompiler;
+import com.example.dsl.optimizer.AstOptimizer;
+import com.example.dsl.parser.DslParser;
+import com.example.dsl.runtime.CompiledScript;
+import com.example.dsl.runtime.DslEngine;
+import com.example.dsl.runtime.profile.ProfileSession;
+import com.example.dsl.runtime.profile.ProfileStack;
+import com.example.dsl.runtime.profile.ScriptProfiler;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScriptProfilerTest {
+
+    private static final String SCRIPT = "function hot(items) {\n"
+            + "    total = 0;\n"
+            + "    for (x in items) {\n"
+            + "        total = total + sum(x, x * 2, x * 3);\n"
+            + "    }\n"
+            + "    return total;\n"
+            + "}\n"
+            + "function main(items) {\n"
+            + "    base = 1;\n"
+            + "    return hot(items) + base;\n"
+            + "}\n";
+
+    private final DslCompiler compiler = new DslCompiler(new DslParser(), new DslProperties(), AstOptimizer.defaultOptimizer());
+
+    private final DslEngine engine = new DslEngine();
+
+    private Map<String, Object> variables() {
+        List<Object> items = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            items.add((double) i);
+        }
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("items", items);
+        return variables;
+    }
+
+    @Test
+    public void testProfiledScriptProducesSameResult() {
+        CompiledScript plain = compiler.compile("test.dsl", SCRIPT, "test");
+        CompiledScript profiled = compiler.compileProfiled("test.dsl", SCRIPT, "test");
+        Object expected = engine.execute(plain, "main", variables());
+        // 没有剖析栈时剖析版本照常执行
+        assertEquals(expected, engine.execute(profiled, "main", variables()));
+
+        ScriptProfiler profiler = new ScriptProfiler(new DslProperties());
+        ProfileSession session = profiler.start("test.dsl", 10);
+        ProfileStack stack = session.begin();
+        assertEquals(expected, engine.execute(profiled, "main", variables(), null, stack));
+        session.end(stack);
+        profiler.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testAttributesTimeToHotLine() {
+        DslProperties properties = new DslProperties();
+        properties.setProfileSampleIntervalMicros(200);
+        ScriptProfiler profiler = new ScriptProfiler(properties);
+        CompiledScript profiled = compiler.compileProfiled("test.dsl", SCRIPT, "test");
+        Map<String, Object> variables = variables();
+
+        ProfileSession session = profiler.start("test.dsl", 10);
+        assertSame(session, profiler.getActiveSession("test.dsl"));
+        assertNull(profiler.getActiveSession("other.dsl"));
+        long deadline = System.currentTimeMillis() + 500;
+        while (System.currentTimeMillis() < deadline) {
+            ProfileStack stack = session.begin();
+            try {
+                engine.execute(profiled, "main", variables, null, stack);
+            } finally {
+                session.end(stack);
+            }
+        }
+        profiler.stop("test.dsl");
+        assertNull(profiler.getActiveSession("test.dsl"));
+
+        Map<String, Object> report = session.report();
+        assertFalse((Boolean) report.get("active"));
+        assertTrue((Long) report.get("samples") > 10, "samples: " + report.get("samples"));
+
+        // 循环体所在的第4行总时间最多，内置函数sum作为它的下一层出现
+        List<Map<String, Object>> lines = (List<Map<String, Object>>) report.get("lines");
+        Map<String, Object> hottest = lines.stream()
+                .filter(row -> "hot".equals(row.get("function")))
+                .max((a, b) -> Long.compare((Long) a.get("totalMicros"), (Long) b.get("totalMicros")))
+                .orElseThrow(AssertionError::new);
+        assertEquals(4, hottest.get("line"));
+
+        List<Map<String, Object>> functions = (List<Map<String, Object>>) report.get("functions");
+        Map<String, Object> main = functions.stream().filter(row -> "main".equals(row.get("function")))
+                .findFirst().orElseThrow(AssertionError::new);
+        assertEquals(report.get("sampledMicros"), main.get("totalMicros"));
+
+        String collapsed = session.collapsed("time");
+        assertTrue(collapsed.contains("main:10;hot:4"), collapsed);
+        assertTrue(collapsed.contains("main:10;hot:4;sum "), collapsed);
+        for (String line : collapsed.split("\n")) {
+            assertTrue(line.matches("[^ ]+ \\d+"), line);
+        }
+        profiler.shutdown();
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.dsl;
+
+import com.example.config.DslProperties;
+import com.example.dsl.compiler.DslCompiler;
+import com.example.dsl.optimizer.AstOptimizer;
+import com.example.dsl.parser.DslParser;
+import com.example.dsl.runtime.CompiledScript;
+import com.example.dsl.runtime.DslBatchExecutor;
+import com.example.dsl.runtime.DslEngine;
+import com.example.service.StreamingJob;
+import com.example.service.StreamingJobService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StreamingJobServiceTest {
+
+    @Test
+    public void testStreamsResultsInInputOrder() throws Exception {
+        DslProperties properties = new DslProperties();
+        // 每批3条，验证跨批次时行号和顺序正确
+        properties.setStreamChunkSize(3);
+        DslEngine engine = new DslEngine();
+        DslBatchExecutor executor = new DslBatchExecutor(engine, properties);
+        ObjectMapper mapper = new ObjectMapper();
+        StreamingJobService service = new StreamingJobService(null, engine, executor, properties, mapper);
+        CompiledScript script = new DslCompiler(new DslParser(), properties, AstOptimizer.defaultOptimizer())
+                .compile("test.dsl", "function f(x) { return -x; }", "test");
+        try {
+            StringBuilder input = new StringBuilder();
+            for (int i = 0; i < 10; i++) {
+                input.append(i == 4 ? "{\"x\": \"bad\"}" : "{\"x\": " + i + "}").append('\n');
+                if (i == 6) {
+                    input.append("\n{broken\n");
+                }
+            }
+            byte[] bytes = input.toString().getBytes(StandardCharsets.UTF_8);
+            StreamingJob job = service.createJob(script, "f", "test", null, bytes.length);
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            service.run(job, new ByteArrayInputStream(bytes), output);
+
+            String[] lines = new String(output.toByteArray(), StandardCharsets.UTF_8).split("\n");
+            assertEquals(11, lines.length);
+            assertEquals(StreamingJob.State.COMPLETED, job.getState());
+            assertEquals(11, job.getProcessed().get());
+            assertEquals(2, job.getFailed().get());
+            assertEquals((long) bytes.length, job.getBytesRead().get());
+            assertEquals(1.0, job.toStatus().get("progress"));
+
+            Map<?, ?> second = mapper.readValue(lines[1], Map.class);
+            assertEquals(2, second.get("line"));
+            assertEquals(true, second.get("success"));
+            assertEquals(-1.0, ((Map<?, ?>) second.get("data")).get("result"));
+
+            Map<?, ?> bad = mapper.readValue(lines[4], Map.class);
+            assertEquals(5, bad.get("line"));
+            assertEquals(false, bad.get("success"));
+            assertNotNull(bad.get("error"));
+
+            // 空行跳过但计入行号，格式错误的行单独报错
+            Map<?, ?> broken = mapper.readValue(lines[7], Map.class);
+            assertEquals(9, broken.get("line"));
+            assertEquals(false, broken.get("success"));
+            assertEquals(-9.0, ((Map<?, ?>) mapper.readValue(lines[10], Map.class).get("data")).get("result"));
+        } finally {
+            executor.shutdown();
+            service.shutdown();
+        }
+    }
+
+    @Test
+    public void testOversizedLineFailsOnlyThatLine() throws Exception {
+        DslProperties properties = new DslProperties();
+        properties.setStreamChunkSize(2);
+        properties.setStreamMaxLineBytes(16);
+        DslEngine engine = new DslEngine();
+        DslBatchExecutor executor = new DslBatchExecutor(engine, properties);
+        ObjectMapper mapper = new ObjectMapper();
+        StreamingJobService service = new StreamingJobService(null, engine, executor, properties, mapper);
+        CompiledScript script = new DslCompiler(new DslParser(), properties, AstOptimizer.defaultOptimizer())
+                .compile("test.dsl", "function f(x) { return -x; }", "test");
+        try {
+            StringBuilder huge = new StringBuilder("{\"x\": 1, \"pad\": \"");
+            for (int i = 0; i < 100000; i++) {
+                huge.append('a');
+            }
+            huge.append("\"}");
+            // 最后一行没有换行符，超长行之后的记录照常执行
+            String input = "{\"x\": 1}\r\n" + huge + "\n{\"x\": 3}\n{\"x\": 4}";
+            byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+            StreamingJob job = service.createJob(script, "f", "test", null, bytes.length);
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            service.run(job, new ByteArrayInputStream(bytes), output);
+
+            String[] lines = new String(output.toByteArray(), StandardCharsets.UTF_8).split("\n");
+            assertEquals(4, lines.length);
+            assertEquals(StreamingJob.State.COMPLETED, job.getState());
+            assertEquals(1, job.getFailed().get());
+            assertEquals(-1.0, ((Map<?, ?>) mapper.readValue(lines[0], Map.class).get("data")).get("result"));
+            Map<?, ?> oversized = mapper.readValue(lines[1], Map.class);
+            assertEquals(2, oversized.get("line"));
+            assertEquals(false, oversized.get("success"));
+            assertEquals("输入行超过16字节", oversized.get("error"));
+            assertEquals(-4.0, ((Map<?, ?>) mapper.readValue(lines[3], Map.class).get("data")).get("result"));
+        } finally {
+            executor.shutdown();
+            service.shutdown();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.dsl;
+
+import com.example.dsl.runtime.CompiledScript;
+import com.example.dsl.runtime.DslEngine;
+import com.example.dsl.runtime.ExecutionBackend;
+import com.example.dsl.runtime.ScriptOptions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SwitchDispatchTest {
+
+    private static final String SCRIPT = ""
+            + "function discount(productId) {\n"
+            + "    var rate = 0;\n"
+            + "    if (productId == \"A\") { rate = 1; }\n"
+            + "    else if (\"B\" == productId) { rate = 2; }\n"
+            + "    else if (productId == \"C\") { return 3; }\n"
+            + "    else if (productId == \"A\") { rate = 99; }\n"
+            + "    else if (productId == null) { rate = -1; }\n"
+            + "    else if (productId == 5) { rate = 5; }\n"
+            + "    else if (productId == true) { rate = 6; }\n"
+            + "    else if (rate == 0) { rate = 7; }\n"
+            + "    else { rate = 8; }\n"
+            + "    return rate;\n"
+            + "}\n"
+            + "function short(productId) {\n"
+            + "    if (productId == \"A\") { return 1; } else if (productId == \"B\") { return 2; }\n"
+            + "    return 0;\n"
+            + "}\n";
+
+    private final DslEngine engine = new DslEngine();
+
+    private CompiledScript compile(ExecutionBackend backend, boolean optimize) {
+        ScriptOptions options = TestCompilers.options(backend);
+        options.setOptimize(optimize);
+        return TestCompilers.compiler(options).compile("switch.dsl", SCRIPT, "switch");
+    }
+
+    private Object discount(CompiledScript script, Object productId) {
+        return engine.execute(script, "discount", Collections.singletonMap("productId", productId));
+    }
+
+    @Test
+    public void testSameResultAsSequentialComparison() {
+        CompiledScript sequential = compile(ExecutionBackend.INTERPRETER, false);
+        Object[] inputs = {"A", "B", "C", null, 5.0, 5, true, false, "D"};
+        for (ExecutionBackend backend : ExecutionBackend.values()) {
+            CompiledScript dispatched = compile(backend, true);
+            for (Object input : inputs) {
+                assertEquals(discount(sequential, input), discount(dispatched, input), backend + ": " + input);
+            }
+        }
+    }
+
+    @Test
+    public void testDispatch() {
+        for (ExecutionBackend backend : ExecutionBackend.values()) {
+            CompiledScript script = compile(backend, true);
+            // 重复的常量以第一个分支为准
+            assertEquals(1.0, discount(script, "A"));
+            assertEquals(2.0, discount(script, "B"));
+            assertEquals(3.0, discount(script, "C"));
+            assertEquals(-1.0, discount(script, null));
+            assertEquals(5.0, discount(script, 5.0));
+            // 与==一致，Integer与Double常量不相等，落到后面不符合条件的else if
+            assertEquals(7.0, discount(script, 5));
+            assertEquals(6.0, discount(script, true));
+            assertEquals(7.0, discount(script, "D"));
+            assertEquals(2.0, engine.execute(script, "short", Collections.singletonMap("productId", "B")));
+        }
+    }
+}
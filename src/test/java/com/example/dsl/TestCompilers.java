@@ -0,0 +1,63 @@
+package com.example.dsl;
+
+import com.example.config.DslProperties;
+import com.example.dsl.compiler.DslCompiler;
+import com.example.dsl.compiler.ProgramCache;
+import com.example.dsl.optimizer.AstOptimizer;
+import com.example.dsl.parser.DslParser;
+import com.example.dsl.runtime.ExecutionBackend;
+import com.example.dsl.runtime.ScriptOptions;
+import com.example.dsl.runtime.builtin.BuiltinRegistry;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 测试共用的编译器和变量表
+ */
+final class TestCompilers {
+
+    private TestCompilers() {
+    }
+
+    // 指定后端的脚本选项，其余为默认值
+    static ScriptOptions options(ExecutionBackend backend) {
+        ScriptOptions options = new ScriptOptions();
+        options.setBackend(backend);
+        return options;
+    }
+
+    // 以options为所有脚本默认选项的配置
+    static DslProperties properties(ScriptOptions options) {
+        DslProperties properties = new DslProperties();
+        properties.setDefaults(options);
+        return properties;
+    }
+
+    static DslCompiler compiler(DslProperties properties) {
+        return new DslCompiler(new DslParser(), properties, AstOptimizer.defaultOptimizer());
+    }
+
+    static DslCompiler compiler(ScriptOptions options) {
+        return compiler(properties(options));
+    }
+
+    static DslCompiler compiler(ExecutionBackend backend) {
+        return compiler(options(backend));
+    }
+
+    // 使用指定内置函数的编译器，不使用持久化缓存
+    static DslCompiler compiler(ScriptOptions options, BuiltinRegistry registry) {
+        return new DslCompiler(new DslParser(), properties(options), AstOptimizer.defaultOptimizer(),
+                ProgramCache.disabled(), registry);
+    }
+
+    // 按名称、值交替给出的变量表
+    static Map<String, Object> vars(Object... pairs) {
+        Map<String, Object> variables = new HashMap<>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            variables.put((String) pairs[i], pairs[i + 1]);
+        }
+        return variables;
+    }
+}